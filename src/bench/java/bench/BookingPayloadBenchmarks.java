@@ -0,0 +1,46 @@
+package bench;
+
+import builders.BookingDataBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openqa.selenium.json.Json;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of producing one request body: the map form most tests hand to RestAssured, and the direct JSON writer.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BookingPayloadBenchmarks extends BenchmarkDefaults {
+
+    private final Json json = new Json();
+    private int sequence;
+
+    private BookingDataBuilder builder() {
+        return new BookingDataBuilder()
+                .setFirstname("Guest" + (sequence++ & 1023))
+                .setLastname("Bench")
+                .setTotalPrice(150)
+                .setBookingDates("2026-03-01", "2026-03-04");
+    }
+
+    @Benchmark
+    public Map<String, Object> build() {
+        return builder().build();
+    }
+
+    @Benchmark
+    public String buildAndSerializeMap() {
+        // Stands in for RestAssured's reflective body mapping of the built map.
+        return json.toJson(builder().build());
+    }
+
+    @Benchmark
+    public String toJson() {
+        return builder().toJson();
+    }
+}
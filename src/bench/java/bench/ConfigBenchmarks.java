@@ -0,0 +1,50 @@
+package bench;
+
+import core.Config;
+import core.ConfigManager;
+import core.ConfigReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Property lookups sit on every step's path; these should stay map reads, whichever facade is used.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@SuppressWarnings("deprecation")
+public class ConfigBenchmarks extends BenchmarkDefaults {
+
+    private static final Config.Key<Duration> TIMEOUT = Config.durationKey("timeout", ChronoUnit.SECONDS, Duration.ofSeconds(10));
+
+    @Benchmark
+    public String configManager() {
+        return ConfigManager.getProperty("base.url");
+    }
+
+    @Benchmark
+    public int configManagerInt() {
+        return ConfigManager.getIntProperty("db.pool.size", 8);
+    }
+
+    @Benchmark
+    public String configReader() {
+        return ConfigReader.getProperty("api.base.url");
+    }
+
+    @Benchmark
+    public Duration typedKey() {
+        return Config.get(TIMEOUT);
+    }
+
+    @Benchmark
+    public String missingKey() {
+        // Falls through every layer, including the environment-variable spelling.
+        return Config.get("bench.no.such.key", "fallback");
+    }
+}
@@ -0,0 +1,76 @@
+package bench;
+
+import builders.BookingGenerator;
+import core.BulkLoader;
+import core.DBManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What DBManager adds on top of H2 itself: pool borrow, statement handling and row mapping.
+ * The table is seeded once per fork from a fixed generator seed, so every run reads the same rows; rows inserted by
+ * {@link #insert} are dropped before each iteration, so every iteration measures the same table size.
+ */
+@State(Scope.Benchmark)
+public class DbBenchmarks extends BenchmarkDefaults {
+
+    private static final String URL = "jdbc:h2:mem:bench_db;DB_CLOSE_DELAY=-1";
+
+    @Param({"1", "100"})
+    public int rows;
+
+    private static final int FIRST_INSERTED_ID = 1_000_000;
+
+    private DBManager db;
+    private int nextId;
+
+    @Setup(Level.Trial)
+    public void seed() {
+        db = new DBManager(URL);
+        db.executeUpdate("DELETE FROM bookings");
+        new BulkLoader(db).loadGenerated(new BookingGenerator(42L, 1, LocalDate.of(2026, 1, 1)), 10_000);
+    }
+
+    @Setup(Level.Iteration)
+    public void dropInsertedRows() {
+        db.update("DELETE FROM bookings WHERE booking_id >= ?", FIRST_INSERTED_ID);
+        nextId = FIRST_INSERTED_ID;
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> executeQuery() {
+        // Literal SQL on purpose: this is the legacy path step definitions still use.
+        return db.executeQuery("SELECT * FROM bookings WHERE booking_id <= " + rows);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> query() {
+        return db.query("SELECT * FROM bookings WHERE booking_id <= ?", rows);
+    }
+
+    @Benchmark
+    public void executeUpdate() {
+        db.executeUpdate("UPDATE bookings SET totalprice = totalprice + 1 WHERE booking_id <= " + rows);
+    }
+
+    @Benchmark
+    public int update() {
+        return db.update("UPDATE bookings SET totalprice = totalprice + 1 WHERE booking_id <= ?", rows);
+    }
+
+    @Benchmark
+    public int insert() {
+        // Ascending keys: H2 appends at the end of the primary index, which is the cheap case the framework hits
+        // when seeding.
+        return db.update("INSERT INTO bookings (booking_id, firstname, lastname, totalprice) VALUES (?, ?, ?, ?)",
+                nextId++, "Bench", "Mark", 100);
+    }
+}
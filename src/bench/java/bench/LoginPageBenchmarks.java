@@ -0,0 +1,68 @@
+package bench;
+
+import core.Config;
+import core.DriverFactory;
+import core.StubServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.WebDriver;
+import pages.LoginPage;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The login flow through the page object against the in-process stub, in headless Chrome. This is mostly browser
+ * and WebDriver round trips; the point is to catch framework changes that add commands or waits to the flow.
+ * Needs a local Chrome; exclude it with -Dbench.include='bench\.(Db|Config|BookingPayload).*' where there is none.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-XX:+UseG1GC", "-Dconfig.profile=bench"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class LoginPageBenchmarks extends BenchmarkDefaults {
+
+    private StubServer stub;
+    private WebDriver driver;
+    private LoginPage page;
+    private String loginUrl;
+
+    @Setup(Level.Trial)
+    public void start() {
+        stub = new StubServer(0, "jdbc:h2:mem:bench_stub;DB_CLOSE_DELAY=-1", 4, true);
+        loginUrl = stub.baseUrl() + "/login";
+        Config.override("headless", "true");
+        Config.override("driver.pool.enabled", "false");
+        DriverFactory.setupDriver(Config.get("browser", "chrome"));
+        driver = DriverFactory.getDriver();
+        page = new LoginPage(driver);
+    }
+
+    @Benchmark
+    public String validLogin() {
+        driver.get(loginUrl);
+        page.login("tomsmith", "SuperSecretPassword!");
+        return page.getFlashMessageText();
+    }
+
+    @Benchmark
+    public String invalidLogin() {
+        driver.get(loginUrl);
+        page.login("tomsmith", "wrong");
+        return page.getFlashMessageText();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        DriverFactory.quitDriver();
+        stub.stop();
+    }
+}
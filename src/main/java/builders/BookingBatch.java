@@ -0,0 +1,75 @@
+package builders;
+
+/**
+ * Column-major block of generated bookings: one primitive array per field.
+ * A batch is allocated once and refilled by {@link BookingGenerator#fill(long, int, BookingBatch)},
+ * so generating millions of rows costs no per-row allocation at all.
+ */
+public final class BookingBatch {
+    final int[] ids;
+    final String[] firstnames;
+    final String[] lastnames;
+    final int[] totalprices;
+    final boolean[] depositpaid;
+    final int[] checkinEpochDays;
+    final int[] checkoutEpochDays;
+    final String[] additionalneeds;
+    int size;
+
+    public BookingBatch(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Batch capacity must be at least 1, got " + capacity);
+        }
+        ids = new int[capacity];
+        firstnames = new String[capacity];
+        lastnames = new String[capacity];
+        totalprices = new int[capacity];
+        depositpaid = new boolean[capacity];
+        checkinEpochDays = new int[capacity];
+        checkoutEpochDays = new int[capacity];
+        additionalneeds = new String[capacity];
+    }
+
+    public int capacity() {
+        return ids.length;
+    }
+
+    /**
+     * Rows filled by the last call to {@link BookingGenerator#fill(long, int, BookingBatch)}.
+     */
+    public int size() {
+        return size;
+    }
+
+    public int id(int row) {
+        return ids[row];
+    }
+
+    public String firstname(int row) {
+        return firstnames[row];
+    }
+
+    public String lastname(int row) {
+        return lastnames[row];
+    }
+
+    public int totalprice(int row) {
+        return totalprices[row];
+    }
+
+    public boolean depositpaid(int row) {
+        return depositpaid[row];
+    }
+
+    public int checkinEpochDay(int row) {
+        return checkinEpochDays[row];
+    }
+
+    public int checkoutEpochDay(int row) {
+        return checkoutEpochDays[row];
+    }
+
+    public String additionalneeds(int row) {
+        return additionalneeds[row];
+    }
+}
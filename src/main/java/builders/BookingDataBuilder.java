@@ -9,6 +9,7 @@ public class BookingDataBuilder {
     private int totalprice;
     private boolean depositpaid = true;
     private Map<String, String> bookingdates = new HashMap<>();
+    private String additionalneeds = "Breakfast";
 
     public BookingDataBuilder() {
         // Safe defaults prevent API '400 Bad Request' errors for tests that don't care about dates.
@@ -32,6 +33,25 @@ public class BookingDataBuilder {
         return this;
     }
 
+    public BookingDataBuilder setDepositPaid(boolean depositpaid) {
+        this.depositpaid = depositpaid;
+        return this;
+    }
+
+    /**
+     * Dates in ISO format (yyyy-MM-dd), which is what the booking API expects.
+     */
+    public BookingDataBuilder setBookingDates(String checkin, String checkout) {
+        bookingdates.put("checkin", checkin);
+        bookingdates.put("checkout", checkout);
+        return this;
+    }
+
+    public BookingDataBuilder setAdditionalNeeds(String additionalneeds) {
+        this.additionalneeds = additionalneeds;
+        return this;
+    }
+
     /**
      * Final assembly of the payload.
      * If the API schema changes (e.g., 'additionalneeds' becomes mandatory),
@@ -46,7 +66,16 @@ public class BookingDataBuilder {
         booking.put("totalprice", this.totalprice);
         booking.put("depositpaid", this.depositpaid);
         booking.put("bookingdates", this.bookingdates);
-        booking.put("additionalneeds", "Breakfast");
+        booking.put("additionalneeds", this.additionalneeds);
         return booking;
     }
-}
\ No newline at end of file
+
+    /**
+     * Serializes the payload straight to JSON without the intermediate maps,
+     * so callers can send it as a raw body instead of going through RestAssured's reflective mapper.
+     */
+    public String toJson() {
+        return BookingJson.toJson(firstname, lastname, totalprice, depositpaid,
+                bookingdates.get("checkin"), bookingdates.get("checkout"), additionalneeds);
+    }
+}
@@ -0,0 +1,186 @@
+package builders;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Seeded, deterministic source of synthetic bookings for load and volume tests.
+ * Booking #i is a pure function of (seed, i): the same seed always yields the same data set, any index can be
+ * generated without producing the ones before it, and ranges can be split across threads with no coordination.
+ * Ids are {@code firstId + i}, so every booking in a run is distinct.
+ */
+public final class BookingGenerator {
+
+    // Fixed pools, so names are shared String instances rather than a new allocation per booking.
+    private static final String[] FIRST_NAMES = {
+            "Sergei", "John", "Jane", "Maria", "Ahmed", "Li", "Olga", "Carlos", "Aisha", "Kenji", "Fatima", "Lucas",
+            "Emma", "Noah", "Sofia", "Ivan", "Priya", "Mateo", "Yuki", "Omar", "Elena", "Hugo", "Zara", "Pavel",
+            "Chloe", "Diego", "Nadia", "Felix", "Ingrid", "Tomasz", "Amara", "Viktor"
+    };
+    private static final String[] LAST_NAMES = {
+            "Zver", "Doe", "Smith", "Garcia", "Kowalski", "Nguyen", "Ivanova", "Okafor", "Tanaka", "Muller", "Rossi",
+            "Silva", "Haddad", "Larsen", "Novak", "Petrov", "Khan", "Dubois", "Jensen", "Moreau", "Fischer", "Costa",
+            "Sato", "Popescu", "Horvat", "Lindqvist", "O'Brien", "Van Dijk", "Schmidt", "Mendes", "Rahman", "Yilmaz"
+    };
+    private static final String[] EXTRAS = {"Breakfast", "Lunch", "Dinner", "Late checkout", "Airport transfer", "None"};
+
+    private static final int MIN_PRICE = 50;
+    private static final int PRICE_SPREAD = 4951;
+    private static final int CHECKIN_WINDOW_DAYS = 730;
+    private static final int MAX_NIGHTS = 14;
+
+    private final long seed;
+    private final int firstId;
+    private final int firstCheckinEpochDay;
+
+    public BookingGenerator(long seed) {
+        this(seed, 1, LocalDate.of(2026, 1, 1));
+    }
+
+    /**
+     * @param firstId       id of booking #0; later bookings count up from here.
+     * @param earliestCheckin start of the two-year window check-in dates are drawn from.
+     */
+    public BookingGenerator(long seed, int firstId, LocalDate earliestCheckin) {
+        this.seed = seed;
+        this.firstId = firstId;
+        this.firstCheckinEpochDay = (int) earliestCheckin.toEpochDay();
+    }
+
+    /**
+     * Overwrites {@code into} with booking #index.
+     */
+    public BookingRecord fill(long index, BookingRecord into) {
+        long h1 = mix(seed + index * 0x9E3779B97F4A7C15L);
+        long h2 = mix(h1);
+        int checkin = firstCheckinEpochDay + (int) ((h1 >>> 40) % CHECKIN_WINDOW_DAYS);
+        into.set(firstId + (int) index,
+                FIRST_NAMES[(int) (h1 & 31)],
+                LAST_NAMES[(int) ((h1 >>> 5) & 31)],
+                MIN_PRICE + (int) ((h1 >>> 10) % PRICE_SPREAD),
+                (h2 & 1) != 0,
+                checkin,
+                checkin + 1 + (int) ((h2 >>> 1) % MAX_NIGHTS),
+                EXTRAS[(int) ((h2 >>> 33) % EXTRAS.length)]);
+        return into;
+    }
+
+    /**
+     * Fills the first {@code rows} slots of the batch with bookings starting at {@code startIndex}.
+     */
+    public BookingBatch fill(long startIndex, int rows, BookingBatch batch) {
+        if (rows > batch.capacity()) {
+            throw new IllegalArgumentException("Requested " + rows + " rows but batch holds " + batch.capacity());
+        }
+        BookingRecord scratch = new BookingRecord();
+        for (int row = 0; row < rows; row++) {
+            fill(startIndex + row, scratch);
+            batch.ids[row] = scratch.getId();
+            batch.firstnames[row] = scratch.getFirstname();
+            batch.lastnames[row] = scratch.getLastname();
+            batch.totalprices[row] = scratch.getTotalprice();
+            batch.depositpaid[row] = scratch.isDepositpaid();
+            batch.checkinEpochDays[row] = scratch.getCheckinEpochDay();
+            batch.checkoutEpochDays[row] = scratch.getCheckoutEpochDay();
+            batch.additionalneeds[row] = scratch.getAdditionalneeds();
+        }
+        batch.size = rows;
+        return batch;
+    }
+
+    /**
+     * Iterates bookings #0..count-1. The same record instance is returned on every step.
+     */
+    public Iterator<BookingRecord> iterator(long count) {
+        BookingRecord record = new BookingRecord();
+        return new Iterator<BookingRecord>() {
+            private long next;
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public BookingRecord next() {
+                if (next >= count) {
+                    throw new NoSuchElementException();
+                }
+                return fill(next++, record);
+            }
+        };
+    }
+
+    /**
+     * Stream of bookings #0..count-1. With {@code parallel} the index range is split across the common pool;
+     * each split reuses its own record, so map to something immutable before collecting.
+     */
+    public Stream<BookingRecord> stream(long count, boolean parallel) {
+        return StreamSupport.stream(new RangeSpliterator(0, count), parallel);
+    }
+
+    /**
+     * SplitMix64 finalizer: cheap, stateless and well distributed even for consecutive inputs.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private final class RangeSpliterator implements Spliterator<BookingRecord> {
+        private static final long MIN_SPLIT = 4096;
+
+        private final BookingRecord record = new BookingRecord();
+        private long from;
+        private final long to;
+
+        private RangeSpliterator(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super BookingRecord> action) {
+            if (from >= to) {
+                return false;
+            }
+            action.accept(fill(from++, record));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super BookingRecord> action) {
+            for (; from < to; from++) {
+                action.accept(fill(from, record));
+            }
+        }
+
+        @Override
+        public Spliterator<BookingRecord> trySplit() {
+            long remaining = to - from;
+            if (remaining < MIN_SPLIT * 2) {
+                return null;
+            }
+            long mid = from + remaining / 2;
+            RangeSpliterator prefix = new RangeSpliterator(from, mid);
+            from = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return to - from;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL;
+        }
+    }
+}
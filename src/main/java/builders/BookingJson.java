@@ -0,0 +1,388 @@
+package builders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * Hand-rolled JSON codec for booking payloads.
+ * The booking schema is tiny and fixed, so writing it field by field into a reused buffer beats both
+ * String.format and reflective object mapping by a wide margin at load-test request rates.
+ * Reading is limited to what the tests and the stub server need (top-level fields, one nested object deep) and
+ * never builds a tree.
+ */
+public final class BookingJson {
+
+    // One scratch buffer per thread; payloads are a few hundred chars, so it never needs to grow after warm-up.
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private BookingJson() {
+    }
+
+    public static String toJson(BookingRecord booking) {
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        return write(booking, out).toString();
+    }
+
+    public static byte[] toUtf8(BookingRecord booking) {
+        return toJson(booking).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends the payload to a caller-owned buffer, for callers that batch several bodies or manage their own reuse.
+     */
+    public static StringBuilder write(BookingRecord booking, StringBuilder out) {
+        return write(booking.getFirstname(), booking.getLastname(), booking.getTotalprice(), booking.isDepositpaid(),
+                booking.getCheckinEpochDay(), booking.getCheckoutEpochDay(), booking.getAdditionalneeds(), out);
+    }
+
+    /**
+     * Builder path: dates are already ISO strings, so they go through the regular string escaping.
+     */
+    static String toJson(String firstname, String lastname, int totalprice, boolean depositpaid,
+                         String checkin, String checkout, String additionalneeds) {
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        head(firstname, lastname, totalprice, depositpaid, out);
+        string(checkin, out);
+        out.append(",\"checkout\":");
+        string(checkout, out);
+        return tail(additionalneeds, out).toString();
+    }
+
+    private static StringBuilder write(String firstname, String lastname, int totalprice, boolean depositpaid,
+                                       int checkin, int checkout, String additionalneeds, StringBuilder out) {
+        head(firstname, lastname, totalprice, depositpaid, out);
+        out.append('"');
+        date(checkin, out);
+        out.append("\",\"checkout\":\"");
+        date(checkout, out);
+        out.append('"');
+        return tail(additionalneeds, out);
+    }
+
+    private static void head(String firstname, String lastname, int totalprice, boolean depositpaid, StringBuilder out) {
+        out.append("{\"firstname\":");
+        string(firstname, out);
+        out.append(",\"lastname\":");
+        string(lastname, out);
+        out.append(",\"totalprice\":").append(totalprice);
+        out.append(",\"depositpaid\":").append(depositpaid);
+        out.append(",\"bookingdates\":{\"checkin\":");
+    }
+
+    private static StringBuilder tail(String additionalneeds, StringBuilder out) {
+        out.append("},\"additionalneeds\":");
+        string(additionalneeds, out);
+        return out.append('}');
+    }
+
+    /**
+     * Extracts the top-level "bookingid" from a create-booking response such as
+     * {"bookingid":1,"booking":{...}}. Keys inside nested objects or string values are ignored.
+     *
+     * @throws IllegalArgumentException if the response has no numeric top-level bookingid.
+     */
+    public static int parseBookingId(CharSequence json) {
+        return parseInt(json, "bookingid");
+    }
+
+    public static int parseBookingId(byte[] json) {
+        // Every structural character in JSON is ASCII, so ISO-8859-1 decoding is a lossless, branch-free view
+        // for scanning purposes — non-ASCII bytes can only appear inside strings, which the scanner skips.
+        return parseBookingId(new String(json, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Top-level integer field of a response, e.g. "totalprice" of GET /booking/{id}. Same scanning rules as
+     * {@link #parseBookingId(CharSequence)}.
+     *
+     * @throws IllegalArgumentException if the response has no integer top-level field of that name.
+     */
+    public static int parseInt(CharSequence json, String key) {
+        return parseInt(json, valueStart(json, key), key);
+    }
+
+    /**
+     * Top-level string field of a response, unescaped; null when the field is JSON null.
+     *
+     * @throws IllegalArgumentException if the response has no string top-level field of that name.
+     */
+    public static String parseString(CharSequence json, String key) {
+        int i = valueStart(json, key);
+        if (json.length() - i >= 4 && matchesKey(json, i, i + 4, "null")) {
+            return null;
+        }
+        if (i >= json.length() || json.charAt(i) != '"') {
+            throw new IllegalArgumentException("'" + key + "' is not a string: " + abbreviate(json));
+        }
+        int end = skipString(json, i) - 1;
+        StringBuilder value = new StringBuilder(end - i - 1);
+        for (int j = i + 1; j < end; j++) {
+            char c = json.charAt(j);
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            char escaped = json.charAt(++j);
+            switch (escaped) {
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'u':
+                    if (j + 4 >= end) {
+                        throw new IllegalArgumentException("Truncated \\u escape in '" + key + "': " + abbreviate(json));
+                    }
+                    value.append((char) Integer.parseInt(json.subSequence(j + 1, j + 5).toString(), 16));
+                    j += 4;
+                    break;
+                default:
+                    // \" \\ \/ stand for themselves.
+                    value.append(escaped);
+            }
+        }
+        return value.toString();
+    }
+
+    /**
+     * Top-level boolean field of a payload, e.g. "depositpaid".
+     *
+     * @throws IllegalArgumentException if the payload has no boolean top-level field of that name.
+     */
+    public static boolean parseBoolean(CharSequence json, String key) {
+        int i = valueStart(json, key);
+        if (json.length() - i >= 4 && matchesKey(json, i, i + 4, "true")) {
+            return true;
+        }
+        if (json.length() - i >= 5 && matchesKey(json, i, i + 5, "false")) {
+            return false;
+        }
+        throw new IllegalArgumentException("'" + key + "' is not a boolean: " + abbreviate(json));
+    }
+
+    /**
+     * Top-level object field, e.g. "bookingdates", as a view of the source text that the other parse methods
+     * accept in turn; null when the field is JSON null.
+     *
+     * @throws IllegalArgumentException if the payload has no object top-level field of that name.
+     */
+    public static CharSequence parseObject(CharSequence json, String key) {
+        int start = valueStart(json, key);
+        if (json.length() - start >= 4 && matchesKey(json, start, start + 4, "null")) {
+            return null;
+        }
+        if (start >= json.length() || json.charAt(start) != '{') {
+            throw new IllegalArgumentException("'" + key + "' is not an object: " + abbreviate(json));
+        }
+        int depth = 0;
+        int i = start;
+        while (i < json.length()) {
+            char c = json.charAt(i);
+            if (c == '"') {
+                i = skipString(json, i);
+                continue;
+            }
+            if (c == '{' || c == '[') {
+                depth++;
+            } else if ((c == '}' || c == ']') && --depth == 0) {
+                return json.subSequence(start, i + 1);
+            }
+            i++;
+        }
+        throw new IllegalArgumentException("Unterminated object '" + key + "': " + abbreviate(json));
+    }
+
+    /**
+     * Whether the payload has a top-level field of that name, whatever its value (JSON null included).
+     */
+    public static boolean hasField(CharSequence json, String key) {
+        return indexOfValue(json, key) >= 0;
+    }
+
+    /**
+     * Appends a JSON string literal with RFC 8259 escaping; null becomes the JSON null literal.
+     */
+    static void string(String value, StringBuilder out) {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        int runStart = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\' && c != '\u2028' && c != '\u2029') {
+                continue;
+            }
+            // Copy the clean run in one go, then the escape.
+            out.append(value, runStart, i);
+            runStart = i + 1;
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                case '\b':
+                    out.append("\\b");
+                    break;
+                case '\f':
+                    out.append("\\f");
+                    break;
+                default:
+                    // Remaining control characters, plus U+2028/2029 which break JavaScript consumers.
+                    out.append("\\u").append(HEX[(c >> 12) & 0xF]).append(HEX[(c >> 8) & 0xF])
+                            .append(HEX[(c >> 4) & 0xF]).append(HEX[c & 0xF]);
+            }
+        }
+        out.append(value, runStart, value.length()).append('"');
+    }
+
+    private static void date(int epochDay, StringBuilder out) {
+        // Straight from the record's epoch day: no LocalDate and no intermediate String on the hot path.
+        // Days-to-civil conversion on 400-year eras (H. Hinnant, "chrono-Compatible Low-Level Date Algorithms").
+        long z = epochDay + 719_468L;
+        long era = Math.floorDiv(z, 146_097);
+        long dayOfEra = z - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+        int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        if (year < 1000 || year > 9999) {
+            // Outside four-digit years ISO needs sign and padding rules; booking data never gets there.
+            out.append(LocalDate.ofEpochDay(epochDay));
+            return;
+        }
+        out.append(year).append('-');
+        if (month < 10) {
+            out.append('0');
+        }
+        out.append(month).append('-');
+        if (day < 10) {
+            out.append('0');
+        }
+        out.append(day);
+    }
+
+    // Index of the first character of the top-level field's value.
+    private static int valueStart(CharSequence json, String key) {
+        int i = indexOfValue(json, key);
+        if (i < 0) {
+            throw new IllegalArgumentException("Response has no top-level '" + key + "': " + abbreviate(json));
+        }
+        return i;
+    }
+
+    // Same as valueStart, or -1 when the field is absent.
+    private static int indexOfValue(CharSequence json, String key) {
+        int depth = 0;
+        int i = 0;
+        int length = json.length();
+        while (i < length) {
+            char c = json.charAt(i);
+            if (c == '"') {
+                int end = skipString(json, i);
+                if (depth == 1 && matchesKey(json, i + 1, end - 1, key)) {
+                    int colon = skipWhitespace(json, end);
+                    if (colon < length && json.charAt(colon) == ':') {
+                        return skipWhitespace(json, colon + 1);
+                    }
+                }
+                i = end;
+                continue;
+            }
+            if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    private static int skipString(CharSequence json, int openQuote) {
+        int i = openQuote + 1;
+        while (i < json.length()) {
+            char c = json.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == '"') {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        throw new IllegalArgumentException("Unterminated string in response: " + abbreviate(json));
+    }
+
+    private static boolean matchesKey(CharSequence json, int from, int to, String key) {
+        if (to - from != key.length()) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (json.charAt(from + i) != key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipWhitespace(CharSequence json, int i) {
+        while (i < json.length() && Character.isWhitespace(json.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int parseInt(CharSequence json, int i, String key) {
+        boolean negative = i < json.length() && json.charAt(i) == '-';
+        if (negative) {
+            i++;
+        }
+        long value = 0;
+        int digits = 0;
+        while (i < json.length() && json.charAt(i) >= '0' && json.charAt(i) <= '9') {
+            value = value * 10 + (json.charAt(i) - '0');
+            if (value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("'" + key + "' does not fit in an int: " + abbreviate(json));
+            }
+            digits++;
+            i++;
+        }
+        if (digits == 0) {
+            throw new IllegalArgumentException("'" + key + "' is not a number: " + abbreviate(json));
+        }
+        return (int) (negative ? -value : value);
+    }
+
+    private static String abbreviate(CharSequence json) {
+        return json.length() <= 200 ? json.toString() : json.subSequence(0, 200) + "...";
+    }
+}
@@ -0,0 +1,97 @@
+package builders;
+
+import java.time.LocalDate;
+
+/**
+ * Flat, mutable booking used on high-volume paths.
+ * Generators overwrite one instance per row instead of allocating nested maps, so callers that keep
+ * a record beyond the current iteration step must {@link #copy()} it.
+ * Dates are stored as epoch days to keep the record free of per-row objects.
+ */
+public final class BookingRecord {
+    private int id;
+    private String firstname;
+    private String lastname;
+    private int totalprice;
+    private boolean depositpaid;
+    private int checkinEpochDay;
+    private int checkoutEpochDay;
+    private String additionalneeds;
+
+    void set(int id, String firstname, String lastname, int totalprice, boolean depositpaid,
+             int checkinEpochDay, int checkoutEpochDay, String additionalneeds) {
+        this.id = id;
+        this.firstname = firstname;
+        this.lastname = lastname;
+        this.totalprice = totalprice;
+        this.depositpaid = depositpaid;
+        this.checkinEpochDay = checkinEpochDay;
+        this.checkoutEpochDay = checkoutEpochDay;
+        this.additionalneeds = additionalneeds;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getFirstname() {
+        return firstname;
+    }
+
+    public String getLastname() {
+        return lastname;
+    }
+
+    public int getTotalprice() {
+        return totalprice;
+    }
+
+    public boolean isDepositpaid() {
+        return depositpaid;
+    }
+
+    public int getCheckinEpochDay() {
+        return checkinEpochDay;
+    }
+
+    public int getCheckoutEpochDay() {
+        return checkoutEpochDay;
+    }
+
+    public LocalDate getCheckin() {
+        return LocalDate.ofEpochDay(checkinEpochDay);
+    }
+
+    public LocalDate getCheckout() {
+        return LocalDate.ofEpochDay(checkoutEpochDay);
+    }
+
+    public String getAdditionalneeds() {
+        return additionalneeds;
+    }
+
+    public BookingRecord copy() {
+        BookingRecord copy = new BookingRecord();
+        copy.set(id, firstname, lastname, totalprice, depositpaid, checkinEpochDay, checkoutEpochDay, additionalneeds);
+        return copy;
+    }
+
+    /**
+     * Bridges into the regular builder for the low-volume paths (single API calls, step definitions).
+     */
+    public BookingDataBuilder toBuilder() {
+        return new BookingDataBuilder()
+                .setFirstname(firstname)
+                .setLastname(lastname)
+                .setTotalPrice(totalprice)
+                .setDepositPaid(depositpaid)
+                .setBookingDates(getCheckin().toString(), getCheckout().toString())
+                .setAdditionalNeeds(additionalneeds);
+    }
+
+    @Override
+    public String toString() {
+        return "BookingRecord{id=" + id + ", " + firstname + " " + lastname + ", price=" + totalprice
+                + ", deposit=" + depositpaid + ", " + getCheckin() + ".." + getCheckout() + ", needs=" + additionalneeds + "}";
+    }
+}
@@ -0,0 +1,125 @@
+package core;
+
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Disk cache of static responses (scripts, stylesheets) for {@link NetworkFilter}, keyed by URL.
+ *
+ * Each asset is two files named after the URL's SHA-256: the body as received, and a JSON header list. The header
+ * file is moved into place last, so a reader in another session either sees a complete entry or none.
+ * {@link #forRun} gives every JVM a directory of its own and removes the ones left by finished runs, so an asset is
+ * never replayed into a later run that may be testing a redeployed site.
+ */
+final class AssetStore {
+
+    private static final Json JSON = new Json();
+
+    private final Path dir;
+
+    AssetStore(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * A store in {@code root}/&lt;pid&gt;, after deleting the directories of runs whose process is gone.
+     */
+    static AssetStore forRun(Path root) {
+        Path dir = root.resolve(String.valueOf(ProcessHandle.current().pid()));
+        if (Files.isDirectory(root)) {
+            try (Stream<Path> runs = Files.list(root)) {
+                for (Path run : (Iterable<Path>) runs::iterator) {
+                    String pid = run.getFileName().toString();
+                    if (pid.matches("\\d+") && !run.equals(dir) && ProcessHandle.of(Long.parseLong(pid)).isEmpty()) {
+                        try (Stream<Path> files = Files.walk(run)) {
+                            files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                // Leftovers only cost disk space; this run still gets its own empty directory.
+            }
+        }
+        return new AssetStore(dir);
+    }
+
+    /**
+     * Whether an entry exists for the URL, without reading it.
+     */
+    boolean contains(String url) {
+        return Files.exists(dir.resolve(key(url) + ".json"));
+    }
+
+    /**
+     * The stored asset, or null when the URL has not been cached (or its entry cannot be read).
+     */
+    Asset get(String url) {
+        String key = key(url);
+        Path headers = dir.resolve(key + ".json");
+        if (!Files.exists(headers)) {
+            return null;
+        }
+        try {
+            Map<String, Object> meta = JSON.toType(Files.readString(headers), Json.MAP_TYPE);
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> list = (List<Map<String, Object>>) meta.get("headers");
+            return new Asset(list, Files.readAllBytes(dir.resolve(key + ".body")));
+        } catch (IOException | RuntimeException e) {
+            // A damaged entry is a cache miss; the next response for the URL rewrites it.
+            return null;
+        }
+    }
+
+    void put(String url, List<Map<String, Object>> headers, byte[] body) {
+        String key = key(url);
+        Map<String, Object> meta = new LinkedHashMap<>();
+        meta.put("url", url);
+        meta.put("headers", headers);
+        try {
+            Files.createDirectories(dir);
+            // Unique temp names: two sessions may fetch the same asset for the first time concurrently.
+            Path bodyTmp = Files.write(Files.createTempFile(dir, key, ".tmp"), body);
+            Files.move(bodyTmp, dir.resolve(key + ".body"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Path headersTmp = Files.writeString(Files.createTempFile(dir, key, ".tmp"), JSON.toJson(meta));
+            Files.move(headersTmp, dir.resolve(key + ".json"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String key(String url) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is missing from this JVM", e);
+        }
+    }
+
+    static final class Asset {
+        final List<Map<String, Object>> headers;
+        final byte[] body;
+
+        Asset(List<Map<String, Object>> headers, byte[] body) {
+            this.headers = headers;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,419 @@
+package core;
+
+import builders.BookingGenerator;
+import builders.BookingRecord;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * High-volume seeding engine for the bookings table.
+ * Single-row INSERT strings top out at a few thousand rows per second; batching, multi-row VALUES and
+ * H2's CSVREAD push that into the hundreds of thousands, enough to seed 1M rows for volume tests in seconds.
+ * A configured loader keeps no per-load state, so parallel workers may share it; each load borrows its own connection.
+ */
+public class BulkLoader {
+
+    private static final Logger log = LogManager.getLogger(BulkLoader.class);
+
+    /**
+     * Row layout every source must fill, in this order.
+     */
+    public static final String[] COLUMNS = {"booking_id", "firstname", "lastname", "email", "totalprice"};
+
+    private static final String COLUMN_LIST = String.join(", ", COLUMNS);
+
+    public enum Mode {
+        /** One parameterized INSERT, sent as JDBC batches. Portable across drivers. */
+        BATCH,
+        /** INSERT ... VALUES (..), (..), ... with many rows per statement execution. */
+        MULTI_VALUES,
+        /** Rows are spooled to a temp CSV and pulled in with H2's CSVREAD. H2 only; fastest for millions of rows. */
+        CSV
+    }
+
+    /**
+     * Pull-style row source. Fills the caller's reusable array instead of allocating one per row,
+     * so the loader itself adds no per-row garbage.
+     */
+    @FunctionalInterface
+    public interface RowSource {
+        /**
+         * @param row array of {@link #COLUMNS}.length slots to overwrite.
+         * @return false once the source is exhausted (row contents are then ignored).
+         */
+        boolean fill(Object[] row);
+    }
+
+    private static final Config.Key<Integer> BATCH_SIZE = Config.intKey("db.bulk.batch.size", 1000);
+    private static final Config.Key<Integer> COMMIT_INTERVAL = Config.intKey("db.bulk.commit.interval", 50000);
+
+    private final DBManager db;
+    private Mode mode = Mode.BATCH;
+    private int batchSize = Config.get(BATCH_SIZE);
+    private int commitInterval = Config.get(COMMIT_INTERVAL);
+
+    public BulkLoader(DBManager db) {
+        this.db = db;
+    }
+
+    public BulkLoader setMode(Mode mode) {
+        this.mode = mode;
+        return this;
+    }
+
+    /**
+     * Rows per JDBC batch (BATCH) or per statement (MULTI_VALUES). Ignored by CSV.
+     */
+    public BulkLoader setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1, got " + batchSize);
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Rows per transaction. Smaller intervals cap undo-log memory; larger ones cut commit overhead.
+     */
+    public BulkLoader setCommitInterval(int commitInterval) {
+        if (commitInterval < 1) {
+            throw new IllegalArgumentException("Commit interval must be at least 1, got " + commitInterval);
+        }
+        this.commitInterval = commitInterval;
+        return this;
+    }
+
+    public LoadReport load(RowSource source) {
+        long start = System.nanoTime();
+        try (ConnectionPool.PooledConnection lease = db.borrow()) {
+            Connection conn = lease.raw;
+            // Inside a scenario transaction (see DBManager.beginScenario()) the rows belong to the scenario:
+            // no intermediate commits, and a failure only undoes this load, back to the savepoint.
+            boolean inScenarioTransaction = lease.isPinned();
+            Savepoint beforeLoad = inScenarioTransaction ? conn.setSavepoint() : null;
+            if (!inScenarioTransaction) {
+                conn.setAutoCommit(false);
+            }
+            try {
+                LoadReport report;
+                switch (mode) {
+                    case BATCH:
+                        report = loadBatched(conn, source, start, inScenarioTransaction);
+                        break;
+                    case MULTI_VALUES:
+                        report = loadMultiValues(conn, source, start, inScenarioTransaction);
+                        break;
+                    case CSV:
+                        report = loadCsv(conn, source, start, inScenarioTransaction);
+                        break;
+                    default:
+                        throw new IllegalStateException("Unknown bulk mode: " + mode);
+                }
+                log.info("Bulk load: {}", report);
+                return report;
+            } catch (SQLException | RuntimeException e) {
+                // Only the open transaction is undone; earlier commit intervals stay in the table.
+                if (inScenarioTransaction) {
+                    conn.rollback(beforeLoad);
+                } else {
+                    conn.rollback();
+                }
+                throw e;
+            } finally {
+                if (!inScenarioTransaction) {
+                    conn.setAutoCommit(true);
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("BULK LOAD ERROR (" + mode + "): " + e.getMessage(), e);
+        }
+    }
+
+    public LoadReport load(Iterator<Object[]> rows) {
+        return load(row -> {
+            if (!rows.hasNext()) {
+                return false;
+            }
+            Object[] next = rows.next();
+            System.arraycopy(next, 0, row, 0, COLUMNS.length);
+            return true;
+        });
+    }
+
+    /**
+     * Seeds payloads produced by {@link builders.BookingDataBuilder#build()}. The API payload carries no id
+     * or email, so ids are assigned sequentially from {@code firstId} and email is left null.
+     */
+    public LoadReport loadBookings(List<Map<String, Object>> bookings, int firstId) {
+        Iterator<Map<String, Object>> it = bookings.iterator();
+        int[] nextId = {firstId};
+        return load(row -> {
+            if (!it.hasNext()) {
+                return false;
+            }
+            Map<String, Object> booking = it.next();
+            row[0] = nextId[0]++;
+            row[1] = booking.get("firstname");
+            row[2] = booking.get("lastname");
+            row[3] = null;
+            row[4] = booking.get("totalprice");
+            return true;
+        });
+    }
+
+    /**
+     * Seeds {@code count} synthetic bookings straight from the generator, reusing one record for the whole run.
+     * Emails are derived from the id so they stay unique without extra randomness.
+     */
+    public LoadReport loadGenerated(BookingGenerator generator, long count) {
+        BookingRecord record = new BookingRecord();
+        long[] next = {0};
+        return load(row -> {
+            if (next[0] == count) {
+                return false;
+            }
+            generator.fill(next[0]++, record);
+            row[0] = record.getId();
+            row[1] = record.getFirstname();
+            row[2] = record.getLastname();
+            row[3] = "guest" + record.getId() + "@example.test";
+            row[4] = record.getTotalprice();
+            return true;
+        });
+    }
+
+    private static void commit(Connection conn, boolean inScenarioTransaction) throws SQLException {
+        if (!inScenarioTransaction) {
+            conn.commit();
+        }
+    }
+
+    private LoadReport loadBatched(Connection conn, RowSource source, long start, boolean inScenarioTransaction) throws SQLException {
+        Object[] row = new Object[COLUMNS.length];
+        long rows = 0;
+        int batches = 0;
+        int commits = 0;
+        int pending = 0;
+        try (PreparedStatement ps = conn.prepareStatement(insertSql(1))) {
+            while (source.fill(row)) {
+                bindRow(ps, row, 0);
+                ps.addBatch();
+                rows++;
+                if (++pending == batchSize) {
+                    ps.executeBatch();
+                    batches++;
+                    pending = 0;
+                }
+                if (rows % commitInterval == 0) {
+                    if (pending > 0) {
+                        ps.executeBatch();
+                        batches++;
+                        pending = 0;
+                    }
+                    commit(conn, inScenarioTransaction);
+                    commits++;
+                }
+            }
+            if (pending > 0) {
+                ps.executeBatch();
+                batches++;
+            }
+        }
+        commit(conn, inScenarioTransaction);
+        return new LoadReport(mode, rows, batches, commits + 1, System.nanoTime() - start);
+    }
+
+    private LoadReport loadMultiValues(Connection conn, RowSource source, long start, boolean inScenarioTransaction) throws SQLException {
+        Object[] row = new Object[COLUMNS.length];
+        // Buffer of one statement's worth of rows; values are copied because the source reuses its array.
+        Object[][] chunk = new Object[batchSize][COLUMNS.length];
+        long rows = 0;
+        int statements = 0;
+        int commits = 0;
+        long sinceCommit = 0;
+        try (PreparedStatement full = conn.prepareStatement(insertSql(batchSize))) {
+            int filled = 0;
+            boolean more = true;
+            while (more) {
+                more = source.fill(row);
+                if (more) {
+                    System.arraycopy(row, 0, chunk[filled++], 0, COLUMNS.length);
+                }
+                if (filled == batchSize || (!more && filled > 0)) {
+                    if (filled == batchSize) {
+                        executeChunk(full, chunk, filled);
+                    } else {
+                        // The tail is shorter than a full statement and needs its own placeholder count.
+                        try (PreparedStatement tail = conn.prepareStatement(insertSql(filled))) {
+                            executeChunk(tail, chunk, filled);
+                        }
+                    }
+                    statements++;
+                    rows += filled;
+                    sinceCommit += filled;
+                    filled = 0;
+                    if (sinceCommit >= commitInterval) {
+                        commit(conn, inScenarioTransaction);
+                        commits++;
+                        sinceCommit = 0;
+                    }
+                }
+            }
+        }
+        commit(conn, inScenarioTransaction);
+        return new LoadReport(mode, rows, statements, commits + 1, System.nanoTime() - start);
+    }
+
+    private LoadReport loadCsv(Connection conn, RowSource source, long start, boolean inScenarioTransaction) throws SQLException {
+        Object[] row = new Object[COLUMNS.length];
+        long rows = 0;
+        int chunks = 0;
+        Path csv;
+        try {
+            csv = Files.createTempFile("bookings-seed-", ".csv");
+            // CSVREAD derives its column list from the header while the statement is planned,
+            // so the file needs one before prepareStatement().
+            Files.write(csv, (String.join(",", COLUMNS) + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create the bulk seeding spool file.", e);
+        }
+        // CSVREAD resolves its file argument when the statement is planned, so it has to be a literal.
+        String file = csv.toAbsolutePath().toString().replace("'", "''");
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO bookings (" + COLUMN_LIST + ") SELECT * FROM CSVREAD('" + file + "', NULL, 'charset=UTF-8')")) {
+            boolean more = true;
+            while (more) {
+                // Each commit interval becomes one CSV file + one CSVREAD, keeping each transaction bounded.
+                int written = 0;
+                try (BufferedWriter out = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+                    out.write(String.join(",", COLUMNS));
+                    out.newLine();
+                    while (written < commitInterval && (more = source.fill(row))) {
+                        writeCsvRow(out, row);
+                        written++;
+                    }
+                }
+                if (written > 0) {
+                    ps.executeUpdate();
+                    commit(conn, inScenarioTransaction);
+                    rows += written;
+                    chunks++;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to spool bulk rows to CSV.", e);
+        } finally {
+            try {
+                Files.deleteIfExists(csv);
+            } catch (IOException ignored) {
+                // Temp dir cleanup will get it.
+            }
+        }
+        return new LoadReport(mode, rows, chunks, chunks, System.nanoTime() - start);
+    }
+
+    private static void executeChunk(PreparedStatement ps, Object[][] chunk, int rows) throws SQLException {
+        for (int r = 0; r < rows; r++) {
+            bindRow(ps, chunk[r], r * COLUMNS.length);
+        }
+        ps.executeUpdate();
+    }
+
+    private static void bindRow(PreparedStatement ps, Object[] row, int offset) throws SQLException {
+        for (int c = 0; c < COLUMNS.length; c++) {
+            ps.setObject(offset + c + 1, row[c]);
+        }
+    }
+
+    private static void writeCsvRow(BufferedWriter out, Object[] row) throws IOException {
+        for (int c = 0; c < row.length; c++) {
+            if (c > 0) {
+                out.write(',');
+            }
+            Object value = row[c];
+            if (value == null) {
+                // CSVREAD treats an empty, unquoted field as SQL NULL.
+                continue;
+            }
+            if (value instanceof Number) {
+                out.write(value.toString());
+            } else {
+                out.write('"');
+                out.write(value.toString().replace("\"", "\"\""));
+                out.write('"');
+            }
+        }
+        out.newLine();
+    }
+
+    private static String insertSql(int rows) {
+        StringBuilder sql = new StringBuilder("INSERT INTO bookings (").append(COLUMN_LIST).append(") VALUES ");
+        String tuple = "(?, ?, ?, ?, ?)";
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(tuple);
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Outcome of one load: volume, round-trips and throughput.
+     */
+    public static final class LoadReport {
+        private final Mode mode;
+        private final long rows;
+        private final int roundTrips;
+        private final int commits;
+        private final long elapsedNanos;
+
+        LoadReport(Mode mode, long rows, int roundTrips, int commits, long elapsedNanos) {
+            this.mode = mode;
+            this.rows = rows;
+            this.roundTrips = roundTrips;
+            this.commits = commits;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public int getRoundTrips() {
+            return roundTrips;
+        }
+
+        public int getCommits() {
+            return commits;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedNanos / 1_000_000;
+        }
+
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rows * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s loaded %d rows in %d ms (%.0f rows/s, %d round-trips, %d commits)",
+                    mode, rows, getElapsedMillis(), getRowsPerSecond(), roundTrips, commits);
+        }
+    }
+}
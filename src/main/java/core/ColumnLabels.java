@@ -0,0 +1,52 @@
+package core;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Locale;
+
+/**
+ * Lower-cased, interned column labels for one result set, resolved once from the metadata.
+ * Row loops index into this instead of calling getColumnLabel()/toLowerCase() per cell,
+ * and interning means every row map shares the same key instances.
+ */
+public final class ColumnLabels {
+
+    private final String[] labels;
+
+    private ColumnLabels(String[] labels) {
+        this.labels = labels;
+    }
+
+    public static ColumnLabels of(ResultSetMetaData metaData) throws SQLException {
+        String[] labels = new String[metaData.getColumnCount()];
+        for (int i = 0; i < labels.length; i++) {
+            // Locale.ROOT: under a Turkish default locale "ID".toLowerCase() is not "id".
+            labels[i] = metaData.getColumnLabel(i + 1).toLowerCase(Locale.ROOT).intern();
+        }
+        return new ColumnLabels(labels);
+    }
+
+    public int size() {
+        return labels.length;
+    }
+
+    /**
+     * Label of the given JDBC column (1-based, like ResultSet getters).
+     */
+    public String get(int columnIndex) {
+        return labels[columnIndex - 1];
+    }
+
+    /**
+     * JDBC column index (1-based) for a label, case-insensitive; -1 if absent.
+     * Meant to be called once before the row loop, not per row.
+     */
+    public int indexOf(String label) {
+        for (int i = 0; i < labels.length; i++) {
+            if (labels[i].equalsIgnoreCase(label)) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,70 @@
+package core;
+
+import java.util.Arrays;
+
+/**
+ * Flat, column-major holder for a query result.
+ * One array per column instead of one HashMap per row: no per-row map, entry or key objects,
+ * which makes it the compact option when a validation genuinely needs the whole result in memory.
+ */
+public final class ColumnarResult {
+
+    private final ColumnLabels labels;
+    private Object[][] columns;
+    private int rowCount;
+
+    ColumnarResult(ColumnLabels labels, int initialCapacity) {
+        this.labels = labels;
+        this.columns = new Object[labels.size()][Math.max(16, initialCapacity)];
+    }
+
+    void appendRow(Object[] values) {
+        if (columns.length > 0 && rowCount == columns[0].length) {
+            int grown = columns[0].length * 2;
+            for (int c = 0; c < columns.length; c++) {
+                columns[c] = Arrays.copyOf(columns[c], grown);
+            }
+        }
+        for (int c = 0; c < columns.length; c++) {
+            columns[c][rowCount] = values[c];
+        }
+        rowCount++;
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    public ColumnLabels labels() {
+        return labels;
+    }
+
+    /**
+     * Value at the given row (0-based) and JDBC column index (1-based).
+     */
+    public Object get(int row, int columnIndex) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + " outside result of " + rowCount + " rows.");
+        }
+        return columns[columnIndex - 1][row];
+    }
+
+    public Object get(int row, String label) {
+        int index = labels.indexOf(label);
+        if (index < 0) {
+            throw new IllegalArgumentException("No column '" + label + "' in result.");
+        }
+        return get(row, index);
+    }
+
+    /**
+     * Trimmed copy of one column's values, e.g. for bulk comparisons against an expected list.
+     */
+    public Object[] column(String label) {
+        int index = labels.indexOf(label);
+        if (index < 0) {
+            throw new IllegalArgumentException("No column '" + label + "' in result.");
+        }
+        return Arrays.copyOf(columns[index - 1], rowCount);
+    }
+}
@@ -0,0 +1,468 @@
+package core;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Single source of configuration for the framework. Each key is resolved through these layers, first hit wins:
+ * <ol>
+ *     <li>runtime overrides ({@link #override}, e.g. the stub server redirecting base URLs)</li>
+ *     <li>JVM system properties ({@code -Ddb.pool.size=16})</li>
+ *     <li>environment variables carrying the {@code FRAMEWORK_} prefix ({@code FRAMEWORK_DB_POOL_SIZE=16})</li>
+ *     <li>the active profile, {@code config/profiles/<config.profile>.properties}</li>
+ *     <li>{@code config/config.properties}</li>
+ *     <li>{@code config/environment.properties} (the legacy ConfigReader file)</li>
+ *     <li>the default declared on the {@link Key}</li>
+ * </ol>
+ * The deprecated {@link ConfigReader} keeps its historical view: environment.properties ranks above the other files
+ * there (base.url without the trailing slash), below the runtime layers.
+ * Every declared {@link Key} is parsed once per snapshot into its typed value and stored in an array slot, so
+ * {@link #get(Key)} is a volatile read plus an array index: no hashing, no parsing, no locks. A reload (file change
+ * or override) builds a complete new snapshot off to the side and swaps it in with one write, so readers always
+ * see a consistent set of values.
+ */
+public final class Config {
+
+    private static final Logger log = LogManager.getLogger(Config.class);
+
+    private static final String BASE_FILE = "config/config.properties";
+    private static final String LEGACY_FILE = "config/environment.properties";
+    // Optional directory holding the config/ files, e.g. a source tree; read from the JVM or environment only,
+    // since it decides which files are read in the first place.
+    static final String SOURCE_ROOT = "config.source.root";
+    // Only prefixed variables count: CI images set generic names (BROWSER, TIMEOUT, HEADLESS) for other tools.
+    static final String ENV_PREFIX = "FRAMEWORK_";
+
+    private static final List<Key<?>> keys = new CopyOnWriteArrayList<>();
+    private static final Map<String, String> overrides = new ConcurrentHashMap<>();
+
+    private static volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public static final Key<String> PROFILE = stringKey("config.profile", "");
+    public static final Key<Duration> RELOAD_INTERVAL = durationKey("config.reload.interval.ms", ChronoUnit.MILLIS, Duration.ZERO);
+
+    static {
+        reload();
+        // Components that must adjust settings before anyone reads them (e.g. StubServer in offline mode) hook in here.
+        for (Bootstrap bootstrap : ServiceLoader.load(Bootstrap.class, Config.class.getClassLoader())) {
+            bootstrap.configure();
+        }
+        startWatcher(get(RELOAD_INTERVAL));
+    }
+
+    /**
+     * Runs once, right after the first snapshot is published and before any other thread can read a value.
+     * Implementations are listed in META-INF/services/core.Config$Bootstrap and need a public no-arg constructor.
+     */
+    public interface Bootstrap {
+        void configure();
+    }
+
+    private Config() {
+    }
+
+    // --- typed, pre-resolved access ---
+
+    /**
+     * Hot-path read: the value was parsed when the current snapshot was built.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T get(Key<T> key) {
+        Snapshot current = snapshot;
+        if (key.index >= current.values.length) {
+            // Key declared after the snapshot was built (its owning class loaded late); fold it in once.
+            current = extend();
+        }
+        return (T) current.values[key.index];
+    }
+
+    public static Key<String> stringKey(String name, String defaultValue) {
+        return register(name, defaultValue, value -> value);
+    }
+
+    public static Key<Integer> intKey(String name, int defaultValue) {
+        return register(name, defaultValue, Integer::parseInt);
+    }
+
+    public static Key<Long> longKey(String name, long defaultValue) {
+        return register(name, defaultValue, Long::parseLong);
+    }
+
+    public static Key<Double> doubleKey(String name, double defaultValue) {
+        return register(name, defaultValue, Double::parseDouble);
+    }
+
+    public static Key<Boolean> booleanKey(String name, boolean defaultValue) {
+        return register(name, defaultValue, value -> {
+            // Boolean.parseBoolean turns typos into 'false'; a typo should fall back to the default instead.
+            if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) {
+                return Boolean.parseBoolean(value);
+            }
+            throw new IllegalArgumentException("not a boolean");
+        });
+    }
+
+    /**
+     * Plain numbers are read in {@code unit} (the unit the key name advertises, e.g. '.ms' or '.seconds');
+     * ISO-8601 values such as PT2M are accepted as well.
+     */
+    public static Key<Duration> durationKey(String name, ChronoUnit unit, Duration defaultValue) {
+        return register(name, defaultValue, value -> value.startsWith("P") || value.startsWith("p")
+                ? Duration.parse(value.toUpperCase(Locale.ROOT))
+                : Duration.of(Long.parseLong(value), unit));
+    }
+
+    public static Key<URI> uriKey(String name, String defaultValue) {
+        return register(name, defaultValue == null ? null : URI.create(defaultValue), URI::create);
+    }
+
+    public static <E extends Enum<E>> Key<E> enumKey(String name, Class<E> type, E defaultValue) {
+        return register(name, defaultValue, value -> Enum.valueOf(type, value.toUpperCase(Locale.ROOT)));
+    }
+
+    // --- ad-hoc access by name, for keys without a declared Key ---
+
+    public static String get(String name) {
+        return snapshot.raw.get(name);
+    }
+
+    public static String get(String name, String defaultValue) {
+        return snapshot.raw.getOrDefault(name, defaultValue);
+    }
+
+    /**
+     * Parsed once per snapshot and cached, so repeated lookups of the same key don't re-parse.
+     */
+    public static int getInt(String name, int defaultValue) {
+        return snapshot.parsed(name, "int", defaultValue, Integer::parseInt);
+    }
+
+    public static boolean getBoolean(String name, boolean defaultValue) {
+        return snapshot.parsed(name, "boolean", defaultValue, Boolean::parseBoolean);
+    }
+
+    // --- lifecycle ---
+
+    /**
+     * Runtime override on top of every other layer. Takes effect immediately and survives file reloads.
+     */
+    public static void override(String name, String value) {
+        if (value == null) {
+            overrides.remove(name);
+        } else {
+            overrides.put(name, value);
+        }
+        rebuild();
+    }
+
+    /**
+     * Re-reads every file layer and atomically publishes the result.
+     */
+    public static void reload() {
+        rebuild();
+    }
+
+    /**
+     * Increments on every published snapshot; cheap way for caches built from config to notice a reload.
+     */
+    public static long version() {
+        return snapshot.version;
+    }
+
+    private static <T> Key<T> register(String name, T defaultValue, Function<String, T> parser) {
+        Key<T> key;
+        synchronized (keys) {
+            key = new Key<>(name, defaultValue, parser, keys.size());
+            keys.add(key);
+        }
+        return key;
+    }
+
+    private static synchronized Snapshot rebuild() {
+        Map<String, String> raw = new HashMap<>();
+        List<Path> watched = new ArrayList<>();
+        Map<String, String> legacyFile = new HashMap<>();
+        loadInto(legacyFile, LEGACY_FILE, watched);
+        raw.putAll(legacyFile);
+        if (!loadInto(raw, BASE_FILE, watched)) {
+            // Crashing early here is intentional.
+            // If the config is missing, we'd spend hours debugging random NullPointers later in the suite.
+            throw new RuntimeException("Fatal: config.properties is missing or unreadable. Check the config/ resources on the classpath.");
+        }
+        String profile = firstNonEmpty(overrides.get("config.profile"), System.getProperty("config.profile"),
+                System.getenv(ENV_PREFIX + "CONFIG_PROFILE"), raw.get("config.profile"));
+        if (profile != null) {
+            raw.put("config.profile", profile);
+            if (!loadInto(raw, "config/profiles/" + profile + ".properties", watched)) {
+                log.warn("Config profile '{}' selected but config/profiles/{}.properties was not found", profile, profile);
+            }
+        }
+        Map<String, String> runtime = envLayer(System.getenv());
+        System.getProperties().stringPropertyNames().forEach(name -> runtime.put(name, System.getProperty(name)));
+        runtime.putAll(overrides);
+        raw.putAll(runtime);
+
+        // ConfigReader used to read environment.properties on its own; where that file disagrees with the others and
+        // no runtime layer decides, its value still wins for ConfigReader.
+        Map<String, String> legacy = new HashMap<>();
+        legacyFile.forEach((name, value) -> {
+            if (!runtime.containsKey(name) && !value.equals(raw.get(name))) {
+                legacy.put(name, value);
+            }
+        });
+
+        List<Key<?>> declared = new ArrayList<>(keys);
+        Object[] values = new Object[declared.size()];
+        for (Key<?> key : declared) {
+            values[key.index] = key.resolve(raw.get(key.name));
+        }
+        Snapshot next = new Snapshot(Collections.unmodifiableMap(raw), Collections.unmodifiableMap(legacy), values, watched,
+                snapshot.version + 1, new ConcurrentHashMap<>());
+        snapshot = next;
+        return next;
+    }
+
+    /**
+     * Resolves keys declared since the snapshot was built from the layers it already holds: no file or environment
+     * reads, and the version stays the same because no existing value changes.
+     */
+    private static synchronized Snapshot extend() {
+        Snapshot current = snapshot;
+        List<Key<?>> declared = new ArrayList<>(keys);
+        if (declared.size() <= current.values.length) {
+            // Another thread extended it first.
+            return current;
+        }
+        Object[] values = Arrays.copyOf(current.values, declared.size());
+        for (int i = current.values.length; i < values.length; i++) {
+            Key<?> key = declared.get(i);
+            values[key.index] = key.resolve(current.raw.get(key.name));
+        }
+        Snapshot next = new Snapshot(current.raw, current.legacy, values, current.files, current.version, current.parsedCache);
+        snapshot = next;
+        return next;
+    }
+
+    /**
+     * FRAMEWORK_DB_POOL_SIZE=16 becomes db.pool.size=16; variables without the prefix are ignored.
+     */
+    static Map<String, String> envLayer(Map<String, String> environment) {
+        Map<String, String> layer = new HashMap<>();
+        environment.forEach((name, value) -> {
+            if (name.startsWith(ENV_PREFIX) && name.length() > ENV_PREFIX.length()) {
+                layer.put(name.substring(ENV_PREFIX.length()).toLowerCase(Locale.ROOT).replace('_', '.'), value);
+            }
+        });
+        return layer;
+    }
+
+    /**
+     * Lookup for the deprecated {@link ConfigReader}, with environment.properties ranked above the other files.
+     */
+    static String legacyGet(String name) {
+        Snapshot current = snapshot;
+        String legacy = current.legacy.get(name);
+        return legacy != null ? legacy : current.raw.get(name);
+    }
+
+    private static boolean loadInto(Map<String, String> raw, String resource, List<Path> watched) {
+        Properties properties = new Properties();
+        Path file = locate(resource);
+        try {
+            if (file != null) {
+                try (InputStream in = Files.newInputStream(file)) {
+                    properties.load(in);
+                }
+                watched.add(file);
+            } else {
+                try (InputStream in = Config.class.getClassLoader().getResourceAsStream(resource)) {
+                    if (in == null) {
+                        return false;
+                    }
+                    properties.load(in);
+                }
+            }
+        } catch (IOException e) {
+            // A half-written file during hot reload must not wipe the config; keep what the old snapshot had.
+            throw new RuntimeException("Fatal: " + resource + " is unreadable. Check the config/ resources on the classpath.", e);
+        }
+        // People often leave trailing spaces in property files by accident; trimming once here saves every caller.
+        properties.stringPropertyNames().forEach(name -> raw.put(name, properties.getProperty(name).trim()));
+        return true;
+    }
+
+    /**
+     * The file behind a config resource, for hot reload: under config.source.root when that is set and has it (point
+     * it at the source tree so edits are picked up without a rebuild), else the classpath copy if it lives on disk.
+     * Null for resources inside a jar, which are read from the classpath and never watched.
+     */
+    static Path locate(String resource) {
+        String root = firstNonEmpty(System.getProperty(SOURCE_ROOT), System.getenv(ENV_PREFIX + "CONFIG_SOURCE_ROOT"));
+        if (root != null) {
+            Path source = Paths.get(root, resource);
+            if (Files.isRegularFile(source)) {
+                return source;
+            }
+        }
+        URL url = Config.class.getClassLoader().getResource(resource);
+        if (url != null && "file".equals(url.getProtocol())) {
+            try {
+                return Paths.get(url.toURI());
+            } catch (Exception e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static void startWatcher(Duration interval) {
+        if (interval.isZero() || interval.isNegative()) {
+            return;
+        }
+        ScheduledExecutorService watcher = Executors.newSingleThreadScheduledExecutor(VirtualThreads.platformThreads("config-watcher"));
+        Map<Path, Long> stamps = new HashMap<>();
+        snapshot.files.forEach(file -> stamps.put(file, lastModified(file)));
+        watcher.scheduleWithFixedDelay(() -> {
+            boolean changed = false;
+            for (Path file : snapshot.files) {
+                long stamp = lastModified(file);
+                Long previous = stamps.put(file, stamp);
+                changed |= previous == null || previous != stamp;
+            }
+            if (changed) {
+                try {
+                    reload();
+                    log.info("Configuration reloaded (version {})", version());
+                } catch (RuntimeException e) {
+                    log.error("Configuration reload failed; keeping the previous snapshot", e);
+                }
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static String firstNonEmpty(String... values) {
+        for (String value : values) {
+            if (value != null && !value.trim().isEmpty()) {
+                return value.trim();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A declared, typed configuration key. Declare once as a static final constant next to the code that uses it.
+     */
+    public static final class Key<T> {
+        private final String name;
+        private final T defaultValue;
+        private final Function<String, T> parser;
+        private final int index;
+
+        private Key(String name, T defaultValue, Function<String, T> parser, int index) {
+            this.name = name;
+            this.defaultValue = defaultValue;
+            this.parser = parser;
+            this.index = index;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public T defaultValue() {
+            return defaultValue;
+        }
+
+        private T resolve(String value) {
+            if (value == null || value.isEmpty()) {
+                return defaultValue;
+            }
+            try {
+                return parser.apply(value);
+            } catch (RuntimeException e) {
+                // Better to fall back to a safe default than to kill the whole test run over a typo.
+                log.warn("Config '{}' has invalid value '{}'; using default {}", name, value, defaultValue);
+                return defaultValue;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(Collections.emptyMap(), Collections.emptyMap(), new Object[0],
+                Collections.emptyList(), 0, new ConcurrentHashMap<>());
+
+        private final Map<String, String> raw;
+        // environment.properties values that differ from raw and are not decided by a runtime layer (ConfigReader only).
+        private final Map<String, String> legacy;
+        private final Object[] values;
+        private final List<Path> files;
+        private final long version;
+        // Ad-hoc typed lookups, parsed lazily and dropped together with the snapshot on reload.
+        private final Map<String, Object> parsedCache;
+
+        private Snapshot(Map<String, String> raw, Map<String, String> legacy, Object[] values, List<Path> files, long version,
+                         Map<String, Object> parsedCache) {
+            this.raw = raw;
+            this.legacy = legacy;
+            this.values = values;
+            this.files = files;
+            this.version = version;
+            this.parsedCache = parsedCache;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> T parsed(String name, String type, T defaultValue, Function<String, T> parser) {
+            String value = raw.get(name);
+            if (value == null || value.isEmpty()) {
+                return defaultValue;
+            }
+            // Keyed by type too: the same key may be read as an int in one place and a boolean in another.
+            Object cached = parsedCache.computeIfAbsent(name + '#' + type, n -> {
+                try {
+                    return parser.apply(value);
+                } catch (RuntimeException e) {
+                    return e;
+                }
+            });
+            return cached instanceof RuntimeException || cached == null ? defaultValue : (T) cached;
+        }
+    }
+}
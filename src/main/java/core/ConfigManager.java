@@ -1,44 +1,28 @@
 package core;
 
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.util.Properties;
-
+/**
+ * String-keyed view over {@link Config}, kept so existing step definitions and tests compile unchanged.
+ * Values now come from the layered, cached snapshot (system properties, env vars, profile, files),
+ * so lookups here are map reads without re-loading or re-parsing.
+ *
+ * @deprecated declare a typed {@link Config.Key} next to the code that reads it, or use {@link Config#get(String)}.
+ */
+@Deprecated
 public class ConfigManager {
-    private static final Properties properties = new Properties();
-
-    static {
-        // Crashing early here is intentional.
-        // If the config is missing, we’d spend hours debugging random NullPointers later in the suite.
-        try (FileInputStream fis = new FileInputStream("src/test/resources/config/config.properties")) {
-            properties.load(fis);
-        } catch (IOException e) {
-            // No point in proceeding if the foundation layer is missing.
-            throw new RuntimeException("Fatal: config.properties is missing or unreadable. Check src/test/resources/config/", e);
-        }
-    }
 
     public static String getProperty(String key) {
-        return properties.getProperty(key);
+        return Config.get(key);
     }
 
     public static String getProperty(String key, String defaultValue) {
-        return properties.getProperty(key, defaultValue);
+        return Config.get(key, defaultValue);
     }
 
     public static int getIntProperty(String key, int defaultValue) {
-        String value = properties.getProperty(key);
-        try {
-            // People often leave trailing spaces in property files by accident.
-            // .trim() is a cheap insurance policy against NumberFormatExceptions.
-            return (value != null) ? Integer.parseInt(value.trim()) : defaultValue;
-        } catch (NumberFormatException e) {
-            // Better to fall back to a safe default than to kill the whole test run over a typo.
-            return defaultValue;
-        }
+        return Config.getInt(key, defaultValue);
     }
 
     public static int getIntProperty(String key) {
         return getIntProperty(key, 0);
     }
-}
\ No newline at end of file
+}
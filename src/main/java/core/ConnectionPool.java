@@ -0,0 +1,524 @@
+package core;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Bounded, thread-safe JDBC connection pool.
+ * Opening a JDBC connection (driver lookup, session setup, schema check) cost more than the queries
+ * themselves, so physical connections are opened once and recycled between callers.
+ */
+public final class ConnectionPool {
+
+    private static final Logger log = LogManager.getLogger(ConnectionPool.class);
+
+    // One shared daemon thread scans every pool for connections held past the leak threshold.
+    private static final ScheduledExecutorService LEAK_SCANNER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "db-pool-leak-detector");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final long WAIT_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final long acquireTimeoutMillis;
+    private final boolean validateOnBorrow;
+    private final long leakThresholdMillis;
+    private final int statementCacheSize;
+
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    // A connection pinned to its thread for a scenario transaction; borrow() on that thread always gets it back.
+    private final ThreadLocal<PooledConnection> pinned = new ThreadLocal<>();
+    private final AtomicInteger pinnedCount = new AtomicInteger();
+    private final Set<PooledConnection> leased = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+
+    private final LatencyHistogram waitTime = new LatencyHistogram();
+    private final LongAdder acquireTimeouts = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder leaksDetected = new LongAdder();
+
+    private final ScheduledFuture<?> leakScan;
+    private volatile boolean closed;
+
+    /**
+     * @param statementCacheSize how many prepared statements each physical connection keeps open (LRU).
+     * @param initializer        runs once against the pool's very first physical connection,
+     *                           e.g. to bootstrap the schema. Later connections skip it.
+     */
+    ConnectionPool(String url, String user, String password, int maxSize, Duration acquireTimeout,
+                   boolean validateOnBorrow, Duration leakThreshold, int statementCacheSize,
+                   Consumer<Connection> initializer) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Connection pool size must be at least 1, got " + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMillis = acquireTimeout.toMillis();
+        this.validateOnBorrow = validateOnBorrow;
+        this.leakThresholdMillis = leakThreshold.toMillis();
+        this.statementCacheSize = statementCacheSize;
+
+        // Opening the first connection eagerly surfaces a bad URL/driver at pool creation
+        // rather than in the middle of the first scenario, and runs the one-time initializer.
+        PooledConnection first = open();
+        initializer.accept(first.raw);
+        totalConnections.incrementAndGet();
+        idle.offerFirst(first);
+
+        if (leakThresholdMillis > 0) {
+            long period = Math.max(1000, leakThresholdMillis / 2);
+            leakScan = LEAK_SCANNER.scheduleAtFixedRate(this::scanForLeaks, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            leakScan = null;
+        }
+    }
+
+    /**
+     * Borrows a connection, waiting up to the acquire timeout when the pool is exhausted.
+     * On a thread with a pinned connection this is always that connection, so the caller shares its transaction.
+     */
+    PooledConnection borrow() {
+        PooledConnection own = pinned.get();
+        if (own != null) {
+            return own;
+        }
+        return borrow(acquireTimeoutMillis);
+    }
+
+    /**
+     * Pins a connection to the calling thread with auto-commit off, until {@link #unpin}. Scenarios hold their pin for
+     * their whole run, so they may wait longer than a single query would.
+     */
+    PooledConnection pin(Duration acquireTimeout) {
+        if (pinned.get() != null) {
+            throw new IllegalStateException("Thread '" + Thread.currentThread().getName() + "' already holds a scenario transaction.");
+        }
+        PooledConnection conn = borrow(acquireTimeout.toMillis());
+        try {
+            conn.raw.setAutoCommit(false);
+        } catch (SQLException e) {
+            release(conn);
+            throw new RuntimeException("DB Transaction failed: could not disable auto-commit.", e);
+        }
+        conn.pinned = true;
+        pinned.set(conn);
+        pinnedCount.incrementAndGet();
+        return conn;
+    }
+
+    /**
+     * Releases the pin; the release itself rolls back whatever the transaction still holds.
+     */
+    void unpin(PooledConnection conn) {
+        if (pinned.get() != conn) {
+            throw new IllegalStateException("Scenario transactions must be closed on the thread that opened them.");
+        }
+        pinned.remove();
+        pinnedCount.decrementAndGet();
+        conn.pinned = false;
+        release(conn);
+    }
+
+    private PooledConnection borrow(long timeoutMillis) {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (true) {
+            if (closed) {
+                throw new IllegalStateException("DB pool for " + url + " is closed.");
+            }
+            PooledConnection conn = idle.pollFirst();
+            if (conn == null && reserveSlot()) {
+                try {
+                    conn = open();
+                } catch (RuntimeException e) {
+                    totalConnections.decrementAndGet();
+                    throw e;
+                }
+            }
+            if (conn == null) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    acquireTimeouts.increment();
+                    throw new RuntimeException("DB pool exhausted: no connection available within " + timeoutMillis
+                            + " ms (size " + maxSize + ", active " + leased.size() + "). Raise 'db.pool.size' or look for leaked connections.");
+                }
+                try {
+                    // Short slices so a slot freed by a destroyed connection is picked up, not just returned ones.
+                    conn = idle.pollFirst(Math.min(remaining, WAIT_SLICE_NANOS), TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting for a DB connection.", e);
+                }
+                if (conn == null) {
+                    continue;
+                }
+            }
+
+            if (validateOnBorrow && !isValid(conn)) {
+                validationFailures.increment();
+                destroy(conn);
+                continue;
+            }
+
+            waitTime.record(System.nanoTime() - start);
+            conn.markBorrowed();
+            leased.add(conn);
+            return conn;
+        }
+    }
+
+    void release(PooledConnection conn) {
+        if (conn.pinned) {
+            // Callers sharing a scenario transaction "close" it after every query; only unpin() really returns it.
+            return;
+        }
+        leased.remove(conn);
+        try {
+            if (closed || conn.raw.isClosed()) {
+                destroy(conn);
+                return;
+            }
+            // Never hand the next borrower a half-finished transaction.
+            if (!conn.raw.getAutoCommit()) {
+                conn.raw.rollback();
+                conn.raw.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            destroy(conn);
+            return;
+        }
+        idle.offerFirst(conn);
+    }
+
+    /**
+     * Stops the leak scan and closes every physical connection, idle and leased alike; a lease still held elsewhere
+     * fails on its next use. Borrowing from a closed pool throws. Idempotent.
+     * Closing connections does not drop an in-memory database opened with DB_CLOSE_DELAY=-1; run SHUTDOWN for that.
+     */
+    void close() {
+        closed = true;
+        if (leakScan != null) {
+            leakScan.cancel(false);
+        }
+        PooledConnection conn;
+        while ((conn = idle.pollFirst()) != null) {
+            destroy(conn);
+        }
+        for (PooledConnection held : leased) {
+            if (leased.remove(held)) {
+                destroy(held);
+            }
+        }
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    public Metrics metrics() {
+        return new Metrics(leased.size(), pinnedCount.get(), idle.size(), totalConnections.get(), maxSize, waitTime,
+                acquireTimeouts.sum(), validationFailures.sum(), leaksDetected.sum());
+    }
+
+    private PooledConnection open() {
+        try {
+            return new PooledConnection(DriverManager.getConnection(url, user, password));
+        } catch (SQLException e) {
+            throw new RuntimeException("DB Connection failed. Check H2 driver dependency or JDBC URL.", e);
+        }
+    }
+
+    private boolean reserveSlot() {
+        while (true) {
+            int current = totalConnections.get();
+            if (current >= maxSize) {
+                return false;
+            }
+            if (totalConnections.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private static boolean isValid(PooledConnection conn) {
+        try {
+            return conn.raw.isValid(1);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void destroy(PooledConnection conn) {
+        totalConnections.decrementAndGet();
+        try {
+            conn.raw.close();
+        } catch (SQLException ignored) {
+            // Already broken; dropping the reference is all that's left to do.
+        }
+    }
+
+    private void scanForLeaks() {
+        long now = System.currentTimeMillis();
+        for (PooledConnection conn : leased) {
+            // A pinned connection is held for a whole scenario by design.
+            if (!conn.pinned && !conn.leakReported && now - conn.borrowedAt > leakThresholdMillis) {
+                conn.leakReported = true;
+                leaksDetected.increment();
+                Thread holder = conn.borrower;
+                // Where the borrower is now, which for a leak is usually still inside the code that forgot to close.
+                Throwable site = new Throwable(holder.isAlive() ? "Borrower's stack when the threshold was crossed"
+                        : "Borrower thread has ended without returning the connection");
+                site.setStackTrace(holder.getStackTrace());
+                log.warn("Possible DB connection leak: held for {} ms by thread '{}'.", now - conn.borrowedAt, holder.getName(), site);
+            }
+        }
+    }
+
+    /**
+     * A physical connection plus its lease bookkeeping.
+     * {@link #asConnection()} hands out a view whose close() returns it to the pool.
+     */
+    final class PooledConnection implements AutoCloseable {
+        final Connection raw;
+        private final StatementCache statements = new StatementCache(statementCacheSize);
+        private volatile long borrowedAt;
+        private volatile Thread borrower;
+        private volatile boolean leakReported;
+        private volatile boolean pinned;
+
+        private PooledConnection(Connection raw) {
+            this.raw = raw;
+        }
+
+        private void markBorrowed() {
+            // Hot path: a timestamp and a reference only. The stack is taken by the leak scan, for suspects alone.
+            borrowedAt = System.currentTimeMillis();
+            borrower = Thread.currentThread();
+            leakReported = false;
+        }
+
+        /**
+         * Checks out a prepared statement for the SQL text, reusing the one this connection already planned when
+         * possible. The statement leaves the cache until {@link #giveBack}: a pinned scenario connection may run the
+         * same SQL again while a streaming cursor from the first execution is still open, and re-executing a shared
+         * statement would close that cursor under its reader. Callers must not close it; hand it back instead.
+         */
+        PreparedStatement prepare(String sql) throws SQLException {
+            if (statementCacheSize <= 0) {
+                throw new IllegalStateException("Statement caching is disabled for this pool.");
+            }
+            PreparedStatement ps = statements.remove(sql);
+            if (ps == null || ps.isClosed()) {
+                ps = raw.prepareStatement(sql);
+            }
+            return ps;
+        }
+
+        /**
+         * Returns a statement from {@link #prepare} to the cache, without this call's values. If a nested call for the
+         * same SQL got back first, the copy is closed; one cached statement per SQL text is enough.
+         */
+        void giveBack(String sql, PreparedStatement ps) throws SQLException {
+            ps.clearParameters();
+            PreparedStatement displaced = statements.put(sql, ps);
+            if (displaced != null && displaced != ps) {
+                displaced.close();
+            }
+        }
+
+        boolean isPinned() {
+            return pinned;
+        }
+
+        boolean cachesStatements() {
+            return statementCacheSize > 0;
+        }
+
+        /**
+         * Exposes the lease as a plain JDBC connection for callers using try-with-resources.
+         */
+        Connection asConnection() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new ReturnOnClose(this));
+        }
+
+        @Override
+        public void close() {
+            release(this);
+        }
+    }
+
+    /**
+     * Routes close() back into the pool and blocks any use of the handle afterwards,
+     * so a stale reference can't silently share a connection with its next borrower.
+     */
+    private static final class ReturnOnClose implements InvocationHandler {
+        private final PooledConnection lease;
+        private boolean returned;
+
+        private ReturnOnClose(PooledConnection lease) {
+            this.lease = lease;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        lease.close();
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || lease.raw.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + lease.raw + "]";
+                default:
+                    if (returned) {
+                        throw new SQLException("Connection already returned to the pool.");
+                    }
+                    try {
+                        return method.invoke(lease.raw, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+
+    /**
+     * Per-connection LRU of prepared statements keyed by SQL text.
+     * Re-preparing means H2 re-parses and re-plans the query; with the cache a hot verification
+     * query is planned once per physical connection. Evicted statements are closed immediately.
+     */
+    private static final class StatementCache extends LinkedHashMap<String, PreparedStatement> {
+        // Only here because LinkedHashMap is Serializable; a cache of live statements is never serialized.
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        private StatementCache(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+            if (size() <= capacity) {
+                return false;
+            }
+            try {
+                eldest.getValue().close();
+            } catch (SQLException ignored) {
+                // Closing a statement we no longer reference can only fail if the connection is gone.
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Point-in-time view of pool health. Wait time covers every borrow, including the ones served instantly.
+     */
+    public static final class Metrics {
+        private final int active;
+        private final int pinned;
+        private final int idle;
+        private final int total;
+        private final int maxSize;
+        private final LatencyHistogram waitTime;
+        private final long acquireTimeouts;
+        private final long validationFailures;
+        private final long leaksDetected;
+
+        private Metrics(int active, int pinned, int idle, int total, int maxSize, LatencyHistogram waitTime,
+                        long acquireTimeouts, long validationFailures, long leaksDetected) {
+            this.active = active;
+            this.pinned = pinned;
+            this.idle = idle;
+            this.total = total;
+            this.maxSize = maxSize;
+            this.waitTime = waitTime;
+            this.acquireTimeouts = acquireTimeouts;
+            this.validationFailures = validationFailures;
+            this.leaksDetected = leaksDetected;
+        }
+
+        public int getActive() {
+            return active;
+        }
+
+        /**
+         * Connections held by open scenario transactions; they are included in {@link #getActive()}.
+         */
+        public int getPinned() {
+            return pinned;
+        }
+
+        public int getIdle() {
+            return idle;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public LatencyHistogram getWaitTime() {
+            return waitTime;
+        }
+
+        public long getAcquireTimeouts() {
+            return acquireTimeouts;
+        }
+
+        public long getValidationFailures() {
+            return validationFailures;
+        }
+
+        public long getLeaksDetected() {
+            return leaksDetected;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("active=%d pinned=%d idle=%d total=%d/%d timeouts=%d invalid=%d leaks=%d wait[%s]",
+                    active, pinned, idle, total, maxSize, acquireTimeouts, validationFailures, leaksDetected, waitTime.summary());
+        }
+    }
+}
@@ -1,36 +1,172 @@
 package core;
 
 import java.sql.*;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class DBManager {
 
     /**
-     * Establishes a connection to the H2 In-Memory database.
      * The 'DB_CLOSE_DELAY=-1' flag is vital: it prevents the database from vanishing
      * when the last connection is closed, keeping data alive throughout the JVM lifecycle.
      */
+    public static final String DEFAULT_URL = "jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1";
+
+    // Not 'db.url': that one belongs to DataValidationUtility's PostgreSQL-mode database.
+    private static final Config.Key<String> URL = Config.stringKey("db.manager.url", DEFAULT_URL);
+
+    // Per-thread default database, e.g. a worker's clone of a seeded fixture (see DatabaseFixture).
+    private static final ThreadLocal<String> threadDatabase = new ThreadLocal<>();
+
+    // One pool per database URL. Creating a pool is also where the schema gets bootstrapped,
+    // so computeIfAbsent guarantees the CREATE TABLE runs exactly once per database.
+    private static final Map<String, ConnectionPool> pools = new ConcurrentHashMap<>();
+
+    private static final Config.Key<Integer> FETCH_SIZE = Config.intKey("db.fetch.size", 1000);
+    private static final Config.Key<Integer> POOL_SIZE = Config.intKey("db.pool.size", 8);
+    private static final Config.Key<Duration> ACQUIRE_TIMEOUT = Config.durationKey("db.pool.acquire.timeout.ms", ChronoUnit.MILLIS, Duration.ofSeconds(5));
+    private static final Config.Key<Boolean> VALIDATE_ON_BORROW = Config.booleanKey("db.pool.validate.on.borrow", true);
+    private static final Config.Key<Duration> LEAK_THRESHOLD = Config.durationKey("db.pool.leak.threshold.ms", ChronoUnit.MILLIS, Duration.ofSeconds(30));
+    private static final Config.Key<Integer> STATEMENT_CACHE_SIZE = Config.intKey("db.statement.cache.size", 64);
+    // A scenario holds its connection for its whole run, so opening one may queue behind other scenarios for a while.
+    private static final Config.Key<Duration> SCENARIO_ACQUIRE_TIMEOUT = Config.durationKey("db.scenario.acquire.timeout.ms", ChronoUnit.MILLIS, Duration.ofSeconds(60));
+
+    private final ConnectionPool pool;
+
+    // Rows pulled per round-trip by the streaming APIs. Irrelevant for embedded H2 (which spills
+    // large results to disk on its own) but it bounds client-side buffering on networked drivers.
+    private int fetchSize = Config.get(FETCH_SIZE);
+
+    /**
+     * Targets the calling thread's database: the one bound with {@link #bindThreadDatabase(String)}, else 'db.manager.url'.
+     */
+    public DBManager() {
+        this(currentUrl());
+    }
+
+    /**
+     * Targets a specific database, e.g. a per-worker in-memory instance. The schema is bootstrapped on first use.
+     */
+    public DBManager(String jdbcUrl) {
+        this.pool = poolFor(jdbcUrl);
+    }
+
+    /**
+     * Borrows a connection to the H2 In-Memory database from the shared pool.
+     * Callers must close it (try-with-resources) — closing returns it to the pool rather than
+     * tearing down the physical connection.
+     */
     public static Connection getConnection() {
-        try {
-            Class.forName("org.h2.Driver");
-            Connection conn = DriverManager.getConnection("jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1", "sa", "");
+        return poolFor(currentUrl()).borrow().asConnection();
+    }
+
+    /**
+     * Live pool health for the default database: active/idle counts, acquire wait-time histogram, leaks.
+     */
+    public static ConnectionPool.Metrics poolMetrics() {
+        return poolFor(currentUrl()).metrics();
+    }
+
+    /**
+     * Closes the pool for {@code jdbcUrl} and forgets it: its connections are closed and its leak scan stops.
+     * DBManagers created earlier for that URL fail from then on; a new one opens a fresh pool. No-op for an unknown URL.
+     */
+    public static void closePool(String jdbcUrl) {
+        ConnectionPool pool = pools.remove(jdbcUrl);
+        if (pool != null) {
+            pool.close();
+        }
+    }
 
-            // Self-healing schema: Automatically re-creates the table if it's a new memory instance.
-            // This prevents "Table NOT FOUND" errors during parallel or clean test runs.
-            ensureSchemaExists(conn);
+    /**
+     * Makes {@code jdbcUrl} the default database for everything on this thread that uses {@code new DBManager()}
+     * or the static helpers, so step code needs no changes to run against a per-worker database.
+     * Pass null to go back to 'db.manager.url'.
+     */
+    public static void bindThreadDatabase(String jdbcUrl) {
+        if (jdbcUrl == null) {
+            threadDatabase.remove();
+        } else {
+            threadDatabase.set(jdbcUrl);
+        }
+    }
 
-            return conn;
-        } catch (ClassNotFoundException | SQLException e) {
+    /**
+     * The database {@code new DBManager()} targets on the calling thread.
+     */
+    public static String currentUrl() {
+        String bound = threadDatabase.get();
+        return bound != null ? bound : Config.get(URL);
+    }
+
+    /**
+     * Pool health for the database this instance targets.
+     */
+    public ConnectionPool.Metrics metrics() {
+        return pool.metrics();
+    }
+
+    /**
+     * Opens a transaction that every call on this thread (through any DBManager for the same database) joins until
+     * the handle is closed; closing rolls it all back. Use try-with-resources or pair it with an @After hook:
+     * <pre>
+     * try (ScenarioTransaction tx = db.beginScenario()) { ... }
+     * </pre>
+     * The pinned connection counts against db.pool.size, which therefore caps how many DB scenarios run at once.
+     */
+    public ScenarioTransaction beginScenario() {
+        return new ScenarioTransaction(pool, pool.pin(Config.get(SCENARIO_ACQUIRE_TIMEOUT)));
+    }
+
+    /**
+     * Raw lease for framework components (bulk loading, fixtures) that need full control over a connection.
+     */
+    ConnectionPool.PooledConnection borrow() {
+        return pool.borrow();
+    }
+
+    public DBManager setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    private static ConnectionPool poolFor(String url) {
+        return pools.computeIfAbsent(url, DBManager::createPool);
+    }
+
+    private static ConnectionPool createPool(String url) {
+        try {
+            // Only needed once per JVM; older drivers don't self-register through the ServiceLoader.
+            Class.forName("org.h2.Driver");
+        } catch (ClassNotFoundException e) {
             throw new RuntimeException("DB Connection failed. Check H2 driver dependency or JDBC URL.", e);
         }
+        return new ConnectionPool(url, "sa", "",
+                Config.get(POOL_SIZE),
+                Config.get(ACQUIRE_TIMEOUT),
+                Config.get(VALIDATE_ON_BORROW),
+                Config.get(LEAK_THRESHOLD),
+                Config.get(STATEMENT_CACHE_SIZE),
+                // Self-healing schema: Automatically creates the table for a new memory instance.
+                // Running it once per pool (instead of per connection) keeps DDL off the hot path.
+                DBManager::ensureSchemaExists);
     }
 
     /**
      * Synchronizes the database structure with the requirements of the entire test suite.
      * We include all columns (email, lastname, etc.) to satisfy both Orchestrated E2E and Unit tests.
+     * The booking-API columns (deposit, dates, extras) back the local stub server; they stay nullable
+     * so the existing narrow INSERTs keep working.
      */
     private static void ensureSchemaExists(Connection conn) {
         String sql = "CREATE TABLE IF NOT EXISTS bookings (" +
@@ -38,7 +174,11 @@ public class DBManager {
                 "firstname VARCHAR(255), " +
                 "lastname VARCHAR(255), " +
                 "email VARCHAR(255), " +
-                "totalprice INT)";
+                "totalprice INT, " +
+                "depositpaid BOOLEAN, " +
+                "checkin DATE, " +
+                "checkout DATE, " +
+                "additionalneeds VARCHAR(255))";
         try (Statement stmt = conn.createStatement()) {
             stmt.execute(sql);
         } catch (SQLException e) {
@@ -53,25 +193,17 @@ public class DBManager {
      */
     public List<Map<String, Object>> executeQuery(String query) {
         List<Map<String, Object>> rows = new ArrayList<>();
-        // Using try-with-resources to prevent memory leaks and 'too many open files' on Windows agents.
-        try (Connection conn = getConnection();
+        // Using try-with-resources so the connection always goes back to the pool, even on failure.
+        long started = Telemetry.start();
+        try (Connection conn = pool.borrow().asConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(query)) {
-
-            ResultSetMetaData metaData = rs.getMetaData();
-            int columnCount = metaData.getColumnCount();
-
-            while (rs.next()) {
-                Map<String, Object> row = new HashMap<>();
-                for (int i = 1; i <= columnCount; i++) {
-                    // .toLowerCase() is a safeguard for cross-database compatibility (H2/Oracle/Postgres).
-                    row.put(metaData.getColumnName(i).toLowerCase(), rs.getObject(i));
-                }
-                rows.add(row);
-            }
+            rows = mapRows(rs);
         } catch (SQLException e) {
             System.err.println("QUERY EXECUTION ERROR: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            Telemetry.record(Telemetry.Layer.DB, started);
         }
         return rows;
     }
@@ -81,12 +213,229 @@ public class DBManager {
      * This is the backbone for data seeding and state-based orchestration between API and UI layers.
      */
     public void executeUpdate(String query) {
-        try (Connection conn = getConnection();
+        long started = Telemetry.start();
+        try (Connection conn = pool.borrow().asConnection();
              Statement stmt = conn.createStatement()) {
             stmt.executeUpdate(query);
         } catch (SQLException e) {
             System.err.println("UPDATE EXECUTION ERROR: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            Telemetry.record(Telemetry.Layer.DB, started);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Parameterized SELECT. Values are bound, never concatenated, so the SQL text stays constant
+     * and the statement is planned once per pooled connection instead of on every call.
+     * Rows use the same lower-cased column keys as {@link #executeQuery(String)}.
+     */
+    public List<Map<String, Object>> query(String sql, Object... params) {
+        long started = Telemetry.start();
+        try (ConnectionPool.PooledConnection conn = pool.borrow()) {
+            PreparedStatement ps = prepare(conn, sql);
+            try {
+                bind(ps, params);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return mapRows(rs);
+                }
+            } finally {
+                recycle(conn, sql, ps);
+            }
+        } catch (SQLException e) {
+            System.err.println("QUERY EXECUTION ERROR: " + e.getMessage());
+            e.printStackTrace();
+            return new ArrayList<>();
+        } finally {
+            Telemetry.record(Telemetry.Layer.DB, started);
+        }
+    }
+
+    /**
+     * Parameterized INSERT/UPDATE/DELETE backed by the same per-connection statement cache.
+     *
+     * @return number of affected rows, or 0 if the statement failed.
+     */
+    public int update(String sql, Object... params) {
+        long started = Telemetry.start();
+        try (ConnectionPool.PooledConnection conn = pool.borrow()) {
+            PreparedStatement ps = prepare(conn, sql);
+            try {
+                bind(ps, params);
+                return ps.executeUpdate();
+            } finally {
+                recycle(conn, sql, ps);
+            }
+        } catch (SQLException e) {
+            System.err.println("UPDATE EXECUTION ERROR: " + e.getMessage());
+            e.printStackTrace();
+            return 0;
+        } finally {
+            Telemetry.record(Telemetry.Layer.DB, started);
+        }
+    }
+
+    /**
+     * Streams a query row by row through the callback without materializing anything.
+     * Use this for large-table validations: memory stays constant regardless of result size.
+     *
+     * @return number of rows visited.
+     */
+    public long forEachRow(String sql, RowCallback callback, Object... params) {
+        long started = Telemetry.start();
+        try (ConnectionPool.PooledConnection conn = pool.borrow()) {
+            PreparedStatement ps = prepare(conn, sql);
+            try {
+                bind(ps, params);
+                ps.setFetchSize(fetchSize);
+                long count = 0;
+                try (ResultSet rs = ps.executeQuery()) {
+                    ColumnLabels labels = ColumnLabels.of(rs.getMetaData());
+                    while (rs.next()) {
+                        callback.processRow(rs, labels);
+                        count++;
+                    }
+                }
+                return count;
+            } finally {
+                recycle(conn, sql, ps);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("QUERY STREAM ERROR: " + e.getMessage(), e);
+        } finally {
+            Telemetry.record(Telemetry.Layer.DB, started);
+        }
+    }
+
+    /**
+     * Lazily maps each row through the mapper as the stream is consumed.
+     * The stream holds a pooled connection until closed, so always use try-with-resources:
+     * <pre>
+     * try (Stream&lt;Integer&gt; ids = db.stream("SELECT booking_id FROM bookings", (rs, n) -&gt; rs.getInt(1))) { ... }
+     * </pre>
+     */
+    public <T> Stream<T> stream(String sql, RowMapper<T> mapper, Object... params) {
+        ConnectionPool.PooledConnection conn = pool.borrow();
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            ps = prepare(conn, sql);
+            bind(ps, params);
+            ps.setFetchSize(fetchSize);
+            // Only the execute is timed; rows are fetched as the caller consumes the stream.
+            long started = Telemetry.start();
+            rs = ps.executeQuery();
+            Telemetry.record(Telemetry.Layer.DB, started);
+        } catch (SQLException e) {
+            closeQuietly(conn, sql, ps, rs);
+            throw new RuntimeException("QUERY STREAM ERROR: " + e.getMessage(), e);
+        }
+
+        ResultSet cursor = rs;
+        PreparedStatement statement = ps;
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            private int rowNum;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!cursor.next()) {
+                        return false;
+                    }
+                    action.accept(mapper.mapRow(cursor, rowNum++));
+                    return true;
+                } catch (SQLException e) {
+                    throw new RuntimeException("QUERY STREAM ERROR: " + e.getMessage(), e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(() -> closeQuietly(conn, sql, statement, cursor));
+    }
+
+    /**
+     * Loads the result into a flat column-major holder instead of one map per row.
+     */
+    public ColumnarResult queryColumnar(String sql, Object... params) {
+        long started = Telemetry.start();
+        try (ConnectionPool.PooledConnection conn = pool.borrow()) {
+            PreparedStatement ps = prepare(conn, sql);
+            try {
+                bind(ps, params);
+                ps.setFetchSize(fetchSize);
+                try (ResultSet rs = ps.executeQuery()) {
+                    ColumnLabels labels = ColumnLabels.of(rs.getMetaData());
+                    ColumnarResult result = new ColumnarResult(labels, fetchSize);
+                    // One scratch row reused for every append; the holder copies values into its column arrays.
+                    Object[] row = new Object[labels.size()];
+                    while (rs.next()) {
+                        for (int i = 0; i < row.length; i++) {
+                            row[i] = rs.getObject(i + 1);
+                        }
+                        result.appendRow(row);
+                    }
+                    return result;
+                }
+            } finally {
+                recycle(conn, sql, ps);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("QUERY EXECUTION ERROR: " + e.getMessage(), e);
+        } finally {
+            Telemetry.record(Telemetry.Layer.DB, started);
+        }
+    }
+
+    private static void closeQuietly(ConnectionPool.PooledConnection conn, String sql, PreparedStatement ps, ResultSet rs) {
+        try {
+            if (rs != null) {
+                rs.close();
+            }
+            if (ps != null) {
+                recycle(conn, sql, ps);
+            }
+        } catch (SQLException e) {
+            System.err.println("STREAM CLEANUP ERROR: " + e.getMessage());
+        } finally {
+            conn.close();
+        }
+    }
+
+    private static PreparedStatement prepare(ConnectionPool.PooledConnection conn, String sql) throws SQLException {
+        return conn.cachesStatements() ? conn.prepare(sql) : conn.raw.prepareStatement(sql);
+    }
+
+    private static void bind(PreparedStatement ps, Object[] params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            ps.setObject(i + 1, params[i]);
+        }
+    }
+
+    /**
+     * Cached statements go back to the connection's cache for the next caller, without this call's values;
+     * uncached ones are simply closed.
+     */
+    private static void recycle(ConnectionPool.PooledConnection conn, String sql, PreparedStatement ps) throws SQLException {
+        if (conn.cachesStatements()) {
+            conn.giveBack(sql, ps);
+        } else {
+            ps.close();
+        }
+    }
+
+    private static List<Map<String, Object>> mapRows(ResultSet rs) throws SQLException {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        // Labels are lower-cased once per result set (a safeguard for H2/Oracle/Postgres casing differences),
+        // not once per cell.
+        ColumnLabels labels = ColumnLabels.of(rs.getMetaData());
+        int columnCount = labels.size();
+
+        while (rs.next()) {
+            Map<String, Object> row = new HashMap<>();
+            for (int i = 1; i <= columnCount; i++) {
+                row.put(labels.get(i), rs.getObject(i));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,211 @@
+package core;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * A seeded baseline database that is built once and then cloned per worker.
+ *
+ * The first call seeds a private file database through the given seeder (BulkLoader, SQL, anything) and shuts it
+ * down compacted, which leaves one self-contained .mv.db file. Every clone is a byte copy of that file opened under its
+ * own name: the page store is reused as-is, so a clone costs a file copy instead of re-running the seeder's generators
+ * and round-trips (or replaying a SQL dump) for every test class or worker.
+ * Files live in a per-JVM directory so parallel shards on one machine never open each other's clones.
+ * A worker keeps its clone, writes included, until it is {@link #reset reset}; {@link #bindToCurrentThread()} always
+ * hands out a fresh copy, so each test class that binds in its setup starts from the baseline.
+ * <pre>
+ * static final DatabaseFixture BOOKINGS_10K = new DatabaseFixture("bookings_10k", db -&gt; new BulkLoader(db).load(...));
+ * DBManager db = BOOKINGS_10K.bindToCurrentThread();   // @BeforeClass: this worker's own, freshly restored copy
+ * BOOKINGS_10K.close();                                // @AfterSuite: shut down the clones and drop their pools
+ * </pre>
+ */
+public final class DatabaseFixture {
+
+    private static final Logger log = LogManager.getLogger(DatabaseFixture.class);
+
+    private static final Config.Key<String> SNAPSHOT_DIR = Config.stringKey("db.fixture.dir", "target/db-fixtures");
+
+    private final String name;
+    private final Consumer<DBManager> seeder;
+    private final Map<String, String> clones = new ConcurrentHashMap<>();
+    private final Path directory = Paths.get(Config.get(SNAPSHOT_DIR), String.valueOf(ProcessHandle.current().pid())).toAbsolutePath();
+    private volatile Path snapshot;
+
+    /**
+     * @param name   letters, digits and underscores; becomes part of every clone's database name
+     * @param seeder fills the baseline; runs once per JVM, against a database that already has the standard schema
+     */
+    public DatabaseFixture(String name, Consumer<DBManager> seeder) {
+        if (!name.matches("[A-Za-z0-9_]+")) {
+            throw new IllegalArgumentException("Fixture name '" + name + "' may only contain letters, digits and '_'.");
+        }
+        this.name = name;
+        this.seeder = seeder;
+    }
+
+    /**
+     * Seeds the baseline and writes its snapshot on first use; later calls return the same file.
+     */
+    public Path snapshot() {
+        Path existing = snapshot;
+        if (existing != null) {
+            return existing;
+        }
+        synchronized (this) {
+            if (snapshot == null) {
+                snapshot = buildSnapshot();
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * JDBC URL of {@code worker}'s clone, restoring it from the snapshot the first time that worker asks.
+     * Later calls return the same clone with whatever was written to it since.
+     */
+    public String cloneFor(String worker) {
+        return clones.computeIfAbsent(sanitize(worker), this::restore);
+    }
+
+    /**
+     * Puts {@code worker}'s clone back to the baseline: the database is shut down, its pool dropped and the file copied
+     * again from the snapshot. DBManagers opened on the old clone stop working; open new ones on the returned URL.
+     */
+    public String reset(String worker) {
+        return clones.compute(sanitize(worker), (key, url) -> {
+            if (url != null) {
+                discard(url);
+            }
+            return restore(key);
+        });
+    }
+
+    /**
+     * {@code worker}'s clone as a DBManager.
+     */
+    public DBManager open(String worker) {
+        return new DBManager(cloneFor(worker));
+    }
+
+    /**
+     * Restores a fresh clone of the baseline for the calling thread and makes it the thread's default database, so
+     * existing step code ({@code new DBManager()}) runs against this worker's copy. Rows written by an earlier test class
+     * on the same worker are gone. Undo with {@code DBManager.bindThreadDatabase(null)}.
+     */
+    public DBManager bindToCurrentThread() {
+        String url = reset(Thread.currentThread().getName());
+        DBManager.bindThreadDatabase(url);
+        return new DBManager(url);
+    }
+
+    /**
+     * Shuts down every clone, unregisters its pool and deletes its file. The snapshot is kept, so the fixture can still
+     * hand out clones afterwards.
+     */
+    public void close() {
+        for (String worker : clones.keySet()) {
+            clones.computeIfPresent(worker, (key, url) -> {
+                discard(url);
+                try {
+                    Files.deleteIfExists(directory.resolve(name + "_" + key + ".mv.db"));
+                } catch (IOException e) {
+                    log.warn("Could not delete clone '{}' of fixture '{}'", key, name, e);
+                }
+                return null;
+            });
+        }
+    }
+
+    private Path buildSnapshot() {
+        Path file = directory.resolve("fixture_" + name + ".mv.db");
+        long start = System.nanoTime();
+        try {
+            Files.createDirectories(directory);
+            removeStaleRuns();
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new RuntimeException("DB Fixture failed: could not prepare " + directory, e);
+        }
+        String baselineUrl = urlOf("fixture_" + name);
+        seeder.accept(new DBManager(baselineUrl));
+        long seeded = System.nanoTime();
+        // COMPACT rewrites the store without dead pages and closes it, so the file is complete and safe to copy.
+        run(new DBManager(baselineUrl), "SHUTDOWN COMPACT");
+        // Its connections are dead now; keeping the pool registered would only leak them.
+        DBManager.closePool(baselineUrl);
+        try {
+            log.info("Fixture '{}' seeded in {} ms, snapshot {} KiB in {} ms -> {}", name,
+                    (seeded - start) / 1_000_000, Files.size(file) / 1024, (System.nanoTime() - seeded) / 1_000_000, file);
+        } catch (IOException e) {
+            throw new RuntimeException("DB Fixture failed: snapshot for '" + name + "' was not written to " + file, e);
+        }
+        return file;
+    }
+
+    private String restore(String worker) {
+        Path source = snapshot();
+        String database = name + "_" + worker;
+        long start = System.nanoTime();
+        try {
+            Files.copy(source, directory.resolve(database + ".mv.db"), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new RuntimeException("DB Fixture failed: could not clone '" + name + "' for worker '" + worker + "'", e);
+        }
+        log.debug("Cloned fixture '{}' for worker '{}' in {} ms", name, worker, (System.nanoTime() - start) / 1_000_000);
+        return urlOf(database);
+    }
+
+    // DB_CLOSE_DELAY=-1 keeps the database open after its last connection, so it has to be shut down explicitly
+    // before the file can be replaced or deleted.
+    private static void discard(String url) {
+        try {
+            run(new DBManager(url), "SHUTDOWN");
+        } finally {
+            DBManager.closePool(url);
+        }
+    }
+
+    private String urlOf(String database) {
+        return "jdbc:h2:file:" + directory.resolve(database) + ";DB_CLOSE_DELAY=-1";
+    }
+
+    // Earlier JVMs leave their directories behind; drop the ones whose process is gone.
+    private void removeStaleRuns() throws IOException {
+        try (Stream<Path> runs = Files.list(directory.getParent())) {
+            for (Path run : (Iterable<Path>) runs::iterator) {
+                String pid = run.getFileName().toString();
+                if (pid.matches("\\d+") && !run.equals(directory) && ProcessHandle.of(Long.parseLong(pid)).isEmpty()) {
+                    try (Stream<Path> files = Files.walk(run)) {
+                        files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+                    }
+                }
+            }
+        }
+    }
+
+    private static void run(DBManager db, String sql) {
+        try (ConnectionPool.PooledConnection conn = db.borrow();
+             Statement stmt = conn.raw.createStatement()) {
+            stmt.execute(sql);
+        } catch (SQLException e) {
+            throw new RuntimeException("DB Fixture failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static String sanitize(String worker) {
+        return worker.replaceAll("[^A-Za-z0-9_]", "_");
+    }
+}
@@ -4,7 +4,13 @@ import io.github.bonigarcia.wdm.WebDriverManager;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.logging.LogType;
+import org.openqa.selenium.logging.LoggingPreferences;
 import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
 
 public class DriverFactory {
 
@@ -12,41 +18,42 @@ public class DriverFactory {
     // Each thread maintains its own isolated browser session to avoid shared state corruption.
     private static final ThreadLocal<WebDriver> driverThreadLocal = new ThreadLocal<>();
 
+    // The pool lease that backs the thread's driver, so release() knows where to return it.
+    private static final ThreadLocal<DriverPool.PooledSession> leaseThreadLocal = new ThreadLocal<>();
+
+    // One warm pool per browser type; created lazily on the first scenario that needs it.
+    private static final Map<String, DriverPool> pools = new ConcurrentHashMap<>();
+
+    private static final Config.Key<Boolean> HEADLESS = Config.booleanKey("headless", false);
+    private static final Config.Key<Boolean> POOL_ENABLED = Config.booleanKey("driver.pool.enabled", true);
+    private static final Config.Key<Integer> POOL_SIZE = Config.intKey("driver.pool.size", 4);
+    private static final Config.Key<Integer> POOL_MAX_USES = Config.intKey("driver.pool.max.uses", 25);
+    private static final Config.Key<Duration> POOL_MAX_AGE = Config.durationKey("driver.pool.max.age.minutes", ChronoUnit.MINUTES, Duration.ofMinutes(30));
+    private static final Config.Key<Duration> POOL_LEASE_TIMEOUT = Config.durationKey("driver.pool.lease.timeout.seconds", ChronoUnit.SECONDS, Duration.ofSeconds(120));
+    private static final Config.Key<Integer> POOL_WARMUP = Config.intKey("driver.pool.warmup", 0);
+
+    // WebDriverManager resolves and downloads the binary over the network, so it only has to run once per JVM.
+    private static final Map<String, Boolean> binariesResolved = new ConcurrentHashMap<>();
+
+    static {
+        // Pooled sessions outlive individual scenarios, so something has to close them when the suite ends.
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> pools.values().forEach(DriverPool::close),
+                "driver-pool-shutdown"));
+    }
+
     public static void setupDriver(String browser) {
         if (driverThreadLocal.get() == null) {
+            String key = browser.toLowerCase();
             WebDriver driver;
 
-            switch (browser.toLowerCase()) {
-                case "chrome":
-                    WebDriverManager.chromedriver().setup();
-                    ChromeOptions options = new ChromeOptions();
-
-                    // Detect environment: Auto-enable headless mode if running in GitHub Actions (CI=true)
-                    // or if explicitly set to 'true' in config.properties.
-                    boolean isHeadless = Boolean.parseBoolean(ConfigManager.getProperty("headless", "false"))
-                            || System.getenv("CI") != null;
-
-                    if (isHeadless) {
-                        // '--headless=new' is mandatory for stable execution in Linux/CI environments without a GUI.
-                        // '--no-sandbox' and '--disable-dev-shm-usage' prevent memory crashes in containerized runners.
-                        options.addArguments("--headless=new");
-                        options.addArguments("--no-sandbox");
-                        options.addArguments("--disable-dev-shm-usage");
-                        options.addArguments("--window-size=1920,1080");
-                    } else {
-                        options.addArguments("--start-maximized");
-                    }
-
-                    driver = new ChromeDriver(options);
-                    break;
-                default:
-                    throw new RuntimeException("Unsupported browser: " + browser);
+            if (isPoolEnabled()) {
+                DriverPool.PooledSession session = pools.computeIfAbsent(key, DriverFactory::createPool).lease();
+                leaseThreadLocal.set(session);
+                driver = session.driver;
+            } else {
+                driver = createDriver(key);
             }
 
-            // Syncing implicit wait with global config to handle network latency across environments.
-            int timeout = ConfigManager.getIntProperty("timeout", 10);
-            driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(timeout));
-
             driverThreadLocal.set(driver);
         }
     }
@@ -55,14 +62,117 @@ public class DriverFactory {
         return driverThreadLocal.get();
     }
 
+    /**
+     * Hands the thread's session back to the pool once the scenario is done with it.
+     * The pool scrubs cookies/storage and decides whether the session is still worth keeping.
+     * Without pooling this is the same as {@link #quitDriver()}.
+     */
+    public static void releaseDriver() {
+        DriverPool.PooledSession session = leaseThreadLocal.get();
+        if (session == null) {
+            quitDriver();
+            return;
+        }
+        try {
+            session.owner().release(session);
+        } finally {
+            leaseThreadLocal.remove();
+            driverThreadLocal.remove();
+        }
+    }
+
     /**
      * Terminating the session and clearing the reference is required to prevent
      * orphaned processes and memory leaks in long-running CI loops.
+     * Pooled sessions are discarded rather than returned, so a crashed browser never gets re-leased.
      */
     public static void quitDriver() {
+        DriverPool.PooledSession session = leaseThreadLocal.get();
+        if (session != null) {
+            try {
+                session.owner().discard(session);
+            } finally {
+                leaseThreadLocal.remove();
+                driverThreadLocal.remove();
+            }
+            return;
+        }
         if (driverThreadLocal.get() != null) {
             driverThreadLocal.get().quit();
             driverThreadLocal.remove();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Starts a brand-new browser session. Used directly when pooling is off, and as the pool's factory otherwise.
+     */
+    static WebDriver createDriver(String browser) {
+        WebDriver driver;
+        long started = System.nanoTime();
+
+        switch (browser) {
+            case "chrome":
+                binariesResolved.computeIfAbsent(browser, b -> {
+                    WebDriverManager.chromedriver().setup();
+                    return Boolean.TRUE;
+                });
+                ChromeOptions options = new ChromeOptions();
+                // Keeps console messages retrievable, so failure artifacts can include the browser log.
+                LoggingPreferences logging = new LoggingPreferences();
+                logging.enable(LogType.BROWSER, Level.ALL);
+                options.setCapability(ChromeOptions.LOGGING_PREFS, logging);
+
+                if (isHeadless()) {
+                    // '--headless=new' is mandatory for stable execution in Linux/CI environments without a GUI.
+                    // '--no-sandbox' and '--disable-dev-shm-usage' prevent memory crashes in containerized runners.
+                    options.addArguments("--headless=new");
+                    options.addArguments("--no-sandbox");
+                    options.addArguments("--disable-dev-shm-usage");
+                    options.addArguments("--window-size=1920,1080");
+                } else {
+                    options.addArguments("--start-maximized");
+                }
+
+                driver = new ChromeDriver(options);
+                break;
+            default:
+                throw new RuntimeException("Unsupported browser: " + browser);
+        }
+
+        Telemetry.recordBrowserStartup(System.nanoTime() - started);
+
+        // No implicit wait: it stacked with every explicit wait and made each missing-element check cost the full
+        // timeout. Page objects synchronise through SmartWait, whose browser-side waits need a script timeout that
+        // outlasts the longest wait.
+        driver.manage().timeouts().implicitlyWait(Duration.ZERO);
+        driver.manage().timeouts().scriptTimeout(SmartWait.ceiling().plusSeconds(5));
+        SmartWait.installTracker(driver);
+        // Headless runs (CI) skip images, fonts and trackers and replay cached scripts/styles; see network.filter.
+        NetworkFilter.install(driver, isHeadless());
+
+        // Every command from here on (pool scrubbing included) is timed as a UI call.
+        return Telemetry.instrument(driver);
+    }
+
+    private static DriverPool createPool(String browser) {
+        DriverPool pool = new DriverPool(browser,
+                () -> createDriver(browser),
+                Config.get(POOL_SIZE),
+                Config.get(POOL_MAX_USES),
+                Config.get(POOL_MAX_AGE),
+                Config.get(POOL_LEASE_TIMEOUT));
+        pool.warmUp(Config.get(POOL_WARMUP));
+        return pool;
+    }
+
+    private static boolean isPoolEnabled() {
+        return Config.get(POOL_ENABLED);
+    }
+
+    // Detect environment: Auto-enable headless mode if running in GitHub Actions (CI=true)
+    // or if explicitly set to 'true' in config.properties.
+    private static boolean isHeadless() {
+        return Config.get(HEADLESS)
+                || System.getenv("CI") != null;
+    }
+}
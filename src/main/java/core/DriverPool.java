@@ -0,0 +1,260 @@
+package core;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool of warm browser sessions.
+ * Browser startup dominates wall-clock time on the grid, so sessions are created once,
+ * handed out to one thread at a time and scrubbed between leases instead of being quit.
+ */
+public class DriverPool {
+
+    private static final Logger log = LogManager.getLogger(DriverPool.class);
+
+    private static final long WAIT_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final String browser;
+    private final Supplier<WebDriver> factory;
+    private final int maxSize;
+    private final int maxUses;
+    private final long maxAgeMillis;
+    private final long leaseTimeoutMillis;
+
+    // LIFO order keeps the most recently used (and therefore hottest) session in rotation,
+    // letting idle ones age out naturally instead of cycling every session evenly.
+    private final LinkedBlockingDeque<PooledSession> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger totalSessions = new AtomicInteger();
+
+    private volatile boolean closed;
+
+    DriverPool(String browser, Supplier<WebDriver> factory, int maxSize, int maxUses,
+               Duration maxAge, Duration leaseTimeout) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Driver pool size must be at least 1, got " + maxSize);
+        }
+        this.browser = browser;
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.maxUses = maxUses;
+        this.maxAgeMillis = maxAge.toMillis();
+        this.leaseTimeoutMillis = leaseTimeout.toMillis();
+    }
+
+    /**
+     * Starts up to {@code count} sessions in the background so the first scenarios
+     * don't pay the browser startup cost. Failures are logged, not thrown: a cold pool still works.
+     */
+    void warmUp(int count) {
+        int target = Math.min(count, maxSize);
+        if (target <= 0) {
+            return;
+        }
+        ExecutorService starter = Executors.newFixedThreadPool(target, r -> {
+            Thread t = new Thread(r, "driver-pool-warmup-" + browser);
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < target; i++) {
+            starter.submit(() -> {
+                if (!reserveSlot()) {
+                    return;
+                }
+                try {
+                    idle.offerFirst(new PooledSession(factory.get()));
+                } catch (RuntimeException e) {
+                    totalSessions.decrementAndGet();
+                    log.warn("Warm-up of a {} session failed: {}", browser, e.getMessage());
+                }
+            });
+        }
+        starter.shutdown();
+    }
+
+    /**
+     * Hands out a ready-to-use session. Reuses an idle one when possible, starts a new one while
+     * under capacity, otherwise waits for another thread to release.
+     */
+    PooledSession lease() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(leaseTimeoutMillis);
+        while (!closed) {
+            PooledSession session = idle.pollFirst();
+            if (session != null) {
+                if (session.isExpired()) {
+                    destroy(session, "max-age reached while idle");
+                    continue;
+                }
+                session.markLeased();
+                return session;
+            }
+
+            if (reserveSlot()) {
+                try {
+                    PooledSession fresh = new PooledSession(factory.get());
+                    fresh.markLeased();
+                    return fresh;
+                } catch (RuntimeException e) {
+                    totalSessions.decrementAndGet();
+                    throw e;
+                }
+            }
+
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            try {
+                // Short slices so a slot freed by a discarded or retired session is picked up, not just returned ones.
+                session = idle.pollFirst(Math.min(remaining, WAIT_SLICE_NANOS), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for a " + browser + " session.", e);
+            }
+            if (session != null) {
+                // Put it back at the head so the expiry check above handles it uniformly.
+                idle.offerFirst(session);
+            }
+        }
+        throw new RuntimeException("No " + browser + " session became available within "
+                + leaseTimeoutMillis + " ms (pool size " + maxSize + "). Raise 'driver.pool.size' or check for leaked sessions.");
+    }
+
+    /**
+     * Returns a session to the pool. Sessions that hit their use/age budget, or that can't be
+     * scrubbed cleanly, are quit instead so the next lease never inherits a tainted browser.
+     */
+    void release(PooledSession session) {
+        if (closed) {
+            destroy(session, "pool closed");
+            return;
+        }
+        if (session.uses >= maxUses) {
+            destroy(session, "max-uses reached (" + session.uses + ")");
+            return;
+        }
+        if (session.isExpired()) {
+            destroy(session, "max-age reached");
+            return;
+        }
+        try {
+            resetState(session.driver);
+        } catch (RuntimeException e) {
+            destroy(session, "state reset failed: " + e.getMessage());
+            return;
+        }
+        idle.offerFirst(session);
+    }
+
+    /**
+     * Quits a session without returning it, e.g. when the browser crashed mid-scenario.
+     */
+    void discard(PooledSession session) {
+        destroy(session, "discarded by caller");
+    }
+
+    /**
+     * Quits every idle session. Leased sessions are quit as they come back.
+     */
+    void close() {
+        closed = true;
+        PooledSession session;
+        while ((session = idle.pollFirst()) != null) {
+            destroy(session, "pool shutdown");
+        }
+    }
+
+    int idleCount() {
+        return idle.size();
+    }
+
+    int totalCount() {
+        return totalSessions.get();
+    }
+
+    private boolean reserveSlot() {
+        while (true) {
+            int current = totalSessions.get();
+            if (current >= maxSize) {
+                return false;
+            }
+            if (totalSessions.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Scrubs everything a previous scenario could leak into the next one:
+     * cookies, web storage, extra tabs and the current document.
+     */
+    private static void resetState(WebDriver driver) {
+        String original = driver.getWindowHandle();
+        for (String handle : driver.getWindowHandles()) {
+            if (!handle.equals(original)) {
+                driver.switchTo().window(handle).close();
+            }
+        }
+        driver.switchTo().window(original);
+
+        if (driver instanceof HasCdp) {
+            // deleteAllCookies() only sees the current document's domain; the CDP call wipes the whole jar,
+            // including third-party cookies set by redirects during the previous scenario.
+            ((HasCdp) driver).executeCdpCommand("Network.clearBrowserCookies", Collections.emptyMap());
+        } else {
+            driver.manage().deleteAllCookies();
+        }
+        // Storage is per-origin, so it has to be cleared while still on the scenario's origin.
+        // about:blank has no storage, which makes the call throw there — hence the guard.
+        ((JavascriptExecutor) driver).executeScript(
+                "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}");
+        driver.get("about:blank");
+    }
+
+    private void destroy(PooledSession session, String reason) {
+        totalSessions.decrementAndGet();
+        log.info("Retiring {} session after {} use(s): {}", browser, session.uses, reason);
+        try {
+            session.driver.quit();
+        } catch (RuntimeException e) {
+            // Already dead — nothing else to free.
+            log.debug("Quit of retired session failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * A browser session plus the bookkeeping needed for eviction.
+     */
+    final class PooledSession {
+        final WebDriver driver;
+        private final long createdAt = System.currentTimeMillis();
+        private int uses;
+
+        private PooledSession(WebDriver driver) {
+            this.driver = driver;
+        }
+
+        DriverPool owner() {
+            return DriverPool.this;
+        }
+
+        private void markLeased() {
+            uses++;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() - createdAt >= maxAgeMillis;
+        }
+    }
+}
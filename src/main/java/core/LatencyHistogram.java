@@ -0,0 +1,144 @@
+package core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free, fixed-footprint latency histogram (HDR-style log-linear buckets).
+ * Values are recorded in nanoseconds with at most 1/64 (~1.6%) relative error across the full long range,
+ * so percentiles stay accurate from sub-millisecond DB calls up to multi-second page loads
+ * without ever resizing or allocating on the record path.
+ */
+public final class LatencyHistogram {
+
+    // 2^7 linear sub-buckets per power of two: worst-case relative error is 1/64 (~1.6%).
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT / 2;
+    private static final int BUCKET_COUNT = indexOf(Long.MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLong minNanos = new AtomicLong(Long.MAX_VALUE);
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(value));
+        totalCount.increment();
+        totalNanos.add(value);
+        maxNanos.accumulateAndGet(value, Math::max);
+        minNanos.accumulateAndGet(value, Math::min);
+    }
+
+    public void record(long duration, TimeUnit unit) {
+        record(unit.toNanos(duration));
+    }
+
+    public long count() {
+        return totalCount.sum();
+    }
+
+    public long totalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long maxNanos() {
+        return count() == 0 ? 0 : maxNanos.get();
+    }
+
+    public long minNanos() {
+        return count() == 0 ? 0 : minNanos.get();
+    }
+
+    public double meanNanos() {
+        long count = count();
+        return count == 0 ? 0 : (double) totalNanos.sum() / count;
+    }
+
+    /**
+     * Value at the given percentile (0-100], reported as the upper edge of the matching bucket
+     * so the result is never optimistic.
+     */
+    public long percentileNanos(double percentile) {
+        long count = count();
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(upperBoundOf(i), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    /**
+     * Folds another histogram into this one, e.g. to roll per-thread or per-shard results up.
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long c = other.counts.get(i);
+            if (c != 0) {
+                counts.addAndGet(i, c);
+            }
+        }
+        totalCount.add(other.totalCount.sum());
+        totalNanos.add(other.totalNanos.sum());
+        if (other.count() > 0) {
+            maxNanos.accumulateAndGet(other.maxNanos.get(), Math::max);
+            minNanos.accumulateAndGet(other.minNanos.get(), Math::min);
+        }
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.reset();
+        totalNanos.reset();
+        maxNanos.set(0);
+        minNanos.set(Long.MAX_VALUE);
+    }
+
+    /**
+     * One-line summary in milliseconds, suitable for logs and report attachments.
+     */
+    public String summary() {
+        return String.format("count=%d mean=%.3fms p50=%.3fms p90=%.3fms p99=%.3fms max=%.3fms",
+                count(), meanNanos() / 1e6, percentileNanos(50) / 1e6, percentileNanos(90) / 1e6,
+                percentileNanos(99) / 1e6, maxNanos() / 1e6);
+    }
+
+    @Override
+    public String toString() {
+        return summary();
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int shift = msb - SUB_BUCKET_BITS + 1;
+        int subBucket = (int) (value >>> shift);
+        return shift * SUB_BUCKET_HALF + subBucket;
+    }
+
+    private static long upperBoundOf(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_HALF - 1;
+        long subBucket = index - (long) shift * SUB_BUCKET_HALF;
+        long upper = ((subBucket + 1) << shift) - 1;
+        // The topmost bucket's edge overflows a signed long.
+        return upper < 0 ? Long.MAX_VALUE : upper;
+    }
+}
@@ -0,0 +1,460 @@
+package core;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a weighted mix of operations at a target arrival rate (open model) or with a fixed number of
+ * looping users (closed model), through a ramp-up phase followed by a measured steady state.
+ *
+ * Latency is measured from the moment a request was <i>scheduled</i> to start, not from when a worker got round
+ * to sending it. When the system under test stalls, the requests that should have gone out during the stall
+ * are charged the time they spent waiting, so a 2s freeze shows up in p99 instead of being hidden
+ * behind one slow sample (coordinated omission). Service time (send to response) is kept alongside for diagnosis.
+ */
+public class LoadGenerator {
+
+    private static final Logger log = LogManager.getLogger(LoadGenerator.class);
+
+    public enum Model {
+        /** Requests arrive on a fixed schedule regardless of how fast earlier ones complete. */
+        OPEN,
+        /** Each user sends its next request only after the previous one finished (plus optional pacing). */
+        CLOSED
+    }
+
+    /**
+     * One unit of work, e.g. a single HTTP call. Throwing marks the call as an error; its latency is still recorded.
+     */
+    @FunctionalInterface
+    public interface Operation {
+        /**
+         * @param sequence run-wide sequence number, handy for picking deterministic test data.
+         */
+        void execute(long sequence) throws Exception;
+    }
+
+    private final Map<String, Operation> operations = new LinkedHashMap<>();
+    private final Map<String, Integer> weights = new LinkedHashMap<>();
+    private Model model = Model.OPEN;
+    private double ratePerSecond = 10;
+    private int concurrency = 4;
+    private Duration pacing = Duration.ZERO;
+    private Duration rampUp = Duration.ZERO;
+    private Duration steadyState = Duration.ofSeconds(30);
+    private Duration drainTimeout = Duration.ofSeconds(30);
+
+    public LoadGenerator addOperation(String name, int weight, Operation operation) {
+        if (weight < 1) {
+            throw new IllegalArgumentException("Weight of '" + name + "' must be at least 1, got " + weight);
+        }
+        operations.put(name, operation);
+        weights.put(name, weight);
+        return this;
+    }
+
+    public LoadGenerator setModel(Model model) {
+        this.model = model;
+        return this;
+    }
+
+    /**
+     * Open model: steady-state arrivals per second. Ramp-up climbs linearly from zero to this rate.
+     */
+    public LoadGenerator setRatePerSecond(double ratePerSecond) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("Rate must be positive, got " + ratePerSecond);
+        }
+        this.ratePerSecond = ratePerSecond;
+        return this;
+    }
+
+    /**
+     * Closed model: number of users. Open model: worker threads, i.e. the cap on requests in flight.
+     * Arrivals beyond that cap queue up, and the queueing time counts toward their latency.
+     */
+    public LoadGenerator setConcurrency(int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1, got " + concurrency);
+        }
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    /**
+     * Closed model only: minimum interval between one user's request starts. With pacing set, every user
+     * follows a schedule and latency is measured against it; without it, the loop has no schedule to fall
+     * behind and only service time is meaningful.
+     */
+    public LoadGenerator setPacing(Duration pacing) {
+        this.pacing = pacing;
+        return this;
+    }
+
+    /**
+     * Warm-up window: JIT, connection pools and server caches settle here. Recorded separately, never gated on.
+     */
+    public LoadGenerator setRampUp(Duration rampUp) {
+        this.rampUp = rampUp;
+        return this;
+    }
+
+    public LoadGenerator setSteadyState(Duration steadyState) {
+        this.steadyState = steadyState;
+        return this;
+    }
+
+    /**
+     * How long to wait for in-flight calls after the schedule ends before abandoning them.
+     */
+    public LoadGenerator setDrainTimeout(Duration drainTimeout) {
+        this.drainTimeout = drainTimeout;
+        return this;
+    }
+
+    public LoadReport run() {
+        if (operations.isEmpty()) {
+            throw new IllegalStateException("No operations registered; nothing to drive.");
+        }
+        List<String> names = new ArrayList<>(operations.keySet());
+        // Weighted round-robin table: deterministic mix, no shared Random on the hot path.
+        List<Integer> slots = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            for (int w = 0; w < weights.get(names.get(i)); w++) {
+                slots.add(i);
+            }
+        }
+        Operation[] ops = new Operation[names.size()];
+        OperationStats[] stats = new OperationStats[names.size()];
+        for (int i = 0; i < names.size(); i++) {
+            ops[i] = operations.get(names.get(i));
+            stats[i] = new OperationStats(names.get(i));
+        }
+
+        Run run = new Run(ops, stats, slots.stream().mapToInt(Integer::intValue).toArray());
+        log.info("Load run starting: model={}, rate={}/s, concurrency={}, rampUp={}, steadyState={}, mix={}",
+                model, ratePerSecond, concurrency, rampUp, steadyState, weights);
+        if (model == Model.OPEN) {
+            run.open();
+        } else {
+            run.closed();
+        }
+
+        Map<String, OperationStats> byName = new LinkedHashMap<>();
+        for (OperationStats s : stats) {
+            byName.put(s.getName(), s);
+        }
+        LoadReport report = new LoadReport(model, steadyState, byName, run.missedStarts.sum(), run.abandoned.get());
+        log.info("Load run: {}", report.summary());
+        return report;
+    }
+
+    /**
+     * State of one run; lives only as long as {@link #run()}.
+     */
+    private final class Run {
+        private final Operation[] ops;
+        private final OperationStats[] stats;
+        private final int[] slots;
+        private final AtomicLong sequence = new AtomicLong();
+        private final LongAdder missedStarts = new LongAdder();
+        private final AtomicInteger abandoned = new AtomicInteger();
+        private final long startNanos;
+        private final long rampEndNanos;
+        private final long endNanos;
+
+        private Run(Operation[] ops, OperationStats[] stats, int[] slots) {
+            this.ops = ops;
+            this.stats = stats;
+            this.slots = slots;
+            // Small head start so the first scheduled times are not already in the past.
+            this.startNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+            this.rampEndNanos = startNanos + rampUp.toNanos();
+            this.endNanos = rampEndNanos + steadyState.toNanos();
+        }
+
+        private void open() {
+            ThreadPoolExecutor workers = new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), daemonThreads("load-worker"));
+            workers.prestartAllCoreThreads();
+            long rampNanos = rampUp.toNanos();
+            double ratePerNano = ratePerSecond / 1e9;
+            // Arrivals needed to finish the linear ramp: area under the 0 -> rate triangle.
+            double rampArrivals = ratePerNano * rampNanos / 2;
+            for (long n = 0; ; n++) {
+                long offset = n < rampArrivals
+                        ? (long) Math.sqrt(2.0 * rampNanos * n / ratePerNano)
+                        : rampNanos + (long) ((n - rampArrivals) / ratePerNano);
+                long intended = startNanos + offset;
+                if (intended >= endNanos) {
+                    break;
+                }
+                sleepUntil(intended);
+                if (System.nanoTime() - intended > TimeUnit.MILLISECONDS.toNanos(10)) {
+                    // The dispatcher itself fell behind (GC, starved CPU); the charge still lands on the request.
+                    missedStarts.increment();
+                }
+                workers.execute(() -> invoke(intended));
+            }
+            drain(workers);
+        }
+
+        private void closed() {
+            ExecutorService users = Executors.newFixedThreadPool(concurrency, daemonThreads("load-user"));
+            long pacingNanos = pacing.toNanos();
+            for (int u = 0; u < concurrency; u++) {
+                // Users join evenly across the ramp so the system is never hit by all of them at once.
+                long userStart = startNanos + (concurrency == 1 ? 0 : rampUp.toNanos() * u / concurrency);
+                users.execute(() -> {
+                    sleepUntil(userStart);
+                    long intended = userStart;
+                    while (intended < endNanos) {
+                        if (pacingNanos > 0) {
+                            sleepUntil(intended);
+                            invoke(intended);
+                            intended += pacingNanos;
+                        } else {
+                            long now = System.nanoTime();
+                            if (now >= endNanos) {
+                                break;
+                            }
+                            invoke(now);
+                            intended = System.nanoTime();
+                        }
+                    }
+                });
+            }
+            drain(users);
+        }
+
+        private void invoke(long intendedNanos) {
+            long seq = sequence.getAndIncrement();
+            int index = slots[(int) (seq % slots.length)];
+            OperationStats s = stats[index];
+            long sentNanos = System.nanoTime();
+            Throwable failure = null;
+            try {
+                ops[index].execute(seq);
+            } catch (Throwable t) {
+                failure = t;
+            }
+            long doneNanos = System.nanoTime();
+            s.record(intendedNanos < rampEndNanos, doneNanos - intendedNanos, doneNanos - sentNanos, failure);
+        }
+
+        private void drain(ExecutorService executor) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(drainTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                    abandoned.set(executor.shutdownNow().size());
+                    log.warn("Load run drain timed out after {}; {} queued calls abandoned", drainTimeout, abandoned.get());
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void sleepUntil(long deadlineNanos) {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * Per-operation results. Ramp-up samples are kept apart from steady state so warm-up noise never fails a gate.
+     */
+    public static final class OperationStats {
+        private final String name;
+        private final LatencyHistogram responseTime = new LatencyHistogram();
+        private final LatencyHistogram serviceTime = new LatencyHistogram();
+        private final LatencyHistogram rampUpResponseTime = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final AtomicReference<String> firstError = new AtomicReference<>();
+
+        private OperationStats(String name) {
+            this.name = name;
+        }
+
+        private void record(boolean rampUp, long responseNanos, long serviceNanos, Throwable failure) {
+            if (rampUp) {
+                rampUpResponseTime.record(responseNanos);
+                return;
+            }
+            responseTime.record(responseNanos);
+            serviceTime.record(serviceNanos);
+            if (failure != null) {
+                errors.increment();
+                firstError.compareAndSet(null, failure.getClass().getSimpleName() + ": " + failure.getMessage());
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Steady-state latency from scheduled start to completion (coordinated-omission corrected).
+         */
+        public LatencyHistogram getResponseTime() {
+            return responseTime;
+        }
+
+        /**
+         * Steady-state latency from actual send to completion. A wide gap to response time means the
+         * generator or the system was queueing.
+         */
+        public LatencyHistogram getServiceTime() {
+            return serviceTime;
+        }
+
+        public LatencyHistogram getRampUpResponseTime() {
+            return rampUpResponseTime;
+        }
+
+        public long getCount() {
+            return responseTime.count();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public double getErrorRate() {
+            long count = getCount();
+            return count == 0 ? 0 : (double) getErrors() / count;
+        }
+
+        /**
+         * First failure seen, so a 100% error rate comes with a reason.
+         */
+        public String getFirstError() {
+            return firstError.get();
+        }
+    }
+
+    public static final class LoadReport {
+        private final Model model;
+        private final Duration steadyState;
+        private final Map<String, OperationStats> operations;
+        private final long missedStarts;
+        private final int abandoned;
+
+        private LoadReport(Model model, Duration steadyState, Map<String, OperationStats> operations,
+                           long missedStarts, int abandoned) {
+            this.model = model;
+            this.steadyState = steadyState;
+            this.operations = Collections.unmodifiableMap(operations);
+            this.missedStarts = missedStarts;
+            this.abandoned = abandoned;
+        }
+
+        public Model getModel() {
+            return model;
+        }
+
+        public Map<String, OperationStats> getOperations() {
+            return operations;
+        }
+
+        public OperationStats getOperation(String name) {
+            OperationStats stats = operations.get(name);
+            if (stats == null) {
+                throw new IllegalArgumentException("No operation named '" + name + "' in this run: " + operations.keySet());
+            }
+            return stats;
+        }
+
+        /**
+         * All operations folded together.
+         */
+        public LatencyHistogram getResponseTime() {
+            LatencyHistogram total = new LatencyHistogram();
+            operations.values().forEach(s -> total.add(s.getResponseTime()));
+            return total;
+        }
+
+        public long getErrors() {
+            return operations.values().stream().mapToLong(OperationStats::getErrors).sum();
+        }
+
+        public double getErrorRate() {
+            long count = getResponseTime().count();
+            return count == 0 ? 0 : (double) getErrors() / count;
+        }
+
+        /**
+         * Completed steady-state calls per second.
+         */
+        public double getThroughput() {
+            return getResponseTime().count() / Math.max(steadyState.toNanos() / 1e9, 1e-9);
+        }
+
+        /**
+         * Scheduled starts the dispatcher itself missed by more than 10ms; non-zero means the load
+         * generator, not the system under test, was the bottleneck.
+         */
+        public long getMissedStarts() {
+            return missedStarts;
+        }
+
+        public int getAbandoned() {
+            return abandoned;
+        }
+
+        /**
+         * Multi-line text table, one row per operation, suitable for logs and report attachments.
+         */
+        public String summary() {
+            StringBuilder out = new StringBuilder();
+            out.append(String.format("model=%s steadyState=%ss throughput=%.1f/s errors=%d (%.2f%%) missedStarts=%d abandoned=%d%n",
+                    model, steadyState.getSeconds(), getThroughput(), getErrors(), getErrorRate() * 100, missedStarts, abandoned));
+            out.append(String.format("%-16s %8s %7s %10s %10s %10s %10s %10s%n",
+                    "operation", "count", "errors", "p50 ms", "p90 ms", "p99 ms", "max ms", "svc p99 ms"));
+            for (OperationStats s : operations.values()) {
+                LatencyHistogram h = s.getResponseTime();
+                out.append(String.format("%-16s %8d %7d %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+                        s.getName(), h.count(), s.getErrors(), h.percentileNanos(50) / 1e6, h.percentileNanos(90) / 1e6,
+                        h.percentileNanos(99) / 1e6, h.maxNanos() / 1e6, s.getServiceTime().percentileNanos(99) / 1e6));
+                if (s.getFirstError() != null) {
+                    out.append("    first error: ").append(s.getFirstError()).append(System.lineSeparator());
+                }
+            }
+            return out.toString();
+        }
+
+        @Override
+        public String toString() {
+            return summary();
+        }
+    }
+}
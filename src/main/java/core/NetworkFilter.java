@@ -0,0 +1,392 @@
+package core;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WrapsDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.Json;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Request interception for browser sessions, through the DevTools Fetch domain.
+ *
+ * Pages under test pull in images, fonts, analytics and third-party scripts that no step ever asserts on; each one
+ * costs download time, decode time and renderer memory. The filter pauses only the requests its patterns name, and:
+ * - fails those matching network.block.types (CDP resource types) or network.block.urls (CDP wildcards) outright;
+ * - answers network.cache.types requests from {@link AssetStore} once the asset has been seen, so a script or
+ *   stylesheet is downloaded once per run instead of once per scenario. Only responses the server allows a shared
+ *   cache to reuse as-is are stored (no Cache-Control no-store/no-cache/private, no Vary beyond Accept-Encoding),
+ *   and each JVM starts with an empty store, so a redeploy between runs is always picked up;
+ * - lets everything else through untouched.
+ *
+ * Commands are sent as raw CDP method names rather than through the versioned devtools bindings, so a Chrome newer
+ * than this Selenium release still works. Only Chromium exposes Fetch; other browsers run unfiltered.
+ * Bytes saved count cache hits only: a blocked request's size is unknown because it never left the browser.
+ */
+public final class NetworkFilter {
+
+    private static final Logger log = LogManager.getLogger(NetworkFilter.class);
+
+    public enum Mode { OFF, HEADLESS, ALWAYS }
+
+    static final Config.Key<Mode> MODE = Config.enumKey("network.filter", Mode.class, Mode.HEADLESS);
+    static final Config.Key<String> BLOCK_TYPES = Config.stringKey("network.block.types", "Image,Media,Font");
+    static final Config.Key<String> BLOCK_URLS = Config.stringKey("network.block.urls", "");
+    static final Config.Key<String> CACHE_TYPES = Config.stringKey("network.cache.types", "Stylesheet,Script");
+    static final Config.Key<String> CACHE_DIR = Config.stringKey("network.cache.dir", "target/asset-cache");
+
+    // Hop-by-hop and encoding headers describe the original transfer, not the decoded body that gets replayed.
+    private static final Set<String> DROPPED_HEADERS = Set.of("content-length", "content-encoding", "transfer-encoding",
+            "connection", "keep-alive", "set-cookie");
+    // Directives that forbid replaying the response without asking the server, or to anyone but this user.
+    private static final Pattern UNCACHEABLE = Pattern.compile("(^|[\\s,])(no-store|no-cache|private)\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    // Keyed by the raw driver, whose identity the instrumented wrapper shares; weak so retired sessions drop out.
+    private static final Map<WebDriver, NetworkFilter> installed = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final Map<Path, AssetStore> stores = new ConcurrentHashMap<>();
+
+    private static final LongAdder totalBlocked = new LongAdder();
+    private static final LongAdder totalCached = new LongAdder();
+    private static final LongAdder totalCachedBytes = new LongAdder();
+
+    /**
+     * One CDP round trip. Production sends it over the session's DevTools connection; tests record it.
+     */
+    interface Cdp {
+        Map<String, Object> send(String method, Map<String, Object> params);
+    }
+
+    private final Cdp cdp;
+    private final Set<String> blockTypes;
+    private final List<String> blockUrls;
+    private final List<Pattern> blockUrlPatterns = new ArrayList<>();
+    private final Set<String> cacheTypes;
+    private final AssetStore store;
+
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder cached = new LongAdder();
+    private final LongAdder cachedBytes = new LongAdder();
+
+    NetworkFilter(Cdp cdp, Set<String> blockTypes, List<String> blockUrls, Set<String> cacheTypes, AssetStore store) {
+        this.cdp = cdp;
+        this.blockTypes = blockTypes;
+        this.blockUrls = blockUrls;
+        this.cacheTypes = new LinkedHashSet<>(cacheTypes);
+        // Blocking wins: caching a type that is never fetched would only add a pause per request.
+        this.cacheTypes.removeAll(blockTypes);
+        this.store = store;
+        for (String glob : blockUrls) {
+            blockUrlPatterns.add(wildcard(glob));
+        }
+    }
+
+    /**
+     * Starts filtering the session when network.filter allows it for this run (by default only headless runs, which
+     * covers CI). Returns null when filtering is off, has nothing to do, or the browser has no DevTools.
+     * A failure here leaves the session unfiltered rather than failing the scenario that asked for a browser.
+     */
+    public static NetworkFilter install(WebDriver driver, boolean headless) {
+        Mode mode = Config.get(MODE);
+        if (mode == Mode.OFF || (mode == Mode.HEADLESS && !headless) || !(driver instanceof HasDevTools)) {
+            return null;
+        }
+        try {
+            DevTools devTools = ((HasDevTools) driver).getDevTools();
+            devTools.createSessionIfThereIsNotOne();
+            NetworkFilter filter = new NetworkFilter(
+                    (method, params) -> devTools.send(new Command<>(method, params, Json.MAP_TYPE)),
+                    new LinkedHashSet<>(list(Config.get(BLOCK_TYPES))),
+                    list(Config.get(BLOCK_URLS)),
+                    new LinkedHashSet<>(list(Config.get(CACHE_TYPES))),
+                    stores.computeIfAbsent(Paths.get(Config.get(CACHE_DIR)).toAbsolutePath(), AssetStore::forRun));
+            List<Map<String, Object>> patterns = filter.patterns();
+            if (patterns.isEmpty()) {
+                return null;
+            }
+            devTools.addListener(new Event<Map<String, Object>>("Fetch.requestPaused", input -> input.read(Json.MAP_TYPE)),
+                    filter::onRequestPaused);
+            filter.cdp.send("Fetch.enable", Collections.singletonMap("patterns", patterns));
+            installed.put(driver, filter);
+            return filter;
+        } catch (RuntimeException e) {
+            log.warn("Network filter not installed; the session runs unfiltered: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The filter on the session behind this driver (plain or instrumented), or null if it runs unfiltered.
+     */
+    public static NetworkFilter of(WebDriver driver) {
+        while (driver instanceof WrapsDriver) {
+            driver = ((WrapsDriver) driver).getWrappedDriver();
+        }
+        return driver == null ? null : installed.get(driver);
+    }
+
+    /**
+     * What every filter in this JVM has saved so far.
+     */
+    public static Savings totals() {
+        return new Savings(totalBlocked.sum(), totalCached.sum(), totalCachedBytes.sum());
+    }
+
+    /**
+     * What this session has saved so far. Take the difference of two readings for one scenario's share.
+     */
+    public Savings savings() {
+        return new Savings(blocked.sum(), cached.sum(), cachedBytes.sum());
+    }
+
+    /**
+     * Fetch.enable patterns: requests nobody asked to filter are never paused, so they cost no extra round trip.
+     */
+    List<Map<String, Object>> patterns() {
+        List<Map<String, Object>> patterns = new ArrayList<>();
+        for (String type : blockTypes) {
+            patterns.add(pattern("*", type, "Request"));
+        }
+        for (String glob : blockUrls) {
+            patterns.add(pattern(glob, null, "Request"));
+        }
+        if (store != null) {
+            for (String type : cacheTypes) {
+                // Request stage to answer from the store, Response stage to fill it on a miss.
+                patterns.add(pattern("*", type, "Request"));
+                patterns.add(pattern("*", type, "Response"));
+            }
+        }
+        return patterns;
+    }
+
+    /**
+     * Answers one Fetch.requestPaused event. Every paused request must get exactly one answer, or the page waits
+     * on it until the step times out; so whatever goes wrong, the request is let through.
+     */
+    @SuppressWarnings("unchecked")
+    void onRequestPaused(Map<String, Object> event) {
+        String requestId = (String) event.get("requestId");
+        try {
+            Map<String, Object> request = (Map<String, Object>) event.get("request");
+            String url = (String) request.get("url");
+            String type = (String) event.get("resourceType");
+            boolean responseStage = event.containsKey("responseStatusCode") || event.containsKey("responseErrorReason");
+
+            if (responseStage) {
+                remember(requestId, url, request, type, event);
+                proceed(requestId);
+            } else if (isBlocked(url, type)) {
+                Map<String, Object> params = new LinkedHashMap<>();
+                params.put("requestId", requestId);
+                params.put("errorReason", "BlockedByClient");
+                cdp.send("Fetch.failRequest", params);
+                count(blocked, totalBlocked, 1);
+            } else if (isCacheable(request, type) && serveFromStore(requestId, url)) {
+                return;
+            } else {
+                proceed(requestId);
+            }
+        } catch (RuntimeException e) {
+            log.debug("Network filter could not handle request {}; letting it through: {}", requestId, e.getMessage());
+            try {
+                proceed(requestId);
+            } catch (RuntimeException ignored) {
+                // The page navigated away or the session closed; the request no longer exists.
+            }
+        }
+    }
+
+    boolean isBlocked(String url, String type) {
+        if (blockTypes.contains(type)) {
+            return true;
+        }
+        for (Pattern pattern : blockUrlPatterns) {
+            if (pattern.matcher(url).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isCacheable(Map<String, Object> request, String type) {
+        return store != null && cacheTypes.contains(type) && "GET".equals(request.get("method"));
+    }
+
+    private boolean serveFromStore(String requestId, String url) {
+        AssetStore.Asset asset = store.get(url);
+        if (asset == null) {
+            return false;
+        }
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("requestId", requestId);
+        params.put("responseCode", 200);
+        params.put("responseHeaders", asset.headers);
+        params.put("body", Base64.getEncoder().encodeToString(asset.body));
+        cdp.send("Fetch.fulfillRequest", params);
+        count(cached, totalCached, 1);
+        count(cachedBytes, totalCachedBytes, asset.body.length);
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void remember(String requestId, String url, Map<String, Object> request, String type, Map<String, Object> event) {
+        Object status = event.get("responseStatusCode");
+        // Only plain successes: a redirect, 304 or error replayed from disk would be wrong on the next run.
+        Object received = event.get("responseHeaders");
+        if (!isCacheable(request, type) || !(status instanceof Number) || ((Number) status).intValue() != 200
+                || !mayStore(received) || store.contains(url)) {
+            return;
+        }
+        Map<String, Object> body = cdp.send("Fetch.getResponseBody", Collections.singletonMap("requestId", requestId));
+        String content = (String) body.get("body");
+        byte[] bytes = Boolean.TRUE.equals(body.get("base64Encoded"))
+                ? Base64.getDecoder().decode(content)
+                : content.getBytes(StandardCharsets.UTF_8);
+        List<Map<String, Object>> headers = new ArrayList<>();
+        if (received instanceof List) {
+            for (Map<String, Object> header : (List<Map<String, Object>>) received) {
+                if (!DROPPED_HEADERS.contains(String.valueOf(header.get("name")).toLowerCase(Locale.ROOT))) {
+                    headers.add(header);
+                }
+            }
+        }
+        store.put(url, headers, bytes);
+    }
+
+    /**
+     * False when the headers forbid a shared replay (Cache-Control no-store, no-cache, private) or make the body depend
+     * on request headers the URL key does not capture (any Vary but Accept-Encoding; the stored body is decoded).
+     */
+    @SuppressWarnings("unchecked")
+    static boolean mayStore(Object responseHeaders) {
+        if (!(responseHeaders instanceof List)) {
+            return true;
+        }
+        for (Map<String, Object> header : (List<Map<String, Object>>) responseHeaders) {
+            String name = String.valueOf(header.get("name")).toLowerCase(Locale.ROOT);
+            String value = String.valueOf(header.get("value"));
+            if ((name.equals("cache-control") || name.equals("pragma")) && UNCACHEABLE.matcher(value).find()) {
+                return false;
+            }
+            if (name.equals("vary")) {
+                for (String field : value.split(",")) {
+                    if (!field.trim().isEmpty() && !field.trim().equalsIgnoreCase("accept-encoding")) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private void proceed(String requestId) {
+        // At the Response stage this releases the response unchanged.
+        cdp.send("Fetch.continueRequest", Collections.singletonMap("requestId", requestId));
+    }
+
+    private static void count(LongAdder session, LongAdder total, long amount) {
+        session.add(amount);
+        total.add(amount);
+    }
+
+    private static Map<String, Object> pattern(String urlPattern, String resourceType, String stage) {
+        Map<String, Object> pattern = new LinkedHashMap<>();
+        pattern.put("urlPattern", urlPattern);
+        if (resourceType != null) {
+            pattern.put("resourceType", resourceType);
+        }
+        pattern.put("requestStage", stage);
+        return pattern;
+    }
+
+    // CDP URL patterns: '*' is any run of characters, '?' exactly one, backslash escapes.
+    static Pattern wildcard(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '\\' && i + 1 < glob.length()) {
+                regex.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+            } else if (c == '*') {
+                regex.append(".*");
+            } else if (c == '?') {
+                regex.append('.');
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    private static List<String> list(String csv) {
+        List<String> values = new ArrayList<>();
+        for (String value : csv.split(",")) {
+            if (!value.trim().isEmpty()) {
+                values.add(value.trim());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Requests the filter answered itself, and the bytes the cache hits did not download.
+     */
+    public static final class Savings {
+        private final long blockedRequests;
+        private final long cachedRequests;
+        private final long cachedBytes;
+
+        Savings(long blockedRequests, long cachedRequests, long cachedBytes) {
+            this.blockedRequests = blockedRequests;
+            this.cachedRequests = cachedRequests;
+            this.cachedBytes = cachedBytes;
+        }
+
+        public Savings since(Savings earlier) {
+            return new Savings(blockedRequests - earlier.blockedRequests, cachedRequests - earlier.cachedRequests,
+                    cachedBytes - earlier.cachedBytes);
+        }
+
+        public long getBlockedRequests() {
+            return blockedRequests;
+        }
+
+        public long getCachedRequests() {
+            return cachedRequests;
+        }
+
+        public long getCachedBytes() {
+            return cachedBytes;
+        }
+
+        public long getRequestsSaved() {
+            return blockedRequests + cachedRequests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d requests saved (%d blocked, %d served from cache, %.1f KB not downloaded)",
+                    getRequestsSaved(), blockedRequests, cachedRequests, cachedBytes / 1024.0);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package core;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Receives each row of a streamed query in turn. Nothing is retained between calls,
+ * so memory use stays flat no matter how many rows the query returns.
+ */
+@FunctionalInterface
+public interface RowCallback {
+
+    void processRow(ResultSet rs, ColumnLabels labels) throws SQLException;
+}
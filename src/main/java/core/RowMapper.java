@@ -0,0 +1,15 @@
+package core;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Turns the current row of a result set into a domain object.
+ * Implementations should read by column index (see {@link ColumnLabels#indexOf(String)}) and must not
+ * advance the cursor — iteration is owned by {@link DBManager}.
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    T mapRow(ResultSet rs, int rowNum) throws SQLException;
+}
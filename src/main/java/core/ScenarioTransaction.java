@@ -0,0 +1,67 @@
+package core;
+
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+/**
+ * A database transaction scoped to one scenario (or test class) on one thread, opened by
+ * {@link DBManager#beginScenario()}.
+ *
+ * While it is open, every DBManager call on the owning thread against the same database runs on this transaction:
+ * the scenario sees its own writes, parallel scenarios never do, and {@link #close()} throws all of it away with a
+ * single rollback instead of table-wide deletes. An optional baseline savepoint lets a class seed data once and
+ * return to that state after every test.
+ *
+ * H2 commits implicitly on DDL (CREATE, ALTER, TRUNCATE), so scenarios must stick to DML while one is open.
+ */
+public final class ScenarioTransaction implements AutoCloseable {
+
+    private final ConnectionPool pool;
+    private final ConnectionPool.PooledConnection conn;
+    private Savepoint baseline;
+    private boolean closed;
+
+    ScenarioTransaction(ConnectionPool pool, ConnectionPool.PooledConnection conn) {
+        this.pool = pool;
+        this.conn = conn;
+    }
+
+    /**
+     * Marks the current state (e.g. right after seeding) as the point {@link #rollbackToBaseline()} returns to.
+     */
+    public ScenarioTransaction markBaseline() {
+        try {
+            baseline = conn.raw.setSavepoint();
+        } catch (SQLException e) {
+            throw new RuntimeException("DB Transaction failed: could not set baseline savepoint.", e);
+        }
+        return this;
+    }
+
+    /**
+     * Undoes everything since {@link #markBaseline()} (or since the start, without a baseline). The transaction stays
+     * open, so the next test starts from the same seeded state.
+     */
+    public void rollbackToBaseline() {
+        try {
+            if (baseline == null) {
+                conn.raw.rollback();
+            } else {
+                conn.raw.rollback(baseline);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("DB Transaction failed: rollback to baseline was rejected.", e);
+        }
+    }
+
+    /**
+     * Rolls back the whole transaction and returns the connection to the pool. Must run on the opening thread.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            pool.unpin(conn);
+        }
+    }
+}
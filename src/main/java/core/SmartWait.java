@@ -0,0 +1,273 @@
+package core;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.ScriptTimeoutException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.chromium.HasCdp;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.openqa.selenium.support.ui.FluentWait;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Waits that resolve inside the browser instead of polling it from here.
+ *
+ * Each wait is one asynchronous script: it checks the condition, then watches the DOM with a MutationObserver and
+ * answers the moment the condition holds, so there is no 500 ms polling interval and one round trip instead of many.
+ * {@link #settled()} also waits for in-flight fetch/XHR calls to finish (network idle) plus a short quiet period
+ * without DOM changes. The request tracker behind that is installed on every new document through the DevTools
+ * protocol when the browser supports it ({@link #installTracker}), otherwise the first time a page is waited on.
+ *
+ * Timeouts adapt: every wait is timed per condition, and once a condition has enough history its budget becomes
+ * explicit.wait.adaptive.factor x its p99, bounded by explicit.wait.floor.ms and explicit.wait. A wait that normally
+ * takes 80 ms fails after a second or two instead of the full ceiling, while slow pages keep the ceiling.
+ * <pre>
+ * SmartWait wait = new SmartWait(driver);
+ * wait.visible(By.id("username")).sendKeys("tomsmith");
+ * wait.urlContains("/secure");
+ * </pre>
+ * Locators that have no browser-side equivalent (link text) fall back to a short-interval FluentWait.
+ */
+public final class SmartWait {
+
+    private static final Logger log = LogManager.getLogger(SmartWait.class);
+
+    static final Config.Key<Duration> CEILING = Config.durationKey("explicit.wait", ChronoUnit.SECONDS, Duration.ofSeconds(10));
+    static final Config.Key<Duration> FLOOR = Config.durationKey("explicit.wait.floor.ms", ChronoUnit.MILLIS, Duration.ofSeconds(2));
+    static final Config.Key<Double> ADAPTIVE_FACTOR = Config.doubleKey("explicit.wait.adaptive.factor", 4.0);
+    static final Config.Key<Integer> ADAPTIVE_MIN_SAMPLES = Config.intKey("explicit.wait.adaptive.min.samples", 20);
+    private static final Config.Key<Duration> QUIET = Config.durationKey("explicit.wait.quiet.ms", ChronoUnit.MILLIS, Duration.ofMillis(100));
+
+    // How long each condition has taken so far, across all threads; the source of the adaptive budgets.
+    private static final Map<String, LatencyHistogram> observed = new ConcurrentHashMap<>();
+
+    /**
+     * Counts fetch/XHR requests in flight in window.__smartWaitPending. Safe to run twice on one document.
+     */
+    static final String TRACKER = "(function () {"
+            + "if (window.__smartWaitPending !== undefined) { return; }"
+            + "window.__smartWaitPending = 0;"
+            + "var done = function () { window.__smartWaitPending = Math.max(0, window.__smartWaitPending - 1); };"
+            + "if (window.fetch) { var f = window.fetch; window.fetch = function () {"
+            + "  window.__smartWaitPending++;"
+            + "  return f.apply(this, arguments).then(function (r) { done(); return r; }, function (e) { done(); throw e; }); }; }"
+            + "var send = XMLHttpRequest.prototype.send; XMLHttpRequest.prototype.send = function () {"
+            + "  window.__smartWaitPending++; this.addEventListener('loadend', done); return send.apply(this, arguments); };"
+            + "})();";
+
+    /**
+     * {@code find(using, value)}: resolves a locator from {@link #browserLocator} inside the page, or returns null.
+     * For other scripts that need to find elements without a round trip per element.
+     */
+    public static final String FIND_FUNCTION = "function find(using, value) {"
+            + "  if (using === 'xpath') { return document.evaluate(value, document, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue; }"
+            + "  if (using === 'id') { return document.getElementById(value); }"
+            + "  if (using === 'name') { return document.querySelector('[name=\"' + CSS.escape(value) + '\"]'); }"
+            + "  if (using === 'class name') { return document.querySelector('.' + CSS.escape(value)); }"
+            + "  return document.querySelector(value);"
+            + "}";
+
+    /**
+     * arguments: kind, using, value, timeout ms, quiet ms, callback. Calls back with the element (element kinds),
+     * true, or false on timeout. A 50 ms in-page check backs the observer up for changes it cannot see
+     * (URL changes, CSS transitions); it costs no round trips.
+     */
+    private static final String WAIT_SCRIPT = TRACKER
+            + "var kind = arguments[0], using = arguments[1], value = arguments[2], timeout = arguments[3], quiet = arguments[4];"
+            + "var callback = arguments[arguments.length - 1];"
+            + FIND_FUNCTION
+            + "function shown(el) {"
+            + "  if (!el || !el.isConnected) { return false; }"
+            + "  var style = getComputedStyle(el), box = el.getBoundingClientRect();"
+            + "  return style.visibility !== 'hidden' && style.display !== 'none' && box.width > 0 && box.height > 0;"
+            + "}"
+            + "var lastChange = Date.now();"
+            + "function check() {"
+            + "  var el;"
+            + "  switch (kind) {"
+            + "    case 'present': return find(using, value) || false;"
+            + "    case 'visible': el = find(using, value); return shown(el) ? el : false;"
+            + "    case 'clickable': el = find(using, value); return shown(el) && !el.disabled ? el : false;"
+            + "    case 'url': return location.href.indexOf(value) >= 0;"
+            + "    case 'settled': return document.readyState === 'complete' && window.__smartWaitPending === 0"
+            + "        && Date.now() - lastChange >= quiet;"
+            + "  }"
+            + "  return false;"
+            + "}"
+            + "var finished = false, observer, ticker, timer;"
+            + "function finish(result) {"
+            + "  if (finished) { return; } finished = true;"
+            + "  if (observer) { observer.disconnect(); } clearInterval(ticker); clearTimeout(timer); callback(result);"
+            + "}"
+            + "var first = check(); if (first) { callback(first); return; }"
+            + "observer = new MutationObserver(function () { lastChange = Date.now(); var r = check(); if (r) { finish(r); } });"
+            + "observer.observe(document, {childList: true, subtree: true, attributes: true, characterData: true});"
+            + "ticker = setInterval(function () { var r = check(); if (r) { finish(r); } }, 50);"
+            + "timer = setTimeout(function () { finish(check()); }, timeout);";
+
+    private final WebDriver driver;
+
+    public SmartWait(WebDriver driver) {
+        this.driver = driver;
+    }
+
+    /**
+     * Registers the request tracker for every document the browser opens from now on, so {@link #settled()} also
+     * sees requests a page fires while it loads. Needs a Chromium browser; elsewhere the tracker is injected lazily.
+     */
+    public static void installTracker(WebDriver driver) {
+        if (driver instanceof HasCdp) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("source", TRACKER);
+            ((HasCdp) driver).executeCdpCommand("Page.addScriptToEvaluateOnNewDocument", params);
+        }
+    }
+
+    /**
+     * Upper bound for any wait (explicit.wait); DriverFactory sizes the script timeout from it.
+     */
+    public static Duration ceiling() {
+        return Config.get(CEILING);
+    }
+
+    public WebElement present(By locator) {
+        return (WebElement) await("present", locator, null, ExpectedConditions.presenceOfElementLocated(locator));
+    }
+
+    public WebElement visible(By locator) {
+        return (WebElement) await("visible", locator, null, ExpectedConditions.visibilityOfElementLocated(locator));
+    }
+
+    public WebElement clickable(By locator) {
+        return (WebElement) await("clickable", locator, null, ExpectedConditions.elementToBeClickable(locator));
+    }
+
+    public void urlContains(String fragment) {
+        await("url", null, fragment, ExpectedConditions.urlContains(fragment));
+    }
+
+    /**
+     * Document loaded, no fetch/XHR in flight and no DOM change for explicit.wait.quiet.ms.
+     */
+    public void settled() {
+        await("settled", null, null, d -> "complete".equals(((JavascriptExecutor) d).executeScript("return document.readyState")));
+    }
+
+    private Object await(String kind, By locator, String value, ExpectedCondition<?> fallback) {
+        String condition = kind + (locator != null ? " " + locator : "") + (value != null ? " " + value : "");
+        Duration budget = budget(observed.get(condition));
+        long start = System.nanoTime();
+        String[] target = locator == null ? new String[]{null, value} : browserLocator(locator);
+
+        Object result;
+        if (target == null || !(driver instanceof JavascriptExecutor)) {
+            result = poll(condition, budget, fallback);
+        } else {
+            result = inBrowser(condition, kind, target, budget, start);
+        }
+        observed.computeIfAbsent(condition, c -> new LatencyHistogram()).record(System.nanoTime() - start);
+        return result;
+    }
+
+    private Object inBrowser(String condition, String kind, String[] target, Duration budget, long start) {
+        long deadline = start + budget.toNanos();
+        while (true) {
+            long remainingMs = Math.max(1, (deadline - System.nanoTime()) / 1_000_000);
+            Object result;
+            try {
+                result = ((JavascriptExecutor) driver).executeAsyncScript(WAIT_SCRIPT, kind, target[0], target[1],
+                        remainingMs, Config.get(QUIET).toMillis());
+            } catch (ScriptTimeoutException e) {
+                result = Boolean.FALSE;
+            } catch (JavascriptException | StaleElementReferenceException e) {
+                // The page navigated away while the script was waiting (a submit, a redirect). The condition is
+                // probably about the new page, so ask again there.
+                if (System.nanoTime() < deadline) {
+                    log.debug("Wait for {} restarted after navigation: {}", condition, e.getMessage());
+                    continue;
+                }
+                result = Boolean.FALSE;
+            }
+            if (result != null && !Boolean.FALSE.equals(result)) {
+                return result;
+            }
+            if (System.nanoTime() >= deadline) {
+                throw timeout(condition, budget);
+            }
+        }
+    }
+
+    private Object poll(String condition, Duration budget, ExpectedCondition<?> fallback) {
+        try {
+            return new FluentWait<>(driver)
+                    .withTimeout(budget)
+                    .pollingEvery(Duration.ofMillis(50))
+                    .ignoring(NoSuchElementException.class)
+                    .ignoring(StaleElementReferenceException.class)
+                    .until(fallback);
+        } catch (TimeoutException e) {
+            throw timeout(condition, budget);
+        }
+    }
+
+    private static TimeoutException timeout(String condition, Duration budget) {
+        LatencyHistogram history = observed.get(condition);
+        String basis = history == null || history.count() < Config.get(ADAPTIVE_MIN_SAMPLES)
+                ? "explicit.wait ceiling"
+                : "adaptive, p99 of " + history.count() + " earlier waits = " + history.percentileNanos(99) / 1_000_000 + " ms";
+        return new TimeoutException("SMART WAIT TIMEOUT: " + condition + " not met within " + budget.toMillis()
+                + " ms (" + basis + ").");
+    }
+
+    /**
+     * The ceiling until the condition has enough history, then factor x p99 within [floor, ceiling].
+     */
+    static Duration budget(LatencyHistogram history) {
+        Duration ceiling = Config.get(CEILING);
+        if (history == null || history.count() < Config.get(ADAPTIVE_MIN_SAMPLES)) {
+            return ceiling;
+        }
+        long adaptive = (long) (history.percentileNanos(99) * Config.get(ADAPTIVE_FACTOR));
+        long floor = Config.get(FLOOR).toNanos();
+        return Duration.ofNanos(Math.min(ceiling.toNanos(), Math.max(floor, adaptive)));
+    }
+
+    /**
+     * The locator as {using, value} for {@link #FIND_FUNCTION}, or null when the browser cannot resolve it itself.
+     */
+    public static String[] browserLocator(By locator) {
+        if (!(locator instanceof By.Remotable)) {
+            return null;
+        }
+        By.Remotable.Parameters params = ((By.Remotable) locator).getRemoteParameters();
+        switch (params.using()) {
+            case "css selector":
+            case "xpath":
+            case "id":
+            case "name":
+            case "class name":
+                return new String[]{params.using(), String.valueOf(params.value())};
+            case "tag name":
+                return new String[]{"css selector", String.valueOf(params.value())};
+            default:
+                return null;
+        }
+    }
+
+    static void forgetHistory() {
+        observed.clear();
+    }
+}
@@ -0,0 +1,545 @@
+package core;
+
+import builders.BookingDataBuilder;
+import builders.BookingJson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process stand-in for restful-booker (/ping, /auth, /booking CRUD) and the the-internet login pages
+ * that LoginPage drives. Bookings live in H2 with the same schema DBManager bootstraps, in a database of
+ * their own so API-created rows never collide with rows the tests insert locally.
+ *
+ * Enabled with stub.enabled=true: {@link Bootstrap} then starts one shared instance on loopback while Config
+ * initialises and points api.base.url and base.url at it, so suites run offline at loopback latency and load tests get a target
+ * whose capacity we control.
+ */
+public final class StubServer {
+
+    private static final Logger log = LogManager.getLogger(StubServer.class);
+
+    // restful-booker's fixed credentials; Basic auth header is the pre-encoded admin:password123.
+    private static final String ADMIN_USER = "admin";
+    private static final String ADMIN_PASSWORD = "password123";
+    private static final String ADMIN_BASIC = "Basic YWRtaW46cGFzc3dvcmQxMjM=";
+
+    // the-internet's published demo account.
+    private static final String WEB_USER = "tomsmith";
+    private static final String WEB_PASSWORD = "SuperSecretPassword!";
+
+    private static final String BOOKING_COLUMNS =
+            "booking_id, firstname, lastname, totalprice, depositpaid, checkin, checkout, additionalneeds";
+
+    static final Config.Key<Boolean> ENABLED = Config.booleanKey("stub.enabled", false);
+    private static final Config.Key<Integer> PORT = Config.intKey("stub.port", 0);
+    private static final Config.Key<String> DB_URL = Config.stringKey("stub.db.url", "jdbc:h2:mem:stub_booker;DB_CLOSE_DELAY=-1");
+    private static final Config.Key<Integer> THREADS = Config.intKey("stub.threads", Runtime.getRuntime().availableProcessors() * 4);
+    private static final Config.Key<Boolean> VIRTUAL_THREADS = Config.booleanKey("stub.virtual.threads", true);
+
+    private static StubServer shared;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final DBManager db;
+    private final AtomicInteger nextId;
+    private final Set<String> apiTokens = ConcurrentHashMap.newKeySet();
+    private final Set<String> webSessions = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param port  0 picks a free ephemeral port.
+     * @param jdbcUrl database holding the stub's bookings.
+     * @param threads worker threads when virtual threads are unavailable or disabled.
+     */
+    public StubServer(int port, String jdbcUrl, int threads, boolean virtualThreads) {
+        this.db = new DBManager(jdbcUrl);
+        List<Map<String, Object>> max = db.query("SELECT COALESCE(MAX(booking_id), 0) AS max_id FROM bookings");
+        this.nextId = new AtomicInteger(max.isEmpty() ? 1 : ((Number) max.get(0).get("max_id")).intValue() + 1);
+        this.executor = createExecutor(threads, virtualThreads);
+        try {
+            // The JDK server multiplexes connections on one NIO selector thread; handlers run on the executor.
+            this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        } catch (IOException e) {
+            executor.shutdownNow();
+            throw new RuntimeException("Stub server could not bind to port " + port + ". Is it already in use?", e);
+        }
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+        log.info("Stub server listening on {} (db={})", baseUrl(), jdbcUrl);
+    }
+
+    /**
+     * The JVM-wide instance {@link Bootstrap} wires in when stub.enabled is set. Started on first call, stopped on exit.
+     */
+    public static synchronized StubServer shared() {
+        if (shared == null) {
+            shared = new StubServer(
+                    Config.get(PORT), Config.get(DB_URL), Config.get(THREADS), Config.get(VIRTUAL_THREADS));
+            StubServer instance = shared;
+            Runtime.getRuntime().addShutdownHook(new Thread(instance::stop, "stub-server-shutdown"));
+        }
+        return shared;
+    }
+
+    /**
+     * Offline mode: swaps the herokuapp hosts for the shared stub before anyone reads a URL.
+     * Registered in META-INF/services/core.Config$Bootstrap.
+     */
+    public static final class Bootstrap implements Config.Bootstrap {
+        @Override
+        public void configure() {
+            if (!Config.get(ENABLED)) {
+                return;
+            }
+            String stubUrl = shared().baseUrl();
+            Config.override("api.base.url", stubUrl);
+            Config.override("base.url", stubUrl + "/");
+            log.info("Stub server enabled, targets redirected to {}", stubUrl);
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Root URL without a trailing slash, the same shape as api.base.url.
+     */
+    public String baseUrl() {
+        return "http://127.0.0.1:" + getPort();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private static ExecutorService createExecutor(int threads, boolean virtualThreads) {
+        return virtualThreads
+                ? VirtualThreads.newPerTaskExecutor("stub-server", threads)
+                : Executors.newFixedThreadPool(Math.max(1, threads), VirtualThreads.platformThreads("stub-server"));
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            // Always drain the body, otherwise the connection can't be reused for the next request.
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+
+            if (path.equals("/ping")) {
+                // restful-booker answers the health check with 201 Created.
+                text(exchange, 201, "Created");
+            } else if (path.equals("/auth") && method.equals("POST")) {
+                createToken(exchange, body);
+            } else if (path.equals("/booking")) {
+                if (method.equals("POST")) {
+                    createBooking(exchange, body);
+                } else if (method.equals("GET")) {
+                    listBookings(exchange);
+                } else {
+                    text(exchange, 404, "Not Found");
+                }
+            } else if (path.startsWith("/booking/")) {
+                bookingById(exchange, method, path.substring("/booking/".length()), body);
+            } else if (path.equals("/") && method.equals("GET")) {
+                html(exchange, 200, page("The Internet", "<h1 class=\"heading\">Welcome to the-internet</h1>"
+                        + "<h2>Available Examples</h2><ul><li><a href=\"/login\">Form Authentication</a></li></ul>"));
+            } else if (path.equals("/login") && method.equals("GET")) {
+                loginPage(exchange);
+            } else if (path.equals("/authenticate") && method.equals("POST")) {
+                authenticate(exchange, body);
+            } else if (path.equals("/secure") && method.equals("GET")) {
+                securePage(exchange);
+            } else if (path.equals("/logout")) {
+                webSessions.remove(cookie(exchange, "rack.session"));
+                redirectWithFlash(exchange, "/login", "You logged out of the secure area!");
+            } else {
+                text(exchange, 404, "Not Found");
+            }
+        } catch (Exception e) {
+            // Mirrors restful-booker, which answers malformed payloads with a bare 500.
+            log.debug("Stub request failed: {} {}", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+            text(exchange, 500, "Internal Server Error");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // --- restful-booker ---
+
+    private void createToken(HttpExchange exchange, byte[] body) throws IOException {
+        String credentials = jsonObject(body);
+        if (ADMIN_USER.equals(optionalString(credentials, "username"))
+                && ADMIN_PASSWORD.equals(optionalString(credentials, "password"))) {
+            String token = randomToken();
+            apiTokens.add(token);
+            json(exchange, 200, "{\"token\":\"" + token + "\"}");
+        } else {
+            json(exchange, 200, "{\"reason\":\"Bad credentials\"}");
+        }
+    }
+
+    private void createBooking(HttpExchange exchange, byte[] body) throws IOException {
+        Map<String, Object> booking = requireComplete(readBooking(jsonObject(body), new HashMap<>()));
+        int id = nextId.getAndIncrement();
+        db.update("INSERT INTO bookings (" + BOOKING_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                bindValues(id, booking));
+        json(exchange, 200, "{\"bookingid\":" + id + ",\"booking\":" + toJson(booking) + "}");
+    }
+
+    private void listBookings(HttpExchange exchange) throws IOException {
+        Map<String, String> filters = parseForm(exchange.getRequestURI().getRawQuery());
+        StringBuilder sql = new StringBuilder("SELECT booking_id FROM bookings WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        if (filters.containsKey("firstname")) {
+            sql.append(" AND firstname = ?");
+            params.add(filters.get("firstname"));
+        }
+        if (filters.containsKey("lastname")) {
+            sql.append(" AND lastname = ?");
+            params.add(filters.get("lastname"));
+        }
+        if (filters.containsKey("checkin")) {
+            sql.append(" AND checkin >= ?");
+            params.add(Date.valueOf(filters.get("checkin")));
+        }
+        if (filters.containsKey("checkout")) {
+            sql.append(" AND checkout <= ?");
+            params.add(Date.valueOf(filters.get("checkout")));
+        }
+        StringBuilder out = new StringBuilder("[");
+        db.forEachRow(sql.append(" ORDER BY booking_id").toString(), (rs, labels) -> {
+            if (out.length() > 1) {
+                out.append(',');
+            }
+            out.append("{\"bookingid\":").append(rs.getInt(1)).append('}');
+        }, params.toArray());
+        json(exchange, 200, out.append(']').toString());
+    }
+
+    private void bookingById(HttpExchange exchange, String method, String rawId, byte[] body) throws IOException {
+        int id;
+        try {
+            id = Integer.parseInt(rawId);
+        } catch (NumberFormatException e) {
+            text(exchange, 404, "Not Found");
+            return;
+        }
+        if (method.equals("GET")) {
+            Map<String, Object> row = load(id);
+            if (row == null) {
+                text(exchange, 404, "Not Found");
+            } else {
+                json(exchange, 200, toJson(row));
+            }
+            return;
+        }
+        if (!isAuthorized(exchange)) {
+            text(exchange, 403, "Forbidden");
+            return;
+        }
+        Map<String, Object> existing = load(id);
+        if (existing == null) {
+            // restful-booker reports writes to unknown ids as 405.
+            text(exchange, 405, "Method Not Allowed");
+            return;
+        }
+        switch (method) {
+            case "PUT":
+                Map<String, Object> replacement = requireComplete(readBooking(jsonObject(body), new HashMap<>()));
+                save(id, replacement);
+                json(exchange, 200, toJson(replacement));
+                break;
+            case "PATCH":
+                save(id, requireComplete(readBooking(jsonObject(body), existing)));
+                json(exchange, 200, toJson(existing));
+                break;
+            case "DELETE":
+                db.update("DELETE FROM bookings WHERE booking_id = ?", id);
+                text(exchange, 201, "Created");
+                break;
+            default:
+                text(exchange, 404, "Not Found");
+        }
+    }
+
+    private boolean isAuthorized(HttpExchange exchange) {
+        String token = cookie(exchange, "token");
+        return (token != null && apiTokens.contains(token))
+                || ADMIN_BASIC.equals(exchange.getRequestHeaders().getFirst("Authorization"));
+    }
+
+    /**
+     * Reads a booking back in request shape (nested bookingdates), or null if the id is unknown.
+     */
+    private Map<String, Object> load(int id) {
+        List<Map<String, Object>> rows = db.query("SELECT " + BOOKING_COLUMNS + " FROM bookings WHERE booking_id = ?", id);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> row = rows.get(0);
+        Map<String, Object> dates = new HashMap<>();
+        dates.put("checkin", row.get("checkin") == null ? null : row.get("checkin").toString());
+        dates.put("checkout", row.get("checkout") == null ? null : row.get("checkout").toString());
+        Map<String, Object> booking = new HashMap<>();
+        booking.put("firstname", row.get("firstname"));
+        booking.put("lastname", row.get("lastname"));
+        booking.put("totalprice", row.get("totalprice"));
+        booking.put("depositpaid", row.get("depositpaid"));
+        booking.put("bookingdates", dates);
+        booking.put("additionalneeds", row.get("additionalneeds"));
+        return booking;
+    }
+
+    private void save(int id, Map<String, Object> booking) {
+        Object[] values = bindValues(id, booking);
+        // Same columns as the INSERT, with the id moved to the WHERE clause.
+        db.update("UPDATE bookings SET firstname = ?, lastname = ?, totalprice = ?, depositpaid = ?, checkin = ?, "
+                        + "checkout = ?, additionalneeds = ? WHERE booking_id = ?",
+                values[1], values[2], values[3], values[4], values[5], values[6], values[7], id);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object[] bindValues(int id, Map<String, Object> booking) {
+        Map<String, Object> dates = (Map<String, Object>) booking.get("bookingdates");
+        return new Object[]{id, booking.get("firstname"), booking.get("lastname"),
+                ((Number) booking.get("totalprice")).intValue(), booking.get("depositpaid"),
+                Date.valueOf((String) dates.get("checkin")), Date.valueOf((String) dates.get("checkout")),
+                booking.get("additionalneeds")};
+    }
+
+    /**
+     * Copies the booking fields present in {@code json} into {@code booking} and leaves the others alone.
+     * bookingdates merge field by field, so a PATCH carrying only a new checkin keeps the stored checkout.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> readBooking(String json, Map<String, Object> booking) {
+        for (String key : new String[]{"firstname", "lastname", "additionalneeds"}) {
+            if (BookingJson.hasField(json, key)) {
+                booking.put(key, BookingJson.parseString(json, key));
+            }
+        }
+        if (BookingJson.hasField(json, "totalprice")) {
+            booking.put("totalprice", BookingJson.parseInt(json, "totalprice"));
+        }
+        if (BookingJson.hasField(json, "depositpaid")) {
+            booking.put("depositpaid", BookingJson.parseBoolean(json, "depositpaid"));
+        }
+        if (BookingJson.hasField(json, "bookingdates")) {
+            CharSequence dates = BookingJson.parseObject(json, "bookingdates");
+            Object stored = booking.get("bookingdates");
+            Map<String, Object> merged = stored instanceof Map ? (Map<String, Object>) stored : new HashMap<>();
+            for (String key : new String[]{"checkin", "checkout"}) {
+                if (dates != null && BookingJson.hasField(dates, key)) {
+                    merged.put(key, BookingJson.parseString(dates, key));
+                }
+            }
+            booking.put("bookingdates", dates == null ? null : merged);
+        }
+        return booking;
+    }
+
+    private static String optionalString(String json, String key) {
+        return BookingJson.hasField(json, key) ? BookingJson.parseString(json, key) : null;
+    }
+
+    // The field scanner would read anything else as an object with no fields.
+    private static String jsonObject(byte[] body) {
+        String json = utf8(body).trim();
+        if (!json.startsWith("{") || !json.endsWith("}")) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+        return json;
+    }
+
+    /**
+     * restful-booker rejects payloads missing any mandatory field with a 500; the stub does the same.
+     */
+    private static Map<String, Object> requireComplete(Map<String, Object> booking) {
+        if (!(booking.get("firstname") instanceof String) || !(booking.get("lastname") instanceof String)
+                || !(booking.get("totalprice") instanceof Number) || !(booking.get("depositpaid") instanceof Boolean)
+                || !(booking.get("bookingdates") instanceof Map)) {
+            throw new IllegalArgumentException("Incomplete booking payload: " + booking.keySet());
+        }
+        Map<?, ?> dates = (Map<?, ?>) booking.get("bookingdates");
+        if (!(dates.get("checkin") instanceof String) || !(dates.get("checkout") instanceof String)) {
+            throw new IllegalArgumentException("Booking dates are incomplete: " + dates);
+        }
+        return booking;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String toJson(Map<String, Object> booking) {
+        Map<String, Object> dates = (Map<String, Object>) booking.get("bookingdates");
+        Object price = booking.get("totalprice");
+        return new BookingDataBuilder()
+                .setFirstname((String) booking.get("firstname"))
+                .setLastname((String) booking.get("lastname"))
+                .setTotalPrice(price == null ? 0 : ((Number) price).intValue())
+                .setDepositPaid(Boolean.TRUE.equals(booking.get("depositpaid")))
+                .setBookingDates((String) dates.get("checkin"), (String) dates.get("checkout"))
+                .setAdditionalNeeds((String) booking.get("additionalneeds"))
+                .toJson();
+    }
+
+    // --- the-internet login flow ---
+
+    private void loginPage(HttpExchange exchange) throws IOException {
+        html(exchange, 200, page("The Internet", flash(exchange)
+                + "<div class=\"example\"><h2>Login Page</h2>"
+                + "<form name=\"login\" id=\"login\" action=\"/authenticate\" method=\"post\">"
+                + "<div class=\"row\"><label for=\"username\">Username</label>"
+                + "<input type=\"text\" name=\"username\" id=\"username\"></div>"
+                + "<div class=\"row\"><label for=\"password\">Password</label>"
+                + "<input type=\"password\" name=\"password\" id=\"password\"></div>"
+                + "<button class=\"radius\" type=\"submit\"><i class=\"fa fa-2x fa-sign-in\"> Login</i></button>"
+                + "</form></div>"));
+    }
+
+    private void authenticate(HttpExchange exchange, byte[] body) throws IOException {
+        Map<String, String> form = parseForm(utf8(body));
+        if (!WEB_USER.equals(form.get("username"))) {
+            redirectWithFlash(exchange, "/login", "Your username is invalid!");
+        } else if (!WEB_PASSWORD.equals(form.get("password"))) {
+            redirectWithFlash(exchange, "/login", "Your password is invalid!");
+        } else {
+            String session = randomToken();
+            webSessions.add(session);
+            exchange.getResponseHeaders().add("Set-Cookie", "rack.session=" + session + "; Path=/; HttpOnly");
+            redirectWithFlash(exchange, "/secure", "You logged into a secure area!");
+        }
+    }
+
+    private void securePage(HttpExchange exchange) throws IOException {
+        if (!webSessions.contains(cookie(exchange, "rack.session"))) {
+            redirectWithFlash(exchange, "/login", "You must login to view the secure area!");
+            return;
+        }
+        html(exchange, 200, page("The Internet", flash(exchange)
+                + "<div class=\"example\"><h2>Secure Area</h2>"
+                + "<h4 class=\"subheader\">Welcome to the Secure Area. When you are done click logout below.</h4>"
+                + "<a class=\"button secondary radius\" href=\"/logout\"><i class=\"icon-2x icon-signout\"> Logout</i></a>"
+                + "</div>"));
+    }
+
+    /**
+     * Renders and consumes the one-shot flash message, styled the way the real site marks success vs error.
+     */
+    private static String flash(HttpExchange exchange) {
+        String message = cookie(exchange, "flash");
+        if (message == null || message.isEmpty()) {
+            return "";
+        }
+        exchange.getResponseHeaders().add("Set-Cookie", "flash=; Path=/; Max-Age=0");
+        String text = URLDecoder.decode(message, StandardCharsets.UTF_8);
+        String kind = text.startsWith("You logged into") ? "success" : "error";
+        return "<div class=\"row\"><div id=\"flash-messages\" class=\"large-12 columns\">"
+                + "<div data-alert id=\"flash\" class=\"flash " + kind + "\">" + escapeHtml(text)
+                + "<a href=\"#\" class=\"close\">×</a></div></div></div>";
+    }
+
+    private static void redirectWithFlash(HttpExchange exchange, String location, String message) throws IOException {
+        exchange.getResponseHeaders().add("Set-Cookie",
+                "flash=" + URLEncoder.encode(message, StandardCharsets.UTF_8) + "; Path=/");
+        exchange.getResponseHeaders().set("Location", location);
+        exchange.sendResponseHeaders(303, -1);
+    }
+
+    private static String page(String title, String content) {
+        return "<!DOCTYPE html><html><head><meta charset=\"utf-8\"><title>" + title + "</title></head>"
+                + "<body><div class=\"row\"><div id=\"content\" class=\"large-12 columns\">" + content
+                + "</div></div></body></html>";
+    }
+
+    // --- plumbing ---
+
+    private static void text(HttpExchange exchange, int status, String body) throws IOException {
+        send(exchange, status, "text/plain; charset=utf-8", body);
+    }
+
+    private static void json(HttpExchange exchange, int status, String body) throws IOException {
+        send(exchange, status, "application/json; charset=utf-8", body);
+    }
+
+    private static void html(HttpExchange exchange, int status, String body) throws IOException {
+        send(exchange, status, "text/html; charset=utf-8", body);
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        // A fixed length (rather than chunked) keeps responses to one write and the connection reusable.
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static String cookie(HttpExchange exchange, String name) {
+        List<String> headers = exchange.getRequestHeaders().get("Cookie");
+        if (headers == null) {
+            return null;
+        }
+        for (String header : headers) {
+            for (String pair : header.split(";")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0 && pair.substring(0, eq).trim().equals(name)) {
+                    return pair.substring(eq + 1).trim();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, String> parseForm(String encoded) {
+        Map<String, String> values = new LinkedHashMap<>();
+        if (encoded == null || encoded.isEmpty()) {
+            return values;
+        }
+        for (String pair : encoded.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            values.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return values;
+    }
+
+    private static String utf8(byte[] body) {
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    private static String randomToken() {
+        // restful-booker tokens are 15 hex characters.
+        return Long.toHexString(ThreadLocalRandom.current().nextLong() >>> 4 | 1L << 59).substring(0, 15);
+    }
+
+    private static String escapeHtml(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
@@ -0,0 +1,470 @@
+package core;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Merkle-style integrity check for a table with an integer key, computed inside the database.
+ *
+ * The key space is cut into buckets of {@code leafWidth} keys, grouped {@code fanout} at a time into coarser levels.
+ * A bucket's digest is its row count plus the XOR of a 64-bit hash of every row, so it is order-independent and
+ * parents are just the XOR of their children. {@link #diff} compares two sides top-down and only descends into
+ * buckets whose digests differ: each step is one GROUP BY query returning at most {@code fanout} rows, so a table
+ * with a handful of changed rows is verified by transferring a few KB of digests instead of the table itself.
+ * <pre>
+ * TableChecksum.Snapshot expected = bookings.snapshot();      // once, e.g. right after seeding; save() to reuse
+ * ... run the scenario ...
+ * TableChecksum.Diff diff = bookings.diff(expected);          // or bookings.diff(otherLiveTable) down to row keys
+ * </pre>
+ *
+ * Row hashes use H2's HASH('SHA-256', ...). Keys must be integers within +/-2^53 (bucket math runs in DOUBLE).
+ */
+public final class TableChecksum implements TableDigests {
+
+    private static final Logger log = LogManager.getLogger(TableChecksum.class);
+
+    private static final Config.Key<Long> LEAF_WIDTH = Config.longKey("db.checksum.leaf.width", 256);
+    private static final Config.Key<Integer> FANOUT = Config.intKey("db.checksum.fanout", 16);
+
+    private static final String IDENTIFIER = "[A-Za-z_][A-Za-z0-9_]*";
+
+    private final DBManager db;
+    private final String table;
+    private final String key;
+    private final String rowHash;
+    private long leafWidth;
+    private int fanout;
+
+    /**
+     * @param key     integer key column that orders the buckets
+     * @param columns columns covered by the row hash, besides the key
+     */
+    public TableChecksum(DBManager db, String table, String key, String... columns) {
+        for (String name : concat(table, key, columns)) {
+            // Names are spliced into SQL, so only plain identifiers get through.
+            if (!name.matches(IDENTIFIER)) {
+                throw new IllegalArgumentException("'" + name + "' is not a plain SQL identifier.");
+            }
+        }
+        this.db = db;
+        this.table = table;
+        this.key = key;
+        this.rowHash = rowHashSql(key, columns);
+        this.leafWidth = checkLeafWidth(Config.get(LEAF_WIDTH), LEAF_WIDTH.name());
+        this.fanout = checkFanout(Config.get(FANOUT), FANOUT.name());
+    }
+
+    /**
+     * Keys per leaf bucket: the unit a snapshot diff narrows a difference down to, and the most rows one drill-down
+     * fetches. Both sides of a diff must use the same value.
+     */
+    public TableChecksum setLeafWidth(long leafWidth) {
+        this.leafWidth = checkLeafWidth(leafWidth, "Leaf width");
+        return this;
+    }
+
+    /**
+     * Children per tree node: higher = fewer round-trips, more digests per round-trip. At least 2.
+     */
+    public TableChecksum setFanout(int fanout) {
+        this.fanout = checkFanout(fanout, "Fanout");
+        return this;
+    }
+
+    @Override
+    public long leafWidth() {
+        return leafWidth;
+    }
+
+    @Override
+    public long[] bounds() {
+        List<Map<String, Object>> rows = db.query("SELECT MIN(" + key + ") AS lo, MAX(" + key + ") AS hi FROM " + table);
+        if (rows.isEmpty()) {
+            // An aggregate always returns one row, even on an empty table; none means the query itself failed.
+            throw new IllegalStateException("Could not read the key range of table '" + table
+                    + "' (see QUERY EXECUTION ERROR above).");
+        }
+        Object lo = rows.get(0).get("lo");
+        return lo == null ? null : new long[]{((Number) lo).longValue(), ((Number) rows.get(0).get("hi")).longValue()};
+    }
+
+    @Override
+    public Map<Long, Digest> buckets(long from, long to, long width) {
+        Map<Long, Digest> buckets = new HashMap<>();
+        String sql = "SELECT FLOOR(" + key + " / CAST(? AS DOUBLE)) AS bucket, COUNT(*) AS cnt, BIT_XOR_AGG(" + rowHash + ") AS xor_hash "
+                + "FROM " + table + " WHERE " + key + " >= ? AND " + key + " < ? GROUP BY bucket";
+        db.forEachRow(sql, (rs, labels) -> buckets.put(rs.getLong(1) * width, new Digest(rs.getLong(2), rs.getLong(3))),
+                width, from, to);
+        return buckets;
+    }
+
+    @Override
+    public Map<Long, Long> rows(long from, long to) {
+        Map<Long, Long> rows = new HashMap<>();
+        db.forEachRow("SELECT " + key + ", " + rowHash + " FROM " + table + " WHERE " + key + " >= ? AND " + key + " < ?",
+                (rs, labels) -> rows.put(rs.getLong(1), rs.getLong(2)), from, to);
+        return rows;
+    }
+
+    /**
+     * Leaf-level digests of the whole table, taken with a single GROUP BY query.
+     */
+    public Snapshot snapshot() {
+        TreeMap<Long, Digest> leaves = new TreeMap<>();
+        String sql = "SELECT FLOOR(" + key + " / CAST(? AS DOUBLE)) AS bucket, COUNT(*) AS cnt, BIT_XOR_AGG(" + rowHash + ") AS xor_hash "
+                + "FROM " + table + " GROUP BY bucket";
+        db.forEachRow(sql, (rs, labels) -> leaves.put(rs.getLong(1) * leafWidth, new Digest(rs.getLong(2), rs.getLong(3))), leafWidth);
+        return new Snapshot(leafWidth, leaves);
+    }
+
+    /**
+     * Differences of this table against {@code expected}. Against a snapshot the result is narrowed to leaf ranges;
+     * against another live table it goes down to individual keys.
+     */
+    public Diff diff(TableDigests expected) {
+        if (expected.leafWidth() != leafWidth) {
+            throw new IllegalArgumentException("Leaf width " + expected.leafWidth() + " of the expected side does not match "
+                    + leafWidth + "; digests are only comparable bucket for bucket.");
+        }
+        long start = System.nanoTime();
+        Diff diff = new Diff();
+        long[] wanted = expected.bounds();
+        long[] found = bounds();
+        diff.lookups += 2;
+        if (wanted != null || found != null) {
+            long lo = Math.min(wanted == null ? Long.MAX_VALUE : wanted[0], found == null ? Long.MAX_VALUE : found[0]);
+            long hi = Math.max(wanted == null ? Long.MIN_VALUE : wanted[1], found == null ? Long.MIN_VALUE : found[1]);
+            // Smallest level at which the whole key range fits in one node's worth of buckets.
+            long width = leafWidth;
+            while (Math.floorDiv(hi, width) - Math.floorDiv(lo, width) + 1 > fanout) {
+                width *= fanout;
+            }
+            descend(expected, Math.floorDiv(lo, width) * width, (Math.floorDiv(hi, width) + 1) * width, width, diff);
+        }
+        diff.elapsedNanos = System.nanoTime() - start;
+        // Reporting is the caller's call; the returned Diff carries everything this line does.
+        log.debug("Checksum diff of {}: {}", table, diff);
+        return diff;
+    }
+
+    private void descend(TableDigests expected, long from, long to, long width, Diff diff) {
+        Map<Long, Digest> wanted = expected.buckets(from, to, width);
+        Map<Long, Digest> found = buckets(from, to, width);
+        diff.lookups += 2;
+        diff.digests += wanted.size() + found.size();
+
+        TreeSet<Long> starts = new TreeSet<>(wanted.keySet());
+        starts.addAll(found.keySet());
+        for (long bucket : starts) {
+            Digest a = wanted.get(bucket);
+            Digest b = found.get(bucket);
+            if (Objects.equals(a, b)) {
+                continue;
+            }
+            if (width > leafWidth) {
+                descend(expected, bucket, bucket + width, width / fanout, diff);
+            } else {
+                compareLeaf(expected, bucket, a, b, diff);
+            }
+        }
+    }
+
+    private void compareLeaf(TableDigests expected, long bucket, Digest wanted, Digest found, Diff diff) {
+        Map<Long, Long> expectedRows = expected.rows(bucket, bucket + leafWidth);
+        if (expectedRows == null) {
+            diff.ranges.add(new RangeDifference(bucket, bucket + leafWidth,
+                    wanted == null ? 0 : wanted.count, found == null ? 0 : found.count));
+            return;
+        }
+        Map<Long, Long> actualRows = rows(bucket, bucket + leafWidth);
+        diff.lookups += 2;
+        diff.rowHashes += expectedRows.size() + actualRows.size();
+        for (Map.Entry<Long, Long> row : expectedRows.entrySet()) {
+            Long hash = actualRows.get(row.getKey());
+            if (hash == null) {
+                diff.missing.add(row.getKey());
+            } else if (!hash.equals(row.getValue())) {
+                diff.changed.add(row.getKey());
+            }
+        }
+        for (Long id : actualRows.keySet()) {
+            if (!expectedRows.containsKey(id)) {
+                diff.extra.add(id);
+            }
+        }
+        diff.ranges.add(new RangeDifference(bucket, bucket + leafWidth, expectedRows.size(), actualRows.size()));
+    }
+
+    // CHAR(31) separates columns, CHAR(0) stands for NULL, so ('a', NULL) and (NULL, 'a') hash differently.
+    private static long checkLeafWidth(long leafWidth, String name) {
+        if (leafWidth < 1) {
+            throw new IllegalArgumentException(name + " must be at least 1, got " + leafWidth);
+        }
+        return leafWidth;
+    }
+
+    private static int checkFanout(int fanout, String name) {
+        // A fanout of 1 never widens a level, so the search for the top of the tree would not terminate.
+        if (fanout < 2) {
+            throw new IllegalArgumentException(name + " must be at least 2, got " + fanout);
+        }
+        return fanout;
+    }
+
+    private static String rowHashSql(String key, String[] columns) {
+        StringBuilder concat = new StringBuilder("CONCAT(CAST(").append(key).append(" AS VARCHAR)");
+        for (String column : columns) {
+            concat.append(", CHAR(31), COALESCE(CAST(").append(column).append(" AS VARCHAR), CHAR(0))");
+        }
+        concat.append(')');
+        return "CAST(SUBSTRING(HASH('SHA-256', " + concat + ") FROM 1 FOR 8) AS BIGINT)";
+    }
+
+    private static List<String> concat(String table, String key, String[] columns) {
+        List<String> names = new ArrayList<>(Arrays.asList(columns));
+        names.add(table);
+        names.add(key);
+        return names;
+    }
+
+    /**
+     * Row count and XOR of row hashes for one bucket.
+     */
+    public static final class Digest {
+        private final long count;
+        private final long hash;
+
+        public Digest(long count, long hash) {
+            this.count = count;
+            this.hash = hash;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getHash() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Digest && ((Digest) o).count == count && ((Digest) o).hash == hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(hash) * 31 + Long.hashCode(count);
+        }
+
+        @Override
+        public String toString() {
+            return count + ":" + Long.toHexString(hash);
+        }
+    }
+
+    /**
+     * Leaf digests of a table at one point in time. Coarser levels are folded from the leaves on demand, so the
+     * snapshot answers the same questions as the live table, down to leaf ranges.
+     * A million rows at the default leaf width is about 4,000 lines when saved.
+     */
+    public static final class Snapshot implements TableDigests {
+        private final long leafWidth;
+        private final NavigableMap<Long, Digest> leaves;
+
+        Snapshot(long leafWidth, NavigableMap<Long, Digest> leaves) {
+            this.leafWidth = leafWidth;
+            this.leaves = leaves;
+        }
+
+        /**
+         * Reads a snapshot written by {@link #save(Path)}.
+         */
+        public static Snapshot load(Path file) {
+            try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String header = in.readLine();
+                if (header == null || !header.startsWith("leafWidth=")) {
+                    throw new IllegalStateException("Not a checksum snapshot: " + file);
+                }
+                TreeMap<Long, Digest> leaves = new TreeMap<>();
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String[] parts = line.split(" ");
+                    leaves.put(Long.parseLong(parts[0]), new Digest(Long.parseLong(parts[1]), Long.parseUnsignedLong(parts[2], 16)));
+                }
+                return new Snapshot(Long.parseLong(header.substring("leafWidth=".length())), leaves);
+            } catch (IOException e) {
+                throw new RuntimeException("Could not read checksum snapshot " + file, e);
+            }
+        }
+
+        /**
+         * Plain text, one leaf per line: "bucketStart count hash".
+         */
+        public void save(Path file) {
+            try {
+                if (file.getParent() != null) {
+                    Files.createDirectories(file.getParent());
+                }
+                try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                    out.write("leafWidth=" + leafWidth);
+                    out.newLine();
+                    for (Map.Entry<Long, Digest> leaf : leaves.entrySet()) {
+                        out.write(leaf.getKey() + " " + leaf.getValue().count + " " + Long.toHexString(leaf.getValue().hash));
+                        out.newLine();
+                    }
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Could not write checksum snapshot " + file, e);
+            }
+        }
+
+        @Override
+        public long leafWidth() {
+            return leafWidth;
+        }
+
+        @Override
+        public long[] bounds() {
+            // Leaf bounds, not exact keys; good enough to pick the top level of the tree.
+            return leaves.isEmpty() ? null : new long[]{leaves.firstKey(), leaves.lastKey() + leafWidth - 1};
+        }
+
+        @Override
+        public Map<Long, Digest> buckets(long from, long to, long width) {
+            Map<Long, Digest> buckets = new HashMap<>();
+            for (Map.Entry<Long, Digest> leaf : leaves.subMap(from, true, to, false).entrySet()) {
+                buckets.merge(Math.floorDiv(leaf.getKey(), width) * width, leaf.getValue(),
+                        (a, b) -> new Digest(a.count + b.count, a.hash ^ b.hash));
+            }
+            return buckets;
+        }
+
+        @Override
+        public Map<Long, Long> rows(long from, long to) {
+            return null;
+        }
+    }
+
+    /**
+     * A leaf bucket whose digests differ, with the row count on each side.
+     */
+    public static final class RangeDifference {
+        private final long from;
+        private final long to;
+        private final long expectedRows;
+        private final long actualRows;
+
+        RangeDifference(long from, long to, long expectedRows, long actualRows) {
+            this.from = from;
+            this.to = to;
+            this.expectedRows = expectedRows;
+            this.actualRows = actualRows;
+        }
+
+        public long getFrom() {
+            return from;
+        }
+
+        /**
+         * Exclusive.
+         */
+        public long getTo() {
+            return to;
+        }
+
+        public long getExpectedRows() {
+            return expectedRows;
+        }
+
+        public long getActualRows() {
+            return actualRows;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + from + ", " + to + ") " + expectedRows + " -> " + actualRows + " rows";
+        }
+    }
+
+    /**
+     * What differs, and what it cost to find out.
+     */
+    public static final class Diff {
+        private final List<RangeDifference> ranges = new ArrayList<>();
+        private final List<Long> missing = new ArrayList<>();
+        private final List<Long> extra = new ArrayList<>();
+        private final List<Long> changed = new ArrayList<>();
+        private int lookups;
+        private long digests;
+        private long rowHashes;
+        private long elapsedNanos;
+
+        public boolean isClean() {
+            return ranges.isEmpty();
+        }
+
+        /**
+         * Leaf buckets that differ. Always filled; the key lists below only when both sides are live tables.
+         */
+        public List<RangeDifference> getRanges() {
+            return Collections.unmodifiableList(ranges);
+        }
+
+        public List<Long> getMissingKeys() {
+            return Collections.unmodifiableList(missing);
+        }
+
+        public List<Long> getExtraKeys() {
+            return Collections.unmodifiableList(extra);
+        }
+
+        public List<Long> getChangedKeys() {
+            return Collections.unmodifiableList(changed);
+        }
+
+        /**
+         * Digest and row-hash queries issued, counting both sides (snapshot lookups are in memory).
+         */
+        public int getLookups() {
+            return lookups;
+        }
+
+        /**
+         * Bucket digests plus row hashes compared: an upper bound on the rows fetched from the database.
+         */
+        public long getTransferredRows() {
+            return digests + rowHashes;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedNanos / 1_000_000;
+        }
+
+        @Override
+        public String toString() {
+            String result = String.format("%s: %d differing ranges, %d missing / %d extra / %d changed keys; %d lookups, "
+                            + "%d digests + %d row hashes in %d ms",
+                    isClean() ? "MATCH" : "DIFFERS", ranges.size(), missing.size(), extra.size(), changed.size(),
+                    lookups, digests, rowHashes, getElapsedMillis());
+            return ranges.isEmpty() ? result : result + "\n  ranges: " + (ranges.size() > 20 ? ranges.subList(0, 20) + " ..." : ranges);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package core;
+
+import java.util.Map;
+
+/**
+ * One side of a {@link TableChecksum} comparison: a live table, or a stored snapshot of one.
+ */
+public interface TableDigests {
+
+    /**
+     * Lowest and highest key present, or null when there are no rows.
+     */
+    long[] bounds();
+
+    /**
+     * Digests of the non-empty buckets of {@code width} keys in [from, to), keyed by bucket start.
+     */
+    Map<Long, TableChecksum.Digest> buckets(long from, long to, long width);
+
+    /**
+     * Row hash per key in [from, to), or null if this side cannot go below bucket level.
+     */
+    Map<Long, Long> rows(long from, long to);
+
+    long leafWidth();
+}
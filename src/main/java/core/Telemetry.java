@@ -0,0 +1,435 @@
+package core;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Where suite time goes: latency histograms per layer (UI = WebDriver commands, API = HTTP calls, DB = JDBC calls),
+ * per step, per scenario, and for browser startup.
+ *
+ * The layers report their own calls ({@link #start()} / {@link #record}); the Cucumber plugin (runners.TelemetryPlugin)
+ * marks scenario and step boundaries on the scenario's thread, so each step's time is split into the layers it spent
+ * it in, plus "other" (framework and test code, waits). Asynchronous calls complete on a client thread: they are in the
+ * layer histograms, but a step that waits for them shows that wait as "other". Recording is a lock-free histogram update and a per-thread
+ * array add, cheap enough to leave on for every run. Exported as Prometheus text and JSON by {@link #export}.
+ */
+public final class Telemetry {
+
+    private static final Logger log = LogManager.getLogger(Telemetry.class);
+
+    private static final Config.Key<Boolean> ENABLED = Config.booleanKey("telemetry.enabled", true);
+    // Read once: the hot path should not even pay for a config lookup.
+    private static final boolean enabled = Config.get(ENABLED);
+
+    public enum Layer {
+        UI, API, DB;
+
+        final String label = name().toLowerCase(Locale.ROOT);
+    }
+
+    private static final Layer[] LAYERS = Layer.values();
+    private static final Json JSON = new Json();
+
+    // WebDriver methods that only hand back a sub-interface (driver.manage().timeouts()...) without a wire call.
+    private static final Set<String> LOCAL_UI_METHODS = Set.of("manage", "navigate", "switchTo", "timeouts", "window",
+            "logs", "getWrappedDriver", "getWrappedElement", "toString", "hashCode", "equals");
+
+    private static final LatencyHistogram[] calls = new LatencyHistogram[LAYERS.length];
+    private static final LongAdder[] stepLayerNanos = new LongAdder[LAYERS.length];
+    private static final LongAdder stepNanos = new LongAdder();
+    private static final LatencyHistogram browserStartup = new LatencyHistogram();
+    private static final Map<String, LatencyHistogram> steps = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram> scenarios = new ConcurrentHashMap<>();
+    // Page-object actions: wall time, and WebDriver commands per call (small integers; recorded exactly).
+    private static final Map<String, LatencyHistogram> pageActions = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram> pageActionCommands = new ConcurrentHashMap<>();
+    private static final ThreadLocal<ThreadTally> tally = ThreadLocal.withInitial(ThreadTally::new);
+
+    static {
+        for (int i = 0; i < LAYERS.length; i++) {
+            calls[i] = new LatencyHistogram();
+            stepLayerNanos[i] = new LongAdder();
+        }
+    }
+
+    private Telemetry() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start of a call; pass the result to {@link #record}. Returns 0 when telemetry is off.
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Ends a call begun with {@link #start()}: one sample for the layer, and time charged to the current thread's step.
+     */
+    public static void record(Layer layer, long startNanos) {
+        if (startNanos != 0) {
+            recordNanos(layer, System.nanoTime() - startNanos);
+        }
+    }
+
+    public static void recordNanos(Layer layer, long nanos) {
+        if (!enabled) {
+            return;
+        }
+        calls[layer.ordinal()].record(nanos);
+        ThreadTally t = tally.get();
+        t.nanos[layer.ordinal()] += nanos;
+        t.calls[layer.ordinal()]++;
+    }
+
+    public static void recordBrowserStartup(long nanos) {
+        if (enabled) {
+            browserStartup.record(nanos);
+        }
+    }
+
+    /**
+     * Wraps a driver so every WebDriver/WebElement command is timed as a UI call.
+     * The decorated driver implements the same interfaces (JavascriptExecutor, HasCdp, ...) as the original.
+     */
+    public static WebDriver instrument(WebDriver driver) {
+        return enabled ? new EventFiringDecorator<>(WebDriver.class, new UiListener()).decorate(driver) : driver;
+    }
+
+    // --- scenario and step boundaries (called by the Cucumber plugin on the scenario's thread) ---
+
+    public static void beginScenario() {
+        if (enabled) {
+            tally.get().markScenario();
+        }
+    }
+
+    public static void endScenario(String name, long nanos) {
+        if (enabled) {
+            scenarios.computeIfAbsent(name, n -> new LatencyHistogram()).record(nanos);
+        }
+    }
+
+    public static void beginStep() {
+        if (enabled) {
+            tally.get().markStep();
+        }
+    }
+
+    /**
+     * @param step the step's pattern (not its text), so steps that differ only in arguments share one series.
+     */
+    public static void endStep(String step, long nanos) {
+        if (!enabled) {
+            return;
+        }
+        steps.computeIfAbsent(step, s -> new LatencyHistogram()).record(nanos);
+        ThreadTally t = tally.get();
+        stepNanos.add(nanos);
+        for (int i = 0; i < LAYERS.length; i++) {
+            stepLayerNanos[i].add(t.nanos[i] - t.stepMark[i]);
+        }
+    }
+
+    /**
+     * Calls the current thread has made on the layer so far. Take the difference around a block to count its commands.
+     */
+    public static long threadCalls(Layer layer) {
+        return tally.get().calls[layer.ordinal()];
+    }
+
+    /**
+     * One call of a page-object action, e.g. "LoginPage.login", with the WebDriver commands it cost.
+     */
+    public static void recordPageAction(String action, long commands, long nanos) {
+        if (!enabled) {
+            return;
+        }
+        pageActions.computeIfAbsent(action, a -> new LatencyHistogram()).record(nanos);
+        pageActionCommands.computeIfAbsent(action, a -> new LatencyHistogram()).record(commands);
+    }
+
+    /**
+     * WebDriver commands per call of the action so far, or null if it has not run.
+     */
+    public static LatencyHistogram pageActionCommands(String action) {
+        return pageActionCommands.get(action);
+    }
+
+    /**
+     * The current thread's calls since {@link #beginScenario()}, e.g. "ui 14 calls 2.310s | api 2 calls 0.041s | db 3 calls 0.004s".
+     */
+    public static String scenarioSummary() {
+        ThreadTally t = tally.get();
+        StringBuilder out = new StringBuilder();
+        for (Layer layer : LAYERS) {
+            int i = layer.ordinal();
+            if (out.length() > 0) {
+                out.append(" | ");
+            }
+            out.append(String.format("%s %d calls %.3fs", layer.label, t.calls[i] - t.scenarioCalls[i],
+                    (t.nanos[i] - t.scenarioMark[i]) / 1e9));
+        }
+        return out.toString();
+    }
+
+    /**
+     * Totals across all threads, e.g. "ui 820 calls 41.2s | api 96 calls 3.1s | db 410 calls 0.6s | 4 browser starts 6.3s".
+     */
+    public static String summary() {
+        StringBuilder out = new StringBuilder();
+        for (Layer layer : LAYERS) {
+            LatencyHistogram h = calls[layer.ordinal()];
+            out.append(String.format("%s %d calls %.1fs | ", layer.label, h.count(), h.totalNanos() / 1e9));
+        }
+        return out.append(String.format("%d browser starts %.1fs", browserStartup.count(), browserStartup.totalNanos() / 1e9)).toString();
+    }
+
+    /**
+     * Calls recorded for the layer across all threads so far.
+     */
+    public static long callCount(Layer layer) {
+        return calls[layer.ordinal()].count();
+    }
+
+    public static LatencyHistogram calls(Layer layer) {
+        return calls[layer.ordinal()];
+    }
+
+    public static LatencyHistogram browserStartup() {
+        return browserStartup;
+    }
+
+    // --- export ---
+
+    /**
+     * Writes metrics.prom (Prometheus text exposition format) and metrics.json into the directory.
+     *
+     * @return the two files, Prometheus first.
+     */
+    public static List<Path> export(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Path prom = dir.resolve("metrics.prom");
+        Path json = dir.resolve("metrics.json");
+        Files.write(prom, toPrometheus().getBytes(StandardCharsets.UTF_8));
+        Files.write(json, toJson().getBytes(StandardCharsets.UTF_8));
+        log.info("Telemetry written to {} and {}", prom, json);
+        return Arrays.asList(prom, json);
+    }
+
+    public static String toPrometheus() {
+        StringBuilder out = new StringBuilder();
+        out.append("# HELP framework_call_seconds Latency of single UI (WebDriver), API (HTTP) and DB (JDBC) calls.\n")
+                .append("# TYPE framework_call_seconds summary\n");
+        for (Layer layer : LAYERS) {
+            summary(out, "framework_call_seconds", "layer", layer.label, calls[layer.ordinal()]);
+        }
+        out.append("# HELP framework_browser_startup_seconds Time to launch a new browser session.\n")
+                .append("# TYPE framework_browser_startup_seconds summary\n");
+        summary(out, "framework_browser_startup_seconds", null, null, browserStartup);
+
+        out.append("# HELP framework_step_layer_seconds_total Step time by the layer it was spent in; other = everything else.\n")
+                .append("# TYPE framework_step_layer_seconds_total counter\n");
+        long inLayers = 0;
+        for (Layer layer : LAYERS) {
+            long nanos = stepLayerNanos[layer.ordinal()].sum();
+            inLayers += nanos;
+            sample(out, "framework_step_layer_seconds_total", "layer=\"" + layer.label + "\"", nanos / 1e9);
+        }
+        sample(out, "framework_step_layer_seconds_total", "layer=\"other\"", Math.max(0, stepNanos.sum() - inLayers) / 1e9);
+
+        out.append("# HELP framework_step_seconds Duration of each step definition, hooks included.\n")
+                .append("# TYPE framework_step_seconds summary\n");
+        for (Map.Entry<String, LatencyHistogram> step : new TreeMap<>(steps).entrySet()) {
+            summary(out, "framework_step_seconds", "step", step.getKey(), step.getValue());
+        }
+        out.append("# HELP framework_scenario_seconds Duration of each scenario.\n")
+                .append("# TYPE framework_scenario_seconds summary\n");
+        for (Map.Entry<String, LatencyHistogram> scenario : new TreeMap<>(scenarios).entrySet()) {
+            summary(out, "framework_scenario_seconds", "scenario", scenario.getKey(), scenario.getValue());
+        }
+        out.append("# HELP framework_page_action_seconds Duration of each page-object action.\n")
+                .append("# TYPE framework_page_action_seconds summary\n");
+        for (Map.Entry<String, LatencyHistogram> action : new TreeMap<>(pageActions).entrySet()) {
+            summary(out, "framework_page_action_seconds", "action", action.getKey(), action.getValue());
+        }
+        out.append("# HELP framework_page_action_commands WebDriver commands (round trips) per page-object action.\n")
+                .append("# TYPE framework_page_action_commands summary\n");
+        for (Map.Entry<String, LatencyHistogram> action : new TreeMap<>(pageActionCommands).entrySet()) {
+            counts(out, "framework_page_action_commands", "action", action.getKey(), action.getValue());
+        }
+        return out.toString();
+    }
+
+    public static String toJson() {
+        Map<String, Object> layers = new LinkedHashMap<>();
+        long inLayers = 0;
+        for (Layer layer : LAYERS) {
+            Map<String, Object> entry = histogram(calls[layer.ordinal()]);
+            long nanos = stepLayerNanos[layer.ordinal()].sum();
+            inLayers += nanos;
+            entry.put("stepSeconds", nanos / 1e9);
+            layers.put(layer.label, entry);
+        }
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("layers", layers);
+        root.put("otherStepSeconds", Math.max(0, stepNanos.sum() - inLayers) / 1e9);
+        root.put("browserStartup", histogram(browserStartup));
+        root.put("steps", histograms(steps));
+        root.put("scenarios", histograms(scenarios));
+        Map<String, Object> actions = new LinkedHashMap<>();
+        for (Map.Entry<String, LatencyHistogram> action : new TreeMap<>(pageActions).entrySet()) {
+            Map<String, Object> entry = histogram(action.getValue());
+            LatencyHistogram commands = pageActionCommands.get(action.getKey());
+            entry.put("commandsPerCall", commands == null || commands.count() == 0 ? 0 : commands.meanNanos());
+            entry.put("maxCommands", commands == null ? 0 : commands.maxNanos());
+            actions.put(action.getKey(), entry);
+        }
+        root.put("pageActions", actions);
+        return JSON.toJson(root);
+    }
+
+    /**
+     * Clears everything recorded so far, e.g. between suites in one JVM.
+     */
+    public static void reset() {
+        for (int i = 0; i < LAYERS.length; i++) {
+            calls[i].reset();
+            stepLayerNanos[i].reset();
+        }
+        stepNanos.reset();
+        browserStartup.reset();
+        steps.clear();
+        scenarios.clear();
+        pageActions.clear();
+        pageActionCommands.clear();
+    }
+
+    private static void summary(StringBuilder out, String name, String labelName, String labelValue, LatencyHistogram h) {
+        String labels = labelName == null ? "" : labelName + "=\"" + escape(labelValue) + "\"";
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        for (double q : new double[]{0.5, 0.9, 0.99}) {
+            sample(out, name, prefix + "quantile=\"" + q + "\"", h.percentileNanos(q * 100) / 1e9);
+        }
+        sample(out, name + "_sum", labels, h.totalNanos() / 1e9);
+        sample(out, name + "_count", labels, h.count());
+    }
+
+    // Same shape as summary(), for histograms that hold plain counts rather than nanoseconds.
+    private static void counts(StringBuilder out, String name, String labelName, String labelValue, LatencyHistogram h) {
+        String labels = labelName + "=\"" + escape(labelValue) + "\"";
+        for (double q : new double[]{0.5, 0.9, 0.99}) {
+            sample(out, name, labels + ",quantile=\"" + q + "\"", h.percentileNanos(q * 100));
+        }
+        sample(out, name + "_sum", labels, h.totalNanos());
+        sample(out, name + "_count", labels, h.count());
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value)).append('\n');
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static Map<String, Object> histograms(Map<String, LatencyHistogram> series) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(series).entrySet()) {
+            out.put(entry.getKey(), histogram(entry.getValue()));
+        }
+        return out;
+    }
+
+    private static Map<String, Object> histogram(LatencyHistogram h) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("count", h.count());
+        out.put("sumSeconds", h.totalNanos() / 1e9);
+        out.put("p50Seconds", h.percentileNanos(50) / 1e9);
+        out.put("p90Seconds", h.percentileNanos(90) / 1e9);
+        out.put("p99Seconds", h.percentileNanos(99) / 1e9);
+        out.put("maxSeconds", h.maxNanos() / 1e9);
+        return out;
+    }
+
+    /**
+     * Running per-thread totals. Only the owning thread writes them, so plain arrays are enough; the marks let
+     * a step or scenario subtract what the thread had already spent before it started.
+     */
+    private static final class ThreadTally {
+        final long[] nanos = new long[LAYERS.length];
+        final long[] calls = new long[LAYERS.length];
+        final long[] stepMark = new long[LAYERS.length];
+        final long[] scenarioMark = new long[LAYERS.length];
+        final long[] scenarioCalls = new long[LAYERS.length];
+
+        void markStep() {
+            System.arraycopy(nanos, 0, stepMark, 0, nanos.length);
+        }
+
+        void markScenario() {
+            System.arraycopy(nanos, 0, scenarioMark, 0, nanos.length);
+            System.arraycopy(calls, 0, scenarioCalls, 0, calls.length);
+        }
+    }
+
+    /**
+     * Times each decorated WebDriver/WebElement call. Calls on one thread never overlap here (the decorator forwards
+     * to the undecorated object), so one start slot per thread is enough.
+     */
+    private static final class UiListener implements WebDriverListener {
+        private final ThreadLocal<long[]> started = ThreadLocal.withInitial(() -> new long[1]);
+
+        @Override
+        public void beforeAnyCall(Object target, Method method, Object[] args) {
+            if (!LOCAL_UI_METHODS.contains(method.getName())) {
+                started.get()[0] = System.nanoTime();
+            }
+        }
+
+        @Override
+        public void afterAnyCall(Object target, Method method, Object[] args, Object result) {
+            finish(method);
+        }
+
+        @Override
+        public void onError(Object target, Method method, Object[] args, InvocationTargetException e) {
+            finish(method);
+        }
+
+        private void finish(Method method) {
+            long[] slot = started.get();
+            if (slot[0] != 0 && !LOCAL_UI_METHODS.contains(method.getName())) {
+                recordNanos(Layer.UI, System.nanoTime() - slot[0]);
+                slot[0] = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package api;
+
+import core.ApiClient;
+import core.Config;
+import core.LatencyHistogram;
+import core.StubServer;
+import io.restassured.RestAssured;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.RequestSpecification;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Shared API client: connections must be reused across calls and threads, and no test may see another's request state.
+ */
+public class ApiClientTests {
+
+    private StubServer stub;
+    private ApiClient api;
+
+    @BeforeClass
+    public void startStub() {
+        stub = new StubServer(0, "jdbc:h2:mem:stub_api_client;DB_CLOSE_DELAY=-1", 8, true);
+        api = ApiClient.forBaseUrl(stub.baseUrl());
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopStub() {
+        stub.stop();
+    }
+
+    @Test
+    public void testParallelCallsReuseKeepAliveConnections() throws Exception {
+        int threads = 8;
+        int callsPerThread = 25;
+        long openedBefore = ApiClient.metrics().getConnectionsOpened();
+        long pingsBefore = count("GET /ping");
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(pool.submit(() -> {
+                    for (int i = 0; i < callsPerThread; i++) {
+                        api.request().get("/ping").then().statusCode(201);
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        ApiClient.Metrics metrics = ApiClient.metrics();
+        long opened = metrics.getConnectionsOpened() - openedBefore;
+        Assert.assertTrue(opened <= threads, "Expected at most one connection per thread, opened " + opened + ":\n" + metrics);
+        Assert.assertEquals(count("GET /ping") - pingsBefore, threads * callsPerThread);
+        Assert.assertEquals(metrics.getLeased(), 0, "Connections were not returned to the pool:\n" + metrics);
+        Assert.assertEquals(RestAssured.baseURI, RestAssured.DEFAULT_URI, "ApiClient must not touch RestAssured's global state.");
+    }
+
+    @Test
+    public void testBaseUrlRouteGetsItsOwnLimitForHttpAndHttps() {
+        int perRoute = Config.getInt("api.pool.max.per.route", 16);
+        Assert.assertNotEquals(perRoute, Config.getInt("api.pool.default.per.route", 4), "Limits must differ for this check to mean anything.");
+
+        Assert.assertEquals(api.maxConnections(), perRoute);
+        // No request is sent: the limit is registered for the route when the client is created.
+        Assert.assertEquals(ApiClient.forBaseUrl("https://route-check.invalid").maxConnections(), perRoute,
+                "https base URLs fell back to api.pool.default.per.route");
+        Assert.assertEquals(ApiClient.forBaseUrl("https://route-check.invalid:8443/api").maxConnections(), perRoute);
+    }
+
+    @Test
+    public void testRequestsDoNotShareState() {
+        RequestSpecification first = api.request().header("X-Scenario", "first");
+        RequestSpecification second = api.request();
+
+        Assert.assertTrue(((FilterableRequestSpecification) first).getHeaders().hasHeaderWithName("X-Scenario"));
+        Assert.assertFalse(((FilterableRequestSpecification) second).getHeaders().hasHeaderWithName("X-Scenario"),
+                "A header added to one request leaked into the shared template.");
+        Assert.assertEquals(((FilterableRequestSpecification) second).getBaseUri(), stub.baseUrl());
+    }
+
+    @Test
+    public void testJdkClientCallsAreTimedPerRouteTemplate() throws Exception {
+        long before = count("GET /booking/{id}");
+        String created = api.request().contentType("application/json")
+                .body("{\"firstname\":\"Pool\",\"lastname\":\"Test\",\"totalprice\":1,\"depositpaid\":true,"
+                        + "\"bookingdates\":{\"checkin\":\"2026-01-01\",\"checkout\":\"2026-01-02\"}}")
+                .post("/booking").then().statusCode(200).extract().asString();
+        int id = builders.BookingJson.parseBookingId(created);
+
+        HttpResponse<String> response = api.send(api.newRequest("/booking/" + id).header("Accept", "application/json").GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        Assert.assertEquals(response.statusCode(), 200);
+        Assert.assertEquals(count("GET /booking/{id}") - before, 1, "Ids must be folded into one latency series.");
+        Assert.assertEquals(api.http().version(), Config.getBoolean("api.http2", false)
+                ? java.net.http.HttpClient.Version.HTTP_2 : java.net.http.HttpClient.Version.HTTP_1_1);
+    }
+
+    private static long count(String operation) {
+        LatencyHistogram histogram = ApiClient.metrics().getLatencies().get(operation);
+        return histogram == null ? 0 : histogram.count();
+    }
+}
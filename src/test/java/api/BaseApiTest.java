@@ -1,7 +1,7 @@
 package api;
 
-import core.ConfigManager;
-import io.restassured.RestAssured;
+import core.Config;
+import core.ApiClient;
 import org.testng.annotations.BeforeSuite;
 
 public class BaseApiTest {
@@ -11,10 +11,12 @@ public class BaseApiTest {
         // We pull the URI once at the suite level to ensure environment consistency.
         // If this value is null, RestAssured defaults to localhost, which causes
         // false positives or confusing connection refused errors in CI.
-        String baseUri = ConfigManager.getProperty("api.base.url");
+        String baseUri = Config.get("api.base.url");
 
         if (baseUri != null) {
-            RestAssured.baseURI = baseUri;
+            // No RestAssured.baseURI here: tests go through ApiClient, which carries the base URI per client,
+            // so parallel classes can't overwrite each other's target.
+            ApiClient.shared();
             // Visible confirmation in logs to distinguish between Dev, QA, and Prod runs
             // before any actual requests are fired.
             System.out.println("FRAMEWORK BOOT: Base URI set to: " + baseUri);
@@ -1,7 +1,6 @@
 package api;
 
-import core.ConfigManager;
-import io.restassured.RestAssured;
+import core.ApiClient;
 import io.qameta.allure.*;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
@@ -10,15 +9,13 @@ import org.testng.annotations.Test;
 @Feature("API Stability")
 public class BookingApiTests {
 
+    private ApiClient api;
+
     @BeforeClass
     public void setup() {
         // Redundant check here is a safety net. If BaseApiTest failed or wasn't inherited,
-        // we prevent RestAssured from defaulting to localhost and giving false results.
-        String baseUri = ConfigManager.getProperty("api.base.url");
-        if (baseUri == null) {
-            throw new RuntimeException("Environment Mismatch: 'api.base.url' is missing. Termination required.");
-        }
-        RestAssured.baseURI = baseUri;
+        // shared() still refuses to run without 'api.base.url' instead of defaulting to localhost.
+        api = ApiClient.shared();
     }
 
     @Test(groups = "regression", description = "Verify API Health")
@@ -26,7 +23,7 @@ public class BookingApiTests {
     @Description("Connectivity check. Failure here usually points to VPN/Proxy issues or a dead environment.")
     public void testHealthCheck() {
         try {
-            RestAssured.given()
+            api.request()
                     .when()
                     .get("/ping")
                     .then()
@@ -36,7 +33,7 @@ public class BookingApiTests {
         } catch (Exception e) {
             // Windows firewalls often silently drop packets.
             // Explicit log helps to distinguish between 'Server Error' and 'Network Unreachable'.
-            System.err.println("NETWORK FAILURE: Connection to " + RestAssured.baseURI + " timed out or was refused.");
+            System.err.println("NETWORK FAILURE: Connection to " + api.baseUri() + " timed out or was refused.");
             throw e;
         }
     }
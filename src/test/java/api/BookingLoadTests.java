@@ -0,0 +1,169 @@
+package api;
+
+import builders.BookingGenerator;
+import builders.BookingJson;
+import builders.BookingRecord;
+import core.ApiClient;
+import core.Config;
+import core.LatencyHistogram;
+import core.LoadGenerator;
+import io.qameta.allure.*;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Load mode for the booking endpoints. The same suite doubles as a performance gate:
+ * the run fails if steady-state p99 or error rate breach the configured budget.
+ * Disabled by default (it hammers a shared environment); enable with -Dload.enabled=true or the 'load' Maven profile.
+ */
+@Epic("Performance")
+@Feature("Booking API Load")
+public class BookingLoadTests {
+
+    // Ring of recently created ids for the GET mix; sized so reads hit fresh and slightly older bookings.
+    private static final int RECENT_IDS = 1024;
+
+    // Every knob can be overridden on the command line, e.g. -Dload.rate=50, without editing config files.
+    private static final Config.Key<Boolean> ENABLED = Config.booleanKey("load.enabled", false);
+    private static final Config.Key<String> BASE_URL = Config.stringKey("api.base.url", null);
+    private static final Config.Key<LoadGenerator.Model> MODEL = Config.enumKey("load.model", LoadGenerator.Model.class, LoadGenerator.Model.OPEN);
+    private static final Config.Key<Double> RATE = Config.doubleKey("load.rate", 20);
+    private static final Config.Key<Integer> CONCURRENCY = Config.intKey("load.concurrency", 16);
+    private static final Config.Key<Duration> PACING = Config.durationKey("load.pacing.ms", ChronoUnit.MILLIS, Duration.ZERO);
+    private static final Config.Key<Duration> RAMP_UP = Config.durationKey("load.rampup.seconds", ChronoUnit.SECONDS, Duration.ofSeconds(10));
+    private static final Config.Key<Duration> STEADY_STATE = Config.durationKey("load.steady.seconds", ChronoUnit.SECONDS, Duration.ofSeconds(60));
+    private static final Config.Key<Duration> REQUEST_TIMEOUT = Config.durationKey("load.request.timeout.ms", ChronoUnit.MILLIS, Duration.ofSeconds(10));
+    private static final Config.Key<Long> SEED = Config.longKey("load.seed", 42);
+    private static final Config.Key<Integer> WEIGHT_CREATE = Config.intKey("load.weight.create", 1);
+    private static final Config.Key<Integer> WEIGHT_GET = Config.intKey("load.weight.get", 3);
+    private static final Config.Key<Integer> WEIGHT_PING = Config.intKey("load.weight.ping", 1);
+    private static final Config.Key<Duration> GATE_P99 = Config.durationKey("load.gate.p99.ms", ChronoUnit.MILLIS, Duration.ofSeconds(2));
+    private static final Config.Key<Double> GATE_ERROR_RATE = Config.doubleKey("load.gate.error.rate", 0.01);
+
+    @Test(groups = "performance", description = "Booking API under load")
+    @Severity(SeverityLevel.CRITICAL)
+    @Description("Drives POST /booking, GET /booking/{id} and /ping through ramp-up and steady state, then gates on p99 and error rate.")
+    public void testBookingEndpointsUnderLoad() {
+        if (!Config.get(ENABLED)) {
+            throw new SkipException("Load mode is off. Run with -Dload.enabled=true (or -Pload) to drive the booking API.");
+        }
+        String baseUri = Config.get(BASE_URL);
+        if (baseUri == null) {
+            throw new RuntimeException("Environment Mismatch: 'api.base.url' is missing. Termination required.");
+        }
+
+        // One client for the whole run: connections are kept alive and shared by every worker,
+        // otherwise we'd be measuring TLS handshakes rather than the API. ApiClient's JDK client speaks HTTP/2
+        // when api.http2 is set, so the same run can compare protocols.
+        HttpClient client = ApiClient.forBaseUrl(baseUri).http();
+        Duration requestTimeout = Config.get(REQUEST_TIMEOUT);
+        BookingGenerator generator = new BookingGenerator(Config.get(SEED));
+        AtomicLongArray recentIds = new AtomicLongArray(RECENT_IDS);
+        AtomicLong created = new AtomicLong();
+
+        LoadGenerator load = new LoadGenerator()
+                .setModel(Config.get(MODEL))
+                .setRatePerSecond(Config.get(RATE))
+                .setConcurrency(Config.get(CONCURRENCY))
+                .setPacing(Config.get(PACING))
+                .setRampUp(Config.get(RAMP_UP))
+                .setSteadyState(Config.get(STEADY_STATE))
+                .addOperation("POST /booking", Config.get(WEIGHT_CREATE), seq -> {
+                    BookingRecord booking = generator.fill(seq, new BookingRecord());
+                    HttpResponse<String> response = send(client, HttpRequest.newBuilder(URI.create(baseUri + "/booking"))
+                            .timeout(requestTimeout)
+                            .header("Content-Type", "application/json")
+                            .header("Accept", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(BookingJson.toJson(booking))), 200);
+                    long slot = created.getAndIncrement() % RECENT_IDS;
+                    recentIds.set((int) slot, BookingJson.parseBookingId(response.body()));
+                })
+                .addOperation("GET /booking/{id}", Config.get(WEIGHT_GET), seq -> {
+                    long known = Math.min(created.get(), RECENT_IDS);
+                    // Before the first create lands, fall back to id 1, which the sandbox always has.
+                    long id = known == 0 ? 1 : Math.max(1, recentIds.get((int) (seq % known)));
+                    send(client, HttpRequest.newBuilder(URI.create(baseUri + "/booking/" + id))
+                            .timeout(requestTimeout)
+                            .header("Accept", "application/json")
+                            .GET(), 200);
+                })
+                .addOperation("GET /ping", Config.get(WEIGHT_PING), seq ->
+                        // Herokuapp's /ping returns 201 Created by design.
+                        send(client, HttpRequest.newBuilder(URI.create(baseUri + "/ping")).timeout(requestTimeout).GET(), 201));
+
+        LoadGenerator.LoadReport report = load.run();
+        publish(report);
+
+        double p99BudgetMs = Config.get(GATE_P99).toNanos() / 1e6;
+        double errorBudget = Config.get(GATE_ERROR_RATE);
+        double p99Ms = report.getResponseTime().percentileNanos(99) / 1e6;
+        Assert.assertTrue(report.getResponseTime().count() > 0, "No steady-state samples recorded:\n" + report);
+        Assert.assertTrue(report.getErrorRate() <= errorBudget,
+                String.format("Error rate %.2f%% exceeds budget %.2f%%:%n%s", report.getErrorRate() * 100, errorBudget * 100, report));
+        Assert.assertTrue(p99Ms <= p99BudgetMs,
+                String.format("p99 %.1fms exceeds budget %.1fms:%n%s", p99Ms, p99BudgetMs, report));
+    }
+
+    /**
+     * Sanity check of the generator itself, no network: a stall in the system under test must show up in the
+     * scheduled-start latency even though only one call was actually slow.
+     */
+    @Test(groups = "regression")
+    public void testStallIsChargedToQueuedRequests() {
+        LoadGenerator.LoadReport report = new LoadGenerator()
+                .setModel(LoadGenerator.Model.OPEN)
+                .setRatePerSecond(100)
+                .setConcurrency(1)
+                .setSteadyState(Duration.ofSeconds(2))
+                .addOperation("stall", 1, seq -> {
+                    if (seq == 50) {
+                        Thread.sleep(500);
+                    }
+                })
+                .run();
+
+        LoadGenerator.OperationStats stats = report.getOperation("stall");
+        Assert.assertTrue(stats.getCount() >= 150, "Schedule was not honoured: " + stats.getCount() + " calls");
+        // ~50 calls were scheduled during the 500ms freeze, so well over 1% of samples must be slow.
+        Assert.assertTrue(stats.getResponseTime().percentileNanos(99) > 200_000_000L,
+                "Stall was hidden from response time:\n" + report);
+        Assert.assertTrue(stats.getServiceTime().percentileNanos(99) < 200_000_000L,
+                "Only one call was slow; service time should not see the backlog:\n" + report);
+    }
+
+    private static HttpResponse<String> send(HttpClient client, HttpRequest.Builder request, int expectedStatus) throws Exception {
+        HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != expectedStatus) {
+            throw new IllegalStateException("Expected " + expectedStatus + " but got " + response.statusCode()
+                    + " from " + response.request().method() + " " + response.uri());
+        }
+        return response;
+    }
+
+    private static void publish(LoadGenerator.LoadReport report) {
+        Allure.parameter("model", report.getModel());
+        Allure.parameter("throughput/s", String.format("%.1f", report.getThroughput()));
+        Allure.addAttachment("Load report", "text/plain", report.summary());
+
+        // Machine-readable copy for trend comparison between builds.
+        StringBuilder csv = new StringBuilder("operation,count,errors,p50_ms,p90_ms,p99_ms,p999_ms,max_ms,service_p99_ms\n");
+        for (LoadGenerator.OperationStats s : report.getOperations().values()) {
+            LatencyHistogram h = s.getResponseTime();
+            csv.append(String.format(Locale.ROOT, "%s,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f%n", s.getName(), h.count(),
+                    s.getErrors(), h.percentileNanos(50) / 1e6, h.percentileNanos(90) / 1e6, h.percentileNanos(99) / 1e6,
+                    h.percentileNanos(99.9) / 1e6, h.maxNanos() / 1e6, s.getServiceTime().percentileNanos(99) / 1e6));
+        }
+        Allure.addAttachment("Load percentiles", "text/csv", csv.toString(), ".csv");
+    }
+}
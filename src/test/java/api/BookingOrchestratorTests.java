@@ -0,0 +1,95 @@
+package api;
+
+import builders.BookingDataBuilder;
+import core.ApiClient;
+import core.BookingOrchestrator;
+import core.DBManager;
+import core.ScenarioTransaction;
+import core.StubServer;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Async orchestration against a private stub: batches are created concurrently, persisted on the caller's thread
+ * (inside its transaction) and verified against one deadline.
+ */
+public class BookingOrchestratorTests {
+
+    private static final String DB_URL = "jdbc:h2:mem:orchestrator_tests;DB_CLOSE_DELAY=-1";
+
+    private StubServer stub;
+    private ApiClient api;
+
+    @BeforeClass
+    public void startStub() {
+        stub = new StubServer(0, "jdbc:h2:mem:stub_orchestrator;DB_CLOSE_DELAY=-1", 8, true);
+        api = ApiClient.forBaseUrl(stub.baseUrl());
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopStub() {
+        stub.stop();
+    }
+
+    @Test
+    public void testBatchIsPersistedAndVerified() {
+        DBManager db = new DBManager(DB_URL);
+        BookingOrchestrator orchestrator = new BookingOrchestrator(api, db);
+        for (int i = 0; i < 25; i++) {
+            orchestrator.create(new BookingDataBuilder().setFirstname("Async" + i).setLastname("Batch").setTotalPrice(100 + i));
+        }
+
+        List<BookingOrchestrator.Booking> bookings = orchestrator.awaitVerified(Duration.ofSeconds(30));
+
+        Assert.assertEquals(bookings.size(), 25);
+        Assert.assertEquals(bookings.get(7).getFirstname(), "Async7", "Results must come back in creation order.");
+        Set<Integer> ids = bookings.stream().map(BookingOrchestrator.Booking::getId).collect(Collectors.toSet());
+        Assert.assertEquals(ids.size(), 25, "The API handed out duplicate ids.");
+        for (BookingOrchestrator.Booking booking : bookings) {
+            Assert.assertEquals(db.query("SELECT totalprice FROM bookings WHERE booking_id = ?", booking.getId()).get(0).get("totalprice"),
+                    booking.getTotalprice());
+        }
+    }
+
+    @Test
+    public void testWritesJoinTheCallersTransaction() {
+        DBManager db = new DBManager(DB_URL);
+        int id;
+        try (ScenarioTransaction ignored = db.beginScenario()) {
+            BookingOrchestrator orchestrator = new BookingOrchestrator(api, db);
+            orchestrator.create(new BookingDataBuilder().setFirstname("Rollback").setLastname("Me").setTotalPrice(1));
+            id = orchestrator.awaitPersisted(Duration.ofSeconds(30)).get(0).getId();
+            Assert.assertEquals(db.query("SELECT * FROM bookings WHERE booking_id = ?", id).size(), 1);
+        }
+        Assert.assertTrue(db.query("SELECT * FROM bookings WHERE booking_id = ?", id).isEmpty(),
+                "Pipelined writes escaped the scenario transaction.");
+    }
+
+    @Test
+    public void testFailedCallIsReportedNotSwallowed() {
+        BookingOrchestrator orchestrator = new BookingOrchestrator(ApiClient.forBaseUrl(stub.baseUrl() + "/missing"), new DBManager(DB_URL));
+        orchestrator.create(new BookingDataBuilder().setFirstname("Lost").setLastname("Call").setTotalPrice(1));
+
+        RuntimeException failure = Assert.expectThrows(RuntimeException.class, () -> orchestrator.awaitPersisted(Duration.ofSeconds(30)));
+        Assert.assertTrue(failure.getMessage().contains("not created"), failure.getMessage());
+    }
+
+    @Test
+    public void testFailedInsertFailsTheBooking() {
+        DBManager broken = new DBManager("jdbc:h2:mem:orchestrator_no_table;DB_CLOSE_DELAY=-1");
+        broken.update("DROP TABLE bookings");
+        BookingOrchestrator orchestrator = new BookingOrchestrator(api, broken);
+        orchestrator.create(new BookingDataBuilder().setFirstname("Never").setLastname("Written").setTotalPrice(1));
+
+        RuntimeException failure = Assert.expectThrows(RuntimeException.class, () -> orchestrator.awaitPersisted(Duration.ofSeconds(30)));
+        Assert.assertTrue(failure.getMessage().contains("wrote 0 rows"), failure.getMessage());
+        DBManager.closePool("jdbc:h2:mem:orchestrator_no_table;DB_CLOSE_DELAY=-1");
+    }
+}
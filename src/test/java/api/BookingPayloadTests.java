@@ -0,0 +1,100 @@
+package api;
+
+import builders.BookingDataBuilder;
+import builders.BookingGenerator;
+import builders.BookingJson;
+import builders.BookingRecord;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.time.LocalDate;
+
+/**
+ * Offline contract checks for the booking JSON codec.
+ * A malformed payload shows up as a vague '400 Bad Request' from the API, so the format is pinned down here.
+ */
+public class BookingPayloadTests {
+
+    @Test(groups = "regression")
+    public void testBuilderPayloadMatchesApiSchema() {
+        String json = new BookingDataBuilder()
+                .setFirstname("Sergei")
+                .setLastname("Zver")
+                .setTotalPrice(150)
+                .setBookingDates("2026-01-01", "2026-01-02")
+                .toJson();
+
+        Assert.assertEquals(json, "{\"firstname\":\"Sergei\",\"lastname\":\"Zver\",\"totalprice\":150,\"depositpaid\":true,"
+                + "\"bookingdates\":{\"checkin\":\"2026-01-01\",\"checkout\":\"2026-01-02\"},\"additionalneeds\":\"Breakfast\"}");
+    }
+
+    @Test(groups = "regression")
+    public void testSpecialCharactersAreEscaped() {
+        String json = new BookingDataBuilder()
+                .setFirstname("Quote\" Back\\slash")
+                .setLastname("Line\nBreak\u0001")
+                .toJson();
+
+        Assert.assertTrue(json.contains("\"firstname\":\"Quote\\\" Back\\\\slash\""), json);
+        Assert.assertTrue(json.contains("\"lastname\":\"Line\\nBreak\\u0001\""), json);
+    }
+
+    @Test(groups = "regression")
+    public void testGeneratedRecordSerializesWithPaddedDates() {
+        BookingRecord record = new BookingGenerator(7L).fill(3, new BookingRecord());
+
+        String json = BookingJson.toJson(record);
+
+        Assert.assertTrue(json.contains("\"checkin\":\"" + record.getCheckin() + "\""), json);
+        Assert.assertTrue(json.contains("\"checkout\":\"" + record.getCheckout() + "\""), json);
+    }
+
+    @Test(groups = "regression")
+    public void testEpochDayDatesMatchIsoFormatAcrossLeapYears() {
+        // Dates are written from epoch days without LocalDate; sweep windows that start on leap and century edges.
+        BookingRecord record = new BookingRecord();
+        for (LocalDate start : new LocalDate[]{LocalDate.of(1999, 12, 1), LocalDate.of(2024, 2, 1), LocalDate.of(2100, 2, 1)}) {
+            BookingGenerator generator = new BookingGenerator(11L, 1, start);
+            for (int i = 0; i < 2_000; i++) {
+                String json = BookingJson.toJson(generator.fill(i, record));
+                Assert.assertTrue(json.contains("\"checkin\":\"" + record.getCheckin() + "\",\"checkout\":\"" + record.getCheckout() + "\""), json);
+            }
+        }
+    }
+
+    @Test(groups = "regression")
+    public void testBookingIdIsReadFromTopLevelOnly() {
+        String response = "{\"booking\":{\"firstname\":\"bookingid\",\"bookingid\":7},\"bookingid\": 4521}";
+
+        Assert.assertEquals(BookingJson.parseBookingId(response), 4521);
+        Assert.assertEquals(BookingJson.parseBookingId(response.getBytes()), 4521);
+    }
+
+    @Test(groups = "regression")
+    public void testTopLevelFieldsAreReadAndUnescaped() {
+        String response = "{\"bookingdates\":{\"totalprice\":1},\"firstname\":\"Zo\\u00eb \\\"Q\\\"\","
+                + " \"totalprice\" : -12, \"additionalneeds\":null}";
+
+        Assert.assertEquals(BookingJson.parseString(response, "firstname"), "Zo\u00eb \"Q\"");
+        Assert.assertEquals(BookingJson.parseInt(response, "totalprice"), -12);
+        Assert.assertNull(BookingJson.parseString(response, "additionalneeds"));
+        Assert.expectThrows(IllegalArgumentException.class, () -> BookingJson.parseString(response, "totalprice"));
+        Assert.expectThrows(IllegalArgumentException.class, () -> BookingJson.parseInt(response, "lastname"));
+    }
+
+    @Test(groups = "regression")
+    public void testNestedObjectIsReadAsItsOwnPayload() {
+        String request = "{\"depositpaid\":false,\"bookingdates\":{\"checkin\":\"2026-03-01\",\"note\":\"}{\"},"
+                + "\"firstname\":\"checkout\"}";
+
+        CharSequence dates = BookingJson.parseObject(request, "bookingdates");
+        Assert.assertEquals(dates.toString(), "{\"checkin\":\"2026-03-01\",\"note\":\"}{\"}");
+        Assert.assertEquals(BookingJson.parseString(dates, "checkin"), "2026-03-01");
+        Assert.assertFalse(BookingJson.hasField(dates, "checkout"));
+        Assert.assertFalse(BookingJson.parseBoolean(request, "depositpaid"));
+        Assert.assertFalse(BookingJson.hasField(request, "checkin"), "Nested keys are not top-level fields");
+        Assert.assertNull(BookingJson.parseObject("{\"bookingdates\":null}", "bookingdates"));
+        Assert.expectThrows(IllegalArgumentException.class, () -> BookingJson.parseObject(request, "firstname"));
+        Assert.expectThrows(IllegalArgumentException.class, () -> BookingJson.parseBoolean(request, "firstname"));
+    }
+}
@@ -0,0 +1,113 @@
+package api;
+
+import builders.BookingDataBuilder;
+import builders.BookingJson;
+import core.StubServer;
+import io.restassured.RestAssured;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+
+/**
+ * Contract checks for the local stand-in: if it drifts from restful-booker and the-internet,
+ * offline runs start passing things the real environment would fail.
+ */
+public class StubServerTests {
+
+    private StubServer stub;
+
+    @BeforeClass
+    public void startStub() {
+        // Private instance on a free port and its own database, independent of stub.enabled.
+        stub = new StubServer(0, "jdbc:h2:mem:stub_contract;DB_CLOSE_DELAY=-1", 4, true);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopStub() {
+        stub.stop();
+    }
+
+    private RequestSpecification api() {
+        return RestAssured.given().baseUri(stub.baseUrl());
+    }
+
+    @Test(groups = "regression")
+    public void testBookingLifecycle() {
+        api().get("/ping").then().statusCode(201);
+
+        String created = api().contentType("application/json")
+                .body(new BookingDataBuilder().setFirstname("Sergei").setLastname("Zver").setTotalPrice(150).toJson())
+                .post("/booking")
+                .then().statusCode(200)
+                .extract().asString();
+        int id = BookingJson.parseBookingId(created);
+
+        api().get("/booking/" + id).then().statusCode(200)
+                .body("firstname", equalTo("Sergei"))
+                .body("bookingdates.checkin", equalTo("2026-01-01"));
+        api().queryParam("firstname", "Sergei").get("/booking").then().statusCode(200)
+                .body("bookingid", hasItem(id));
+
+        // Writes need a token, exactly like the real service.
+        api().contentType("application/json").body("{\"totalprice\":99}").patch("/booking/" + id).then().statusCode(403);
+        String token = api().contentType("application/json").body("{\"username\":\"admin\",\"password\":\"password123\"}")
+                .post("/auth").then().statusCode(200).extract().path("token");
+        api().cookie("token", token).contentType("application/json").body("{\"totalprice\":99}")
+                .patch("/booking/" + id).then().statusCode(200).body("totalprice", equalTo(99));
+
+        api().cookie("token", token).delete("/booking/" + id).then().statusCode(201);
+        api().get("/booking/" + id).then().statusCode(404);
+    }
+
+    @Test(groups = "regression")
+    public void testPatchMergesPartialBookingDates() {
+        String created = api().contentType("application/json")
+                .body(new BookingDataBuilder().setFirstname("Partial").setLastname("Dates")
+                        .setBookingDates("2026-02-01", "2026-02-10").toJson())
+                .post("/booking").then().statusCode(200).extract().asString();
+        int id = BookingJson.parseBookingId(created);
+
+        api().auth().preemptive().basic("admin", "password123").contentType("application/json")
+                .body("{\"bookingdates\":{\"checkin\":\"2026-02-03\"}}")
+                .patch("/booking/" + id).then().statusCode(200)
+                .body("bookingdates.checkin", equalTo("2026-02-03"))
+                .body("bookingdates.checkout", equalTo("2026-02-10"))
+                .body("firstname", equalTo("Partial"));
+        api().get("/booking/" + id).then().statusCode(200)
+                .body("bookingdates.checkin", equalTo("2026-02-03"))
+                .body("bookingdates.checkout", equalTo("2026-02-10"));
+    }
+
+    @Test(groups = "regression")
+    public void testIncompletePayloadIsRejectedLikeUpstream() {
+        api().contentType("application/json").body("{\"firstname\":\"OnlyName\"}").post("/booking").then().statusCode(500);
+        api().contentType("application/json").body("[\"not\", \"an object\"]").post("/booking").then().statusCode(500);
+    }
+
+    @Test(groups = "regression")
+    public void testLoginFlowServesLoginPageSelectors() {
+        String loginPage = api().get("/login").then().statusCode(200).extract().asString();
+        Assert.assertTrue(loginPage.contains("id=\"username\"") && loginPage.contains("id=\"password\"")
+                && loginPage.contains("id=\"login\"") && loginPage.contains("type=\"submit\""),
+                "Login page no longer matches LoginPage locators.");
+
+        Response login = api().redirects().follow(false)
+                .formParam("username", "tomsmith").formParam("password", "SuperSecretPassword!")
+                .post("/authenticate");
+        Assert.assertEquals(login.statusCode(), 303);
+        Assert.assertEquals(login.header("Location"), "/secure");
+
+        String secure = api().cookies(login.cookies()).get("/secure").then().statusCode(200).extract().asString();
+        Assert.assertTrue(secure.contains("You logged into a secure area!"), secure);
+
+        Response rejected = api().redirects().follow(false)
+                .formParam("username", "tomsmith").formParam("password", "wrong").post("/authenticate");
+        Assert.assertEquals(rejected.header("Location"), "/login");
+    }
+}
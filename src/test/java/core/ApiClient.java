@@ -0,0 +1,353 @@
+package core;
+
+import io.restassured.RestAssured;
+import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.filter.Filter;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import org.apache.http.HeaderElement;
+import org.apache.http.HeaderElementIterator;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ClientConnectionOperator;
+import org.apache.http.conn.OperatedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.DefaultClientConnectionOperator;
+import org.apache.http.impl.conn.DefaultHttpRoutePlanner;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.message.BasicHttpRequest;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * One API client per base URL, safe to share across parallel scenarios.
+ *
+ * {@link #request()} starts from an immutable template (base URI, JSON defaults, pooled transport, metrics filter)
+ * instead of the global {@code RestAssured.baseURI}, so parallel tests never race on static state.
+ * Every call reuses a keep-alive connection from one JVM-wide pool: each thread gets its own Apache client (RestAssured
+ * mutates client params per request, so clients are not shared) on top of a shared, route-sized connection manager.
+ * The base URL's route may hold api.pool.max.per.route connections, any other host api.pool.default.per.route.
+ *
+ * RestAssured's transport is Apache HttpClient 4, which only speaks HTTP/1.1. {@link #http()} is the JDK client for
+ * the same base URL; with api.http2=true it negotiates HTTP/2 and multiplexes calls over one connection per host.
+ * Apache's pre-4.3 client API is used on purpose and its deprecation warnings are suppressed where it appears:
+ * RestAssured's httpClientFactory must return an AbstractHttpClient, and only that API family fits it.
+ * <pre>
+ * ApiClient.shared().request().body(json).post("/booking").then().statusCode(200);
+ * </pre>
+ */
+public final class ApiClient {
+
+    private static final Logger log = LogManager.getLogger(ApiClient.class);
+
+    private static final Config.Key<String> BASE_URL = Config.stringKey("api.base.url", null);
+    private static final Config.Key<Integer> MAX_TOTAL = Config.intKey("api.pool.max.total", 64);
+    private static final Config.Key<Integer> MAX_PER_ROUTE = Config.intKey("api.pool.max.per.route", 16);
+    private static final Config.Key<Integer> DEFAULT_PER_ROUTE = Config.intKey("api.pool.default.per.route", 4);
+    private static final Config.Key<Duration> KEEP_ALIVE = Config.durationKey("api.keepalive.ms", ChronoUnit.MILLIS, Duration.ofSeconds(30));
+    private static final Config.Key<Duration> CONNECT_TIMEOUT = Config.durationKey("api.connect.timeout.ms", ChronoUnit.MILLIS, Duration.ofSeconds(10));
+    private static final Config.Key<Duration> READ_TIMEOUT = Config.durationKey("api.read.timeout.ms", ChronoUnit.MILLIS, Duration.ofSeconds(30));
+    private static final Config.Key<Boolean> HTTP2 = Config.booleanKey("api.http2", false);
+
+    // Numeric path segments become {id}, so /booking/17 and /booking/18 share one latency series.
+    private static final Pattern ID_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+
+    private static final AtomicLong connectionsOpened = new AtomicLong();
+    @SuppressWarnings("deprecation") // RestAssured requires an AbstractHttpClient; see the class doc.
+    private static final PoolingClientConnectionManager CONNECTIONS = newConnectionManager();
+    private static final Map<String, ApiClient> clients = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+
+    // Per-thread client over the shared pool. Handed to RestAssured through the factory below on every request.
+    @SuppressWarnings("deprecation") // RestAssured requires an AbstractHttpClient; see the class doc.
+    private static final ThreadLocal<DefaultHttpClient> threadClient = ThreadLocal.withInitial(ApiClient::newThreadClient);
+
+    private static final RestAssuredConfig TRANSPORT = RestAssuredConfig.config().httpClient(HttpClientConfig.httpClientConfig()
+            // Not reuseHttpClientInstance(): that pins the first thread's client for everyone. The factory already reuses.
+            .httpClientFactory(threadClient::get));
+
+    private final URI baseUri;
+    private final HttpRoute route;
+    private final RequestSpecification template;
+    private final HttpClient http;
+
+    private ApiClient(String baseUrl) {
+        this.baseUri = URI.create(baseUrl);
+        this.route = routeOf(baseUri);
+        CONNECTIONS.setMaxPerRoute(route, Config.get(MAX_PER_ROUTE));
+        this.template = new RequestSpecBuilder()
+                .setBaseUri(baseUrl)
+                .setConfig(TRANSPORT)
+                .setAccept("application/json")
+                .addFilter(timing())
+                .build();
+        this.http = HttpClient.newBuilder()
+                .version(Config.get(HTTP2) ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Config.get(CONNECT_TIMEOUT))
+                .build();
+    }
+
+    /**
+     * Client for api.base.url as currently configured (the stub's address when stub.enabled is set).
+     */
+    public static ApiClient shared() {
+        String baseUrl = Config.get(BASE_URL);
+        if (baseUrl == null) {
+            throw new RuntimeException("Environment Mismatch: 'api.base.url' is missing. Termination required.");
+        }
+        return forBaseUrl(baseUrl);
+    }
+
+    /**
+     * Client for any other service, e.g. a private stub; one instance per URL for the life of the JVM.
+     */
+    public static ApiClient forBaseUrl(String baseUrl) {
+        return clients.computeIfAbsent(baseUrl, ApiClient::new);
+    }
+
+    public URI baseUri() {
+        return baseUri;
+    }
+
+    /**
+     * Keep-alive connections the shared pool allows for this base URL's route.
+     */
+    public int maxConnections() {
+        return CONNECTIONS.getMaxPerRoute(route);
+    }
+
+    /**
+     * A fresh request on top of the shared template. Whatever the caller adds stays on this request.
+     */
+    public RequestSpecification request() {
+        return RestAssured.given().spec(template);
+    }
+
+    /**
+     * JDK client for this base URL (HTTP/2 when api.http2 is set), for callers that want java.net.http directly,
+     * e.g. load tests. It keeps its own keep-alive connections; calls sent through {@link #send} are timed.
+     */
+    public HttpClient http() {
+        return http;
+    }
+
+    /**
+     * Request builder for {@code path} against this base URL, with the read timeout applied.
+     */
+    public HttpRequest.Builder newRequest(String path) {
+        // Appended, not resolve()d: resolving "/booking" would drop a base path such as https://host/api.
+        String base = baseUri.toString();
+        String url = base.endsWith("/") && path.startsWith("/") ? base + path.substring(1) : base + path;
+        return HttpRequest.newBuilder(URI.create(url)).timeout(Config.get(READ_TIMEOUT));
+    }
+
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        try {
+            return http.send(request, handler);
+        } finally {
+            record(request.method(), request.uri().getPath(), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Non-blocking {@link #send}: the call is timed when its response (or failure) arrives.
+     */
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        long start = System.nanoTime();
+        return http.sendAsync(request, handler)
+                .whenComplete((response, error) -> record(request.method(), request.uri().getPath(), System.nanoTime() - start));
+    }
+
+    /**
+     * Pool usage and per-call latency across every ApiClient in the JVM.
+     */
+    public static Metrics metrics() {
+        return new Metrics(CONNECTIONS.getTotalStats(), connectionsOpened.get(), new TreeMap<>(latencies));
+    }
+
+    /**
+     * Forgets recorded latencies; the pool and its counters are untouched.
+     */
+    public static void resetLatencies() {
+        latencies.clear();
+    }
+
+    private static Filter timing() {
+        return (request, response, context) -> {
+            long start = System.nanoTime();
+            try {
+                Response result = context.next(request, response);
+                // RestAssured reads bodies lazily and only then hands the connection back. Buffering here returns it
+                // to the pool right away, even for callers that only check the status. Timing includes the body.
+                result.asByteArray();
+                return result;
+            } finally {
+                record(request.getMethod(), URI.create(request.getURI()).getPath(), System.nanoTime() - start);
+            }
+        };
+    }
+
+    private static void record(String method, String path, long nanos) {
+        String operation = method + " " + ID_SEGMENT.matcher(path == null || path.isEmpty() ? "/" : path).replaceAll("/{id}");
+        latencies.computeIfAbsent(operation, k -> new LatencyHistogram()).record(nanos);
+        Telemetry.recordNanos(Telemetry.Layer.API, nanos);
+    }
+
+    /**
+     * The route the pooled clients will pick for {@code uri}. Asking their own route planner keeps the per-route limit on
+     * the exact key the pool uses; a hand-built route gets details such as the https 'secure' flag wrong.
+     */
+    @SuppressWarnings("deprecation") // RestAssured requires an AbstractHttpClient; see the class doc.
+    private static HttpRoute routeOf(URI uri) {
+        HttpHost target = new HttpHost(uri.getHost(), uri.getPort(), uri.getScheme());
+        try {
+            return new DefaultHttpRoutePlanner(CONNECTIONS.getSchemeRegistry())
+                    .determineRoute(target, new BasicHttpRequest("GET", "/"), new BasicHttpContext());
+        } catch (HttpException | IllegalStateException e) {
+            throw new IllegalArgumentException("No HTTP route for '" + uri + "': " + e.getMessage(), e);
+        }
+    }
+
+    @SuppressWarnings("deprecation") // RestAssured requires an AbstractHttpClient; see the class doc.
+    private static DefaultHttpClient newThreadClient() {
+        DefaultHttpClient client = new DefaultHttpClient(CONNECTIONS);
+        HttpConnectionParams.setConnectionTimeout(client.getParams(), (int) Config.get(CONNECT_TIMEOUT).toMillis());
+        HttpConnectionParams.setSoTimeout(client.getParams(), (int) Config.get(READ_TIMEOUT).toMillis());
+        long keepAlive = Config.get(KEEP_ALIVE).toMillis();
+        // Honour the server's Keep-Alive hint but never hold an idle socket longer than api.keepalive.ms;
+        // load balancers silently drop idle connections and the next request would fail on a dead socket.
+        client.setKeepAliveStrategy((response, context) -> {
+            HeaderElementIterator it = new BasicHeaderElementIterator(
+                    response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+            while (it.hasNext()) {
+                HeaderElement element = it.nextElement();
+                if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+                    try {
+                        return Math.min(keepAlive, Long.parseLong(element.getValue()) * 1000);
+                    } catch (NumberFormatException ignored) {
+                        // Malformed hint: fall through to our own limit.
+                    }
+                }
+            }
+            return keepAlive;
+        });
+        return client;
+    }
+
+    @SuppressWarnings("deprecation") // RestAssured requires an AbstractHttpClient; see the class doc.
+    private static PoolingClientConnectionManager newConnectionManager() {
+        PoolingClientConnectionManager manager = new PoolingClientConnectionManager(SchemeRegistryFactory.createDefault()) {
+            @Override
+            protected ClientConnectionOperator createConnectionOperator(SchemeRegistry schemes) {
+                return new DefaultClientConnectionOperator(schemes) {
+                    @Override
+                    public void openConnection(OperatedClientConnection conn, HttpHost target,
+                                               InetAddress local, HttpContext context,
+                                               HttpParams params) throws IOException {
+                        connectionsOpened.incrementAndGet();
+                        super.openConnection(conn, target, local, context, params);
+                    }
+                };
+            }
+
+            @Override
+            public void shutdown() {
+                // Clients share this pool; none of them may take it down. The JVM exit hook below does.
+                log.debug("Ignoring shutdown of the shared API connection pool");
+            }
+        };
+        manager.setMaxTotal(Config.get(MAX_TOTAL));
+        manager.setDefaultMaxPerRoute(Config.get(DEFAULT_PER_ROUTE));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> manager.closeIdleConnections(0, TimeUnit.MILLISECONDS), "api-pool-close"));
+        return manager;
+    }
+
+    /**
+     * Point-in-time view of the shared pool and call latencies.
+     */
+    public static final class Metrics {
+        private final PoolStats pool;
+        private final long connectionsOpened;
+        private final Map<String, LatencyHistogram> latencies;
+
+        Metrics(PoolStats pool, long connectionsOpened, Map<String, LatencyHistogram> latencies) {
+            this.pool = pool;
+            this.connectionsOpened = connectionsOpened;
+            this.latencies = latencies;
+        }
+
+        public int getLeased() {
+            return pool.getLeased();
+        }
+
+        public int getAvailable() {
+            return pool.getAvailable();
+        }
+
+        /**
+         * Requests waiting for a connection right now. Persistently above zero means the route limit is too low.
+         */
+        public int getPending() {
+            return pool.getPending();
+        }
+
+        public int getMaxTotal() {
+            return pool.getMax();
+        }
+
+        /**
+         * TCP (and TLS) connections ever opened by RestAssured calls. Far fewer than calls means keep-alive works.
+         */
+        public long getConnectionsOpened() {
+            return connectionsOpened;
+        }
+
+        public long getCalls() {
+            return latencies.values().stream().mapToLong(LatencyHistogram::count).sum();
+        }
+
+        /**
+         * Latency per "METHOD /path/{id}", RestAssured and {@link ApiClient#send} calls alike.
+         */
+        public Map<String, LatencyHistogram> getLatencies() {
+            return latencies;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(String.format("%d calls over %d connections opened (pool: %d leased, %d idle, %d waiting, max %d)",
+                    getCalls(), connectionsOpened, getLeased(), getAvailable(), getPending(), getMaxTotal()));
+            latencies.forEach((operation, histogram) -> text.append("\n  ").append(operation).append(": ").append(histogram.summary()));
+            return text.toString();
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package core;
+
+import io.cucumber.java.Scenario;
+import io.qameta.allure.Allure;
+import io.qameta.allure.util.PropertiesUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.logging.LogEntry;
+import org.openqa.selenium.logging.LogType;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Failure evidence without stalling the scenario thread.
+ *
+ * The scenario thread talks to the browser (screenshot, page source, console log), encodes the evidence and attaches
+ * the bytes to Cucumber, so the HTML report embeds them as before. It also registers the Allure attachments, which
+ * must happen there so they land on the right test. Hashing and file I/O run on a small bounded pool. When the queue
+ * is full the scenario thread does the writing itself, which keeps memory bounded under a burst of failures.
+ * Identical artifacts (the same error page failing twenty scenarios) are stored once and hard-linked after that.
+ */
+public final class ArtifactPipeline {
+
+    private static final Logger log = LogManager.getLogger(ArtifactPipeline.class);
+
+    private static final Config.Key<Integer> THREADS = Config.intKey("artifacts.threads", 2);
+    private static final Config.Key<Integer> QUEUE_SIZE = Config.intKey("artifacts.queue.size", 16);
+    private static final Config.Key<Boolean> PAGE_SOURCE = Config.booleanKey("artifacts.page.source", true);
+    private static final Config.Key<Boolean> CONSOLE_LOGS = Config.booleanKey("artifacts.console.logs", true);
+    private static final Config.Key<String> SCREENSHOT_FORMAT = Config.stringKey("artifacts.screenshot.format", "png");
+    private static final Config.Key<Double> JPEG_QUALITY = Config.doubleKey("artifacts.jpeg.quality", 0.8);
+    private static final Config.Key<Duration> FLUSH_TIMEOUT = Config.durationKey("artifacts.flush.timeout.seconds", ChronoUnit.SECONDS, Duration.ofSeconds(60));
+
+    private static final ArtifactPipeline SHARED = new ArtifactPipeline(resultsDirectory(), Config.get(THREADS), Config.get(QUEUE_SIZE));
+
+    static {
+        // Workers are daemons; anything still queued when the JVM exits would otherwise be dropped silently.
+        Runtime.getRuntime().addShutdownHook(new Thread(SHARED::flush, "artifact-flush"));
+    }
+
+    private final Path directory;
+    private final ThreadPoolExecutor executor;
+    // Artifacts queued but not yet written. A plain count rather than a phaser: flush() may run several times
+    // (@AfterAll, then the shutdown hook) and must never count itself as finished work.
+    private final Object drained = new Object();
+    private int pending;
+    private final Map<String, Path> stored = new ConcurrentHashMap<>();
+    private final AtomicInteger artifacts = new AtomicInteger();
+    private final AtomicInteger deduplicated = new AtomicInteger();
+    private final AtomicInteger ranInline = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicLong bytesWritten = new AtomicLong();
+
+    ArtifactPipeline(Path directory, int threads, int queueSize) {
+        this.directory = directory;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)), VirtualThreads.platformThreads("artifact-writer"),
+                (task, pool) -> {
+                    // Backpressure: a full queue means the writers are behind, so the caller pays instead of piling up.
+                    ranInline.incrementAndGet();
+                    task.run();
+                });
+    }
+
+    public static ArtifactPipeline shared() {
+        return SHARED;
+    }
+
+    /**
+     * Grabs the failure evidence from {@code driver}, embeds it in the Cucumber report and queues the Allure files,
+     * which appear in the Allure results directory once written.
+     */
+    public void captureFailure(WebDriver driver, Scenario scenario) {
+        String screenshot = null;
+        String pageSource = null;
+        List<LogEntry> console = null;
+        try {
+            screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BASE64);
+        } catch (WebDriverException e) {
+            log.warn("Screenshot failed for '{}': {}", scenario.getName(), e.getMessage());
+        }
+        if (Config.get(PAGE_SOURCE)) {
+            try {
+                pageSource = driver.getPageSource();
+            } catch (WebDriverException e) {
+                log.warn("Page source unavailable for '{}': {}", scenario.getName(), e.getMessage());
+            }
+        }
+        if (Config.get(CONSOLE_LOGS)) {
+            try {
+                console = driver.manage().logs().get(LogType.BROWSER).getAll();
+            } catch (WebDriverException | UnsupportedOperationException e) {
+                // Only drivers started with logging prefs (see DriverFactory) expose the browser log.
+                log.debug("Browser console log unavailable: {}", e.getMessage());
+            }
+        }
+
+        if (screenshot != null) {
+            byte[] png = Base64.getDecoder().decode(screenshot);
+            if ("jpg".equalsIgnoreCase(Config.get(SCREENSHOT_FORMAT))) {
+                try {
+                    submit(scenario, "Terminal State on Failure", "image/jpeg", ".jpg", toJpeg(png, Config.get(JPEG_QUALITY)));
+                } catch (IOException e) {
+                    log.warn("JPEG compression failed for '{}', keeping the PNG: {}", scenario.getName(), e.getMessage());
+                    submit(scenario, "Terminal State on Failure", "image/png", ".png", png);
+                }
+            } else {
+                submit(scenario, "Terminal State on Failure", "image/png", ".png", png);
+            }
+        }
+        if (pageSource != null) {
+            submit(scenario, "Page Source", "text/html", ".html", pageSource.getBytes(StandardCharsets.UTF_8));
+        }
+        if (console != null && !console.isEmpty()) {
+            submit(scenario, "Browser Console", "text/plain", ".log", format(console));
+        }
+    }
+
+    /**
+     * Waits until every queued artifact is on disk (bounded by artifacts.flush.timeout.seconds) and logs a summary.
+     * The pipeline stays usable afterwards.
+     */
+    public void flush() {
+        flush(Config.get(FLUSH_TIMEOUT));
+    }
+
+    /**
+     * @return false if artifacts were still being written when {@code timeout} ran out
+     */
+    boolean flush(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        boolean complete = true;
+        synchronized (drained) {
+            try {
+                while (pending > 0) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        System.err.println("ARTIFACTS WARNING: " + pending + " artifacts still being written after "
+                                + timeout.getSeconds() + "s; they may be missing from the report.");
+                        complete = false;
+                        break;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(drained, remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                complete = false;
+            }
+        }
+        if (artifacts.get() > 0) {
+            System.out.println("ARTIFACTS: " + artifacts.get() + " written to " + directory + " (" + bytesWritten.get() / 1024
+                    + " KiB, " + deduplicated.get() + " deduplicated, " + ranInline.get() + " on the caller under backpressure, "
+                    + failed.get() + " failed)");
+        }
+        return complete;
+    }
+
+    int ranInline() {
+        return ranInline.get();
+    }
+
+    int deduplicated() {
+        return deduplicated.get();
+    }
+
+    private void submit(Scenario scenario, String name, String type, String extension, byte[] content) {
+        // Cucumber embeds the bytes in its own report; a link to a file that may not be written yet would not render.
+        scenario.attach(content, type, name);
+        // Registering the attachment is cheap and must happen here: Allure resolves the current test per thread.
+        String source = Allure.getLifecycle().prepareAttachment(name, type, extension);
+        store(name, directory.resolve(source), () -> content);
+    }
+
+    /**
+     * Writes what {@code content} returns to {@code target} on the pool, or on the caller while the queue is full.
+     */
+    void store(String name, Path target, Callable<byte[]> content) {
+        synchronized (drained) {
+            pending++;
+        }
+        executor.execute(() -> {
+            try {
+                write(content.call(), target);
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                log.warn("Could not write artifact '{}' to {}", name, target, e);
+            } finally {
+                synchronized (drained) {
+                    if (--pending == 0) {
+                        drained.notifyAll();
+                    }
+                }
+            }
+        });
+    }
+
+    private void write(byte[] content, Path target) throws IOException {
+        artifacts.incrementAndGet();
+        Files.createDirectories(directory);
+        Path original = stored.putIfAbsent(sha256(content), target);
+        if (original != null) {
+            try {
+                Files.createLink(target, original);
+                deduplicated.incrementAndGet();
+                return;
+            } catch (IOException | UnsupportedOperationException e) {
+                // Different file system, or the original isn't on disk yet: fall back to a plain copy.
+            }
+        }
+        Files.write(target, content);
+        bytesWritten.addAndGet(content.length);
+    }
+
+    private static byte[] toJpeg(byte[] png, double quality) throws IOException {
+        BufferedImage source = ImageIO.read(new ByteArrayInputStream(png));
+        // JPEG has no alpha channel; drawing onto an RGB canvas avoids ImageIO's tinted output.
+        BufferedImage rgb = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_RGB);
+        rgb.createGraphics().drawImage(source, 0, 0, null);
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(png.length / 4);
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality((float) quality);
+            writer.write(null, new IIOImage(rgb, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] format(List<LogEntry> entries) {
+        StringBuilder text = new StringBuilder();
+        for (LogEntry entry : entries) {
+            text.append(Instant.ofEpochMilli(entry.getTimestamp())).append(' ')
+                    .append(entry.getLevel()).append(' ')
+                    .append(entry.getMessage()).append('\n');
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required by every JRE", e);
+        }
+    }
+
+    // Same lookup Allure uses, so the files land next to the result JSON that references them.
+    private static Path resultsDirectory() {
+        return Paths.get(PropertiesUtils.loadAllureProperties().getProperty("allure.results.directory", "allure-results"));
+    }
+}
@@ -0,0 +1,89 @@
+package core;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Write pool behaviour of the artifact pipeline on plain byte arrays; capture from a browser is covered by the @ui scenarios.
+ */
+public class ArtifactPipelineTests {
+
+    @Test
+    public void testFullQueueRunsTheWriteOnTheCaller() throws Exception {
+        Path directory = Files.createTempDirectory("artifacts");
+        ArtifactPipeline pipeline = new ArtifactPipeline(directory, 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Thread> writer = new AtomicReference<>();
+
+        pipeline.store("busy", directory.resolve("busy.txt"), () -> {
+            release.await();
+            return bytes("busy");
+        });
+        pipeline.store("queued", directory.resolve("queued.txt"), () -> bytes("queued"));
+        // One worker busy, one slot taken: the third write has nowhere to wait.
+        pipeline.store("overflow", directory.resolve("overflow.txt"), () -> {
+            writer.set(Thread.currentThread());
+            return bytes("overflow");
+        });
+
+        Assert.assertSame(writer.get(), Thread.currentThread(), "The overflowing write should run on the caller.");
+        Assert.assertEquals(pipeline.ranInline(), 1);
+        Assert.assertTrue(Files.exists(directory.resolve("overflow.txt")));
+
+        release.countDown();
+        Assert.assertTrue(pipeline.flush(Duration.ofSeconds(5)));
+        Assert.assertEquals(Files.readAllBytes(directory.resolve("queued.txt")), bytes("queued"));
+    }
+
+    @Test
+    public void testIdenticalArtifactsAreHardLinked() throws Exception {
+        Path directory = Files.createTempDirectory("artifacts");
+        ArtifactPipeline pipeline = new ArtifactPipeline(directory, 1, 4);
+        Path first = directory.resolve("first.html");
+        Path second = directory.resolve("second.html");
+        Path other = directory.resolve("other.html");
+
+        pipeline.store("first", first, () -> bytes("<html>error page</html>"));
+        pipeline.store("second", second, () -> bytes("<html>error page</html>"));
+        pipeline.store("other", other, () -> bytes("<html>another page</html>"));
+        Assert.assertTrue(pipeline.flush(Duration.ofSeconds(5)));
+
+        Assert.assertTrue(Files.isSameFile(first, second), "Same content should share one file.");
+        Assert.assertFalse(Files.isSameFile(first, other));
+        Assert.assertEquals(pipeline.deduplicated(), 1);
+        Assert.assertEquals(Files.readAllBytes(second), bytes("<html>error page</html>"));
+    }
+
+    @Test
+    public void testFlushGivesUpAfterTheTimeout() throws Exception {
+        Path directory = Files.createTempDirectory("artifacts");
+        ArtifactPipeline pipeline = new ArtifactPipeline(directory, 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        pipeline.store("stuck", directory.resolve("stuck.txt"), () -> {
+            release.await();
+            return bytes("stuck");
+        });
+
+        long start = System.nanoTime();
+        Assert.assertFalse(pipeline.flush(Duration.ofMillis(200)), "Flush should report the write still in flight.");
+        long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Assert.assertTrue(waitedMs >= 200 && waitedMs < 2_000, "Flush waited " + waitedMs + " ms");
+
+        // The pipeline stays usable: a later flush still sees the write through.
+        release.countDown();
+        Assert.assertTrue(pipeline.flush(Duration.ofSeconds(5)));
+        Assert.assertTrue(Files.exists(directory.resolve("stuck.txt")));
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
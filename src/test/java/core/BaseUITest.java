@@ -1,15 +1,11 @@
 package core;
 
-import io.github.bonigarcia.wdm.WebDriverManager;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.chrome.ChromeDriver;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 
-import java.time.Duration;
-
 /**
  * Core orchestration layer for UI automation.
  * Manages WebDriver lifecycle with thread-safe execution to support high-concurrency testing.
@@ -17,62 +13,33 @@ import java.time.Duration;
 public class BaseUITest {
 
     protected static final Logger log = LogManager.getLogger(BaseUITest.class);
-    
-    /**
-     * Ensures isolation between parallel test threads. 
-     * This prevents cross-contamination of browser sessions during massive regression runs.
-     */
-    private final ThreadLocal<WebDriver> driverThreadLocal = new ThreadLocal<>();
 
     /**
      * Pre-test synchronization and environment preparation.
-     * Automatically handles binary management and driver injection with enforced synchronization policies.
+     * Borrows a warm session from the shared pool instead of paying browser startup on every test.
+     * Isolation between parallel threads is handled by the factory's per-thread lease.
      */
     @BeforeMethod(alwaysRun = true)
     protected void setupBrowser() {
         log.info("Initializing automated test session.");
-        
-        WebDriverManager.chromedriver().setup();
-        WebDriver driver = new ChromeDriver();
-
-        /**
-         * Fetching dynamic timeout from global configuration.
-         * Using a 'Fail-Safe' approach: the framework ensures stability by applying a 10s default 
-         * even if external configuration is corrupted or missing.
-         */
-        String timeoutValue = ConfigManager.getProperty("ui.timeout.seconds");
-        int timeout = 10; 
-
-        try {
-            if (timeoutValue != null && !timeoutValue.trim().isEmpty()) {
-                timeout = Integer.parseInt(timeoutValue.trim());
-            } else {
-                log.warn("Performance constraint 'ui.timeout.seconds' missing. Using conservative 10s default.");
-            }
-        } catch (NumberFormatException e) {
-            log.error("Corrupted configuration for timeout '{}'. Reverting to safe default.", timeoutValue);
-        }
 
-        // Applying global implicit wait for standard element synchronization
-        driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(timeout));
-        driver.manage().window().maximize();
+        // No implicit wait is applied: page objects synchronise through SmartWait (explicit.wait), and sessions
+        // come out of DriverFactory with the implicit wait at zero.
+        DriverFactory.setupDriver(Config.get("browser", "chrome"));
 
-        driverThreadLocal.set(driver);
         log.info("Test environment ready for thread ID: {}", Thread.currentThread().getId());
     }
 
     /**
-     * Graceful resource decommissioning.
-     * Guarantees all browser processes are terminated and memory is released, 
-     * preventing resource leaks on CI/CD agents.
+     * Graceful resource hand-back.
+     * The session is scrubbed and returned to the pool; the pool quits it once it exceeds
+     * its use/age budget, so CI agents still don't accumulate browser processes.
      */
     @AfterMethod(alwaysRun = true)
     protected void tearDownBrowser() {
-        WebDriver driver = driverThreadLocal.get();
-        if (driver != null) {
-            log.info("Cleaning up session and releasing browser resources.");
-            driver.quit();
-            driverThreadLocal.remove();
+        if (DriverFactory.getDriver() != null) {
+            log.info("Releasing browser session back to the pool.");
+            DriverFactory.releaseDriver();
         }
     }
 
@@ -81,6 +48,6 @@ public class BaseUITest {
      * @return Thread-specific WebDriver instance.
      */
     public WebDriver getDriver() {
-        return driverThreadLocal.get();
+        return DriverFactory.getDriver();
     }
 }
@@ -0,0 +1,316 @@
+package core;
+
+import builders.BookingDataBuilder;
+import builders.BookingJson;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Asynchronous API-to-DB orchestration for one scenario.
+ *
+ * {@link #create} fires the POST and returns at once, so a scenario can issue a whole batch (or go on with UI steps)
+ * while the calls are in flight. Responses are queued as they arrive, and the thread that awaits them writes each
+ * booking to the database while later calls are still running. The writes stay on the scenario thread on purpose:
+ * that is where the @db scenario transaction lives (see Hooks), so they are rolled back with the scenario.
+ * A batch therefore takes roughly as long as its slowest call, not the sum of all calls plus all inserts.
+ * <pre>
+ * BookingOrchestrator orchestrator = new BookingOrchestrator(ApiClient.shared(), new DBManager());
+ * bookings.forEach(orchestrator::create);
+ * orchestrator.awaitVerified(Duration.ofSeconds(30));   // persisted, then checked via DB and API concurrently
+ * </pre>
+ */
+public final class BookingOrchestrator {
+
+    private static final Config.Key<Integer> MAX_IN_FLIGHT = Config.intKey("orchestration.max.in.flight", 16);
+    private static final Config.Key<Duration> DEADLINE = Config.durationKey("orchestration.deadline.seconds", ChronoUnit.SECONDS, Duration.ofSeconds(30));
+
+    private static final String INSERT = "INSERT INTO bookings (booking_id, firstname, lastname, totalprice) VALUES (?, ?, ?, ?)";
+
+    private final ApiClient api;
+    private final DBManager db;
+    private final Semaphore inFlight;
+    // Every response or failure comes through here, so the awaiting thread wakes up for both.
+    private final BlockingQueue<Arrival> arrivals = new LinkedBlockingQueue<>();
+    private final List<CompletableFuture<Booking>> issued = new ArrayList<>();
+    private long startNanos;
+    private long slowestCallNanos;
+
+    public BookingOrchestrator(ApiClient api, DBManager db) {
+        this.api = api;
+        this.db = db;
+        this.inFlight = new Semaphore(Math.max(1, Config.get(MAX_IN_FLIGHT)));
+    }
+
+    /**
+     * Default deadline for the await methods (orchestration.deadline.seconds).
+     */
+    public static Duration defaultDeadline() {
+        return Config.get(DEADLINE);
+    }
+
+    /**
+     * Sends POST /booking without waiting. The future completes once the booking is in the database, which happens
+     * during {@link #awaitPersisted}. Blocks only while orchestration.max.in.flight calls are already running.
+     */
+    public CompletableFuture<Booking> create(BookingDataBuilder builder) {
+        Map<String, Object> fields = builder.build();
+        HttpRequest request = api.newRequest("/booking")
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(builder.toJson()))
+                .build();
+        CompletableFuture<Booking> persisted = new CompletableFuture<>();
+        if (issued.isEmpty()) {
+            startNanos = System.nanoTime();
+        }
+
+        inFlight.acquireUninterruptibly();
+        long sent = System.nanoTime();
+        CompletableFuture<HttpResponse<String>> call;
+        try {
+            call = api.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        } catch (RuntimeException e) {
+            // Nothing was sent, so no callback will hand the permit back.
+            inFlight.release();
+            throw e;
+        }
+        issued.add(persisted);
+        call.whenComplete((response, error) -> {
+            inFlight.release();
+            long took = System.nanoTime() - sent;
+            if (error != null) {
+                arrivals.add(new Arrival(persisted, null, took, error));
+            } else if (response.statusCode() != 200) {
+                arrivals.add(new Arrival(persisted, null, took, new IllegalStateException(
+                        "POST /booking returned " + response.statusCode() + ": " + response.body())));
+            } else {
+                try {
+                    Booking booking = new Booking(BookingJson.parseBookingId(response.body()), (String) fields.get("firstname"),
+                            (String) fields.get("lastname"), ((Number) fields.get("totalprice")).intValue());
+                    arrivals.add(new Arrival(persisted, booking, took, null));
+                } catch (IllegalArgumentException e) {
+                    arrivals.add(new Arrival(persisted, null, took, e));
+                }
+            }
+        });
+        return persisted;
+    }
+
+    /**
+     * Waits for every booking created so far, writing each to the database as its response lands.
+     *
+     * @return the bookings in creation order
+     * @throws RuntimeException if a call failed or the deadline passed first
+     */
+    public List<Booking> awaitPersisted(Duration deadline) {
+        long end = System.nanoTime() + deadline.toNanos();
+        List<Arrival> batch = new ArrayList<>();
+        while (!allDone()) {
+            long remaining = end - System.nanoTime();
+            Arrival first;
+            try {
+                first = remaining > 0 ? arrivals.poll(remaining, TimeUnit.NANOSECONDS) : arrivals.poll();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("ORCHESTRATION INTERRUPTED while awaiting bookings.", e);
+            }
+            if (first == null) {
+                throw new RuntimeException("ORCHESTRATION TIMEOUT: " + pendingCount() + " of " + issued.size()
+                        + " bookings not persisted within " + deadline.toMillis() + " ms.");
+            }
+            batch.clear();
+            batch.add(first);
+            arrivals.drainTo(batch);
+            persist(batch);
+        }
+        return collect();
+    }
+
+    /**
+     * {@link #awaitPersisted}, then checks every booking in the database (one query) and through GET /booking/{id}
+     * (all calls concurrently) within what is left of the same deadline.
+     */
+    public List<Booking> awaitVerified(Duration deadline) {
+        long end = System.nanoTime() + deadline.toNanos();
+        List<Booking> bookings = awaitPersisted(deadline);
+        if (bookings.isEmpty()) {
+            return bookings;
+        }
+
+        List<CompletableFuture<HttpResponse<String>>> reads = new ArrayList<>();
+        for (Booking booking : bookings) {
+            reads.add(api.sendAsync(api.newRequest("/booking/" + booking.getId()).header("Accept", "application/json").GET().build(),
+                    HttpResponse.BodyHandlers.ofString()));
+        }
+
+        // The DB check runs here, on the scenario thread, while the API reads are in flight.
+        List<String> problems = new ArrayList<>();
+        String placeholders = String.join(", ", Collections.nCopies(bookings.size(), "?"));
+        Map<Integer, Map<String, Object>> rows = new HashMap<>();
+        for (Map<String, Object> row : db.query("SELECT booking_id, firstname, totalprice FROM bookings WHERE booking_id IN ("
+                + placeholders + ")", bookings.stream().map(Booking::getId).toArray())) {
+            rows.put(((Number) row.get("booking_id")).intValue(), row);
+        }
+        for (Booking booking : bookings) {
+            Map<String, Object> row = rows.get(booking.getId());
+            if (row == null) {
+                problems.add("DB is missing booking " + booking.getId());
+            } else if (!booking.getFirstname().equals(row.get("firstname"))
+                    || booking.getTotalprice() != ((Number) row.get("totalprice")).intValue()) {
+                problems.add("DB row " + row + " does not match " + booking);
+            }
+        }
+
+        try {
+            CompletableFuture.allOf(reads.toArray(new CompletableFuture<?>[0]))
+                    .get(Math.max(0, end - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Abandoned reads would otherwise keep their connections busy for the next scenario.
+            reads.forEach(read -> read.cancel(true));
+            throw new RuntimeException("ORCHESTRATION TIMEOUT: API verification did not finish within " + deadline.toMillis() + " ms.", e);
+        } catch (ExecutionException e) {
+            reads.forEach(read -> read.cancel(true));
+            throw new RuntimeException("ORCHESTRATION FAILURE: API verification call failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            reads.forEach(read -> read.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("ORCHESTRATION INTERRUPTED during API verification.", e);
+        }
+        for (int i = 0; i < bookings.size(); i++) {
+            Booking booking = bookings.get(i);
+            HttpResponse<String> response = reads.get(i).join();
+            if (response.statusCode() != 200) {
+                problems.add("GET /booking/" + booking.getId() + " returned " + response.statusCode());
+                continue;
+            }
+            try {
+                if (!booking.getFirstname().equals(BookingJson.parseString(response.body(), "firstname"))
+                        || booking.getTotalprice() != BookingJson.parseInt(response.body(), "totalprice")) {
+                    problems.add("API returned " + response.body() + " for " + booking);
+                }
+            } catch (IllegalArgumentException e) {
+                problems.add("API returned " + response.body() + " for " + booking + ": " + e.getMessage());
+            }
+        }
+        if (!problems.isEmpty()) {
+            throw new RuntimeException("ORCHESTRATION FAILURE: " + problems.size() + " of " + bookings.size()
+                    + " bookings failed verification:\n  " + String.join("\n  ", problems));
+        }
+        System.out.printf("E2E ORCHESTRATION: %d bookings created, persisted and verified in %d ms (slowest create %d ms)%n",
+                bookings.size(), (System.nanoTime() - startNanos) / 1_000_000, slowestCallNanos / 1_000_000);
+        return bookings;
+    }
+
+    private void persist(List<Arrival> batch) {
+        for (Arrival arrival : batch) {
+            slowestCallNanos = Math.max(slowestCallNanos, arrival.nanos);
+            if (arrival.error != null) {
+                arrival.future.completeExceptionally(arrival.error);
+                continue;
+            }
+            Booking booking = arrival.booking;
+            // Same statement text every time, so it is planned once per pooled connection.
+            // DBManager.update reports SQL errors (duplicate id, missing table) as 0 rows rather than throwing.
+            int written = db.update(INSERT, booking.getId(), booking.getFirstname(), booking.getLastname(), booking.getTotalprice());
+            if (written == 1) {
+                arrival.future.complete(booking);
+            } else {
+                arrival.future.completeExceptionally(new IllegalStateException("DB insert of booking " + booking.getId()
+                        + " wrote " + written + " rows: " + INSERT));
+            }
+        }
+    }
+
+    private boolean allDone() {
+        return issued.stream().allMatch(CompletableFuture::isDone);
+    }
+
+    private long pendingCount() {
+        return issued.stream().filter(f -> !f.isDone()).count();
+    }
+
+    private List<Booking> collect() {
+        List<Booking> bookings = new ArrayList<>(issued.size());
+        List<String> failures = new ArrayList<>();
+        for (CompletableFuture<Booking> future : issued) {
+            try {
+                bookings.add(future.join());
+            } catch (RuntimeException e) {
+                failures.add(Objects.toString(e.getCause() != null ? e.getCause().getMessage() : e.getMessage()));
+            }
+        }
+        if (!failures.isEmpty()) {
+            throw new RuntimeException("ORCHESTRATION FAILURE: " + failures.size() + " of " + issued.size()
+                    + " bookings were not created:\n  " + String.join("\n  ", failures));
+        }
+        return bookings;
+    }
+
+    private static final class Arrival {
+        final CompletableFuture<Booking> future;
+        final Booking booking;
+        final long nanos;
+        final Throwable error;
+
+        Arrival(CompletableFuture<Booking> future, Booking booking, long nanos, Throwable error) {
+            this.future = future;
+            this.booking = booking;
+            this.nanos = nanos;
+            this.error = error;
+        }
+    }
+
+    /**
+     * A booking the API accepted, as sent.
+     */
+    public static final class Booking {
+        private final int id;
+        private final String firstname;
+        private final String lastname;
+        private final int totalprice;
+
+        Booking(int id, String firstname, String lastname, int totalprice) {
+            this.id = id;
+            this.firstname = firstname;
+            this.lastname = lastname;
+            this.totalprice = totalprice;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getFirstname() {
+            return firstname;
+        }
+
+        public String getLastname() {
+            return lastname;
+        }
+
+        public int getTotalprice() {
+            return totalprice;
+        }
+
+        @Override
+        public String toString() {
+            return "booking " + id + " (" + firstname + " " + lastname + ", " + totalprice + ")";
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package core;
+
+import org.openqa.selenium.WebDriver;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Capacity handling of the session pool against fake drivers; real browser reuse is covered by the @ui scenarios.
+ */
+public class DriverPoolTests {
+
+    @Test
+    public void testWaiterNoticesASlotFreedByDiscard() throws Exception {
+        DriverPool pool = new DriverPool("fake", DriverPoolTests::fakeDriver, 1, 25, Duration.ofMinutes(30), Duration.ofSeconds(30));
+        DriverPool.PooledSession first = pool.lease();
+
+        CompletableFuture<DriverPool.PooledSession> waiter = CompletableFuture.supplyAsync(pool::lease);
+        Thread.sleep(200);
+        Assert.assertFalse(waiter.isDone(), "Pool is at capacity; the second lease has to wait.");
+
+        // A discard frees the slot without putting a session back on the idle queue.
+        long freed = System.nanoTime();
+        pool.discard(first);
+        DriverPool.PooledSession second = waiter.get(5, TimeUnit.SECONDS);
+        long tookMs = (System.nanoTime() - freed) / 1_000_000;
+
+        Assert.assertNotSame(second, first);
+        Assert.assertTrue(tookMs < 1_000, "Waiter took " + tookMs + " ms to notice the free slot");
+        pool.close();
+    }
+
+    private static WebDriver fakeDriver() {
+        return (WebDriver) Proxy.newProxyInstance(DriverPoolTests.class.getClassLoader(), new Class<?>[]{WebDriver.class},
+                (proxy, method, args) -> null);
+    }
+}
@@ -0,0 +1,163 @@
+package core;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Interception decisions against a recorded CDP connection: what gets blocked, when the asset store fills and
+ * answers, and what the savings add up to. Fetch itself needs a real Chromium (headless @ui runs).
+ */
+public class NetworkFilterTests {
+
+    private final List<String> sent = new ArrayList<>();
+    private final List<Map<String, Object>> params = new ArrayList<>();
+    private NetworkFilter filter;
+
+    @BeforeMethod
+    public void newFilter() throws Exception {
+        sent.clear();
+        params.clear();
+        filter = new NetworkFilter((method, p) -> {
+            sent.add(method);
+            params.add(p);
+            if (method.equals("Fetch.getResponseBody")) {
+                return Map.of("body", Base64.getEncoder().encodeToString("body{}".getBytes()), "base64Encoded", true);
+            }
+            return Map.of();
+        }, Set.of("Image", "Font"), List.of("*://*google-analytics.com/*"), Set.of("Stylesheet", "Font"),
+                new AssetStore(Files.createTempDirectory("assets")));
+    }
+
+    @Test
+    public void testOnlyConfiguredRequestsArePaused() {
+        List<Map<String, Object>> patterns = filter.patterns();
+
+        // Two block types, one URL, and Stylesheet at both stages; Font is blocked, so it is not also cached.
+        Assert.assertEquals(patterns.size(), 5, patterns.toString());
+        Assert.assertTrue(patterns.contains(Map.of("urlPattern", "*", "resourceType", "Stylesheet", "requestStage", "Response")));
+        Assert.assertFalse(patterns.contains(Map.of("urlPattern", "*", "resourceType", "Font", "requestStage", "Response")));
+    }
+
+    @Test
+    public void testBlockedTypesAndUrlsAreFailedAndCounted() {
+        filter.onRequestPaused(paused("1", "https://the-internet.herokuapp.com/img/logo.png", "Image", null));
+        filter.onRequestPaused(paused("2", "https://www.google-analytics.com/analytics.js", "Script", null));
+        filter.onRequestPaused(paused("3", "https://the-internet.herokuapp.com/js/app.js", "Script", null));
+
+        Assert.assertEquals(sent, List.of("Fetch.failRequest", "Fetch.failRequest", "Fetch.continueRequest"));
+        Assert.assertEquals(params.get(0).get("errorReason"), "BlockedByClient");
+        Assert.assertEquals(filter.savings().getBlockedRequests(), 2);
+    }
+
+    @Test
+    public void testStaticAssetIsStoredOnceAndReplayed() {
+        String css = "https://the-internet.herokuapp.com/css/app.css";
+        NetworkFilter.Savings before = filter.savings();
+
+        filter.onRequestPaused(paused("1", css, "Stylesheet", null));
+        filter.onRequestPaused(paused("1", css, "Stylesheet", 200));
+        filter.onRequestPaused(paused("2", css, "Stylesheet", null));
+
+        Assert.assertEquals(sent, List.of("Fetch.continueRequest", "Fetch.getResponseBody", "Fetch.continueRequest",
+                "Fetch.fulfillRequest"));
+        Map<String, Object> fulfilled = params.get(3);
+        Assert.assertEquals(new String(Base64.getDecoder().decode((String) fulfilled.get("body"))), "body{}");
+        Assert.assertEquals(fulfilled.get("responseHeaders"), List.of(Map.of("name", "Content-Type", "value", "text/css")),
+                "Encoding headers must not be replayed over a decoded body");
+
+        NetworkFilter.Savings scenario = filter.savings().since(before);
+        Assert.assertEquals(scenario.getCachedRequests(), 1);
+        Assert.assertEquals(scenario.getCachedBytes(), 6);
+        Assert.assertTrue(scenario.toString().startsWith("1 requests saved"), scenario.toString());
+    }
+
+    @Test
+    public void testNonSuccessResponsesAreNotStored() {
+        String css = "https://the-internet.herokuapp.com/css/missing.css";
+        filter.onRequestPaused(paused("1", css, "Stylesheet", 404));
+        filter.onRequestPaused(paused("2", css, "Stylesheet", null));
+
+        Assert.assertEquals(sent, List.of("Fetch.continueRequest", "Fetch.continueRequest"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testResponsesTheServerMarksPrivateOrVariantAreNotStored() {
+        String css = "https://the-internet.herokuapp.com/css/user.css";
+        Map<String, Object> response = paused("1", css, "Stylesheet", 200);
+        List<Map<String, Object>> headers = new ArrayList<>((List<Map<String, Object>>) response.get("responseHeaders"));
+        headers.add(Map.of("name", "Cache-Control", "value", "private, max-age=600"));
+        response.put("responseHeaders", headers);
+
+        filter.onRequestPaused(response);
+        filter.onRequestPaused(paused("2", css, "Stylesheet", null));
+
+        Assert.assertEquals(sent, List.of("Fetch.continueRequest", "Fetch.continueRequest"));
+    }
+
+    @Test
+    public void testOnlyReusableHeadersMayBeStored() {
+        Assert.assertTrue(NetworkFilter.mayStore(List.of(Map.of("name", "Cache-Control", "value", "public, max-age=31536000"),
+                Map.of("name", "Vary", "value", "Accept-Encoding"))));
+        Assert.assertFalse(NetworkFilter.mayStore(List.of(Map.of("name", "cache-control", "value", "no-store"))));
+        Assert.assertFalse(NetworkFilter.mayStore(List.of(Map.of("name", "Cache-Control", "value", "max-age=0,no-cache"))));
+        Assert.assertFalse(NetworkFilter.mayStore(List.of(Map.of("name", "Pragma", "value", "no-cache"))));
+        Assert.assertFalse(NetworkFilter.mayStore(List.of(Map.of("name", "Vary", "value", "Accept-Encoding, User-Agent"))));
+    }
+
+    @Test
+    public void testEachRunGetsItsOwnStore() throws Exception {
+        Path root = Files.createTempDirectory("asset-runs");
+        // A pid no live process has: the directory of a finished run.
+        Path finished = Files.createDirectories(root.resolve(String.valueOf(Long.MAX_VALUE)));
+        Files.writeString(finished.resolve("stale.json"), "{}");
+
+        AssetStore store = AssetStore.forRun(root);
+        store.put("https://example.com/app.js", List.of(), new byte[]{1});
+
+        Assert.assertFalse(Files.exists(finished), "A finished run's assets must not be replayed later.");
+        Assert.assertTrue(store.contains("https://example.com/app.js"));
+        Assert.assertTrue(Files.isDirectory(root.resolve(String.valueOf(ProcessHandle.current().pid()))));
+    }
+
+    @Test
+    public void testMalformedEventStillReleasesTheRequest() {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("requestId", "9");
+
+        filter.onRequestPaused(event);
+
+        Assert.assertEquals(sent, List.of("Fetch.continueRequest"));
+    }
+
+    @Test
+    public void testWildcardsFollowCdpSyntax() {
+        Assert.assertTrue(NetworkFilter.wildcard("*://*doubleclick.net/*").matcher("https://ad.doubleclick.net/x?y=1").matches());
+        Assert.assertTrue(NetworkFilter.wildcard("https://cdn?.example.com/*").matcher("https://cdn2.example.com/a.js").matches());
+        Assert.assertFalse(NetworkFilter.wildcard("*://*doubleclick.net/*").matcher("https://example.com/").matches());
+        Assert.assertFalse(NetworkFilter.wildcard("a\\*b").matcher("axxb").matches());
+    }
+
+    private static Map<String, Object> paused(String requestId, String url, String type, Integer status) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("requestId", requestId);
+        event.put("request", Map.of("url", url, "method", "GET"));
+        event.put("resourceType", type);
+        if (status != null) {
+            event.put("responseStatusCode", status);
+            event.put("responseHeaders", List.of(Map.of("name", "Content-Type", "value", "text/css"),
+                    Map.of("name", "Content-Encoding", "value", "gzip")));
+        }
+        return event;
+    }
+}
@@ -0,0 +1,146 @@
+package core;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Driver-side behaviour of the wait engine against a scripted fake driver: round trips, navigation retries,
+ * timeouts and the adaptive budget. The browser-side script itself needs a real browser (ui/ and @ui scenarios).
+ */
+public class SmartWaitTests {
+
+    private final AtomicInteger scriptCalls = new AtomicInteger();
+
+    @AfterMethod(alwaysRun = true)
+    public void restore() {
+        Config.override("explicit.wait", null);
+        SmartWait.forgetHistory();
+        scriptCalls.set(0);
+    }
+
+    @Test
+    public void testElementComesBackFromOneRoundTrip() {
+        WebElement flash = element(true);
+        WebDriver driver = fakeDriver(args -> flash);
+
+        Assert.assertSame(new SmartWait(driver).visible(By.id("flash")), flash);
+        Assert.assertEquals(scriptCalls.get(), 1);
+    }
+
+    @Test
+    public void testNavigationDuringWaitIsRetriedOnTheNewPage() {
+        Deque<Object> answers = new ArrayDeque<>();
+        answers.add(new JavascriptException("javascript error: document unloaded while waiting for result"));
+        answers.add(Boolean.TRUE);
+        WebDriver driver = fakeDriver(args -> answers.poll());
+
+        new SmartWait(driver).urlContains("/secure");
+
+        Assert.assertEquals(scriptCalls.get(), 2);
+    }
+
+    @Test
+    public void testUnmetConditionTimesOutAtTheCeiling() {
+        Config.override("explicit.wait", "1");
+        WebDriver driver = fakeDriver(args -> {
+            // Like the browser: the script holds on to the call until its own timeout, then answers false.
+            sleep(((Number) args[3]).longValue());
+            return Boolean.FALSE;
+        });
+
+        long start = System.nanoTime();
+        try {
+            new SmartWait(driver).clickable(By.cssSelector("#login button[type='submit']"));
+            Assert.fail("Expected a timeout");
+        } catch (TimeoutException e) {
+            Assert.assertTrue(e.getMessage().startsWith("SMART WAIT TIMEOUT: clickable By.cssSelector"), e.getMessage());
+            Assert.assertTrue(e.getMessage().contains("explicit.wait ceiling"), e.getMessage());
+        }
+        long tookMs = (System.nanoTime() - start) / 1_000_000;
+        Assert.assertTrue(tookMs >= 1_000 && tookMs < 3_000, "Timed out after " + tookMs + " ms");
+    }
+
+    @Test
+    public void testLocatorWithoutBrowserEquivalentFallsBackToPolling() {
+        WebElement link = element(true);
+        WebDriver driver = fakeDriver(args -> {
+            throw new AssertionError("link text should not go through the wait script");
+        }, link);
+
+        Assert.assertSame(new SmartWait(driver).visible(By.linkText("Form Authentication")), link);
+    }
+
+    @Test
+    public void testBudgetAdaptsToObservedTimings() {
+        Assert.assertEquals(SmartWait.budget(null), Duration.ofSeconds(10));
+
+        LatencyHistogram fast = samples(25, Duration.ofMillis(80));
+        Assert.assertEquals(SmartWait.budget(fast), Duration.ofSeconds(2), "Fast conditions get the floor");
+
+        LatencyHistogram medium = samples(25, Duration.ofMillis(900));
+        long budgetMs = SmartWait.budget(medium).toMillis();
+        Assert.assertTrue(budgetMs >= 3_600 && budgetMs <= 3_700, "4 x p99 of ~900 ms, got " + budgetMs);
+
+        Assert.assertEquals(SmartWait.budget(samples(25, Duration.ofSeconds(5))), Duration.ofSeconds(10), "Capped at the ceiling");
+        Assert.assertEquals(SmartWait.budget(samples(5, Duration.ofMillis(80))), Duration.ofSeconds(10), "Too few samples to adapt");
+    }
+
+    private static LatencyHistogram samples(int count, Duration each) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < count; i++) {
+            histogram.record(each.toNanos());
+        }
+        return histogram;
+    }
+
+    private WebDriver fakeDriver(Function<Object[], Object> asyncScript) {
+        return fakeDriver(asyncScript, null);
+    }
+
+    private WebDriver fakeDriver(Function<Object[], Object> asyncScript, WebElement found) {
+        return (WebDriver) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{WebDriver.class, JavascriptExecutor.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "executeAsyncScript":
+                            scriptCalls.incrementAndGet();
+                            Object answer = asyncScript.apply((Object[]) args[1]);
+                            if (answer instanceof RuntimeException) {
+                                throw (RuntimeException) answer;
+                            }
+                            return answer;
+                        case "findElement":
+                            return found;
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private static WebElement element(boolean displayed) {
+        return (WebElement) Proxy.newProxyInstance(SmartWaitTests.class.getClassLoader(), new Class<?>[]{WebElement.class},
+                (proxy, method, args) -> method.getName().equals("isDisplayed") ? displayed : null);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
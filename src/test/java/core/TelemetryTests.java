@@ -0,0 +1,80 @@
+package core;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+import org.openqa.selenium.json.Json;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Layer accounting and the export formats. Telemetry is JVM-wide and other classes run in parallel,
+ * so global counts are checked as lower bounds; the per-thread scenario summary is exact.
+ */
+public class TelemetryTests {
+
+    @Test
+    public void testDbCallsAreChargedToTheRunningStep() {
+        DBManager db = new DBManager("jdbc:h2:mem:telemetry_db;DB_CLOSE_DELAY=-1");
+        long before = Telemetry.callCount(Telemetry.Layer.DB);
+
+        Telemetry.beginScenario();
+        Telemetry.beginStep();
+        db.executeUpdate("DELETE FROM bookings");
+        db.update("INSERT INTO bookings (booking_id, firstname) VALUES (?, ?)", 1, "Timed");
+        db.query("SELECT * FROM bookings WHERE booking_id = ?", 1);
+        Telemetry.endStep("the database holds {string}", 5_000_000);
+        Telemetry.endScenario("Telemetry scenario", 6_000_000);
+
+        Assert.assertTrue(Telemetry.callCount(Telemetry.Layer.DB) >= before + 3);
+        Assert.assertTrue(Telemetry.scenarioSummary().contains("db 3 calls"), Telemetry.scenarioSummary());
+        Assert.assertTrue(Telemetry.scenarioSummary().contains("ui 0 calls"), Telemetry.scenarioSummary());
+        Assert.assertTrue(Telemetry.toPrometheus().contains("framework_scenario_seconds_count{scenario=\"Telemetry scenario\"}"));
+    }
+
+    @Test
+    public void testInstrumentedDriverCountsWireCommandsAndKeepsInterfaces() {
+        WebDriver raw = (WebDriver) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{WebDriver.class, JavascriptExecutor.class, HasCdp.class},
+                (proxy, method, args) -> method.getName().equals("getTitle") ? "Stub" : null);
+        WebDriver driver = Telemetry.instrument(raw);
+
+        Assert.assertTrue(driver instanceof JavascriptExecutor, "Decorated driver lost JavascriptExecutor");
+        Assert.assertTrue(driver instanceof HasCdp, "Decorated driver lost HasCdp; DriverPool relies on it");
+
+        Telemetry.beginScenario();
+        driver.get("http://127.0.0.1/login");
+        Assert.assertEquals(driver.getTitle(), "Stub");
+        ((JavascriptExecutor) driver).executeScript("return 1");
+
+        Assert.assertTrue(Telemetry.scenarioSummary().startsWith("ui 3 calls"), Telemetry.scenarioSummary());
+    }
+
+    @Test
+    public void testExportWritesPrometheusAndJson() throws Exception {
+        Telemetry.beginStep();
+        Telemetry.endStep("I say \"hello\"", 2_000_000);
+        Telemetry.recordBrowserStartup(1_500_000_000L);
+
+        Path dir = Files.createTempDirectory("telemetry");
+        List<Path> files = Telemetry.export(dir);
+
+        String prom = Files.readString(files.get(0));
+        Assert.assertTrue(prom.contains("# TYPE framework_call_seconds summary"), prom);
+        Assert.assertTrue(prom.contains("framework_call_seconds_count{layer=\"db\"}"), prom);
+        Assert.assertTrue(prom.contains("framework_step_seconds{step=\"I say \\\"hello\\\"\",quantile=\"0.5\"}"), prom);
+        Assert.assertTrue(prom.contains("framework_step_layer_seconds_total{layer=\"other\"}"), prom);
+        Assert.assertTrue(prom.contains("framework_browser_startup_seconds_count "), prom);
+
+        Map<String, Object> json = new Json().toType(Files.readString(files.get(1)), Json.MAP_TYPE);
+        Assert.assertTrue(((Map<?, ?>) json.get("layers")).containsKey("api"));
+        Assert.assertTrue(((Map<?, ?>) json.get("steps")).containsKey("I say \"hello\""));
+        Assert.assertTrue(((Number) ((Map<?, ?>) json.get("browserStartup")).get("count")).longValue() >= 1);
+    }
+}
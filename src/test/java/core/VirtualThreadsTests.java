@@ -0,0 +1,64 @@
+package core;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The reflective JDK 21 lookup and its platform-thread fallback. Only one side can run per JVM, so each test checks
+ * whichever the running JDK should get; CI on 17 covers the fallback, a JDK 21 run covers the lookup.
+ */
+public class VirtualThreadsTests {
+
+    private static final boolean JDK_21 = Runtime.version().feature() >= 21;
+
+    @Test
+    public void testSupportFollowsTheRuntime() {
+        Assert.assertEquals(VirtualThreads.isSupported(), JDK_21, "Java " + Runtime.version());
+        Assert.assertFalse(VirtualThreads.isVirtual(Thread.currentThread()));
+    }
+
+    @Test
+    public void testPerTaskExecutorUsesVirtualThreadsWhenAvailable() throws Exception {
+        ExecutorService executor = VirtualThreads.newPerTaskExecutor("probe", 3);
+        try {
+            Thread thread = executor.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+            if (JDK_21) {
+                Assert.assertTrue(VirtualThreads.isVirtual(thread));
+                Assert.assertEquals(thread.getName(), "probe-0");
+            } else {
+                // Fallback: a fixed pool sized like the requested concurrency, on daemon platform threads.
+                Assert.assertFalse(VirtualThreads.isVirtual(thread));
+                Assert.assertEquals(thread.getName(), "probe-1");
+                Assert.assertTrue(thread.isDaemon());
+                Assert.assertEquals(((ThreadPoolExecutor) executor).getMaximumPoolSize(), 3);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFallbackPoolHasAtLeastOneThread() throws Exception {
+        ExecutorService executor = VirtualThreads.newPerTaskExecutor("empty", 0);
+        try {
+            Assert.assertNotNull(executor.submit(Thread::currentThread).get(5, TimeUnit.SECONDS));
+            if (!JDK_21) {
+                Assert.assertEquals(((ThreadPoolExecutor) executor).getMaximumPoolSize(), 1);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testPlatformThreadsAreNamedDaemons() {
+        Thread first = VirtualThreads.platformThreads("lane").newThread(() -> { });
+        Assert.assertEquals(first.getName(), "lane-1");
+        Assert.assertTrue(first.isDaemon());
+        Assert.assertFalse(VirtualThreads.isVirtual(first));
+    }
+}
@@ -1,5 +1,7 @@
 package data;
 
+import core.ColumnLabels;
+
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
@@ -10,6 +12,8 @@ import java.sql.SQLException;
  * Data Integrity Engine.
  * Provides a low-level access layer to the database to perform state validation 
  * and verify that API/UI actions have been correctly persisted in the system of record.
+ * Large comparisons (API export vs table, database vs database) go through {@link #reconcile}, which streams both
+ * sides instead of loading them.
  */
 public class DataValidationUtility {
 
@@ -55,6 +59,43 @@ public class DataValidationUtility {
         }
     }
 
+    /**
+     * Streams {@code query} from this database as a reconciliation source. Rows are fetched in chunks of
+     * {@code fetchSize} inside a read-only transaction (PostgreSQL only streams with autocommit off).
+     */
+    public Reconciler.Source source(String query, int fetchSize) {
+        return (columns, sink) -> {
+            try (Connection connection = DriverManager.getConnection(dbUrl, dbUser, dbPassword)) {
+                connection.setAutoCommit(false);
+                connection.setReadOnly(true);
+                try (PreparedStatement ps = connection.prepareStatement(query)) {
+                    ps.setFetchSize(fetchSize);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        ColumnLabels labels = ColumnLabels.of(rs.getMetaData());
+                        Reconciler.ResultSetScan scan = new Reconciler.ResultSetScan(columns, sink);
+                        while (rs.next()) {
+                            scan.accept(rs, labels);
+                        }
+                    }
+                } finally {
+                    connection.rollback();
+                }
+            }
+        };
+    }
+
+    public Reconciler.Source source(String query) {
+        return source(query, 1000);
+    }
+
+    /**
+     * Reconciles {@code actual} against what this database returns for {@code expectedQuery}, keyed on {@code key}.
+     * The report carries missing/extra/mismatched counts, sample keys and throughput; assert on {@code isClean()}.
+     */
+    public Reconciler.Report reconcile(String expectedQuery, Reconciler.Source actual, String key, String... columns) {
+        return new Reconciler(key, columns).reconcile(source(expectedQuery), actual);
+    }
+
     /**
      * Facilitates 'Test Data Cleanup' or 'State Injection' by executing DML commands.
      * Essential for maintaining test isolation by resetting the database state 
@@ -0,0 +1,588 @@
+package data;
+
+import core.ColumnLabels;
+import core.Config;
+import core.DBManager;
+import core.VirtualThreads;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Compares two row sources on a key column, in bounded memory, for tables far larger than the heap.
+ *
+ * Both sources are streamed once, concurrently, and every row is hash-partitioned on its key into a spill file per
+ * side. Matching keys always land in the same partition, so each partition can then be reconciled on its own: a worker
+ * loads the expected side of one partition into a hash map and streams the actual side past it. Peak memory is about
+ * (rows / partitions) x workers rows, and neither source has to be sorted; DB collations and Java string ordering
+ * disagree often enough that a sort-merge would report phantom differences.
+ *
+ * Values are compared in a normalized text form, so 150 (INT), 150.0 (JSON double) and "150" (CSV) are equal.
+ * <pre>
+ * Reconciler.Report report = new Reconciler("booking_id", "firstname", "lastname", "totalprice")
+ *         .reconcile(Reconciler.fromRows(exported), Reconciler.fromDb(db, "SELECT * FROM bookings"));
+ * Assert.assertTrue(report.isClean(), report.toString());
+ * </pre>
+ */
+public class Reconciler {
+
+    private static final Config.Key<Integer> PARTITIONS = Config.intKey("reconcile.partitions", 64);
+    private static final Config.Key<Integer> WORKERS = Config.intKey("reconcile.workers", 0);
+    private static final Config.Key<Integer> SAMPLE_SIZE = Config.intKey("reconcile.sample.size", 20);
+    private static final Config.Key<String> SPILL_DIR = Config.stringKey("reconcile.spill.dir", "");
+
+    // Spill streams per side are all open at once while scanning, so keep their buffers modest.
+    private static final int SPILL_BUFFER = 32 * 1024;
+    // Length prefix of a null value in a spill record.
+    private static final int NULL_LENGTH = -1;
+    // Marks an expected row the actual side has already claimed; a second claim is a duplicate, not an extra.
+    private static final String[] CLAIMED = new String[0];
+
+    /**
+     * Streams rows into a sink. Implementations push {@code columns} (key first) in that order, reusing one array.
+     */
+    @FunctionalInterface
+    public interface Source {
+        void scan(List<String> columns, RowSink sink) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface RowSink {
+        /**
+         * @param row values of the requested columns, key first. Only valid during the call.
+         */
+        void accept(Object[] row) throws IOException;
+    }
+
+    private final List<String> columns;
+    private int partitions = Config.get(PARTITIONS);
+    private int workers = Config.get(WORKERS);
+    private int sampleSize = Config.get(SAMPLE_SIZE);
+    private Path spillDirectory = Config.get(SPILL_DIR).isEmpty()
+            ? Paths.get(System.getProperty("java.io.tmpdir")) : Paths.get(Config.get(SPILL_DIR));
+
+    /**
+     * @param key     column identifying a row on both sides; repeats on either side are reported as duplicates
+     * @param compare columns whose values must agree; an absent column reads as null
+     */
+    public Reconciler(String key, String... compare) {
+        List<String> all = new ArrayList<>();
+        all.add(key);
+        all.addAll(Arrays.asList(compare));
+        this.columns = Collections.unmodifiableList(all);
+    }
+
+    /**
+     * More partitions = smaller hash maps per worker. Aim for at most a few hundred thousand rows per partition.
+     */
+    public Reconciler setPartitions(int partitions) {
+        this.partitions = partitions;
+        return this;
+    }
+
+    /**
+     * Partitions reconciled in parallel. 0 = one per core.
+     */
+    public Reconciler setWorkers(int workers) {
+        this.workers = workers;
+        return this;
+    }
+
+    /**
+     * How many example keys of each kind of difference the report keeps.
+     */
+    public Reconciler setSampleSize(int sampleSize) {
+        this.sampleSize = sampleSize;
+        return this;
+    }
+
+    public Reconciler setSpillDirectory(Path spillDirectory) {
+        this.spillDirectory = spillDirectory;
+        return this;
+    }
+
+    /**
+     * A query streamed through DBManager's pool with its fetch size; columns are looked up by label.
+     */
+    public static Source fromDb(DBManager db, String sql, Object... params) {
+        return (columns, sink) -> db.forEachRow(sql, new ResultSetScan(columns, sink)::accept, params);
+    }
+
+    /**
+     * Rows already in memory or produced lazily, e.g. bookings exported from the API as maps.
+     */
+    public static Source fromRows(Iterable<? extends Map<String, ?>> rows) {
+        return (columns, sink) -> {
+            Object[] row = new Object[columns.size()];
+            for (Map<String, ?> source : rows) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = source.get(columns.get(i));
+                }
+                sink.accept(row);
+            }
+        };
+    }
+
+    /**
+     * Reconciles {@code actual} against {@code expected}: rows only in expected are missing, rows only in actual are
+     * extra, rows in both with differing values are mismatched. A key repeated on either side is a duplicate; only
+     * one of its rows takes part in the comparison.
+     */
+    public Report reconcile(Source expected, Source actual) {
+        int partitionCount = Math.max(1, partitions);
+        int workerCount = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        long start = System.nanoTime();
+        Path directory;
+        try {
+            Files.createDirectories(spillDirectory);
+            directory = Files.createTempDirectory(spillDirectory, "reconcile-");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Reconciliation failed: cannot create spill directory in " + spillDirectory, e);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(2, workerCount), VirtualThreads.platformThreads("reconcile"));
+        try {
+            // Phase 1: both sides are read at the same time; each thread owns its side's spill files, so no locking.
+            Future<long[]> expectedScan = pool.submit(() -> spill(expected, directory, "expected", partitionCount));
+            Future<long[]> actualScan = pool.submit(() -> spill(actual, directory, "actual", partitionCount));
+            long[] expectedCounts = expectedScan.get();
+            long[] actualCounts = actualScan.get();
+            long scanned = System.nanoTime();
+
+            // Phase 2: partitions are independent, so they are compared in parallel.
+            Report report = new Report(columns, sampleSize);
+            List<Future<?>> compares = new ArrayList<>();
+            for (int p = 0; p < partitionCount; p++) {
+                int partition = p;
+                compares.add(pool.submit(() -> {
+                    compare(directory, partition, expectedCounts[partition], actualCounts[partition], report);
+                    return null;
+                }));
+            }
+            for (Future<?> compare : compares) {
+                compare.get();
+            }
+            report.finish(sum(expectedCounts), sum(actualCounts), scanned - start, System.nanoTime() - scanned,
+                    partitionCount, workerCount);
+            System.out.println("RECONCILE: " + report);
+            return report;
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Reconciliation failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Reconciliation interrupted.", e);
+        } finally {
+            pool.shutdownNow();
+            deleteQuietly(directory);
+        }
+    }
+
+    private long[] spill(Source source, Path directory, String side, int partitionCount) throws Exception {
+        DataOutputStream[] out = new DataOutputStream[partitionCount];
+        long[] counts = new long[partitionCount];
+        try {
+            for (int p = 0; p < partitionCount; p++) {
+                out[p] = new DataOutputStream(new BufferedOutputStream(
+                        Files.newOutputStream(directory.resolve(side + "-" + p)), SPILL_BUFFER));
+            }
+            source.scan(columns, row -> {
+                String key = normalize(row[0]);
+                if (key == null) {
+                    throw new IllegalStateException("Row without a value for key column '" + columns.get(0) + "' in " + side);
+                }
+                int partition = partitionOf(key, partitionCount);
+                DataOutputStream stream = out[partition];
+                writeValue(stream, key);
+                for (int i = 1; i < row.length; i++) {
+                    writeValue(stream, normalize(row[i]));
+                }
+                counts[partition]++;
+            });
+        } finally {
+            for (DataOutputStream stream : out) {
+                if (stream != null) {
+                    stream.close();
+                }
+            }
+        }
+        return counts;
+    }
+
+    private void compare(Path directory, int partition, long expectedRows, long actualRows, Report report) throws IOException {
+        int width = columns.size() - 1;
+        Map<String, String[]> pending = new HashMap<>((int) Math.min(Integer.MAX_VALUE / 2, expectedRows * 4 / 3 + 1));
+        Path expectedFile = directory.resolve("expected-" + partition);
+        try (DataInputStream in = open(expectedFile)) {
+            for (long i = 0; i < expectedRows; i++) {
+                String key = readValue(in);
+                if (pending.put(key, readValues(in, width)) != null) {
+                    report.duplicate(key, true);
+                }
+            }
+        }
+        Files.delete(expectedFile);
+
+        Path actualFile = directory.resolve("actual-" + partition);
+        long matched = 0;
+        try (DataInputStream in = open(actualFile)) {
+            for (long i = 0; i < actualRows; i++) {
+                String key = readValue(in);
+                String[] values = readValues(in, width);
+                // Claimed keys stay in the map, so a repeat (of a matched or an extra key) is recognized as one.
+                String[] wanted = pending.put(key, CLAIMED);
+                if (wanted == CLAIMED) {
+                    report.duplicate(key, false);
+                } else if (wanted == null) {
+                    report.extra(key);
+                } else if (Arrays.equals(wanted, values)) {
+                    matched++;
+                } else {
+                    report.mismatch(key, wanted, values);
+                }
+            }
+        }
+        Files.delete(actualFile);
+        report.matched(matched);
+        pending.forEach((key, values) -> {
+            if (values != CLAIMED) {
+                report.missing(key);
+            }
+        });
+    }
+
+    private static DataInputStream open(Path file) throws IOException {
+        return new DataInputStream(new BufferedInputStream(Files.newInputStream(file), SPILL_BUFFER));
+    }
+
+    private static String[] readValues(DataInputStream in, int width) throws IOException {
+        String[] values = new String[width];
+        for (int i = 0; i < width; i++) {
+            values[i] = readValue(in);
+        }
+        return values;
+    }
+
+    // Length-prefixed UTF-8 rather than writeUTF, which refuses values over 64 KB (CLOBs, JSON columns).
+    private static void writeValue(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readValue(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Text form both sides are compared in. Numbers lose type and scale (150 = 150.0 = 150L), dates use ISO format,
+     * so the same value read from JDBC, JSON or a file compares equal.
+     */
+    static String normalize(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).stripTrailingZeros().toPlainString();
+        }
+        if (value instanceof Number) {
+            try {
+                return new BigDecimal(value.toString()).stripTrailingZeros().toPlainString();
+            } catch (NumberFormatException e) {
+                return value.toString(); // NaN, Infinity
+            }
+        }
+        if (value instanceof java.sql.Date) {
+            return ((java.sql.Date) value).toLocalDate().toString();
+        }
+        return value.toString();
+    }
+
+    private static int partitionOf(String key, int partitionCount) {
+        // String.hashCode clusters on sequential ids; mixing spreads them over all partitions.
+        int h = key.hashCode() * 0x9E3779B9;
+        return Math.floorMod(h ^ (h >>> 16), partitionCount);
+    }
+
+    private static long sum(long[] counts) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    private static void deleteQuietly(Path directory) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+        } catch (IOException e) {
+            System.err.println("RECONCILE WARNING: could not remove spill directory " + directory + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Feeds result set rows to a sink: column indexes are resolved from the labels once, on the first row.
+     */
+    static final class ResultSetScan {
+        private final List<String> columns;
+        private final RowSink sink;
+        private final Object[] row;
+        private int[] index;
+
+        ResultSetScan(List<String> columns, RowSink sink) {
+            this.columns = columns;
+            this.sink = sink;
+            this.row = new Object[columns.size()];
+        }
+
+        void accept(ResultSet rs, ColumnLabels labels) throws SQLException {
+            if (index == null) {
+                index = new int[columns.size()];
+                for (int i = 0; i < index.length; i++) {
+                    index[i] = labels.indexOf(columns.get(i));
+                }
+                if (index[0] < 0) {
+                    throw new IllegalStateException("Key column '" + columns.get(0) + "' is not in the query result.");
+                }
+            }
+            for (int i = 0; i < row.length; i++) {
+                row[i] = index[i] < 0 ? null : rs.getObject(index[i]);
+            }
+            try {
+                sink.accept(row);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Outcome of one reconciliation: counts per kind of difference, mismatches per column, sample keys and throughput.
+     */
+    public static final class Report {
+        private final List<String> columns;
+        private final int sampleSize;
+        private final LongAdder matched = new LongAdder();
+        private final LongAdder missing = new LongAdder();
+        private final LongAdder extra = new LongAdder();
+        private final LongAdder mismatched = new LongAdder();
+        private final LongAdder expectedDuplicates = new LongAdder();
+        private final LongAdder actualDuplicates = new LongAdder();
+        private final AtomicLongArray columnMismatches;
+        private final List<String> missingSamples = new ArrayList<>();
+        private final List<String> extraSamples = new ArrayList<>();
+        private final List<String> duplicateSamples = new ArrayList<>();
+        private final Map<String, String> mismatchSamples = new LinkedHashMap<>();
+        private long expectedRows;
+        private long actualRows;
+        private long scanNanos;
+        private long compareNanos;
+        private int partitions;
+        private int workers;
+
+        Report(List<String> columns, int sampleSize) {
+            this.columns = columns;
+            this.sampleSize = sampleSize;
+            this.columnMismatches = new AtomicLongArray(columns.size());
+        }
+
+        void matched(long rows) {
+            matched.add(rows);
+        }
+
+        void missing(String key) {
+            missing.increment();
+            sample(missingSamples, key);
+        }
+
+        void extra(String key) {
+            extra.increment();
+            sample(extraSamples, key);
+        }
+
+        void duplicate(String key, boolean expectedSide) {
+            (expectedSide ? expectedDuplicates : actualDuplicates).increment();
+            sample(duplicateSamples, (expectedSide ? "expected " : "actual ") + key);
+        }
+
+        void mismatch(String key, String[] expected, String[] actual) {
+            mismatched.increment();
+            StringBuilder diff = new StringBuilder();
+            for (int i = 0; i < expected.length; i++) {
+                if (!Objects.equals(expected[i], actual[i])) {
+                    columnMismatches.incrementAndGet(i + 1);
+                    diff.append(diff.length() == 0 ? "" : ", ")
+                            .append(columns.get(i + 1)).append(": ").append(expected[i]).append(" -> ").append(actual[i]);
+                }
+            }
+            synchronized (mismatchSamples) {
+                if (mismatchSamples.size() < sampleSize) {
+                    mismatchSamples.put(key, diff.toString());
+                }
+            }
+        }
+
+        private void sample(List<String> samples, String key) {
+            synchronized (samples) {
+                if (samples.size() < sampleSize) {
+                    samples.add(key);
+                }
+            }
+        }
+
+        void finish(long expectedRows, long actualRows, long scanNanos, long compareNanos, int partitions, int workers) {
+            this.expectedRows = expectedRows;
+            this.actualRows = actualRows;
+            this.scanNanos = scanNanos;
+            this.compareNanos = compareNanos;
+            this.partitions = partitions;
+            this.workers = workers;
+        }
+
+        public boolean isClean() {
+            return getMissing() == 0 && getExtra() == 0 && getMismatched() == 0 && getDuplicates() == 0;
+        }
+
+        public long getExpectedRows() {
+            return expectedRows;
+        }
+
+        public long getActualRows() {
+            return actualRows;
+        }
+
+        public long getMatched() {
+            return matched.sum();
+        }
+
+        public long getMissing() {
+            return missing.sum();
+        }
+
+        public long getExtra() {
+            return extra.sum();
+        }
+
+        public long getMismatched() {
+            return mismatched.sum();
+        }
+
+        /**
+         * Repeated keys on both sides together; see {@link #getExpectedDuplicates} and {@link #getActualDuplicates}.
+         */
+        public long getDuplicates() {
+            return getExpectedDuplicates() + getActualDuplicates();
+        }
+
+        /**
+         * Keys seen more than once on the expected side; only the last of those rows is compared.
+         */
+        public long getExpectedDuplicates() {
+            return expectedDuplicates.sum();
+        }
+
+        /**
+         * Keys seen more than once on the actual side; only the first of those rows is compared, and the repeats are
+         * not counted as extra.
+         */
+        public long getActualDuplicates() {
+            return actualDuplicates.sum();
+        }
+
+        /**
+         * Mismatched rows per compared column (a row differing in two columns counts for both).
+         */
+        public Map<String, Long> getColumnMismatches() {
+            Map<String, Long> perColumn = new LinkedHashMap<>();
+            for (int i = 1; i < columns.size(); i++) {
+                perColumn.put(columns.get(i), columnMismatches.get(i));
+            }
+            return perColumn;
+        }
+
+        public List<String> getMissingSamples() {
+            return Collections.unmodifiableList(missingSamples);
+        }
+
+        public List<String> getExtraSamples() {
+            return Collections.unmodifiableList(extraSamples);
+        }
+
+        /**
+         * Up to sample-size mismatched keys, each with its differing columns as "column: expected -> actual".
+         */
+        public Map<String, String> getMismatchSamples() {
+            return Collections.unmodifiableMap(mismatchSamples);
+        }
+
+        public long getElapsedMillis() {
+            return (scanNanos + compareNanos) / 1_000_000;
+        }
+
+        public double getRowsPerSecond() {
+            long elapsed = scanNanos + compareNanos;
+            return elapsed == 0 ? 0 : (expectedRows + actualRows) * 1e9 / elapsed;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(String.format(
+                    "%d expected vs %d actual rows: %d matched, %d missing, %d extra, %d mismatched, "
+                            + "%d duplicate keys (%d expected, %d actual) "
+                            + "in %d ms (%.0f rows/s; scan %d ms, compare %d ms over %d partitions x %d workers)",
+                    expectedRows, actualRows, getMatched(), getMissing(), getExtra(), getMismatched(), getDuplicates(),
+                    getExpectedDuplicates(), getActualDuplicates(),
+                    getElapsedMillis(), getRowsPerSecond(), scanNanos / 1_000_000, compareNanos / 1_000_000, partitions, workers));
+            if (getMismatched() > 0) {
+                text.append("\n  mismatches per column: ").append(getColumnMismatches());
+                mismatchSamples.forEach((key, diff) -> text.append("\n  ").append(columns.get(0)).append('=').append(key).append(": ").append(diff));
+            }
+            if (!missingSamples.isEmpty()) {
+                text.append("\n  missing e.g. ").append(missingSamples);
+            }
+            if (!extraSamples.isEmpty()) {
+                text.append("\n  extra e.g. ").append(extraSamples);
+            }
+            if (!duplicateSamples.isEmpty()) {
+                text.append("\n  duplicate keys e.g. ").append(duplicateSamples);
+            }
+            return text.toString();
+        }
+    }
+}
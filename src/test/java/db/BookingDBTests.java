@@ -1,25 +1,55 @@
 package db;
 
+import core.ColumnarResult;
+import core.Config;
+import core.ConnectionPool;
 import core.DBManager;
+import core.ScenarioTransaction;
 import org.testng.Assert;
-import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
+import java.sql.Connection;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 public class BookingDBTests {
     private DBManager dbManager;
+    private ScenarioTransaction transaction;
 
-    @BeforeMethod
+    @BeforeClass
     public void setup() {
         dbManager = new DBManager();
-        // Step 1: Purge existing data to ensure strict test isolation (no pollution from previous runs).
-        dbManager.executeUpdate("DELETE FROM bookings");
+        // The whole class runs in one transaction that is rolled back at the end, so nothing here is ever
+        // visible to (or clobbered by) other classes running in parallel.
+        transaction = dbManager.beginScenario();
+
+        // Step 1: Clear only the ids this class writes (101-102, 1000-2999, 4242). A table-wide delete would lock
+        // every booking on the shared database until the class ends; every assertion below is scoped to these ids.
+        dbManager.update("DELETE FROM bookings WHERE booking_id IN (101, 102, 4242) OR booking_id BETWEEN ? AND ?", 1000, 2999);
 
         // Step 2: Seed fresh data. We explicitly populate ALL columns to prevent 'null' pointer assertions.
-        String seedData = "INSERT INTO bookings (booking_id, firstname, lastname, email, totalprice) " +
-                "VALUES (101, 'John', 'Doe', 'john.doe@example.com', 200)";
-        dbManager.executeUpdate(seedData);
+        dbManager.update("INSERT INTO bookings (booking_id, firstname, lastname, email, totalprice) VALUES (?, ?, ?, ?, ?)",
+                101, "John", "Doe", "john.doe@example.com", 200);
+        transaction.markBaseline();
+    }
+
+    // Back to the seeded baseline after every test: one savepoint rollback instead of a delete and re-seed.
+    @AfterMethod(alwaysRun = true)
+    public void resetToBaseline() {
+        transaction.rollbackToBaseline();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        transaction.close();
     }
 
     /**
@@ -28,8 +58,7 @@ public class BookingDBTests {
      */
     @Test
     public void testRetrieveExpectedUserRecord() {
-        String query = "SELECT * FROM bookings WHERE booking_id = 101";
-        List<Map<String, Object>> results = dbManager.executeQuery(query);
+        List<Map<String, Object>> results = dbManager.query("SELECT * FROM bookings WHERE booking_id = ?", 101);
 
         // Verification logic
         Assert.assertFalse(results.isEmpty(), "DB FAILURE: Targeted record (ID 101) was not found in the 'bookings' table.");
@@ -43,4 +72,162 @@ public class BookingDBTests {
 
         Assert.assertEquals(record.get("firstname"), "John", "Field mismatch: firstname.");
     }
-}
\ No newline at end of file
+
+    /**
+     * The same SQL text is served from the per-connection statement cache on every call.
+     * Bound values must never bleed from one call into the next.
+     */
+    @Test
+    public void testCachedStatementRebindsParameters() {
+        String byId = "SELECT * FROM bookings WHERE booking_id = ?";
+        dbManager.update("INSERT INTO bookings (booking_id, firstname, lastname, email, totalprice) VALUES (?, ?, ?, ?, ?)",
+                102, "Jane", "Roe", "jane.roe@example.com", 310);
+
+        Assert.assertEquals(dbManager.query(byId, 101).get(0).get("firstname"), "John");
+        Assert.assertEquals(dbManager.query(byId, 102).get(0).get("firstname"), "Jane");
+        Assert.assertTrue(dbManager.query(byId, 999).isEmpty(), "Stale parameters leaked into a cached statement.");
+    }
+
+    /**
+     * The streaming, callback and columnar paths must agree with each other on a non-trivial result,
+     * and the stream must hand its connection back once closed.
+     */
+    @Test
+    public void testStreamingApisReadWholeResultWithoutLeaking() {
+        for (int id = 1000; id < 3000; id++) {
+            dbManager.update("INSERT INTO bookings (booking_id, firstname, totalprice) VALUES (?, ?, ?)", id, "Load" + id, 1);
+        }
+        String sql = "SELECT booking_id, totalprice FROM bookings WHERE booking_id BETWEEN ? AND ?";
+
+        long streamedTotal;
+        try (Stream<Integer> prices = dbManager.stream(sql, (rs, rowNum) -> rs.getInt(2), 1000, 2999)) {
+            streamedTotal = prices.mapToLong(Integer::longValue).sum();
+        }
+        long[] callbackTotal = {0};
+        long visited = dbManager.forEachRow(sql, (rs, labels) -> callbackTotal[0] += rs.getInt(2), 1000, 2999);
+        ColumnarResult columnar = dbManager.queryColumnar(sql, 1000, 2999);
+
+        Assert.assertEquals(streamedTotal, 2000L, "Stream skipped or duplicated rows.");
+        Assert.assertEquals(callbackTotal[0], 2000L, "Callback skipped or duplicated rows.");
+        Assert.assertEquals(visited, 2000L);
+        Assert.assertEquals(columnar.rowCount(), 2000);
+        Assert.assertEquals(columnar.get(0, "totalprice"), 1);
+        // The class transaction's own connection is the only one allowed to stay out.
+        Assert.assertEquals(DBManager.poolMetrics().getActive(), DBManager.poolMetrics().getPinned(), "Closed stream did not release its connection.");
+    }
+
+    /**
+     * The class transaction pins one connection, so a query issued while a stream over the same SQL is still open
+     * runs on that connection too. It must get a statement of its own instead of closing the stream's cursor.
+     */
+    @Test
+    public void testSameSqlWhileStreamIsOpenKeepsTheCursor() {
+        for (int id = 1000; id < 1010; id++) {
+            dbManager.update("INSERT INTO bookings (booking_id, firstname, totalprice) VALUES (?, ?, ?)", id, "Cursor" + id, 1);
+        }
+        String sql = "SELECT booking_id FROM bookings WHERE booking_id BETWEEN ? AND ? ORDER BY booking_id";
+
+        List<Integer> streamed = new ArrayList<>();
+        try (Stream<Integer> ids = dbManager.stream(sql, (rs, rowNum) -> rs.getInt(1), 1000, 1009)) {
+            ids.forEach(id -> {
+                streamed.add(id);
+                if (id == 1002) {
+                    Assert.assertEquals(dbManager.query(sql, 1005, 1006).size(), 2);
+                }
+            });
+        }
+        Assert.assertEquals(streamed.size(), 10, "The nested query closed the open stream's cursor: " + streamed);
+        Assert.assertEquals(dbManager.query(sql, 1000, 1009).size(), 10, "Cached statement unusable after the nested call.");
+    }
+
+    /**
+     * Guards the pooling contract: bursts of parallel calls must be served from a bounded set of
+     * physical connections, and every borrowed connection must find its way back.
+     */
+    @Test
+    public void testConnectionsAreRecycledUnderParallelLoad() throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(8);
+        List<Future<?>> calls = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            calls.add(workers.submit(() -> dbManager.query("SELECT * FROM bookings WHERE booking_id = ?", 101)));
+        }
+        for (Future<?> call : calls) {
+            call.get(30, TimeUnit.SECONDS);
+        }
+        workers.shutdown();
+
+        ConnectionPool.Metrics metrics = DBManager.poolMetrics();
+        Assert.assertEquals(metrics.getActive(), metrics.getPinned(), "POOL LEAK: Connections were not returned after use. " + metrics);
+        Assert.assertTrue(metrics.getTotal() <= metrics.getMaxSize(), "POOL OVERFLOW: " + metrics);
+        Assert.assertTrue(metrics.getWaitTime().count() >= 200, "Wait-time histogram did not record borrows. " + metrics);
+    }
+
+    /**
+     * A closed pool lets go of its connections and its URL; the next DBManager for that database starts a new pool.
+     */
+    @Test
+    public void testClosedPoolIsReplacedByAFreshOne() {
+        String url = "jdbc:h2:mem:closed_pool;DB_CLOSE_DELAY=-1";
+        DBManager before = new DBManager(url);
+        before.update("INSERT INTO bookings (booking_id, firstname) VALUES (?, ?)", 1, "Survivor");
+        Assert.assertTrue(before.metrics().getTotal() >= 1);
+
+        DBManager.closePool(url);
+
+        Assert.assertEquals(before.metrics().getTotal(), 0, "Closing left physical connections open.");
+        Assert.assertThrows(IllegalStateException.class, () -> before.query("SELECT * FROM bookings"));
+        DBManager after = new DBManager(url);
+        Assert.assertEquals(after.query("SELECT * FROM bookings WHERE booking_id = ?", 1).size(), 1,
+                "The in-memory database itself should outlive its pool.");
+        DBManager.closePool(url);
+    }
+
+    /**
+     * A connection held past the threshold is reported once, from the scan; borrows themselves capture no stack.
+     */
+    @Test
+    public void testHeldConnectionIsReportedAsLeak() throws Exception {
+        String url = "jdbc:h2:mem:leak_check;DB_CLOSE_DELAY=-1";
+        Config.override("db.pool.leak.threshold.ms", "100");
+        try {
+            DBManager leaky = new DBManager(url);
+            DBManager.bindThreadDatabase(url);
+            try (Connection held = DBManager.getConnection()) {
+                // The scan runs every max(1 s, threshold / 2).
+                long deadline = System.currentTimeMillis() + 5_000;
+                while (leaky.metrics().getLeaksDetected() == 0 && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(100);
+                }
+                Assert.assertEquals(leaky.metrics().getLeaksDetected(), 1L, "Held connection was not reported.");
+                Assert.assertFalse(held.isClosed(), "Reporting a leak must not take the connection away.");
+            }
+        } finally {
+            DBManager.bindThreadDatabase(null);
+            Config.override("db.pool.leak.threshold.ms", null);
+            DBManager.closePool(url);
+        }
+    }
+
+    /**
+     * Rows written inside the class transaction must stay invisible to other threads and disappear at the baseline.
+     */
+    @Test
+    public void testTransactionIsolatesWritesFromOtherThreads() throws Exception {
+        dbManager.update("INSERT INTO bookings (booking_id, firstname, totalprice) VALUES (?, ?, ?)", 4242, "Isolated", 1);
+        Assert.assertEquals(dbManager.query("SELECT * FROM bookings WHERE booking_id = ?", 4242).size(), 1,
+                "The owning thread must see its own uncommitted write.");
+
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        try {
+            int seenElsewhere = other.submit(() -> new DBManager().query("SELECT * FROM bookings WHERE booking_id = ?", 4242).size())
+                    .get(30, TimeUnit.SECONDS);
+            Assert.assertEquals(seenElsewhere, 0, "ISOLATION BREACH: another thread saw an uncommitted row.");
+        } finally {
+            other.shutdown();
+        }
+
+        transaction.rollbackToBaseline();
+        Assert.assertTrue(dbManager.query("SELECT * FROM bookings WHERE booking_id = ?", 4242).isEmpty(), "Rollback left the row behind.");
+        Assert.assertEquals(dbManager.query("SELECT * FROM bookings WHERE booking_id = ?", 101).size(), 1, "Rollback removed the seeded baseline.");
+    }
+}
@@ -0,0 +1,116 @@
+package db;
+
+import builders.BookingDataBuilder;
+import builders.BookingGenerator;
+import builders.BookingRecord;
+import core.BulkLoader;
+import core.DBManager;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Volume seeding checks for the bulk loader.
+ * Runs every write strategy against the same in-memory table and verifies the data, not just the row count.
+ * The loads commit (that is part of what they measure), so they go to a database of this class's own rather than the
+ * shared one: the emptying below and the 100k committed rows never reach another class.
+ */
+public class BulkSeedingTests {
+    private static final int ROWS = 25_000;
+    private static final String DB_URL = "jdbc:h2:mem:bulk_seeding;DB_CLOSE_DELAY=-1";
+
+    private DBManager dbManager;
+
+    @BeforeMethod
+    public void setup() {
+        dbManager = new DBManager(DB_URL);
+        dbManager.executeUpdate("DELETE FROM bookings");
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void dropDatabase() {
+        // Frees the seeded rows; the pool goes with it.
+        new DBManager(DB_URL).executeUpdate("DROP ALL OBJECTS");
+        DBManager.closePool(DB_URL);
+    }
+
+    @DataProvider
+    public Object[][] modes() {
+        return new Object[][]{{BulkLoader.Mode.BATCH}, {BulkLoader.Mode.MULTI_VALUES}, {BulkLoader.Mode.CSV}};
+    }
+
+    @Test(dataProvider = "modes")
+    public void testGeneratedRowsAreSeededCompletely(BulkLoader.Mode mode) {
+        int[] next = {0};
+        BulkLoader.LoadReport report = new BulkLoader(dbManager)
+                .setMode(mode)
+                .setBatchSize(500)
+                .setCommitInterval(10_000)
+                .load(row -> {
+                    if (next[0] == ROWS) {
+                        return false;
+                    }
+                    int id = next[0]++;
+                    row[0] = id;
+                    row[1] = "First, \"" + id + "\"";
+                    row[2] = "Last" + id;
+                    row[3] = id % 2 == 0 ? null : "user" + id + "@example.com";
+                    row[4] = id % 1000;
+                    return true;
+                });
+
+        Assert.assertEquals(report.getRows(), ROWS, "Loader reported a different volume than it was fed.");
+        Assert.assertTrue(report.getRowsPerSecond() > 0, "Throughput was not measured.");
+
+        List<Map<String, Object>> stats = dbManager.query(
+                "SELECT COUNT(*) AS cnt, SUM(totalprice) AS total, COUNT(email) AS emails FROM bookings");
+        Assert.assertEquals(((Number) stats.get(0).get("cnt")).longValue(), ROWS);
+        Assert.assertEquals(((Number) stats.get(0).get("total")).longValue(), 25L * (999 * 1000 / 2));
+        Assert.assertEquals(((Number) stats.get(0).get("emails")).longValue(), ROWS / 2, "NULLs did not survive the load.");
+
+        // Quotes and commas are the usual casualties of CSV spooling.
+        Assert.assertEquals(dbManager.query("SELECT firstname FROM bookings WHERE booking_id = ?", 42).get(0).get("firstname"),
+                "First, \"42\"");
+    }
+
+    @Test
+    public void testBuilderPayloadsAreSeededWithSequentialIds() {
+        List<Map<String, Object>> payloads = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            payloads.add(new BookingDataBuilder().setFirstname("Bulk" + i).setLastname("Seed").setTotalPrice(i).build());
+        }
+
+        new BulkLoader(dbManager).loadBookings(payloads, 5000);
+
+        Assert.assertEquals(dbManager.query("SELECT firstname FROM bookings WHERE booking_id = ?", 5099).get(0).get("firstname"),
+                "Bulk99");
+    }
+
+    /**
+     * Generated data must be reproducible from its seed, otherwise a failing volume test can't be replayed.
+     */
+    @Test
+    public void testGeneratedBookingsAreDeterministicAndLoadable() {
+        BookingGenerator generator = new BookingGenerator(42L, 1, LocalDate.of(2026, 1, 1));
+        BookingRecord first = generator.fill(777, new BookingRecord());
+        BookingRecord replay = new BookingGenerator(42L, 1, LocalDate.of(2026, 1, 1)).fill(777, new BookingRecord());
+        Assert.assertEquals(replay.toString(), first.toString(), "Same seed produced different bookings.");
+        Assert.assertTrue(first.getCheckoutEpochDay() > first.getCheckinEpochDay(), "Checkout must follow checkin.");
+
+        long parallelPriceSum = generator.stream(200_000, true).mapToLong(BookingRecord::getTotalprice).sum();
+        long sequentialPriceSum = generator.stream(200_000, false).mapToLong(BookingRecord::getTotalprice).sum();
+        Assert.assertEquals(parallelPriceSum, sequentialPriceSum, "Parallel split changed the generated data.");
+
+        BulkLoader.LoadReport report = new BulkLoader(dbManager).loadGenerated(generator, 100_000);
+        Assert.assertEquals(report.getRows(), 100_000L);
+        Assert.assertEquals(dbManager.query("SELECT firstname FROM bookings WHERE booking_id = ?", 778).get(0).get("firstname"),
+                first.getFirstname());
+    }
+}
@@ -0,0 +1,107 @@
+package db;
+
+import builders.BookingGenerator;
+import core.BulkLoader;
+import core.DBManager;
+import core.DatabaseFixture;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot-and-clone fixtures: one seeding per JVM, then an independent, fully seeded copy per worker.
+ */
+public class DatabaseFixtureTests {
+    private static final int ROWS = 20_000;
+    // No close delay: the copy disappears with the pool's last connection.
+    private static final String RESEED_URL = "jdbc:h2:mem:fixture_reseed";
+
+    private static final DatabaseFixture GENERATED_BOOKINGS = new DatabaseFixture("generated_bookings",
+            db -> new BulkLoader(db).loadGenerated(new BookingGenerator(7L, 1, LocalDate.of(2026, 1, 1)), ROWS));
+
+    @AfterMethod(alwaysRun = true)
+    public void unbind() {
+        DBManager.bindThreadDatabase(null);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void closeClones() {
+        GENERATED_BOOKINGS.close();
+    }
+
+    @Test
+    public void testClonesAreCompleteAndIndependent() {
+        DBManager first = GENERATED_BOOKINGS.open("worker_a");
+        DBManager second = GENERATED_BOOKINGS.open("worker_b");
+
+        Assert.assertEquals(count(first), ROWS, "Clone is missing baseline rows.");
+        Assert.assertEquals(count(second), ROWS, "Clone is missing baseline rows.");
+        Assert.assertEquals(first.query("SELECT firstname FROM bookings WHERE booking_id = ?", 500),
+                second.query("SELECT firstname FROM bookings WHERE booking_id = ?", 500), "Clones diverged from the same snapshot.");
+
+        first.update("DELETE FROM bookings WHERE booking_id <= ?", 1000);
+        Assert.assertEquals(count(first), ROWS - 1000);
+        Assert.assertEquals(count(second), ROWS, "ISOLATION BREACH: a write to one worker's clone reached another.");
+    }
+
+    @Test
+    public void testCloneIsCheaperThanReseeding() {
+        GENERATED_BOOKINGS.snapshot();
+
+        long start = System.nanoTime();
+        String url = GENERATED_BOOKINGS.cloneFor("timed_worker");
+        long cloneNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        DBManager reseeded = new DBManager(RESEED_URL);
+        new BulkLoader(reseeded).loadGenerated(new BookingGenerator(7L, 1, LocalDate.of(2026, 1, 1)), ROWS);
+        long reseedNanos = System.nanoTime() - start;
+        DBManager.closePool(RESEED_URL);
+
+        Assert.assertEquals(GENERATED_BOOKINGS.cloneFor("timed_worker"), url, "A worker must keep its clone.");
+        Assert.assertEquals(count(new DBManager(url)), ROWS);
+        Assert.assertTrue(cloneNanos < reseedNanos, "Cloning " + ROWS + " rows took " + cloneNanos / 1_000_000
+                + " ms, re-seeding them only " + reseedNanos / 1_000_000 + " ms");
+    }
+
+    @Test
+    public void testResetRestoresTheBaseline() {
+        DBManager clone = GENERATED_BOOKINGS.open("reset_worker");
+        clone.update("DELETE FROM bookings WHERE booking_id <= ?", 1000);
+        Assert.assertEquals(count(clone), ROWS - 1000);
+
+        String url = GENERATED_BOOKINGS.reset("reset_worker");
+
+        Assert.assertEquals(count(new DBManager(url)), ROWS, "Reset must bring back the rows the previous class deleted.");
+    }
+
+    @Test
+    public void testEachBindStartsFromTheBaseline() {
+        GENERATED_BOOKINGS.bindToCurrentThread().update("DELETE FROM bookings WHERE booking_id <= ?", 1000);
+
+        // The next test class on this worker binds again in its setup and must not see those deletes.
+        Assert.assertEquals(count(GENERATED_BOOKINGS.bindToCurrentThread()), ROWS, "LEAK: a bound clone kept an earlier class's writes.");
+    }
+
+    @Test
+    public void testBoundCloneBecomesThreadDefault() {
+        DBManager clone = GENERATED_BOOKINGS.bindToCurrentThread();
+        clone.update("UPDATE bookings SET firstname = ? WHERE booking_id = ?", "Bound", 1);
+
+        // Plain 'new DBManager()', as step definitions use it, must land on this thread's clone.
+        List<Map<String, Object>> rows = new DBManager().query("SELECT firstname FROM bookings WHERE booking_id = ?", 1);
+        Assert.assertEquals(rows.get(0).get("firstname"), "Bound");
+
+        DBManager.bindThreadDatabase(null);
+        Assert.assertEquals(DBManager.currentUrl(), DBManager.DEFAULT_URL, "Unbinding must restore the shared default database.");
+    }
+
+    private static long count(DBManager db) {
+        return ((Number) db.query("SELECT COUNT(*) AS cnt FROM bookings").get(0).get("cnt")).longValue();
+    }
+}
@@ -0,0 +1,112 @@
+package db;
+
+import builders.BookingGenerator;
+import core.BulkLoader;
+import core.Config;
+import core.DBManager;
+import core.TableChecksum;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Merkle checksums: a few changed rows in a large table must be pinpointed from digests alone.
+ */
+public class TableChecksumTests {
+    private static final int ROWS = 100_000;
+    private static final String[] COLUMNS = {"firstname", "lastname", "email", "totalprice"};
+
+    private DBManager expected;
+    private DBManager actual;
+
+    @BeforeMethod
+    public void seed() {
+        expected = new DBManager("jdbc:h2:mem:checksum_expected;DB_CLOSE_DELAY=-1");
+        actual = new DBManager("jdbc:h2:mem:checksum_actual;DB_CLOSE_DELAY=-1");
+        for (DBManager db : new DBManager[]{expected, actual}) {
+            db.executeUpdate("DELETE FROM bookings");
+            new BulkLoader(db).setMode(BulkLoader.Mode.CSV)
+                    .loadGenerated(new BookingGenerator(3L, 1, LocalDate.of(2026, 1, 1)), ROWS);
+        }
+    }
+
+    @Test
+    public void testUnchangedTableMatchesItsSnapshot() {
+        TableChecksum bookings = new TableChecksum(actual, "bookings", "booking_id", COLUMNS);
+        TableChecksum.Diff diff = bookings.diff(bookings.snapshot());
+
+        Assert.assertTrue(diff.isClean(), diff.toString());
+        Assert.assertEquals(diff.getLookups(), 4, "A match must be settled at the root: bounds plus one level per side.");
+    }
+
+    @Test
+    public void testSnapshotDiffNarrowsChangesToLeafRanges() {
+        TableChecksum bookings = new TableChecksum(actual, "bookings", "booking_id", COLUMNS);
+        Path file = Paths.get("target", "checksums", "bookings.checksum");
+        bookings.snapshot().save(file);
+
+        actual.update("UPDATE bookings SET totalprice = totalprice + 1 WHERE booking_id = ?", 1_000);
+        actual.update("DELETE FROM bookings WHERE booking_id = ?", 75_000);
+
+        TableChecksum.Diff diff = bookings.diff(TableChecksum.Snapshot.load(file));
+
+        List<TableChecksum.RangeDifference> ranges = diff.getRanges();
+        Assert.assertEquals(ranges.size(), 2, diff.toString());
+        Assert.assertTrue(ranges.get(0).getFrom() <= 1_000 && 1_000 < ranges.get(0).getTo());
+        Assert.assertEquals(ranges.get(0).getExpectedRows(), ranges.get(0).getActualRows());
+        Assert.assertTrue(ranges.get(1).getFrom() <= 75_000 && 75_000 < ranges.get(1).getTo());
+        Assert.assertEquals(ranges.get(1).getActualRows(), ranges.get(1).getExpectedRows() - 1);
+        Assert.assertTrue(diff.getTransferredRows() < 200, "Drill-down should only fetch digests, got " + diff);
+    }
+
+    @Test
+    public void testLiveDiffFindsExactKeys() {
+        actual.update("UPDATE bookings SET firstname = 'Changed' WHERE booking_id IN (?, ?)", 7, 83_456);
+        actual.update("UPDATE bookings SET email = NULL WHERE booking_id = ?", 99_000);
+        actual.update("DELETE FROM bookings WHERE booking_id = ?", 42);
+        actual.update("INSERT INTO bookings (booking_id, firstname) VALUES (?, ?)", ROWS + 10, "Extra");
+
+        TableChecksum.Diff diff = new TableChecksum(actual, "bookings", "booking_id", COLUMNS)
+                .diff(new TableChecksum(expected, "bookings", "booking_id", COLUMNS));
+
+        Assert.assertEquals(diff.getChangedKeys(), List.of(7L, 83_456L, 99_000L), diff.toString());
+        Assert.assertEquals(diff.getMissingKeys(), List.of(42L));
+        Assert.assertEquals(diff.getExtraKeys(), List.of((long) ROWS + 10));
+        Assert.assertTrue(diff.getTransferredRows() < 5_000, "Expected a few leaves worth of rows, got " + diff);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testColumnNamesAreNotSqlFragments() {
+        new TableChecksum(actual, "bookings", "booking_id", "firstname; DROP TABLE bookings");
+    }
+
+    @Test
+    public void testDegenerateTreeShapesAreRejected() {
+        TableChecksum bookings = new TableChecksum(actual, "bookings", "booking_id", COLUMNS);
+        // Fanout 1 would never widen a level and hang the diff.
+        Assert.expectThrows(IllegalArgumentException.class, () -> bookings.setFanout(1));
+        Assert.expectThrows(IllegalArgumentException.class, () -> bookings.setFanout(0));
+        Assert.expectThrows(IllegalArgumentException.class, () -> bookings.setLeafWidth(0));
+
+        Config.override("db.checksum.fanout", "1");
+        try {
+            IllegalArgumentException e = Assert.expectThrows(IllegalArgumentException.class,
+                    () -> new TableChecksum(actual, "bookings", "booking_id", COLUMNS));
+            Assert.assertTrue(e.getMessage().contains("db.checksum.fanout"), e.getMessage());
+        } finally {
+            Config.override("db.checksum.fanout", null);
+        }
+    }
+
+    @Test
+    public void testFailedRangeQueryNamesTheTable() {
+        IllegalStateException e = Assert.expectThrows(IllegalStateException.class,
+                () -> new TableChecksum(actual, "no_such_table", "booking_id").bounds());
+        Assert.assertTrue(e.getMessage().contains("no_such_table"), e.getMessage());
+    }
+}
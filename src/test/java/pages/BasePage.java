@@ -0,0 +1,202 @@
+package pages;
+
+import core.Config;
+import core.SmartWait;
+import core.Telemetry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Shared plumbing for page objects: every WebDriver command is a round trip to the browser, so pages here
+ * try to spend as few of them as an action allows.
+ *
+ * Elements are resolved once (through {@link SmartWait}) and reused until the page re-renders them; a stale reference
+ * is dropped and looked up again, once. {@link #fillAndSubmit} fills a whole form and presses its button from a single
+ * script when the form passes the checks below, and falls back to real keystrokes otherwise. The script sets each value
+ * and fires input/change, but no key events: a form that reacts to keydown/keypress/keyup through listeners
+ * attached in code (masks, key filters) cannot be detected from the page and needs page.batch.enabled=false.
+ * {@link #action} wraps a public page method so Telemetry records how many commands it actually cost.
+ */
+public abstract class BasePage {
+
+    private static final Logger log = LogManager.getLogger(BasePage.class);
+
+    static final Config.Key<Boolean> BATCH_ENABLED = Config.booleanKey("page.batch.enabled", true);
+
+    /*
+     * Fills text fields and clicks submit, but only after checking every target first, so a form is never left
+     * half-filled. Setting .value directly would bypass the setter React/Vue track, so the native prototype setter is
+     * used and input/change are dispatched the way typing would. Anything that typing could treat differently returns
+     * a reason instead of acting: hidden, disabled or read-only fields, selects and checkboxes, a disabled button, a
+     * field that already has a value (sendKeys appends, the setter replaces), text longer than the field's maxlength
+     * (typing stops there), and inline key handlers (onkeydown/onkeypress/onkeyup, which typing would trigger).
+     */
+    private static final String FILL_AND_SUBMIT = SmartWait.FIND_FUNCTION
+            + "var fields = arguments[0], submit = find(arguments[1][0], arguments[1][1]);"
+            + "var typable = ['text', 'password', 'email', 'search', 'tel', 'url', 'number'];"
+            + "var targets = [];"
+            + "for (var i = 0; i < fields.length; i++) {"
+            + "  var el = find(fields[i][0], fields[i][1]);"
+            + "  if (!el) { return 'field ' + fields[i][1] + ' not found'; }"
+            + "  var tag = el.tagName.toLowerCase();"
+            + "  if (!(tag === 'textarea' || (tag === 'input' && typable.indexOf((el.type || 'text').toLowerCase()) >= 0))) {"
+            + "    return 'field ' + fields[i][1] + ' is a ' + tag + ' (' + el.type + '), not a text field'; }"
+            + "  if (el.disabled || el.readOnly) { return 'field ' + fields[i][1] + ' is disabled or read-only'; }"
+            + "  if (el.getClientRects().length === 0) { return 'field ' + fields[i][1] + ' is not rendered'; }"
+            + "  if (el.value !== '') { return 'field ' + fields[i][1] + ' already has a value'; }"
+            + "  if (el.maxLength >= 0 && fields[i][2].length > el.maxLength) {"
+            + "    return 'field ' + fields[i][1] + ' has maxlength ' + el.maxLength; }"
+            + "  if (el.onkeydown || el.onkeypress || el.onkeyup) { return 'field ' + fields[i][1] + ' has key handlers'; }"
+            + "  targets.push([el, tag === 'textarea' ? HTMLTextAreaElement : HTMLInputElement, fields[i][2]]);"
+            + "}"
+            + "if (!submit || submit.disabled) { return 'submit is missing or disabled'; }"
+            + "for (var j = 0; j < targets.length; j++) {"
+            + "  var t = targets[j];"
+            + "  t[0].focus();"
+            + "  Object.getOwnPropertyDescriptor(t[1].prototype, 'value').set.call(t[0], t[2]);"
+            + "  t[0].dispatchEvent(new Event('input', {bubbles: true}));"
+            + "  t[0].dispatchEvent(new Event('change', {bubbles: true}));"
+            + "}"
+            + "submit.click();"
+            + "return null;";
+
+    protected final WebDriver driver;
+    protected final SmartWait wait;
+    private final Map<By, Cached> elements = new HashMap<>();
+
+    protected BasePage(WebDriver driver) {
+        this.driver = driver;
+        this.wait = new SmartWait(driver);
+    }
+
+    protected void type(By locator, String text) {
+        withElement(locator, false, element -> {
+            element.sendKeys(text);
+            return null;
+        });
+    }
+
+    protected void click(By locator) {
+        // 'clickable' also covers a button that is rendered but still disabled while the form initialises.
+        withElement(locator, true, element -> {
+            element.click();
+            return null;
+        });
+        // A click may navigate or re-render; references from before it are not worth trusting.
+        forgetElements();
+    }
+
+    protected String text(By locator) {
+        return withElement(locator, false, WebElement::getText);
+    }
+
+    /**
+     * Types each value into its field and clicks submit. With page.batch.enabled (the default) and locators the
+     * browser can resolve, that is one script after the wait for the button instead of a command per field and key.
+     */
+    protected void fillAndSubmit(LinkedHashMap<By, String> fields, By submit) {
+        List<Object> batch = Config.get(BATCH_ENABLED) ? batch(fields) : null;
+        String[] submitTarget = SmartWait.browserLocator(submit);
+        if (batch != null && submitTarget != null) {
+            // The button is the last thing on the form to become usable, so waiting for it covers the fields as well.
+            wait.clickable(submit);
+            Object refused = ((JavascriptExecutor) driver).executeScript(FILL_AND_SUBMIT, batch, Arrays.asList(submitTarget));
+            forgetElements();
+            if (refused == null) {
+                return;
+            }
+            // Nothing was touched; do it the slow way, which goes through the same paths a user's keystrokes would.
+            log.debug("Batched fill refused ({}); typing field by field", refused);
+        }
+        for (Map.Entry<By, String> field : fields.entrySet()) {
+            type(field.getKey(), field.getValue());
+        }
+        click(submit);
+    }
+
+    /**
+     * Runs a page action and records its duration and WebDriver command count as "Page.action" in Telemetry.
+     */
+    protected <T> T action(String name, Supplier<T> body) {
+        long commandsBefore = Telemetry.threadCalls(Telemetry.Layer.UI);
+        long started = System.nanoTime();
+        try {
+            return body.get();
+        } finally {
+            Telemetry.recordPageAction(getClass().getSimpleName() + "." + name,
+                    Telemetry.threadCalls(Telemetry.Layer.UI) - commandsBefore, System.nanoTime() - started);
+        }
+    }
+
+    protected void action(String name, Runnable body) {
+        action(name, () -> {
+            body.run();
+            return null;
+        });
+    }
+
+    /**
+     * Drops cached elements; call it after anything that replaces the page's DOM outside {@link #click}.
+     */
+    protected void forgetElements() {
+        elements.clear();
+    }
+
+    private <T> T withElement(By locator, boolean clickable, Function<WebElement, T> use) {
+        Cached cached = elements.get(locator);
+        // Found by a visible() lookup only says nothing about clickable: that wait still has to run.
+        WebElement element = cached != null && (cached.clickable || !clickable) ? cached.element : resolve(locator, clickable);
+        try {
+            return use.apply(element);
+        } catch (StaleElementReferenceException e) {
+            // The node was re-rendered since it was cached. One fresh lookup; a second stale means the page is still
+            // churning and the caller should see it.
+            elements.remove(locator);
+            return use.apply(resolve(locator, clickable));
+        }
+    }
+
+    private WebElement resolve(By locator, boolean clickable) {
+        WebElement element = clickable ? wait.clickable(locator) : wait.visible(locator);
+        elements.put(locator, new Cached(element, clickable));
+        return element;
+    }
+
+    // {using, value, text} per field, or null when a locator has no browser-side equivalent.
+    private static List<Object> batch(LinkedHashMap<By, String> fields) {
+        List<Object> batch = new ArrayList<>();
+        for (Map.Entry<By, String> field : fields.entrySet()) {
+            String[] target = SmartWait.browserLocator(field.getKey());
+            if (target == null) {
+                return null;
+            }
+            batch.add(Arrays.asList(target[0], target[1], field.getValue()));
+        }
+        return batch;
+    }
+
+    private static final class Cached {
+        final WebElement element;
+        // Resolved through the clickable wait, which implies visible.
+        final boolean clickable;
+
+        Cached(WebElement element, boolean clickable) {
+            this.element = element;
+            this.clickable = clickable;
+        }
+    }
+}
@@ -3,8 +3,11 @@ package pages;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 
-public class LoginPage {
-    private final WebDriver driver;
+import java.util.LinkedHashMap;
+
+public class LoginPage extends BasePage {
+    // Every interaction waits for its element in the browser and proceeds the moment it is ready;
+    // there is no implicit wait behind findElement any more.
 
     // Using stable IDs where possible. For the login button, a specific CSS hierarchy
     // is required to avoid collision with other 'submit' buttons on the landing page.
@@ -14,37 +17,37 @@ public class LoginPage {
     private final By secureAreaFlashMessage = By.id("flash");
 
     public LoginPage(WebDriver driver) {
-        this.driver = driver;
+        super(driver);
     }
 
     public void enterUsername(String username) {
-        driver.findElement(usernameField).sendKeys(username);
+        action("enterUsername", () -> type(usernameField, username));
     }
 
     public void enterPassword(String password) {
-        driver.findElement(passwordField).sendKeys(password);
+        action("enterPassword", () -> type(passwordField, password));
     }
 
     public void clickLoginButton() {
-        // Simple click is often enough, but if the UI gets laggy,
-        // we might need an explicit 'elementToBeClickable' wait here.
-        driver.findElement(loginButton).click();
+        action("clickLoginButton", () -> click(loginButton));
     }
 
     /**
      * Orchestrating the full auth sequence.
      * Decoupling the login logic from the test steps ensures that changes in
      * the auth flow (e.g., adding a 2FA step) only require a single fix here.
+     * Both fields and the button go in one batch: a wait for the button, then a single script.
      */
     public void login(String username, String password) {
-        enterUsername(username);
-        enterPassword(password);
-        clickLoginButton();
+        LinkedHashMap<By, String> credentials = new LinkedHashMap<>();
+        credentials.put(usernameField, username);
+        credentials.put(passwordField, password);
+        action("login", () -> fillAndSubmit(credentials, loginButton));
     }
 
     public String getFlashMessageText() {
         // Flash messages are often dynamic or time-sensitive (fade out).
-        // We fetch the text immediately to avoid 'StaleElementReferenceException'.
-        return driver.findElement(secureAreaFlashMessage).getText();
+        // The wait hands back the element it found, so the text is read immediately from that same node.
+        return action("getFlashMessageText", () -> text(secureAreaFlashMessage));
     }
-}
\ No newline at end of file
+}
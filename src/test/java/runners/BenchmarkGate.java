@@ -0,0 +1,255 @@
+package runners;
+
+import core.Config;
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Compares a JMH JSON result with the previous run and fails on measured regressions:
+ * <pre>
+ *   java -cp ... runners.BenchmarkGate target/jmh-result.json bench/baseline.json
+ * </pre>
+ * The 'bench' Maven profile runs it after the benchmarks. A benchmark regresses when its score got worse by more than
+ * bench.regression.percent <em>and</em> by more than the two runs' error margins combined, so run-to-run noise does
+ * not fail the build. Allocation per operation (gc.alloc.rate.norm from -prof gc) is nearly deterministic and is gated
+ * separately at bench.alloc.regression.percent. A passing result becomes the new baseline; a failing one leaves the
+ * old baseline in place, so the next run is still measured against the last good one.
+ */
+public final class BenchmarkGate {
+
+    static final Config.Key<Double> SCORE_TOLERANCE = Config.doubleKey("bench.regression.percent", 10.0);
+    static final Config.Key<Double> ALLOC_TOLERANCE = Config.doubleKey("bench.alloc.regression.percent", 5.0);
+
+    private static final String ALLOC_METRIC = "gc.alloc.rate.norm";
+    // Below this many bytes per op a "regression" is one boxed value or one iterator; not worth failing a build over.
+    private static final double ALLOC_FLOOR_BYTES = 16;
+
+    private final Json json = new Json();
+    private final double scoreTolerance;
+    private final double allocTolerance;
+
+    public BenchmarkGate() {
+        this(Config.get(SCORE_TOLERANCE), Config.get(ALLOC_TOLERANCE));
+    }
+
+    public BenchmarkGate(double scoreTolerancePercent, double allocTolerancePercent) {
+        this.scoreTolerance = scoreTolerancePercent / 100.0;
+        this.allocTolerance = allocTolerancePercent / 100.0;
+    }
+
+    public static void main(String[] args) throws IOException {
+        // Failures are thrown, never System.exit(): the 'bench' profile runs this inside the Maven JVM (exec:java),
+        // where an exception fails the build with the message and an exit would kill Maven itself.
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: BenchmarkGate <result json> <baseline json>");
+        }
+        Path result = Paths.get(args[0]);
+        Path baseline = Paths.get(args[1]);
+        if (!Files.isRegularFile(result)) {
+            throw new RuntimeException("Benchmark Gate Failure: no JMH result at " + result + ". Termination required.");
+        }
+        if (!Files.isRegularFile(baseline)) {
+            promote(result, baseline);
+            System.out.println("BENCHMARK GATE: no baseline yet; this run is now the baseline at " + baseline);
+            return;
+        }
+        Report report = new BenchmarkGate().compare(baseline, result);
+        System.out.println(report);
+        if (!report.isPassed()) {
+            throw new RuntimeException("Benchmark Gate Failure: regressions against " + baseline
+                    + " (kept as the baseline; fix the regression or delete it to re-baseline).");
+        }
+        promote(result, baseline);
+    }
+
+    private static void promote(Path result, Path baseline) throws IOException {
+        if (baseline.getParent() != null) {
+            Files.createDirectories(baseline.getParent());
+        }
+        Files.copy(result, baseline, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public Report compare(Path baseline, Path current) throws IOException {
+        return compare(read(baseline), read(current));
+    }
+
+    /**
+     * Matches benchmarks by name plus parameter values; anything only on one side is reported, never failed.
+     */
+    public Report compare(List<Map<String, Object>> baseline, List<Map<String, Object>> current) {
+        Map<String, Map<String, Object>> before = index(baseline);
+        Report report = new Report();
+        for (Map.Entry<String, Map<String, Object>> entry : index(current).entrySet()) {
+            Map<String, Object> was = before.remove(entry.getKey());
+            if (was == null) {
+                report.added.add(entry.getKey());
+                continue;
+            }
+            Map<String, Object> now = entry.getValue();
+            if (!Objects.equals(was.get("jdkVersion"), now.get("jdkVersion"))) {
+                report.warnings.add(entry.getKey() + ": baseline ran on JDK " + was.get("jdkVersion") + ", this run on "
+                        + now.get("jdkVersion") + "; scores may not be comparable");
+            }
+            compareScore(report, entry.getKey(), String.valueOf(now.get("mode")), metric(was), metric(now));
+            compareAllocation(report, entry.getKey(), allocation(was), allocation(now));
+        }
+        report.removed.addAll(before.keySet());
+        return report;
+    }
+
+    private void compareScore(Report report, String name, String mode, Map<String, Object> was, Map<String, Object> now) {
+        if (was == null || now == null) {
+            return;
+        }
+        double before = number(was.get("score"));
+        double after = number(now.get("score"));
+        // Throughput: higher is better. avgt, sample and ss all measure time per op: lower is better.
+        double worse = "thrpt".equals(mode) ? before - after : after - before;
+        double relative = before == 0 ? 0 : worse / before;
+        double noise = error(was) + error(now);
+        String line = String.format("%s [%s]: %.3f -> %.3f %s (%+.1f%%)", name, mode, before, after,
+                now.get("scoreUnit"), before == 0 ? 0 : 100 * (after - before) / before);
+        if (relative > scoreTolerance && worse > noise) {
+            report.regressions.add(line);
+        } else if (-relative > scoreTolerance && -worse > noise) {
+            report.improvements.add(line);
+        }
+    }
+
+    private void compareAllocation(Report report, String name, Map<String, Object> was, Map<String, Object> now) {
+        if (was == null || now == null) {
+            return;
+        }
+        double before = number(was.get("score"));
+        double after = number(now.get("score"));
+        double grew = after - before;
+        if (grew > ALLOC_FLOOR_BYTES && grew > before * allocTolerance) {
+            report.regressions.add(String.format("%s: allocation %.0f -> %.0f B/op", name, before, after));
+        }
+    }
+
+    private List<Map<String, Object>> read(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return json.toType(reader, Json.LIST_OF_MAPS_TYPE);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Map<String, Object>> index(List<Map<String, Object>> results) {
+        Map<String, Map<String, Object>> byName = new LinkedHashMap<>();
+        for (Map<String, Object> result : results) {
+            String name = String.valueOf(result.get("benchmark"));
+            Object params = result.get("params");
+            if (params instanceof Map && !((Map<String, Object>) params).isEmpty()) {
+                name += new TreeMap<>((Map<String, Object>) params);
+            }
+            byName.put(name, result);
+        }
+        return byName;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> metric(Map<String, Object> result) {
+        return (Map<String, Object>) result.get("primaryMetric");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> allocation(Map<String, Object> result) {
+        Object secondary = result.get("secondaryMetrics");
+        if (!(secondary instanceof Map)) {
+            return null;
+        }
+        // JMH before 1.35 prefixed profiler metrics with a middle dot ("·gc.alloc.rate.norm").
+        for (Map.Entry<String, Object> entry : ((Map<String, Object>) secondary).entrySet()) {
+            if (entry.getKey().replace("·", "").equals(ALLOC_METRIC)) {
+                return (Map<String, Object>) entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static double error(Map<String, Object> metric) {
+        // Single-iteration runs report NaN, which JSON writes as a string.
+        double error = number(metric.get("scoreError"));
+        return Double.isNaN(error) ? 0 : error;
+    }
+
+    private static double number(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        try {
+            return Double.parseDouble(String.valueOf(value));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Outcome of one comparison. Only regressions fail the gate.
+     */
+    public static final class Report {
+        private final List<String> regressions = new ArrayList<>();
+        private final List<String> improvements = new ArrayList<>();
+        private final List<String> added = new ArrayList<>();
+        private final List<String> removed = new ArrayList<>();
+        private final List<String> warnings = new ArrayList<>();
+
+        public boolean isPassed() {
+            return regressions.isEmpty();
+        }
+
+        public List<String> getRegressions() {
+            return regressions;
+        }
+
+        public List<String> getImprovements() {
+            return improvements;
+        }
+
+        public List<String> getAdded() {
+            return added;
+        }
+
+        public List<String> getRemoved() {
+            return removed;
+        }
+
+        public List<String> getWarnings() {
+            return warnings;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder("BENCHMARK GATE: ").append(isPassed() ? "PASSED" : "FAILED")
+                    .append(" (").append(regressions.size()).append(" regressions, ")
+                    .append(improvements.size()).append(" improvements, ")
+                    .append(added.size()).append(" new, ").append(removed.size()).append(" removed)");
+            append(out, "REGRESSION", regressions);
+            append(out, "improved", improvements);
+            append(out, "new", added);
+            append(out, "removed", removed);
+            append(out, "WARNING", warnings);
+            return out.toString();
+        }
+
+        private static void append(StringBuilder out, String label, List<String> lines) {
+            for (String line : lines) {
+                out.append("\n  ").append(label).append(": ").append(line);
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package runners;
+
+import org.openqa.selenium.json.Json;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Regression rules of the benchmark gate, fed with JMH-shaped JSON. No benchmarks are run here.
+ */
+public class BenchmarkGateTests {
+
+    private final BenchmarkGate gate = new BenchmarkGate(10, 5);
+
+    @Test
+    public void testSlowerBeyondToleranceAndNoiseFails() {
+        BenchmarkGate.Report report = gate.compare(
+                List.of(result("bench.DbBenchmarks.query", "avgt", 10.0, 0.3, 2_000)),
+                List.of(result("bench.DbBenchmarks.query", "avgt", 12.0, 0.3, 2_000)));
+
+        Assert.assertFalse(report.isPassed());
+        Assert.assertEquals(report.getRegressions().size(), 1, report.toString());
+        Assert.assertTrue(report.getRegressions().get(0).contains("+20.0%"), report.toString());
+    }
+
+    @Test
+    public void testChangeWithinErrorMarginPasses() {
+        // 20% slower on paper, but both runs are +-1.5: the intervals overlap, so it is noise.
+        BenchmarkGate.Report report = gate.compare(
+                List.of(result("bench.ConfigBenchmarks.typedKey", "avgt", 10.0, 1.5, 0)),
+                List.of(result("bench.ConfigBenchmarks.typedKey", "avgt", 12.0, 1.5, 0)));
+
+        Assert.assertTrue(report.isPassed(), report.toString());
+    }
+
+    @Test
+    public void testThroughputDirectionIsReversed() {
+        BenchmarkGate.Report report = gate.compare(
+                List.of(result("bench.X.ops", "thrpt", 1_000, 10, 0)),
+                List.of(result("bench.X.ops", "thrpt", 1_500, 10, 0)));
+
+        Assert.assertTrue(report.isPassed(), report.toString());
+        Assert.assertEquals(report.getImprovements().size(), 1, report.toString());
+    }
+
+    @Test
+    public void testAllocationGrowthFailsEvenWhenFaster() {
+        BenchmarkGate.Report report = gate.compare(
+                List.of(result("bench.BookingPayloadBenchmarks.build", "avgt", 100, 2, 480)),
+                List.of(result("bench.BookingPayloadBenchmarks.build", "avgt", 95, 2, 960)));
+
+        Assert.assertFalse(report.isPassed());
+        Assert.assertTrue(report.getRegressions().get(0).contains("allocation 480 -> 960"), report.toString());
+    }
+
+    @Test
+    public void testTinyAllocationGrowthIsIgnored() {
+        BenchmarkGate.Report report = gate.compare(
+                List.of(result("bench.ConfigBenchmarks.missingKey", "avgt", 50, 1, 24)),
+                List.of(result("bench.ConfigBenchmarks.missingKey", "avgt", 50, 1, 40)));
+
+        Assert.assertTrue(report.isPassed(), report.toString());
+    }
+
+    @Test
+    public void testParamsSeparateBenchmarksAndNewOnesNeverFail() {
+        Map<String, Object> small = result("bench.DbBenchmarks.query", "avgt", 10, 0.1, 0);
+        small.put("params", Map.of("rows", "1"));
+        Map<String, Object> large = result("bench.DbBenchmarks.query", "avgt", 500, 1, 0);
+        large.put("params", Map.of("rows", "100"));
+
+        BenchmarkGate.Report report = gate.compare(List.of(small, large),
+                Arrays.asList(large, small, result("bench.DbBenchmarks.insert", "avgt", 1_000, 1, 0)));
+
+        Assert.assertTrue(report.isPassed(), report.toString());
+        Assert.assertEquals(report.getAdded(), List.of("bench.DbBenchmarks.insert"));
+        Assert.assertTrue(report.getRemoved().isEmpty());
+    }
+
+    @Test
+    public void testReadsJmhJsonFiles() throws IOException {
+        Path dir = Files.createTempDirectory("bench-gate");
+        Path baseline = dir.resolve("baseline.json");
+        Path current = dir.resolve("result.json");
+        Map<String, Object> before = result("bench.DbBenchmarks.update", "avgt", 20, 0.5, 900);
+        // JMH writes a NaN error for single-iteration runs as a string.
+        Map<String, Object> after = result("bench.DbBenchmarks.update", "avgt", 20.2, "NaN", 900);
+        Files.write(baseline, new Json().toJson(List.of(before)).getBytes(StandardCharsets.UTF_8));
+        Files.write(current, new Json().toJson(List.of(after)).getBytes(StandardCharsets.UTF_8));
+
+        BenchmarkGate.Report report = gate.compare(baseline, current);
+
+        Assert.assertTrue(report.isPassed(), report.toString());
+        Assert.assertTrue(report.getAdded().isEmpty() && report.getRemoved().isEmpty(), report.toString());
+    }
+
+    @Test
+    public void testRegressionFailsByThrowingAndKeepsTheBaseline() throws IOException {
+        Path dir = Files.createTempDirectory("bench-gate");
+        Path baseline = dir.resolve("baseline.json");
+        Path current = dir.resolve("result.json");
+        Files.write(baseline, new Json().toJson(List.of(result("bench.DbBenchmarks.update", "avgt", 20, 0.5, 900)))
+                .getBytes(StandardCharsets.UTF_8));
+        Files.write(current, new Json().toJson(List.of(result("bench.DbBenchmarks.update", "avgt", 40, 0.5, 900)))
+                .getBytes(StandardCharsets.UTF_8));
+        byte[] kept = Files.readAllBytes(baseline);
+
+        // Under exec:java an exit here would take the Maven JVM down with it.
+        Assert.expectThrows(RuntimeException.class, () -> BenchmarkGate.main(new String[]{current.toString(), baseline.toString()}));
+        Assert.assertEquals(Files.readAllBytes(baseline), kept, "A failing run must not become the baseline.");
+    }
+
+    private static Map<String, Object> result(String benchmark, String mode, double score, Object error, double allocBytes) {
+        Map<String, Object> primary = new LinkedHashMap<>();
+        primary.put("score", score);
+        primary.put("scoreError", error);
+        primary.put("scoreUnit", "thrpt".equals(mode) ? "ops/s" : "us/op");
+        Map<String, Object> alloc = new LinkedHashMap<>();
+        alloc.put("score", allocBytes);
+        alloc.put("scoreError", 0.0);
+        alloc.put("scoreUnit", "B/op");
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("jmhVersion", "1.37");
+        result.put("benchmark", benchmark);
+        result.put("mode", mode);
+        result.put("jdkVersion", "17.0.12");
+        result.put("primaryMetric", primary);
+        result.put("secondaryMetrics", Map.of("gc.alloc.rate.norm", alloc));
+        return result;
+    }
+}
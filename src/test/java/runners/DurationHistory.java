@@ -0,0 +1,122 @@
+package runners;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-id durations from previous runs, kept as an exponentially weighted moving average in a small properties file
+ * (milliseconds), so one outlier run doesn't dominate. Shared by the scenario scheduler and the shard planner.
+ *
+ * Shard runs must all plan from the same history, so they don't write to it: each shard leaves its raw durations in a
+ * deferred file next to its reports, and {@link ShardReportMerger} folds them in once every shard has finished.
+ */
+final class DurationHistory {
+
+    // Weight of the newest run in the moving average.
+    private static final double ALPHA = 0.5;
+
+    private static final String COMMENT = "Durations in ms (moving average) used to order and shard the suite. Safe to delete.";
+
+    private final Path file;
+    private final Path deferredFile;
+    private final Map<String, Long> nanos = new ConcurrentHashMap<>();
+
+    /**
+     * @param deferredFile where this run's durations go instead of {@code file} (shard mode), or null
+     */
+    DurationHistory(Path file, Path deferredFile) {
+        this.file = file;
+        this.deferredFile = deferredFile;
+        nanos.putAll(read(file));
+    }
+
+    /**
+     * Recorded duration in nanoseconds, or null if this id has never run.
+     */
+    Long get(String id) {
+        return nanos.get(id);
+    }
+
+    Path file() {
+        return file;
+    }
+
+    /**
+     * Order-independent digest of the recorded values. Shards that plan from different histories would partition
+     * differently (and run some tests twice, others never), so each shard prints this for comparison.
+     */
+    String fingerprint() {
+        return Integer.toHexString(new TreeMap<>(nanos).toString().hashCode());
+    }
+
+    /**
+     * Folds one run's durations into the history and writes it back (or into the deferred file, in shard mode).
+     */
+    synchronized void record(Map<String, Long> actuals) {
+        if (actuals.isEmpty()) {
+            return;
+        }
+        if (deferredFile != null) {
+            Map<String, Long> pending = read(deferredFile);
+            pending.putAll(actuals);
+            write(deferredFile, pending);
+            return;
+        }
+        // Re-read first: another JVM on this machine may have saved since we loaded, and its entries should survive.
+        nanos.putAll(read(file));
+        actuals.forEach((id, now) -> nanos.merge(id, now, (old, latest) -> (long) (ALPHA * latest + (1 - ALPHA) * old)));
+        write(file, nanos);
+    }
+
+    /**
+     * Folds the durations a shard deferred (see {@link #record}) into this history. Missing files are ignored.
+     */
+    void absorb(Path deferred) {
+        record(read(deferred));
+    }
+
+    private static Map<String, Long> read(Path file) {
+        Map<String, Long> loaded = new TreeMap<>();
+        if (!Files.isRegularFile(file)) {
+            return loaded;
+        }
+        Properties stored = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            stored.load(in);
+            for (String id : stored.stringPropertyNames()) {
+                loaded.put(id, Long.parseLong(stored.getProperty(id).trim()) * 1_000_000L);
+            }
+        } catch (IOException | NumberFormatException e) {
+            // A corrupt history only costs us the ordering, never the run.
+            System.err.println("SCHEDULER WARNING: ignoring unreadable history " + file + ": " + e.getMessage());
+            loaded.clear();
+        }
+        return loaded;
+    }
+
+    private static void write(Path file, Map<String, Long> nanos) {
+        Properties stored = new Properties();
+        nanos.forEach((id, value) -> stored.setProperty(id, Long.toString(value / 1_000_000L)));
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            // Write-then-move so a parallel shard reading the file never sees it half written.
+            Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), "durations", ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                stored.store(out, COMMENT);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("SCHEDULER WARNING: could not write history " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package runners;
+
+import core.Config;
+import io.cucumber.tagexpressions.Expression;
+import io.cucumber.tagexpressions.TagExpressionParser;
+import io.cucumber.testng.Pickle;
+import io.cucumber.testng.PickleWrapper;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Orders scenarios by expected cost so the slow ones start first instead of trailing at the end of the run.
+ *
+ * Durations from previous runs come from a {@link DurationHistory} file. {@link #plan} simulates the workers: each free worker takes the longest remaining scenario whose tag
+ * limits still have room (longest-processing-time first, the classic makespan heuristic). Workers pull in the
+ * planned order, and {@link #run} enforces the same tag limits for real. {@link #finish} compares the predicted
+ * makespan with the actual one and updates the history.
+ */
+final class ScenarioScheduler {
+
+    private static final Config.Key<Boolean> ENABLED = Config.booleanKey("runner.scheduler.enabled", true);
+    static final Config.Key<String> HISTORY_FILE = Config.stringKey("runner.history.file", ".cache/scenario-durations.properties");
+    private static final Config.Key<String> TAG_LIMITS = Config.stringKey("runner.tag.limits", "@ui or @e2e:4");
+    private static final Config.Key<Duration> DEFAULT_ESTIMATE = Config.durationKey("runner.history.default.ms",
+            ChronoUnit.MILLIS, Duration.ofSeconds(5));
+
+    private final DurationHistory history;
+    private final List<Limit> limits;
+    private final boolean enabled;
+    private final long defaultEstimateNanos;
+    private final Map<String, Long> actuals = new ConcurrentHashMap<>();
+    private final AtomicLong firstStart = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong lastEnd = new AtomicLong(Long.MIN_VALUE);
+    private volatile long predictedMakespanNanos;
+    private volatile int plannedWorkers;
+
+    ScenarioScheduler(DurationHistory history, List<Limit> limits, boolean enabled, Duration defaultEstimate) {
+        this.history = history;
+        this.limits = limits;
+        this.enabled = enabled;
+        this.defaultEstimateNanos = defaultEstimate.toNanos();
+    }
+
+    static ScenarioScheduler fromConfig(Sharding sharding) {
+        return new ScenarioScheduler(sharding.history(Paths.get(Config.get(HISTORY_FILE))), parseLimits(Config.get(TAG_LIMITS)),
+                Config.get(ENABLED), Config.get(DEFAULT_ESTIMATE));
+    }
+
+    /**
+     * "tag expression:max, tag expression:max", e.g. "@ui or @e2e:4, @db:8". Tags without a limit are unbounded.
+     */
+    static List<Limit> parseLimits(String spec) {
+        List<Limit> parsed = new ArrayList<>();
+        if (spec == null || spec.trim().isEmpty()) {
+            return parsed;
+        }
+        for (String entry : spec.split(",")) {
+            // The last colon: tags may contain colons themselves (@env:prod:2).
+            int colon = entry.lastIndexOf(':');
+            String expression = colon < 0 ? "" : entry.substring(0, colon).trim();
+            if (expression.isEmpty()) {
+                throw new IllegalArgumentException("Tag limit '" + entry.trim() + "' must look like '<tag expression>:<max>'");
+            }
+            int max;
+            try {
+                max = Integer.parseInt(entry.substring(colon + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Tag limit '" + entry.trim() + "' must end in a whole number", e);
+            }
+            parsed.add(new Limit(expression, max));
+        }
+        return parsed;
+    }
+
+    /**
+     * Reorders data-provider rows ({PickleWrapper, FeatureWrapper}) into the dispatch order of the simulated schedule.
+     * With scheduling disabled the feature-file order is kept, but durations are still recorded.
+     */
+    Object[][] plan(Object[][] rows, int workers) {
+        List<Job> pending = jobsOf(rows);
+        plannedWorkers = workers;
+        if (!enabled) {
+            predictedMakespanNanos = simulate(new ArrayList<>(pending), workers, false, new ArrayList<>());
+            return rows;
+        }
+        List<Job> order = new ArrayList<>();
+        predictedMakespanNanos = simulate(pending, workers, true, order);
+        Object[][] planned = new Object[order.size()][];
+        for (int i = 0; i < order.size(); i++) {
+            planned[i] = order.get(i).row;
+        }
+        System.out.printf("SCHEDULER: %d scenarios on %d workers, longest first; predicted makespan %.1fs%n",
+                planned.length, workers, predictedMakespanNanos / 1e9);
+        return planned;
+    }
+
+    /**
+     * Keeps this JVM's share of the scenarios. Weights are the same estimates {@link #plan} uses, so every shard
+     * gets roughly the same predicted wall time rather than the same number of scenarios.
+     */
+    Object[][] shard(Object[][] rows, Sharding sharding) {
+        if (!sharding.isActive()) {
+            return rows;
+        }
+        List<Job> jobs = jobsOf(rows);
+        String[] ids = new String[jobs.size()];
+        long[] weights = new long[jobs.size()];
+        for (int i = 0; i < jobs.size(); i++) {
+            ids[i] = idOf(((PickleWrapper) jobs.get(i).row[0]).getPickle());
+            weights[i] = jobs.get(i).estimateNanos;
+        }
+        boolean[] mine = sharding.select(ids, weights);
+        List<Object[]> kept = new ArrayList<>();
+        long keptNanos = 0;
+        for (int i = 0; i < mine.length; i++) {
+            if (mine[i]) {
+                kept.add(jobs.get(i).row);
+                keptNanos += weights[i];
+            }
+        }
+        System.out.printf("SHARD %s: %d of %d scenarios, predicted %.1fs of work (history %s @ %s)%n",
+                sharding, kept.size(), rows.length, keptNanos / 1e9, history.file(), history.fingerprint());
+        return kept.toArray(new Object[0][]);
+    }
+
+    /**
+     * Runs one scenario inside its tag limits and records how long it took.
+     */
+    void run(Pickle pickle, Runnable scenario) {
+        List<Limit> held = matchingLimits(pickle.getTags());
+        // Always acquire in declaration order so two scenarios sharing limits can't deadlock each other.
+        int acquired = 0;
+        try {
+            for (Limit limit : held) {
+                limit.permits.acquireUninterruptibly();
+                acquired++;
+            }
+            long start = System.nanoTime();
+            firstStart.accumulateAndGet(start, Math::min);
+            try {
+                scenario.run();
+            } finally {
+                long end = System.nanoTime();
+                lastEnd.accumulateAndGet(end, Math::max);
+                actuals.put(idOf(pickle), end - start);
+            }
+        } finally {
+            for (int i = 0; i < acquired; i++) {
+                held.get(i).permits.release();
+            }
+        }
+    }
+
+    /**
+     * Folds this run's durations into the history and reports predicted vs actual makespan.
+     */
+    void finish() {
+        if (actuals.isEmpty()) {
+            return;
+        }
+        history.record(actuals);
+        long actual = lastEnd.get() - firstStart.get();
+        long busy = actuals.values().stream().mapToLong(Long::longValue).sum();
+        System.out.printf("SCHEDULER: %d scenarios, predicted makespan %.1fs, actual %.1fs (%+.0f%%), "
+                        + "worker utilisation %.0f%% of %d, history -> %s%n",
+                actuals.size(), predictedMakespanNanos / 1e9, actual / 1e9,
+                predictedMakespanNanos == 0 ? 0 : (actual - predictedMakespanNanos) * 100.0 / predictedMakespanNanos,
+                actual == 0 || plannedWorkers == 0 ? 0 : busy * 100.0 / ((double) actual * plannedWorkers),
+                plannedWorkers, history.file());
+        actuals.clear();
+    }
+
+    long predictedMakespanNanos() {
+        return predictedMakespanNanos;
+    }
+
+    private List<Job> jobsOf(Object[][] rows) {
+        List<Job> jobs = new ArrayList<>();
+        for (Object[] row : rows) {
+            Pickle pickle = ((PickleWrapper) row[0]).getPickle();
+            jobs.add(new Job(row, history.get(idOf(pickle)), matchingLimits(pickle.getTags())));
+        }
+        estimateUnknown(jobs);
+        return jobs;
+    }
+
+    /**
+     * Event-driven list scheduling: whenever a worker frees up it takes the first eligible job from
+     * {@code pending} (sorted longest first when {@code longestFirst}). Returns the makespan and fills
+     * {@code order} with jobs in start order.
+     */
+    private long simulate(List<Job> pending, int workers, boolean longestFirst, List<Job> order) {
+        if (longestFirst) {
+            pending.sort(Comparator.comparingLong((Job j) -> j.estimateNanos).reversed());
+        }
+        long[] freeAt = new long[Math.max(1, workers)];
+        List<long[]> running = new ArrayList<>();
+        List<List<Limit>> runningLimits = new ArrayList<>();
+        long makespan = 0;
+        while (!pending.isEmpty()) {
+            int worker = 0;
+            for (int w = 1; w < freeAt.length; w++) {
+                if (freeAt[w] < freeAt[worker]) {
+                    worker = w;
+                }
+            }
+            long now = freeAt[worker];
+            for (int i = running.size() - 1; i >= 0; i--) {
+                if (running.get(i)[0] <= now) {
+                    running.remove(i);
+                    runningLimits.remove(i);
+                }
+            }
+            Job next = null;
+            for (Job job : pending) {
+                if (fits(job, runningLimits)) {
+                    next = job;
+                    break;
+                }
+            }
+            if (next == null) {
+                // Every remaining job is blocked by a tag limit; this worker idles until the next one finishes.
+                long wakeUp = Long.MAX_VALUE;
+                for (long[] end : running) {
+                    wakeUp = Math.min(wakeUp, end[0]);
+                }
+                freeAt[worker] = wakeUp;
+                continue;
+            }
+            pending.remove(next);
+            long end = now + next.estimateNanos;
+            freeAt[worker] = end;
+            running.add(new long[]{end});
+            runningLimits.add(next.limits);
+            order.add(next);
+            makespan = Math.max(makespan, end);
+        }
+        return makespan;
+    }
+
+    private static boolean fits(Job job, List<List<Limit>> runningLimits) {
+        for (Limit limit : job.limits) {
+            int inUse = 0;
+            for (List<Limit> held : runningLimits) {
+                if (held.contains(limit)) {
+                    inUse++;
+                }
+            }
+            if (inUse >= limit.max) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<Limit> matchingLimits(List<String> tags) {
+        List<Limit> matching = new ArrayList<>();
+        for (Limit limit : limits) {
+            if (limit.expression.evaluate(tags)) {
+                matching.add(limit);
+            }
+        }
+        return matching;
+    }
+
+    /**
+     * Scenarios without history are assumed to cost as much as the average known scenario under the same
+     * limits (so a new browser test is estimated like the other browser tests), else the configured default.
+     */
+    private void estimateUnknown(List<Job> jobs) {
+        Map<List<Limit>, long[]> sums = new HashMap<>();
+        for (Job job : jobs) {
+            if (job.estimateNanos >= 0) {
+                long[] sum = sums.computeIfAbsent(job.limits, k -> new long[2]);
+                sum[0] += job.estimateNanos;
+                sum[1]++;
+            }
+        }
+        for (Job job : jobs) {
+            if (job.estimateNanos < 0) {
+                long[] sum = sums.get(job.limits);
+                job.estimateNanos = sum == null ? defaultEstimateNanos : sum[0] / sum[1];
+            }
+        }
+    }
+
+    /**
+     * Feature path relative to the features root plus line: the same on every machine and shard checking out one
+     * commit, and it survives renaming the scenario. It does not survive edits above the scenario: inserting lines
+     * shifts the id, so that scenario runs one build on the default estimate until its history is re-recorded.
+     * The name is not used because every row of a Scenario Outline shares it.
+     */
+    static String idOf(Pickle pickle) {
+        String uri = pickle.getUri().toString();
+        int features = uri.indexOf("features/");
+        return (features >= 0 ? uri.substring(features) : uri) + ":" + pickle.getLine();
+    }
+
+    /**
+     * At most {@code max} scenarios matching {@code expression} run at the same time.
+     */
+    static final class Limit {
+        private final String source;
+        private final Expression expression;
+        private final int max;
+        private final Semaphore permits;
+
+        Limit(String source, int max) {
+            if (max < 1) {
+                throw new IllegalArgumentException("Tag limit for '" + source + "' must be at least 1, got " + max);
+            }
+            this.source = source;
+            this.expression = TagExpressionParser.parse(source);
+            this.max = max;
+            this.permits = new Semaphore(max, true);
+        }
+
+        @Override
+        public String toString() {
+            return source + ":" + max;
+        }
+    }
+
+    private static final class Job {
+        private final Object[] row;
+        private final List<Limit> limits;
+        // -1 until estimated.
+        private long estimateNanos;
+
+        private Job(Object[] row, Long knownNanos, List<Limit> limits) {
+            this.row = row;
+            this.estimateNanos = knownNanos == null ? -1 : knownNanos;
+            this.limits = limits;
+        }
+    }
+}
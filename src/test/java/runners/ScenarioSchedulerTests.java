@@ -0,0 +1,151 @@
+package runners;
+
+import io.cucumber.testng.Pickle;
+import io.cucumber.testng.PickleWrapper;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Planning, tag limits and history upkeep of the scheduler, on stub pickles; no scenario is executed.
+ */
+public class ScenarioSchedulerTests {
+
+    @Test
+    public void testLimitsSplitOnTheLastColon() {
+        List<ScenarioScheduler.Limit> limits = ScenarioScheduler.parseLimits("@env:prod:2, @ui or @e2e:4");
+
+        Assert.assertEquals(limits.toString(), "[@env:prod:2, @ui or @e2e:4]");
+        Assert.assertTrue(ScenarioScheduler.parseLimits("  ").isEmpty());
+    }
+
+    @Test
+    public void testMalformedLimitsAreRejected() {
+        for (String spec : Arrays.asList("@ui", "@ui:many", "@ui:0", ":3", "@ui:2,,@db:1")) {
+            Assert.expectThrows(IllegalArgumentException.class, () -> ScenarioScheduler.parseLimits(spec));
+        }
+    }
+
+    @Test
+    public void testLongestFirstRespectsTagCaps() throws Exception {
+        Path history = history("features/booking.feature:1=10000", "features/booking.feature:2=9000",
+                "features/booking.feature:3=1000", "features/booking.feature:4=2000");
+        Object[][] rows = {StubPickles.row(1, "@ui"), StubPickles.row(2, "@ui"),
+                StubPickles.row(3, "@api"), StubPickles.row(4, "@api")};
+
+        ScenarioScheduler capped = scheduler(history, "@ui:1");
+        Object[][] planned = capped.plan(rows, 2);
+        // Only one @ui at a time: the second browser scenario waits for the first, the API ones fill the gap.
+        Assert.assertEquals(lines(planned), List.of(1, 4, 3, 2));
+        Assert.assertEquals(capped.predictedMakespanNanos(), Duration.ofSeconds(19).toNanos());
+
+        ScenarioScheduler free = scheduler(history, "");
+        Assert.assertEquals(lines(free.plan(rows, 2)), List.of(1, 2, 4, 3));
+        Assert.assertEquals(free.predictedMakespanNanos(), Duration.ofSeconds(11).toNanos());
+    }
+
+    @Test
+    public void testUnknownScenarioIsEstimatedLikeItsPeers() throws Exception {
+        Path history = history("features/booking.feature:1=8000", "features/booking.feature:2=4000");
+        Object[][] rows = {StubPickles.row(1, "@ui"), StubPickles.row(2, "@ui"),
+                StubPickles.row(3, "@ui"), StubPickles.row(4, "@api")};
+
+        Object[][] planned = scheduler(history, "@ui:4").plan(rows, 1);
+
+        // Line 3 has no history: the @ui average (6 s) puts it between the known @ui scenarios; @api gets the 5 s default.
+        Assert.assertEquals(lines(planned), List.of(1, 3, 4, 2));
+    }
+
+    @Test
+    public void testRunHoldsTheTagLimit() throws Exception {
+        ScenarioScheduler scheduler = scheduler(history(), "@ui:1");
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(4);
+        List<Future<?>> runs = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            Pickle pickle = StubPickles.pickle(i, "@ui");
+            runs.add(workers.submit(() -> scheduler.run(pickle, () -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(50);
+                running.decrementAndGet();
+            })));
+        }
+        for (Future<?> run : runs) {
+            run.get(10, TimeUnit.SECONDS);
+        }
+        workers.shutdown();
+
+        Assert.assertEquals(peak.get(), 1, "Two @ui scenarios ran at once under '@ui:1'.");
+    }
+
+    @Test
+    public void testFinishFoldsDurationsIntoTheHistoryFile() throws Exception {
+        Path file = history("features/booking.feature:1=1000");
+        ScenarioScheduler scheduler = scheduler(file, "");
+        scheduler.plan(new Object[][]{StubPickles.row(1), StubPickles.row(2)}, 1);
+
+        scheduler.run(StubPickles.pickle(1), () -> sleep(100));
+        scheduler.run(StubPickles.pickle(2), () -> sleep(100));
+        scheduler.finish();
+
+        Properties stored = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            stored.load(in);
+        }
+        // Moving average with the previous 1000 ms; a new scenario is stored as measured.
+        long updated = Long.parseLong(stored.getProperty("features/booking.feature:1"));
+        long added = Long.parseLong(stored.getProperty("features/booking.feature:2"));
+        Assert.assertTrue(updated >= 550 && updated < 1000, "Expected about (1000 + 100) / 2 ms, got " + updated);
+        Assert.assertTrue(added >= 100 && added < 1000, "Expected about 100 ms, got " + added);
+    }
+
+    private static ScenarioScheduler scheduler(Path history, String limits) {
+        return new ScenarioScheduler(new DurationHistory(history, null), ScenarioScheduler.parseLimits(limits), true,
+                Duration.ofSeconds(5));
+    }
+
+    private static Path history(String... entries) throws Exception {
+        // Through Properties: the ':' inside the ids has to be escaped in the file.
+        Properties stored = new Properties();
+        for (String entry : entries) {
+            int equals = entry.lastIndexOf('=');
+            stored.setProperty(entry.substring(0, equals), entry.substring(equals + 1));
+        }
+        Path file = Files.createTempDirectory("scheduler").resolve("durations.properties");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            stored.store(out, null);
+        }
+        return file;
+    }
+
+    private static List<Integer> lines(Object[][] rows) {
+        List<Integer> lines = new ArrayList<>();
+        for (Object[] row : rows) {
+            lines.add(((PickleWrapper) row[0]).getPickle().getLine());
+        }
+        return lines;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
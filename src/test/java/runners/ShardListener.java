@@ -0,0 +1,112 @@
+package runners;
+
+import core.Config;
+import io.cucumber.testng.AbstractTestNGCucumberTests;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ISuiteResult;
+import org.testng.ITestContext;
+import org.testng.ITestResult;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class-level half of shard mode: drops the TestNG classes that belong to other shards and records how long each
+ * class took, which weights the next split. Cucumber runner classes are kept on every shard because
+ * {@link TestRunner} splits their scenarios itself.
+ *
+ * Registered through META-INF/services so it applies to testng.xml runs and plain Surefire runs alike;
+ * with shard.total=1 (the default) it only records durations.
+ */
+public class ShardListener implements IMethodInterceptor, ISuiteListener {
+
+    static final Config.Key<String> HISTORY_FILE = Config.stringKey("shard.class.history.file", ".cache/class-durations.properties");
+
+    private final Sharding sharding = Sharding.fromConfig();
+    private final DurationHistory history = sharding.history(Paths.get(Config.get(HISTORY_FILE)));
+
+    @Override
+    public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+        if (!sharding.isActive()) {
+            return methods;
+        }
+        Set<Class<?>> classes = new LinkedHashSet<>();
+        for (IMethodInstance method : methods) {
+            if (!isCucumberRunner(method.getMethod().getRealClass())) {
+                classes.add(method.getMethod().getRealClass());
+            }
+        }
+        List<Class<?>> candidates = new ArrayList<>(classes);
+        String[] ids = new String[candidates.size()];
+        long[] weights = new long[candidates.size()];
+        long knownTotal = 0;
+        int known = 0;
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = candidates.get(i).getName();
+            Long recorded = history.get(ids[i]);
+            weights[i] = recorded == null ? -1 : recorded;
+            if (recorded != null) {
+                knownTotal += recorded;
+                known++;
+            }
+        }
+        // A class that has never run is assumed to be average; with no history at all every class weighs the same.
+        long unknownWeight = known == 0 ? 1 : knownTotal / known;
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] < 0) {
+                weights[i] = unknownWeight;
+            }
+        }
+
+        boolean[] mine = sharding.select(ids, weights);
+        Set<Class<?>> kept = new LinkedHashSet<>();
+        for (int i = 0; i < mine.length; i++) {
+            if (mine[i]) {
+                kept.add(candidates.get(i));
+            }
+        }
+        List<IMethodInstance> selected = new ArrayList<>();
+        for (IMethodInstance method : methods) {
+            Class<?> owner = method.getMethod().getRealClass();
+            if (kept.contains(owner) || isCucumberRunner(owner)) {
+                selected.add(method);
+            }
+        }
+        System.out.println("SHARD " + sharding + ": " + kept.size() + " of " + candidates.size() + " test classes in '"
+                + context.getName() + "' (history " + history.file() + " @ " + history.fingerprint() + ")");
+        return selected;
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        Map<String, Long> durations = new HashMap<>();
+        for (ISuiteResult result : suite.getResults().values()) {
+            ITestContext context = result.getTestContext();
+            collect(context.getPassedTests().getAllResults(), durations);
+            collect(context.getFailedTests().getAllResults(), durations);
+            collect(context.getSkippedTests().getAllResults(), durations);
+        }
+        history.record(durations);
+    }
+
+    private static void collect(Set<ITestResult> results, Map<String, Long> durations) {
+        for (ITestResult result : results) {
+            Class<?> owner = result.getMethod().getRealClass();
+            if (!isCucumberRunner(owner)) {
+                durations.merge(owner.getName(), (result.getEndMillis() - result.getStartMillis()) * 1_000_000L, Long::sum);
+            }
+        }
+    }
+
+    private static boolean isCucumberRunner(Class<?> type) {
+        return AbstractTestNGCucumberTests.class.isAssignableFrom(type);
+    }
+}
@@ -0,0 +1,158 @@
+package runners;
+
+import core.Config;
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Combines the output of N shard runs into one report:
+ * <pre>
+ *   java -cp ... runners.ShardReportMerger target/merged target/shards
+ * </pre>
+ * Each shard directory holds the {@code allure-results/} and {@code cucumber.json} written by the 'shard' Maven
+ * profile; a directory of {@code shard-*} folders is expanded. Allure results are uniquely named per test, so they are
+ * copied side by side. Cucumber JSON is merged per feature: a feature split across shards comes out as one feature
+ * with all of its scenarios, instead of N partial copies. Finally the durations each shard deferred are folded into
+ * the local history files, ready to weight the next sharded run.
+ */
+public final class ShardReportMerger {
+
+    private static final String ALLURE_RESULTS = "allure-results";
+    private static final String CUCUMBER_JSON = "cucumber.json";
+
+    private final Json json = new Json();
+    private final Map<String, Map<String, Object>> features = new LinkedHashMap<>();
+    private final Set<String> scenarioKeys = new HashSet<>();
+    private int allureFiles;
+    private int scenarios;
+    private int duplicates;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: ShardReportMerger <output dir> <shard dir>...");
+            System.exit(2);
+        }
+        List<Path> shards = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            shards.addAll(expand(Paths.get(args[i])));
+        }
+        new ShardReportMerger().merge(shards, Paths.get(args[0]));
+    }
+
+    /**
+     * Writes {@code out/allure-results/} and {@code out/cucumber.json} from the given shard directories.
+     */
+    public void merge(List<Path> shards, Path out) throws IOException {
+        if (shards.isEmpty()) {
+            throw new RuntimeException("Shard Merge Failure: no shard directories found. Termination required.");
+        }
+        Path allureOut = out.resolve(ALLURE_RESULTS);
+        Files.createDirectories(allureOut);
+        for (Path shard : shards) {
+            copyAllure(shard.resolve(ALLURE_RESULTS), allureOut);
+            readCucumber(shard.resolve(CUCUMBER_JSON));
+        }
+        for (Config.Key<String> historyKey : Arrays.asList(ScenarioScheduler.HISTORY_FILE, ShardListener.HISTORY_FILE)) {
+            Path historyFile = Paths.get(Config.get(historyKey));
+            DurationHistory history = new DurationHistory(historyFile, null);
+            for (Path shard : shards) {
+                history.absorb(shard.resolve(historyFile.getFileName()));
+            }
+        }
+        if (!features.isEmpty()) {
+            try (Writer writer = Files.newBufferedWriter(out.resolve(CUCUMBER_JSON), StandardCharsets.UTF_8)) {
+                writer.write(json.toJson(new ArrayList<>(features.values())));
+            }
+        }
+        System.out.println("SHARD MERGE: " + shards.size() + " shards -> " + out + " (" + allureFiles + " Allure files, "
+                + features.size() + " features, " + scenarios + " scenarios)");
+        if (duplicates > 0) {
+            // The same scenario ran on two shards: they planned from different histories or different shard.total.
+            System.err.println("SHARD MERGE WARNING: " + duplicates + " scenarios appear in more than one shard; "
+                    + "check that every shard used the same shard.total and history fingerprint.");
+        }
+    }
+
+    private void copyAllure(Path from, Path to) throws IOException {
+        if (!Files.isDirectory(from)) {
+            System.err.println("SHARD MERGE WARNING: " + from + " is missing; that shard contributes no Allure results.");
+            return;
+        }
+        try (Stream<Path> files = Files.list(from)) {
+            for (Path file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                Path target = to.resolve(file.getFileName().toString());
+                // Results and attachments are UUID-named; only suite-wide files such as environment.properties
+                // or categories.json repeat, and the first shard's copy is as good as any.
+                if (!Files.exists(target)) {
+                    Files.copy(file, target);
+                    allureFiles++;
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readCucumber(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        List<Map<String, Object>> shardFeatures;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            shardFeatures = json.toType(reader, Json.LIST_OF_MAPS_TYPE);
+        }
+        for (Map<String, Object> feature : shardFeatures) {
+            String uri = String.valueOf(feature.get("uri"));
+            List<Object> elements = feature.get("elements") instanceof List
+                    ? new ArrayList<>((List<Object>) feature.get("elements")) : new ArrayList<>();
+            for (Object element : elements) {
+                Map<String, Object> scenario = (Map<String, Object>) element;
+                if (!"background".equals(scenario.get("type"))) {
+                    scenarios++;
+                    if (!scenarioKeys.add(uri + ":" + scenario.get("line") + ":" + scenario.get("id"))) {
+                        duplicates++;
+                    }
+                }
+            }
+            Map<String, Object> merged = features.get(uri);
+            if (merged == null) {
+                Map<String, Object> copy = new LinkedHashMap<>(feature);
+                copy.put("elements", elements);
+                features.put(uri, copy);
+            } else {
+                // Backgrounds are repeated before each scenario in Cucumber JSON, so appending keeps them paired.
+                ((List<Object>) merged.get("elements")).addAll(elements);
+            }
+        }
+    }
+
+    private static List<Path> expand(Path dir) throws IOException {
+        List<Path> shards = new ArrayList<>();
+        if (Files.isDirectory(dir.resolve(ALLURE_RESULTS)) || Files.isRegularFile(dir.resolve(CUCUMBER_JSON))) {
+            shards.add(dir);
+        } else if (Files.isDirectory(dir)) {
+            try (Stream<Path> children = Files.list(dir)) {
+                children.filter(Files::isDirectory)
+                        .filter(child -> child.getFileName().toString().startsWith("shard-"))
+                        .sorted()
+                        .forEach(shards::add);
+            }
+        }
+        return shards;
+    }
+}
@@ -0,0 +1,115 @@
+package runners;
+
+import core.Config;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Deterministic split of the suite across JVMs/CI nodes: run N copies with -Dshard.total=N and -Dshard.index=0..N-1
+ * and every test lands on exactly one of them.
+ *
+ * Items are dealt out largest first to the least-loaded shard (ties broken by id, then by lowest shard index), so the
+ * split depends only on the ids and weights, never on discovery order or the machine. Weighting only balances well if
+ * every shard sees the same history file, e.g. restored from the CI cache before the fan-out; with
+ * shard.weighted=false (or no history at all) every item weighs the same and the split is a plain round robin by id.
+ */
+final class Sharding {
+
+    private static final Config.Key<Integer> INDEX = Config.intKey("shard.index", 0);
+    private static final Config.Key<Integer> TOTAL = Config.intKey("shard.total", 1);
+    private static final Config.Key<Boolean> WEIGHTED = Config.booleanKey("shard.weighted", true);
+    // Where this shard leaves its durations for the merge step; the 'shard' Maven profile points it at the shard's report dir.
+    private static final Config.Key<String> OUTPUT_DIR = Config.stringKey("shard.output.dir", null);
+
+    private final int index;
+    private final int total;
+    private final boolean weighted;
+    private final Path outputDir;
+
+    Sharding(int index, int total, boolean weighted) {
+        this(index, total, weighted, null);
+    }
+
+    Sharding(int index, int total, boolean weighted, Path outputDir) {
+        if (total < 1 || index < 0 || index >= total) {
+            throw new RuntimeException("Shard Misconfiguration: shard.index=" + index + " must be in [0, shard.total="
+                    + total + "). Termination required.");
+        }
+        this.index = index;
+        this.total = total;
+        this.weighted = weighted;
+        this.outputDir = outputDir != null ? outputDir : Paths.get("target", "shards", "shard-" + index);
+    }
+
+    static Sharding fromConfig() {
+        String outputDir = Config.get(OUTPUT_DIR);
+        return new Sharding(Config.get(INDEX), Config.get(TOTAL), Config.get(WEIGHTED),
+                outputDir == null ? null : Paths.get(outputDir));
+    }
+
+    /**
+     * History whose updates, in shard mode, are deferred to this shard's output dir so sibling shards that start
+     * later still plan from the same file.
+     */
+    DurationHistory history(Path file) {
+        return new DurationHistory(file, isActive() ? outputDir.resolve(file.getFileName()) : null);
+    }
+
+    boolean isActive() {
+        return total > 1;
+    }
+
+    /**
+     * Which of {@code ids} belong to this shard. Weights are only compared with each other, so any unit works.
+     */
+    boolean[] select(String[] ids, long[] weights) {
+        int[] owners = assign(ids, weights);
+        boolean[] mine = new boolean[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            mine[i] = owners[i] == index;
+        }
+        return mine;
+    }
+
+    /**
+     * Owning shard of every item. Identical inputs give identical output on every JVM.
+     */
+    int[] assign(String[] ids, long[] weights) {
+        Integer[] order = new Integer[ids.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Comparator<Integer> byId = Comparator.comparing(i -> ids[i]);
+        // The original position only breaks ties between duplicate ids, which discovery produces in a stable order.
+        byId = byId.thenComparingInt(i -> i);
+        if (weighted) {
+            Comparator<Integer> heaviestFirst = Comparator.comparingLong(i -> -weights[i]);
+            Arrays.sort(order, heaviestFirst.thenComparing(byId));
+        } else {
+            Arrays.sort(order, byId);
+        }
+
+        long[] load = new long[total];
+        int[] owners = new int[ids.length];
+        for (int item : order) {
+            int lightest = 0;
+            for (int s = 1; s < total; s++) {
+                if (load[s] < load[lightest]) {
+                    lightest = s;
+                }
+            }
+            owners[item] = lightest;
+            // Unweighted items all count as 1, which turns the greedy fill into a round robin.
+            load[lightest] += weighted ? Math.max(1, weights[item]) : 1;
+        }
+        return owners;
+    }
+
+    @Override
+    public String toString() {
+        return index + " of " + total;
+    }
+}
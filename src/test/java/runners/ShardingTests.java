@@ -0,0 +1,103 @@
+package runners;
+
+import org.openqa.selenium.json.Json;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Partitioning rules of shard mode and the report merge. Pure in-memory/temp-dir checks, no browser or network.
+ */
+public class ShardingTests {
+
+    private static final String[] IDS = {"features/Login.feature:12", "features/Login.feature:20", "features/BookingPersistence.feature:6",
+            "features/OrchestratedBooking.feature:4", "api.BookingApiTests", "db.BookingDBTests", "db.BulkSeedingTests"};
+    private static final long[] WEIGHTS = {3_000, 2_500, 8_000, 3_400, 900, 400, 12_000};
+
+    @Test
+    public void testEveryItemLandsOnExactlyOneShard() {
+        for (boolean weighted : new boolean[]{true, false}) {
+            for (int total = 1; total <= 5; total++) {
+                int[] hits = new int[IDS.length];
+                for (int index = 0; index < total; index++) {
+                    boolean[] mine = new Sharding(index, total, weighted).select(IDS, WEIGHTS);
+                    for (int i = 0; i < mine.length; i++) {
+                        hits[i] += mine[i] ? 1 : 0;
+                    }
+                }
+                int[] once = new int[IDS.length];
+                Arrays.fill(once, 1);
+                Assert.assertEquals(hits, once, "Split of " + total + " shards (weighted=" + weighted + ") lost or repeated an item.");
+            }
+        }
+    }
+
+    @Test
+    public void testSplitIgnoresDiscoveryOrder() {
+        int[] forward = new Sharding(0, 3, true).assign(IDS, WEIGHTS);
+
+        String[] reversedIds = new String[IDS.length];
+        long[] reversedWeights = new long[IDS.length];
+        for (int i = 0; i < IDS.length; i++) {
+            reversedIds[i] = IDS[IDS.length - 1 - i];
+            reversedWeights[i] = WEIGHTS[IDS.length - 1 - i];
+        }
+        int[] backward = new Sharding(0, 3, true).assign(reversedIds, reversedWeights);
+        for (int i = 0; i < IDS.length; i++) {
+            Assert.assertEquals(backward[IDS.length - 1 - i], forward[i], IDS[i] + " moved shard when discovered in another order.");
+        }
+    }
+
+    @Test
+    public void testWeightedSplitBalancesDuration() {
+        int[] owners = new Sharding(0, 2, true).assign(IDS, WEIGHTS);
+        long[] load = new long[2];
+        for (int i = 0; i < owners.length; i++) {
+            load[owners[i]] += WEIGHTS[i];
+        }
+        // 30.2s of work: the 12s class alone on one side, everything else (18.2s) on the other would be the naive split.
+        Assert.assertTrue(Math.abs(load[0] - load[1]) <= 1_000, "Weighted shards are unbalanced: " + Arrays.toString(load));
+    }
+
+    @Test(expectedExceptions = RuntimeException.class)
+    public void testIndexOutsideTotalIsRejected() {
+        new Sharding(2, 2, true);
+    }
+
+    @Test
+    public void testMergeJoinsFeaturesSplitAcrossShards() throws IOException {
+        Path root = Files.createTempDirectory("shards");
+        Path first = shard(root, 0, "[{\"uri\":\"features/Login.feature\",\"name\":\"Login\",\"elements\":"
+                + "[{\"type\":\"scenario\",\"line\":12,\"id\":\"login;valid\"}]}]", "a-result.json");
+        Path second = shard(root, 1, "[{\"uri\":\"features/Login.feature\",\"name\":\"Login\",\"elements\":"
+                + "[{\"type\":\"scenario\",\"line\":20,\"id\":\"login;invalid\"}]},"
+                + "{\"uri\":\"features/BookingPersistence.feature\",\"name\":\"Persistence\",\"elements\":"
+                + "[{\"type\":\"scenario\",\"line\":6,\"id\":\"persistence;sync\"}]}]", "b-result.json");
+
+        Path out = root.resolve("merged");
+        new ShardReportMerger().merge(Arrays.asList(first, second), out);
+
+        String text = new String(Files.readAllBytes(out.resolve("cucumber.json")), StandardCharsets.UTF_8);
+        List<Map<String, Object>> merged = new Json().toType(text, Json.LIST_OF_MAPS_TYPE);
+        Assert.assertEquals(merged.size(), 2, "Login feature should appear once:\n" + text);
+        Assert.assertEquals(merged.get(0).get("uri"), "features/Login.feature");
+        Assert.assertEquals(((List<?>) merged.get(0).get("elements")).size(), 2, "Scenarios from both shards belong to one feature:\n" + text);
+        Assert.assertTrue(Files.exists(out.resolve("allure-results/a-result.json")));
+        Assert.assertTrue(Files.exists(out.resolve("allure-results/b-result.json")));
+    }
+
+    private static Path shard(Path root, int index, String cucumberJson, String allureFile) throws IOException {
+        Path dir = Files.createDirectories(root.resolve("shard-" + index));
+        Files.write(dir.resolve("cucumber.json"), cucumberJson.getBytes(StandardCharsets.UTF_8));
+        Files.createDirectories(dir.resolve("allure-results"));
+        Files.write(dir.resolve("allure-results").resolve(allureFile), "{}".getBytes(StandardCharsets.UTF_8));
+        return dir;
+    }
+}
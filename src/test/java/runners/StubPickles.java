@@ -0,0 +1,53 @@
+package runners;
+
+import io.cucumber.plugin.event.Location;
+import io.cucumber.testng.Pickle;
+import io.cucumber.testng.PickleWrapper;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.Arrays;
+
+/**
+ * Scenarios for runner unit tests that never touch a feature file: a line number, tags and nothing to execute.
+ */
+final class StubPickles {
+
+    private static final String FEATURE = "file:///repo/src/test/resources/features/booking.feature";
+
+    private StubPickles() {
+    }
+
+    /**
+     * A data-provider row as Cucumber's TestNG runner hands it out: {PickleWrapper, FeatureWrapper}.
+     */
+    static Object[] row(int line, String... tags) throws Exception {
+        Pickle pickle = pickle(line, tags);
+        return new Object[]{(PickleWrapper) () -> pickle, null};
+    }
+
+    // Cucumber only builds these from parsed features; the constructor is package-private.
+    static Pickle pickle(int line, String... tags) throws Exception {
+        io.cucumber.core.gherkin.Pickle gherkin = (io.cucumber.core.gherkin.Pickle) Proxy.newProxyInstance(
+                StubPickles.class.getClassLoader(), new Class<?>[]{io.cucumber.core.gherkin.Pickle.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getUri":
+                            return URI.create(FEATURE);
+                        case "getLocation":
+                        case "getScenarioLocation":
+                            return new Location(line, 1);
+                        case "getTags":
+                            return Arrays.asList(tags);
+                        case "getName":
+                            return "scenario " + line;
+                        default:
+                            return null;
+                    }
+                });
+        Constructor<Pickle> constructor = Pickle.class.getDeclaredConstructor(io.cucumber.core.gherkin.Pickle.class);
+        constructor.setAccessible(true);
+        return constructor.newInstance(gherkin);
+    }
+}
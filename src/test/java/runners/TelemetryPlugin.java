@@ -0,0 +1,105 @@
+package runners;
+
+import core.Config;
+import core.Telemetry;
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.HookTestStep;
+import io.cucumber.plugin.event.PickleStepTestStep;
+import io.cucumber.plugin.event.TestCaseFinished;
+import io.cucumber.plugin.event.TestCaseStarted;
+import io.cucumber.plugin.event.TestRunFinished;
+import io.cucumber.plugin.event.TestStep;
+import io.cucumber.plugin.event.TestStepFinished;
+import io.cucumber.plugin.event.TestStepStarted;
+import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
+import io.qameta.allure.model.Label;
+import io.qameta.allure.model.Status;
+import io.qameta.allure.model.TestResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Feeds scenario and step boundaries into {@link Telemetry} and exports its metrics when the run ends.
+ *
+ * A concurrent listener gets each event on the thread that runs the scenario, which is what lets Telemetry charge
+ * the DB, API and UI calls made in between to the right step. Steps are keyed by their definition's pattern and hooks
+ * by their kind ("Before hooks"), so the series stay few however many scenarios there are. At the end of the run the
+ * Prometheus and JSON files go to telemetry.dir and, with telemetry.allure set, into the Allure report as the
+ * attachments of one "Framework telemetry" entry (Allure has no run-level attachments).
+ */
+public class TelemetryPlugin implements ConcurrentEventListener {
+
+    static final Config.Key<String> DIR = Config.stringKey("telemetry.dir", "target/telemetry");
+    static final Config.Key<Boolean> ATTACH_TO_ALLURE = Config.booleanKey("telemetry.allure", true);
+
+    @Override
+    public void setEventPublisher(EventPublisher publisher) {
+        if (!Telemetry.isEnabled()) {
+            return;
+        }
+        publisher.registerHandlerFor(TestCaseStarted.class, event -> Telemetry.beginScenario());
+        publisher.registerHandlerFor(TestStepStarted.class, event -> Telemetry.beginStep());
+        publisher.registerHandlerFor(TestStepFinished.class, this::stepFinished);
+        publisher.registerHandlerFor(TestCaseFinished.class, event -> Telemetry.endScenario(event.getTestCase().getName(),
+                event.getResult().getDuration().toNanos()));
+        publisher.registerHandlerFor(TestRunFinished.class, event -> export());
+    }
+
+    private void stepFinished(TestStepFinished event) {
+        Telemetry.endStep(stepName(event.getTestStep()), event.getResult().getDuration().toNanos());
+    }
+
+    static String stepName(TestStep step) {
+        if (step instanceof PickleStepTestStep) {
+            return ((PickleStepTestStep) step).getPattern();
+        }
+        if (step instanceof HookTestStep) {
+            String type = ((HookTestStep) step).getHookType().name();
+            // BEFORE_STEP -> "Before step hooks"
+            String words = type.charAt(0) + type.substring(1).toLowerCase().replace('_', ' ');
+            return words + " hooks";
+        }
+        return step.getCodeLocation();
+    }
+
+    private void export() {
+        try {
+            List<Path> files = Telemetry.export(Paths.get(Config.get(DIR)));
+            System.out.println("TELEMETRY: " + Telemetry.summary() + " -> " + files.get(0).getParent());
+            if (Config.get(ATTACH_TO_ALLURE)) {
+                attachToAllure(files);
+            }
+        } catch (IOException e) {
+            // Metrics are diagnostics: losing them must not fail a suite that passed.
+            System.err.println("TELEMETRY WARNING: could not export metrics: " + e.getMessage());
+        }
+    }
+
+    private static void attachToAllure(List<Path> files) throws IOException {
+        AllureLifecycle lifecycle = Allure.getLifecycle();
+        String uuid = UUID.randomUUID().toString();
+        long now = System.currentTimeMillis();
+        lifecycle.scheduleTestCase(new TestResult()
+                .setUuid(uuid)
+                .setHistoryId("framework-telemetry")
+                .setName("Framework telemetry")
+                .setFullName("runners.TelemetryPlugin")
+                .setStatus(Status.PASSED)
+                .setStart(now)
+                .setStop(now)
+                .setLabels(Arrays.asList(new Label().setName("suite").setValue("Telemetry"))));
+        lifecycle.startTestCase(uuid);
+        lifecycle.addAttachment("metrics.prom", "text/plain", "prom", Files.readAllBytes(files.get(0)));
+        lifecycle.addAttachment("metrics.json", "application/json", "json", Files.readAllBytes(files.get(1)));
+        lifecycle.stopTestCase(uuid);
+        lifecycle.writeTestCase(uuid);
+    }
+}
@@ -1,8 +1,29 @@
 package runners;
 
+import core.Config;
+import core.DriverFactory;
+import core.VirtualThreads;
+import io.cucumber.tagexpressions.Expression;
+import io.cucumber.tagexpressions.TagExpressionParser;
 import io.cucumber.testng.AbstractTestNGCucumberTests;
 import io.cucumber.testng.CucumberOptions;
+import io.cucumber.testng.FeatureWrapper;
+import io.cucumber.testng.PickleWrapper;
+import org.testng.ITestContext;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
 import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiConsumer;
 
 @CucumberOptions(
         features = "src/test/resources/features",
@@ -14,7 +35,9 @@ import org.testng.annotations.DataProvider;
                 "html:target/cucumber-reports.html",
                 // Allure plugin is the source of truth for our CI/CD dashboard.
                 // Missing this means no trend analysis in Jenkins/GitHub Actions.
-                "io.qameta.allure.cucumber7jvm.AllureCucumber7Jvm"
+                "io.qameta.allure.cucumber7jvm.AllureCucumber7Jvm",
+                // Per-step/per-layer timings; written to target/telemetry and the Allure report at the end of the run.
+                "runners.TelemetryPlugin"
         },
         // monochrome=true makes the console output readable on Windows CMD/PowerShell
         // by stripping out messy ANSI color codes that often break text formatting.
@@ -22,12 +45,160 @@ import org.testng.annotations.DataProvider;
 )
 public class TestRunner extends AbstractTestNGCucumberTests {
 
+    private static final Config.Key<Boolean> VIRTUAL_THREADS = Config.booleanKey("runner.virtual.threads", false);
+    private static final Config.Key<String> BROWSER_TAGS = Config.stringKey("runner.browser.tags", "@ui or @e2e");
+    private static final Config.Key<Integer> BROWSER_THREADS = Config.intKey("runner.browser.threads", 4);
+    private static final Config.Key<Integer> MAX_CONCURRENCY = Config.intKey("runner.virtual.max.concurrency", 64);
+
+    // With shard.total > 1 this JVM only runs its own slice; see ShardListener for the TestNG-class side.
+    private final Sharding sharding = Sharding.fromConfig();
+    private final ScenarioScheduler scheduler = ScenarioScheduler.fromConfig(sharding);
+
+    // TestNG's data-provider pool size; the scheduler plans against the same number of workers.
+    private int dataProviderThreads = 10;
+
+    @BeforeClass(alwaysRun = true)
+    public void captureWorkerCount(ITestContext context) {
+        dataProviderThreads = context.getSuite().getXmlSuite().getDataProviderThreadCount();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void reportSchedule() {
+        scheduler.finish();
+    }
+
     @Override
     @DataProvider(parallel = true)
     public Object[][] scenarios() {
+        // In virtual-thread mode the scenarios are dispatched by runOnVirtualThreads() instead,
+        // so the data provider hands TestNG nothing to avoid running everything twice.
+        if (isVirtualThreadMode()) {
+            return new Object[0][];
+        }
         // Parallel execution is toggled here.
         // Note: Thread count is controlled via the TestNG XML or Maven surefire settings,
         // not by the code itself.
-        return super.scenarios();
+        // TestNG's pool takes rows first come, first served, so handing them over longest-first (within tag limits)
+        // is enough to keep slow @e2e scenarios from landing at the tail of the run.
+        return scheduler.plan(scheduler.shard(super.scenarios(), sharding), dataProviderThreads);
+    }
+
+    /**
+     * Same contract as the inherited test method; wrapped so tag limits are enforced and durations recorded.
+     */
+    @Override
+    @Test(groups = "cucumber", description = "Runs Cucumber Scenarios", dataProvider = "scenarios")
+    public void runScenario(PickleWrapper pickleWrapper, FeatureWrapper featureWrapper) {
+        scheduler.run(pickleWrapper.getPickle(), () -> super.runScenario(pickleWrapper, featureWrapper));
+    }
+
+    /**
+     * Opt-in runner mode (runner.virtual.threads=true, needs JDK 21+ to be worthwhile).
+     * I/O-bound scenarios (@api, @db, ...) each get their own virtual thread, so hundreds can block on HTTP/JDBC
+     * at once without a platform thread apiece. Scenarios matching runner.browser.tags still run on a small
+     * fixed pool of platform threads: browsers are the scarce resource, and DriverFactory's per-thread lease
+     * must live on a thread that outlasts the scenario's hooks.
+     *
+     * Results are still reported per scenario through the Cucumber/Allure plugins; TestNG sees this as one test.
+     */
+    @Test(description = "Runs all scenarios on virtual threads, browser scenarios on a bounded pool")
+    public void runOnVirtualThreads() throws InterruptedException {
+        if (!isVirtualThreadMode()) {
+            throw new SkipException("Virtual-thread mode is off (runner.virtual.threads=false); scenarios ran via the data provider.");
+        }
+        if (!VirtualThreads.isSupported()) {
+            System.err.println("RUNNER WARNING: JVM " + System.getProperty("java.version")
+                    + " has no virtual threads; non-browser scenarios fall back to a platform pool.");
+        }
+
+        int browserThreads = Config.get(BROWSER_THREADS);
+        int maxConcurrency = Config.get(MAX_CONCURRENCY);
+        Object[][] planned = scheduler.plan(scheduler.shard(super.scenarios(), sharding), browserThreads + maxConcurrency);
+        dispatch(planned, TagExpressionParser.parse(Config.get(BROWSER_TAGS)), browserThreads, maxConcurrency,
+                this::runOnBrowserLane, this::runScenario);
+    }
+
+    /**
+     * Runs {@code rows} in order: those matching {@code browserTags} through {@code browser} on a pool of
+     * {@code browserThreads} platform threads, the rest through {@code io} on virtual threads, at most
+     * {@code maxConcurrency} of them at a time. Waits for all of them and fails with every scenario that failed.
+     */
+    static void dispatch(Object[][] rows, Expression browserTags, int browserThreads, int maxConcurrency,
+                         BiConsumer<PickleWrapper, FeatureWrapper> browser, BiConsumer<PickleWrapper, FeatureWrapper> io)
+            throws InterruptedException {
+        // Caps scenarios in flight so an unbounded burst doesn't just pile up on the DB pool's acquire timeout.
+        Semaphore ioPermits = new Semaphore(maxConcurrency);
+
+        ExecutorService browserLane = Executors.newFixedThreadPool(browserThreads, VirtualThreads.platformThreads("browser-lane"));
+        ExecutorService ioLane = VirtualThreads.newPerTaskExecutor("scenario", maxConcurrency);
+        List<Future<?>> runs = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        try {
+            for (Object[] scenario : rows) {
+                PickleWrapper pickle = (PickleWrapper) scenario[0];
+                FeatureWrapper feature = (FeatureWrapper) scenario[1];
+                names.add(pickle.getPickle().getName());
+                if (browserTags.evaluate(pickle.getPickle().getTags())) {
+                    runs.add(browserLane.submit(() -> browser.accept(pickle, feature)));
+                } else {
+                    ioPermits.acquire();
+                    runs.add(ioLane.submit(() -> {
+                        try {
+                            io.accept(pickle, feature);
+                        } finally {
+                            ioPermits.release();
+                        }
+                    }));
+                }
+            }
+            collectFailures(runs, names);
+        } finally {
+            browserLane.shutdownNow();
+            ioLane.shutdownNow();
+        }
+    }
+
+    private void runOnBrowserLane(PickleWrapper pickle, FeatureWrapper feature) {
+        try {
+            runScenario(pickle, feature);
+        } finally {
+            // Lane threads are reused. If a scenario's @After hook never ran (or a step leased a browser
+            // outside the hooks), the lease would silently carry over to the next scenario on this thread.
+            if (DriverFactory.getDriver() != null) {
+                System.err.println("RUNNER WARNING: '" + pickle.getPickle().getName()
+                        + "' left a browser leased on " + Thread.currentThread().getName() + "; releasing it.");
+                DriverFactory.releaseDriver();
+            }
+        }
+    }
+
+    private static void collectFailures(List<Future<?>> runs, List<String> names) throws InterruptedException {
+        List<String> failures = new ArrayList<>();
+        Throwable firstFailure = null;
+        int skipped = 0;
+        for (int i = 0; i < runs.size(); i++) {
+            try {
+                runs.get(i).get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof SkipException) {
+                    // Cucumber reports pending/undefined steps as skips, not failures.
+                    skipped++;
+                    continue;
+                }
+                failures.add(names.get(i) + ": " + e.getCause());
+                if (firstFailure == null) {
+                    firstFailure = e.getCause();
+                }
+            }
+        }
+        System.out.println("VIRTUAL RUNNER: " + runs.size() + " scenarios, " + failures.size() + " failed, " + skipped + " skipped.");
+        if (!failures.isEmpty()) {
+            throw new AssertionError(failures.size() + " of " + runs.size() + " scenarios failed:\n  "
+                    + String.join("\n  ", failures), firstFailure);
+        }
+    }
+
+    private static boolean isVirtualThreadMode() {
+        return Config.get(VIRTUAL_THREADS);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,93 @@
+package runners;
+
+import io.cucumber.tagexpressions.Expression;
+import io.cucumber.tagexpressions.TagExpressionParser;
+import io.cucumber.testng.FeatureWrapper;
+import io.cucumber.testng.PickleWrapper;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Lane routing and the concurrency cap of the virtual-thread runner, with stub scenarios instead of Cucumber.
+ */
+public class TestRunnerTests {
+
+    private static final Expression BROWSER = TagExpressionParser.parse("@ui or @e2e");
+
+    @Test
+    public void testBrowserTagsRunOnTheBrowserLane() throws Exception {
+        Object[][] rows = {StubPickles.row(1, "@ui"), StubPickles.row(2, "@api"), StubPickles.row(3, "@e2e", "@db"),
+                StubPickles.row(4, "@db"), StubPickles.row(5)};
+        Map<Integer, String> browserRuns = new ConcurrentHashMap<>();
+        Map<Integer, String> ioRuns = new ConcurrentHashMap<>();
+
+        TestRunner.dispatch(rows, BROWSER, 2, 4, recordThread(browserRuns), recordThread(ioRuns));
+
+        Assert.assertEquals(browserRuns.keySet(), Set.of(1, 3));
+        Assert.assertEquals(ioRuns.keySet(), Set.of(2, 4, 5));
+        browserRuns.values().forEach(thread -> Assert.assertTrue(thread.startsWith("browser-lane-"), thread));
+        ioRuns.values().forEach(thread -> Assert.assertTrue(thread.startsWith("scenario-"), thread));
+    }
+
+    @Test
+    public void testNonBrowserScenariosStayUnderTheConcurrencyCap() throws Exception {
+        Object[][] rows = new Object[20][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = StubPickles.row(i + 1, "@api");
+        }
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        TestRunner.dispatch(rows, BROWSER, 1, 3, (pickle, feature) -> Assert.fail("No browser scenarios here"),
+                (pickle, feature) -> {
+                    peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    sleep(30);
+                    running.decrementAndGet();
+                });
+
+        Assert.assertTrue(peak.get() <= 3, "Peak of " + peak.get() + " scenarios in flight with a cap of 3");
+        Assert.assertTrue(peak.get() > 1, "Scenarios should overlap up to the cap");
+    }
+
+    @Test
+    public void testEveryFailureIsReported() throws Exception {
+        Object[][] rows = {StubPickles.row(1, "@ui"), StubPickles.row(2, "@api"), StubPickles.row(3, "@api")};
+        List<Integer> ran = new ArrayList<>();
+        BiConsumer<PickleWrapper, FeatureWrapper> failing = (pickle, feature) -> {
+            synchronized (ran) {
+                ran.add(pickle.getPickle().getLine());
+            }
+            if (pickle.getPickle().getLine() != 3) {
+                throw new IllegalStateException("boom " + pickle.getPickle().getLine());
+            }
+        };
+
+        AssertionError error = Assert.expectThrows(AssertionError.class,
+                () -> TestRunner.dispatch(rows, BROWSER, 1, 2, failing, failing));
+
+        Assert.assertEquals(ran.size(), 3, "A failure must not stop the other scenarios");
+        Assert.assertTrue(error.getMessage().startsWith("2 of 3 scenarios failed"), error.getMessage());
+        Assert.assertTrue(error.getMessage().contains("scenario 1: java.lang.IllegalStateException: boom 1"), error.getMessage());
+        Assert.assertTrue(error.getMessage().contains("scenario 2: java.lang.IllegalStateException: boom 2"), error.getMessage());
+    }
+
+    private static BiConsumer<PickleWrapper, FeatureWrapper> recordThread(Map<Integer, String> runs) {
+        return (pickle, feature) -> runs.put(pickle.getPickle().getLine(), Thread.currentThread().getName());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,26 +1,55 @@
 package stepdefs;
 
+import core.ApiClient;
+import core.ArtifactPipeline;
+import core.DBManager;
 import core.DriverFactory;
-import core.ConfigManager;
+import core.Config;
+import core.NetworkFilter;
+import core.ScenarioTransaction;
+import core.Telemetry;
 import io.cucumber.java.After;
+import io.cucumber.java.AfterAll;
 import io.cucumber.java.Before;
 import io.cucumber.java.Scenario;
-import io.qameta.allure.Allure;
-import org.openqa.selenium.OutputType;
-import org.openqa.selenium.TakesScreenshot;
-
-import java.io.ByteArrayInputStream;
 
 public class Hooks {
 
+    private static final Config.Key<Boolean> DB_ISOLATION = Config.booleanKey("db.scenario.isolation", true);
+
+    // Cucumber creates a Hooks instance per scenario, so this is the scenario's own transaction.
+    private ScenarioTransaction dbTransaction;
+
+    // Every @db scenario runs inside one transaction that is rolled back afterwards: rows it inserts are invisible
+    // to parallel scenarios and vanish without any DELETE. Runs before the steps, so step code joins it automatically.
+    @Before("@db")
+    public void openDbTransaction() {
+        if (Config.get(DB_ISOLATION)) {
+            dbTransaction = new DBManager().beginScenario();
+        }
+    }
+
+    @After("@db")
+    public void rollbackDbTransaction() {
+        if (dbTransaction != null) {
+            dbTransaction.close();
+            dbTransaction = null;
+        }
+    }
+
+    // The session's network savings when the scenario got it, so the scenario is only credited with its own share.
+    private NetworkFilter.Savings networkAtStart;
+
     // Selective initialization: we only fire up the browser for UI/E2E tags
     // to avoid unnecessary overhead in pure API or Database test runs.
     @Before("@ui or @e2e")
     public void setUp() {
-        String browser = ConfigManager.getProperty("browser", "chrome");
+        String browser = Config.get("browser", "chrome");
         DriverFactory.setupDriver(browser);
+        NetworkFilter filter = NetworkFilter.of(DriverFactory.getDriver());
+        networkAtStart = filter == null ? null : filter.savings();
 
-        String url = ConfigManager.getProperty("base.url");
+        String url = Config.get("base.url");
         if (url != null) {
             // Ensuring the driver starts at the baseline URL to avoid 'blank page' errors on first steps.
             DriverFactory.getDriver().get(url);
@@ -32,17 +61,48 @@ public class Hooks {
         if (scenario.isFailed() && DriverFactory.getDriver() != null) {
             // Capturing the DOM state at the exact moment of failure.
             // This is the only way to debug flaky elements in headless mode.
-            byte[] screenshot = ((TakesScreenshot) DriverFactory.getDriver())
-                    .getScreenshotAs(OutputType.BYTES);
+            // Only the browser round-trips happen here; decoding and report I/O run in the background,
+            // and both Allure and the Cucumber report reference the same file on disk.
+            ArtifactPipeline.shared().captureFailure(DriverFactory.getDriver(), scenario);
+        }
 
-            // Attaching to Cucumber and Allure simultaneously to ensure evidence
-            // persists regardless of which reporting tool is used.
-            scenario.attach(screenshot, "image/png", "Failure_Screenshot");
-            Allure.addAttachment("Terminal State on Failure", new ByteArrayInputStream(screenshot));
+        NetworkFilter filter = NetworkFilter.of(DriverFactory.getDriver());
+        if (filter != null && networkAtStart != null) {
+            scenario.attach(filter.savings().since(networkAtStart).toString(), "text/plain", "Network savings");
         }
 
-        // Mandatory teardown. If this fails on Windows, chromedriver.exe will hang,
-        // eventually causing 'Out of Memory' on the CI agent.
-        DriverFactory.quitDriver();
+        // Mandatory teardown. The session goes back to the warm pool (scrubbed of cookies/storage)
+        // instead of being quit; the pool itself retires it once it hits its use/age budget.
+        DriverFactory.releaseDriver();
+    }
+
+    // Shows next to each scenario how much of its time went to the browser, the API and the database.
+    @After
+    public void attachLayerTimings(Scenario scenario) {
+        if (Telemetry.isEnabled()) {
+            scenario.attach(Telemetry.scenarioSummary(), "text/plain", "Layer timings");
+        }
+    }
+
+    // Reports are generated right after the run, so every queued screenshot must be on disk before Cucumber finishes.
+    @AfterAll
+    public static void flushArtifacts() {
+        ArtifactPipeline.shared().flush();
+    }
+
+    @AfterAll
+    public static void reportNetworkFilter() {
+        NetworkFilter.Savings totals = NetworkFilter.totals();
+        if (totals.getRequestsSaved() > 0) {
+            System.out.println("NETWORK FILTER: " + totals);
+        }
+    }
+
+    @AfterAll
+    public static void reportApiClient() {
+        ApiClient.Metrics metrics = ApiClient.metrics();
+        if (metrics.getCalls() > 0) {
+            System.out.println("API CLIENT: " + metrics);
+        }
     }
-}
\ No newline at end of file
+}
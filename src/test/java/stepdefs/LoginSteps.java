@@ -1,34 +1,34 @@
 package stepdefs;
 
+import core.Config;
 import core.DriverFactory;
+import core.SmartWait;
 import io.cucumber.java.en.And;
 import io.cucumber.java.en.Given;
 import io.cucumber.java.en.Then;
 import io.cucumber.java.en.When;
-import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 import org.testng.Assert;
 import pages.LoginPage;
 
-import java.time.Duration;
-
 public class LoginSteps {
     private final LoginPage loginPage;
-    private final WebDriverWait wait;
+    private final SmartWait wait;
 
     public LoginSteps() {
         // Initializing page and wait here to keep individual steps clean from boilerplate setup.
         this.loginPage = new LoginPage(DriverFactory.getDriver());
-        this.wait = new WebDriverWait(DriverFactory.getDriver(), Duration.ofSeconds(10));
+        // Same wait engine as the page objects: one timeout policy (explicit.wait, adaptive) instead of a private 10s.
+        this.wait = new SmartWait(DriverFactory.getDriver());
     }
 
     @Given("the user is on the Login page")
     public void theUserIsOnTheLoginPage() {
         // Redundant navigation check: if the hook failed, this explicit get ensures the test starts at the right entry point.
-        DriverFactory.getDriver().get("https://the-internet.herokuapp.com/login");
+        // base.url keeps its trailing slash, and points at the local stub when stub.enabled is set.
+        DriverFactory.getDriver().get(Config.get("base.url") + "login");
 
         // Waiting for URL ensures that slow redirects or JS-heavy page loads don't break the first 'sendKeys'.
-        wait.until(ExpectedConditions.urlContains("login"));
+        wait.urlContains("login");
     }
 
     @When("the user enters the username {string} and password {string}")
@@ -48,7 +48,7 @@ public class LoginSteps {
 
         try {
             // Explicit wait is the only way to account for backend latency and redirect time on CI.
-            wait.until(ExpectedConditions.urlContains(EXPECTED_URL_PART));
+            wait.urlContains(EXPECTED_URL_PART);
 
             String currentUrl = DriverFactory.getDriver().getCurrentUrl();
             // Detailed failure message includes the actual URL to help identify 404s or unexpected error pages.
@@ -1,13 +1,18 @@
 package stepdefs;
 
-import core.ConfigManager;
+import builders.BookingDataBuilder;
+import core.ApiClient;
+import core.BookingOrchestrator;
+import core.Config;
 import core.DBManager;
 import core.DriverFactory;
 import io.cucumber.java.en.*;
-import io.restassured.RestAssured;
 import org.testng.Assert;
+
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Orchestration Steps: The "Glue" Code.
@@ -15,35 +20,45 @@ import java.util.Map;
  */
 public class OrchestrationSteps {
     private final DBManager db = new DBManager();
-    private int lastCreatedId;
+    // One orchestrator per scenario (Cucumber creates a new steps instance each time).
+    private final BookingOrchestrator orchestrator = new BookingOrchestrator(ApiClient.shared(), db);
+    private CompletableFuture<BookingOrchestrator.Booking> lastCreated;
 
     @Given("I create a new booking via API with name {string} and price {int}")
     public void createBookingViaApi(String name, int price) {
         // Logic: Fast data creation via REST API.
-        String payload = String.format(
-                "{\"firstname\": \"%s\", \"lastname\": \"Zver\", \"totalprice\": %d, \"depositpaid\": true, \"bookingdates\": {\"checkin\": \"2026-01-01\", \"checkout\": \"2026-01-02\"}, \"additionalneeds\": \"Breakfast\"}",
-                name, price
-        );
-
-        lastCreatedId = RestAssured.given()
-                .contentType("application/json")
-                .body(payload)
-                .when()
-                .post(ConfigManager.getProperty("api.base.url") + "/booking")
-                .then().statusCode(200)
-                .extract().path("bookingid");
+        // The builder serializes straight to JSON, so there is no String.format or reflective mapping on this path.
+        // The call is only sent here: the scenario moves on (e.g. to the UI) while it is in flight, and the DB sync
+        // happens when a later step needs the booking.
+        lastCreated = orchestrator.create(new BookingDataBuilder()
+                .setFirstname(name)
+                .setLastname("Zver")
+                .setTotalPrice(price)
+                .setBookingDates("2026-01-01", "2026-01-02"));
+    }
 
-        // Syncing with local H2 for data integrity validation.
-        db.executeUpdate(String.format("INSERT INTO bookings (booking_id, firstname, totalprice) VALUES (%d, '%s', %d)",
-                lastCreatedId, name, price));
+    @Given("I create {int} bookings via API concurrently with name prefix {string} and price {int}")
+    public void createBookingsConcurrently(int count, String prefix, int price) {
+        for (int i = 1; i <= count; i++) {
+            orchestrator.create(new BookingDataBuilder()
+                    .setFirstname(prefix + i)
+                    .setLastname("Batch")
+                    .setTotalPrice(price + i)
+                    .setBookingDates("2026-01-01", "2026-01-02"));
+        }
+    }
 
-        System.out.println("E2E ORCHESTRATION: Created ID " + lastCreatedId);
+    @Then("all created bookings should be persisted and verified within {int} seconds")
+    public void verifyAllBookings(int seconds) {
+        // Persists whatever is still arriving, then checks DB and API in parallel against one deadline.
+        List<BookingOrchestrator.Booking> verified = orchestrator.awaitVerified(Duration.ofSeconds(seconds));
+        Assert.assertFalse(verified.isEmpty(), "ORCHESTRATION ERROR: nothing was created in this scenario.");
     }
 
     @Given("I navigate to the booking management dashboard")
     public void i_navigate_to_the_booking_management_dashboard() {
         // Now Hooks.java will have initialized the driver, so this won't be null.
-        DriverFactory.getDriver().get(ConfigManager.getProperty("base.url"));
+        DriverFactory.getDriver().get(Config.get("base.url"));
     }
 
     @Then("I should see the booking for {string} in the list")
@@ -54,9 +69,13 @@ public class OrchestrationSteps {
 
     @Then("The database should contain a record for {string} with price {int}")
     public void verifyInDatabase(String name, int price) {
+        // Writes every booking whose response has arrived (waiting for the rest) before reading the DB back.
+        orchestrator.awaitPersisted(BookingOrchestrator.defaultDeadline());
+        int lastCreatedId = lastCreated.join().getId();
+        System.out.println("E2E ORCHESTRATION: Created ID " + lastCreatedId);
+
         // Direct DB Verification: The final layer of truth.
-        String query = String.format("SELECT * FROM bookings WHERE booking_id=%d", lastCreatedId);
-        List<Map<String, Object>> results = db.executeQuery(query);
+        List<Map<String, Object>> results = db.query("SELECT * FROM bookings WHERE booking_id=?", lastCreatedId);
 
         Assert.assertFalse(results.isEmpty(), "DB ERROR: Record missing!");
         Assert.assertEquals(results.get(0).get("firstname"), name);
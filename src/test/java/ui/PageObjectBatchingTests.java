@@ -0,0 +1,159 @@
+package uitests;
+
+import core.Config;
+import core.Telemetry;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+import pages.BasePage;
+import pages.LoginPage;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Round-trip accounting of the page objects against a fake driver wrapped the way DriverFactory wraps a real one,
+ * so every command the page sends is counted. The batching script itself runs in the browser (LoginUiTests, @ui).
+ */
+public class PageObjectBatchingTests {
+
+    private final List<String> commands = new ArrayList<>();
+    private final List<String> typed = new ArrayList<>();
+
+    @AfterMethod(alwaysRun = true)
+    public void restore() {
+        Config.override("page.batch.enabled", null);
+        commands.clear();
+        typed.clear();
+    }
+
+    @Test
+    public void testLoginIsOneWaitAndOneScript() {
+        LoginPage page = new LoginPage(fakeDriver(() -> null, this::element));
+
+        long before = Telemetry.threadCalls(Telemetry.Layer.UI);
+        page.login("tomsmith", "SuperSecretPassword!");
+
+        Assert.assertEquals(commands, List.of("executeAsyncScript", "executeScript"));
+        Assert.assertEquals(Telemetry.threadCalls(Telemetry.Layer.UI) - before, 2);
+        Assert.assertTrue(typed.isEmpty(), "Batched login should not send keystrokes: " + typed);
+        Assert.assertNotNull(Telemetry.pageActionCommands("LoginPage.login"));
+    }
+
+    @Test
+    public void testRefusedBatchFallsBackToTyping() {
+        LoginPage page = new LoginPage(fakeDriver(() -> "field username is disabled or read-only", this::element));
+
+        page.login("tomsmith", "SuperSecretPassword!");
+
+        Assert.assertEquals(typed, List.of("tomsmith", "SuperSecretPassword!", "click"));
+    }
+
+    @Test
+    public void testBatchingCanBeSwitchedOff() {
+        Config.override("page.batch.enabled", "false");
+        LoginPage page = new LoginPage(fakeDriver(() -> {
+            throw new AssertionError("page.batch.enabled=false must not run the fill script");
+        }, this::element));
+
+        page.login("tomsmith", "SuperSecretPassword!");
+
+        Assert.assertEquals(typed, List.of("tomsmith", "SuperSecretPassword!", "click"));
+    }
+
+    @Test
+    public void testCachedElementIsReusedAndReplacedWhenStale() {
+        List<WebElement> found = new ArrayList<>();
+        found.add(element());
+        found.add(staleElement());
+        found.add(element());
+        LoginPage page = new LoginPage(fakeDriver(() -> null, () -> found.remove(0)));
+
+        page.enterUsername("a");
+        page.enterUsername("b");
+        Assert.assertEquals(commands.stream().filter("executeAsyncScript"::equals).count(), 1, "Second call should reuse the element");
+
+        // Fresh page object, stale cached node: one extra lookup, and the keys still arrive.
+        page = new LoginPage(fakeDriver(() -> null, () -> found.remove(0)));
+        commands.clear();
+        page.enterUsername("c");
+        page.enterUsername("d");
+        Assert.assertEquals(commands.stream().filter("executeAsyncScript"::equals).count(), 2);
+        Assert.assertEquals(typed, List.of("a", "b", "c", "d"));
+    }
+
+    @Test
+    public void testClickWaitsForClickableEvenWhenTheElementIsCached() {
+        FormPage page = new FormPage(fakeDriver(() -> null, this::element));
+        By button = By.id("submit");
+
+        page.read(button);
+        page.press(button);
+        page.read(button);
+
+        // visible() for the read, clickable() for the click; the read after the click re-resolves (the click may navigate).
+        Assert.assertEquals(commands, List.of("executeAsyncScript", "executeAsyncScript", "executeAsyncScript"));
+        Assert.assertEquals(typed, List.of("click"));
+    }
+
+    private WebDriver fakeDriver(Supplier<Object> fillScript, Supplier<WebElement> waitResult) {
+        WebDriver raw = (WebDriver) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{WebDriver.class, JavascriptExecutor.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "executeAsyncScript":
+                            commands.add(method.getName());
+                            return waitResult.get();
+                        case "executeScript":
+                            commands.add(method.getName());
+                            return fillScript.get();
+                        default:
+                            return null;
+                    }
+                });
+        return Telemetry.instrument(raw);
+    }
+
+    private WebElement element() {
+        return (WebElement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{WebElement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("sendKeys")) {
+                        typed.add(String.valueOf(((CharSequence[]) args[0])[0]));
+                    } else if (method.getName().equals("click")) {
+                        typed.add("click");
+                    }
+                    return null;
+                });
+    }
+
+    private WebElement staleElement() {
+        return (WebElement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{WebElement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("sendKeys")) {
+                        throw new StaleElementReferenceException("element is not attached to the page document");
+                    }
+                    return null;
+                });
+    }
+
+    private static final class FormPage extends BasePage {
+        FormPage(WebDriver driver) {
+            super(driver);
+        }
+
+        void read(By locator) {
+            text(locator);
+        }
+
+        void press(By locator) {
+            click(locator);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+# Integration Level: API + Database (no browser)
+# Runs on virtual threads when runner.virtual.threads=true.
+@regression @api @db
+Feature: Booking Persistence
+
+  Scenario: Booking created via API is synchronized to the database
+    # Step 1: API Layer (State Injection)
+    Given I create a new booking via API with name "Ada" and price 320
+
+    # Step 2: DB Layer (Data Integrity Validation)
+    Then The database should contain a record for "Ada" with price 320
+
+  Scenario: A batch of bookings created concurrently is persisted and verified
+    # API calls run concurrently; DB writes are pipelined behind the responses on the scenario thread.
+    Given I create 10 bookings via API concurrently with name prefix "Batch" and price 100
+    Then all created bookings should be persisted and verified within 30 seconds